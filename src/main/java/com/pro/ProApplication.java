@@ -1,12 +1,19 @@
 package com.pro;
 
+import com.pro.cli.AnalyzerCli;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+import java.util.Arrays;
+
 @SpringBootApplication
 public class ProApplication {
 
     public static void main(String[] args) {
+        // "cli" runs the headless batch mode instead of the web application
+        if (args.length > 0 && AnalyzerCli.COMMAND.equals(args[0])) {
+            System.exit(AnalyzerCli.run(Arrays.copyOfRange(args, 1, args.length)));
+        }
         SpringApplication.run(ProApplication.class, args);
     }
 
@@ -1,9 +1,29 @@
 package com.pro.apigraph.controller;
 
+import com.pro.apigraph.model.CytoscapeGraph;
 import com.pro.apigraph.model.Dependency;
-import com.pro.apigraph.model.RepoScanner;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pro.apigraph.service.BatchScanService;
+import com.pro.apigraph.service.GraphLayoutService;
+import com.pro.apigraph.service.ScanDiffService;
+import com.pro.apigraph.service.ScanService;
+import com.pro.controller.AnalysisRejectedAdvice;
+import com.pro.controller.EntityTag;
+import com.pro.graph.CompactGraph;
+import com.pro.graph.LayeredLayout;
+import com.pro.job.AnalysisRejectedException;
+import com.pro.job.EventStream;
+import com.pro.job.JobCancelledException;
+import com.pro.job.ProgressListener;
+import com.pro.model.WireGraph;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -15,9 +35,32 @@ import java.util.*;
 @CrossOrigin(origins = "*")
 public class ApiGraphController {
 
+    @Autowired
+    private GraphLayoutService graphLayoutService;
+
+    @Autowired
+    private ScanDiffService scanDiffService;
+
+    @Autowired
+    private ScanService scanService;
+
+    @Autowired
+    private BatchScanService batchScanService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Scans a repository into a Cytoscape graph, or into the compact wire format
+     * with "format": "compact". The response carries a strong ETag;
+     * a matching If-None-Match is answered with 304 from the retained scan as long as
+     * none of the scanned files changed, without scanning again.
+     */
     @PostMapping("/scan")
-    public ResponseEntity<?> scanRepository(@RequestBody Map<String, String> payload) {
+    public ResponseEntity<?> scanRepository(@RequestBody Map<String, String> payload,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         String pathStr = payload.get("path");
+        String format = payload.get("format");
         if (pathStr == null || pathStr.isBlank()) {
             return ResponseEntity.badRequest().body("Path is required");
         }
@@ -28,41 +71,194 @@ public class ApiGraphController {
         }
 
         try {
-            RepoScanner scanner = new RepoScanner(path);
-            List<Dependency> dependencies = scanner.scan();
-            return ResponseEntity.ok(toCytoscape(dependencies));
+            if (ifNoneMatch != null) {
+                ScanService.ScanResult current = scanService.current(pathStr);
+                if (current != null && EntityTag.matches(ifNoneMatch, etag(current, format))) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag(current, format)).build();
+                }
+            }
+            ScanService.ScanResult result = scanService.scan(pathStr);
+            return ResponseEntity.ok()
+                    .eTag(etag(result, format))
+                    .cacheControl(CacheControl.noCache())
+                    .body(toCytoscape(result, format));
+        } catch (AnalysisRejectedException e) {
+            return AnalysisRejectedAdvice.tooManyRequests(e);
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body("Error scanning repository: " + e.getMessage());
         }
     }
 
-    private Map<String, Object> toCytoscape(List<Dependency> deps) {
-        List<Map<String, Object>> nodes = new ArrayList<>();
-        List<Map<String, Object>> edges = new ArrayList<>();
-        Set<String> nodeSet = new HashSet<>();
+    /**
+     * Streams a scan as NDJSON, or as Server-Sent Events when the client accepts
+     * text/event-stream: each dependency as soon as its file is parsed, a "resolved"
+     * event for every streamed call that was then matched to the endpoint handling it,
+     * the laid out graph (compact with "format": "compact") and a summary
+     */
+    @PostMapping("/scan/stream")
+    public ResponseEntity<StreamingResponseBody> scanStream(@RequestBody Map<String, String> payload,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        String pathStr = payload.get("path");
+        if (pathStr == null || pathStr.isBlank()) {
+            throw new IllegalArgumentException("Path is required");
+        }
+
+        Path path = Paths.get(pathStr);
+        if (!Files.exists(path) || !Files.isDirectory(path)) {
+            throw new IllegalArgumentException("Invalid directory path");
+        }
+
+        boolean sse = EventStream.wantsSse(accept);
+        StreamingResponseBody body = out -> {
+            EventStream events = new EventStream(out, objectMapper, sse);
+            long start = System.nanoTime();
+            try {
+                ScanService.ScanResult result = scanService.scan(pathStr, events);
+                events.event("graph", toCytoscape(result, payload.get("format")));
+                Map<String, Object> summary = new LinkedHashMap<>();
+                summary.put("path", result.getKey());
+                summary.put("graphVersion", result.getVersion());
+                summary.put("dependencies", result.getDependencies().size());
+                summary.put("elapsedMs", (System.nanoTime() - start) / 1_000_000);
+                events.event("summary", summary);
+            } catch (JobCancelledException e) {
+                // Client went away, nothing left to write to
+            } catch (AnalysisRejectedException e) {
+                events.event("error", Map.of("message", e.getMessage(),
+                        "retryAfterSeconds", e.getRetryAfterSeconds()));
+            } catch (Exception e) {
+                events.event("error", Map.of("message", "Error scanning repository: " + e.getMessage()));
+            }
+            events.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(EventStream.mediaType(sse))
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                .body(body);
+    }
+
+    /**
+     * Returns one page of the k-hop neighborhood of a service in a scanned repository;
+     * pass the returned nextToken to continue expanding
+     */
+    @PostMapping("/scan/ego")
+    public ResponseEntity<?> egoGraph(@RequestBody Map<String, String> payload) {
+        try {
+            return ResponseEntity.ok(scanService.egoGraph(payload.get("path"), payload.get("service"),
+                    payload.get("hops"), payload.get("direction"), payload.get("budget"), payload.get("token")));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (AnalysisRejectedException e) {
+            return AnalysisRejectedAdvice.tooManyRequests(e);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Error scanning repository: " + e.getMessage());
+        }
+    }
 
-        for (Dependency d : deps) {
-            nodeSet.add(d.getSource());
-            nodeSet.add(d.getTarget());
+    /**
+     * Diffs two service graphs, given either as repository paths (basePath/headPath)
+     * or as raw dependency lists (base/head)
+     */
+    @PostMapping("/scan/diff")
+    public ResponseEntity<?> diffScans(@RequestBody Map<String, Object> payload) {
+        try {
+            List<Dependency> base = dependenciesFrom(payload, "base");
+            List<Dependency> head = dependenciesFrom(payload, "head");
+            Object limit = payload.get("limit");
+            return ResponseEntity.ok(scanDiffService.diff(base, head,
+                    limit != null ? Integer.parseInt(limit.toString().trim()) : 1000));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().body("limit must be a number");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (AnalysisRejectedException e) {
+            return AnalysisRejectedAdvice.tooManyRequests(e);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Error diffing repositories: " + e.getMessage());
         }
+    }
 
-        for (String n : nodeSet) {
-            nodes.add(Map.of("data", Map.of("id", n, "label", n)));
+    /**
+     * Scans many repositories ("paths") concurrently and returns one merged service
+     * graph, with per-repository status and timings. Repositories that fail are
+     * reported and left out; the rest of the batch still completes.
+     */
+    @PostMapping("/scan/batch")
+    public ResponseEntity<?> scanBatch(@RequestBody Map<String, Object> payload) {
+        Object paths = payload.get("paths");
+        if (!(paths instanceof List<?> list)) {
+            return ResponseEntity.badRequest().body("paths must be a list of repository paths");
         }
+        Object format = payload.get("format");
+        try {
+            BatchScanService.BatchResult result = batchScanService.scan(
+                    list.stream().map(p -> p != null ? p.toString() : null).toList(), ProgressListener.NONE);
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("summary", result.getSummary());
+            response.put("repositories", result.getRepositories());
+            response.put("graph", toCytoscape(result.getMerged(), format != null ? format.toString() : null));
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (AnalysisRejectedException e) {
+            return AnalysisRejectedAdvice.tooManyRequests(e);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Error scanning repositories: " + e.getMessage());
+        }
+    }
 
-        int edgeId = 1;
-        for (Dependency d : deps) {
-            edges.add(Map.of(
-                    "data", Map.of(
-                            "id", "e" + edgeId++,
-                            "source", d.getSource(),
-                            "target", d.getTarget(),
-                            "label",
-                            (d.getMethod() != null ? d.getMethod() + " " : "")
-                                    + (d.getLabel() != null ? d.getLabel() : ""),
-                            "method", d.getMethod() != null ? d.getMethod() : "")));
+    /**
+     * Validation errors of the streaming endpoint, answered before streaming starts
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    private List<Dependency> dependenciesFrom(Map<String, Object> payload, String side) throws Exception {
+        Object document = payload.get(side);
+        if (document != null) {
+            return objectMapper.convertValue(document, new TypeReference<List<Dependency>>() {
+            });
+        }
+        Object pathStr = payload.get(side + "Path");
+        if (pathStr == null || pathStr.toString().isBlank()) {
+            throw new IllegalArgumentException("Either " + side + " or " + side + "Path is required");
+        }
+        Path path = Paths.get(pathStr.toString());
+        if (!Files.exists(path) || !Files.isDirectory(path)) {
+            throw new IllegalArgumentException("Invalid directory path: " + pathStr);
         }
+        return scanService.scan(pathStr.toString()).getDependencies();
+    }
+
+    // The scanned files determine the graph, its version and its layout
+    private static String etag(ScanService.ScanResult result, String format) {
+        return EntityTag.strong("scan", result.getKey(), result.getFingerprint(), result.getVersion(),
+                WireGraph.requested(format) ? WireGraph.FORMAT : "cytoscape");
+    }
 
-        return Map.of("elements", Map.of("nodes", nodes, "edges", edges));
+    /**
+     * The scanned graph as Cytoscape elements, or in the compact wire format when asked for
+     */
+    private Object toCytoscape(ScanService.ScanResult result, String format) {
+        // Layer, order and precomputed positions let the client skip its own layout
+        String version = result.getVersion();
+        CompactGraph compact = result.getGraph();
+        List<Dependency> deps = result.getDependencies();
+        LayeredLayout layout = graphLayoutService.layers(version, compact);
+        Map<String, double[]> positions = graphLayoutService.positions(version, compact);
+        if (!WireGraph.requested(format)) {
+            return new CytoscapeGraph(version, deps, compact, layout, positions);
+        }
+        // Edge ids are indexes into the dependency list
+        return new WireGraph(version, compact)
+                .sortedById()
+                .intColumn("layer", layout::layer)
+                .intColumn("order", layout::order)
+                .doubleColumn("x", v -> positions.get(compact.name(v))[0])
+                .doubleColumn("y", v -> positions.get(compact.name(v))[1])
+                .edgeText(e -> deps.get(e).getMethod(), e -> deps.get(e).getLabel())
+                .edgeRoutes(e -> deps.get(e).getRoute(), e -> deps.get(e).getHandler());
     }
 }
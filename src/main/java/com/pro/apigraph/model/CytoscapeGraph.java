@@ -0,0 +1,147 @@
+package com.pro.apigraph.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.pro.graph.CompactGraph;
+import com.pro.graph.LayeredLayout;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * A scanned service graph in Cytoscape's elements format. Nothing is materialized
+ * per node or edge: the serializer walks the dependency list and writes tokens
+ * straight to the generator, so serialization needs constant memory on top of the
+ * graph itself however many edges there are.
+ *
+ * <p>Output is {"graphVersion", "elements": {"nodes", "edges"}} with nodes sorted by
+ * name, each carrying id, label, layer, order and a position, and edges in list order
+ * with ids e1, e2, ...
+ */
+@JsonSerialize(using = CytoscapeGraph.Serializer.class)
+public class CytoscapeGraph {
+
+    private final String version;
+    private final List<Dependency> dependencies;
+    private final CompactGraph graph;
+    private final LayeredLayout layout;
+    private final Map<String, double[]> positions;
+
+    public CytoscapeGraph(String version, List<Dependency> dependencies, CompactGraph graph,
+            LayeredLayout layout, Map<String, double[]> positions) {
+        this.version = version;
+        this.dependencies = dependencies;
+        this.graph = graph;
+        this.layout = layout;
+        this.positions = positions;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public int nodeCount() {
+        return graph.nodeCount();
+    }
+
+    public int edgeCount() {
+        return dependencies.size();
+    }
+
+    static class Serializer extends StdSerializer<CytoscapeGraph> {
+
+        Serializer() {
+            super(CytoscapeGraph.class);
+        }
+
+        @Override
+        public void serialize(CytoscapeGraph value, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            gen.writeStartObject();
+            gen.writeStringField("graphVersion", value.version);
+            gen.writeObjectFieldStart("elements");
+            writeNodes(value, gen);
+            writeEdges(value, gen);
+            gen.writeEndObject();
+            gen.writeEndObject();
+        }
+
+        private static void writeNodes(CytoscapeGraph value, JsonGenerator gen) throws IOException {
+            CompactGraph graph = value.graph;
+            Integer[] order = new Integer[graph.nodeCount()];
+            for (int v = 0; v < order.length; v++) {
+                order[v] = v;
+            }
+            Arrays.sort(order, Comparator.comparing(graph::name));
+
+            gen.writeArrayFieldStart("nodes");
+            for (int v : order) {
+                String name = graph.name(v);
+                double[] position = value.positions.get(name);
+                gen.writeStartObject();
+                gen.writeObjectFieldStart("data");
+                gen.writeStringField("id", name);
+                gen.writeStringField("label", name);
+                gen.writeNumberField("layer", value.layout.layer(v));
+                gen.writeNumberField("order", value.layout.order(v));
+                gen.writeEndObject();
+                gen.writeObjectFieldStart("position");
+                gen.writeNumberField("x", position[0]);
+                gen.writeNumberField("y", position[1]);
+                gen.writeEndObject();
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        }
+
+        private static void writeEdges(CytoscapeGraph value, JsonGenerator gen) throws IOException {
+            // Composed ids and labels go through one reused buffer instead of a string per edge
+            StringBuilder text = new StringBuilder(64);
+            char[] chars = new char[64];
+            int edgeId = 1;
+
+            gen.writeArrayFieldStart("edges");
+            for (Dependency d : value.dependencies) {
+                String method = d.getMethod() != null ? d.getMethod() : "";
+                gen.writeStartObject();
+                gen.writeObjectFieldStart("data");
+                gen.writeFieldName("id");
+                text.setLength(0);
+                chars = writeText(gen, text.append('e').append(edgeId++), chars);
+                gen.writeStringField("source", d.getSource());
+                gen.writeStringField("target", d.getTarget());
+                gen.writeFieldName("label");
+                text.setLength(0);
+                if (d.getMethod() != null) {
+                    text.append(method).append(' ');
+                }
+                if (d.getLabel() != null) {
+                    text.append(d.getLabel());
+                }
+                chars = writeText(gen, text, chars);
+                gen.writeStringField("method", method);
+                // Set on endpoints and on calls resolved to the endpoint that handles them
+                if (d.getRoute() != null) {
+                    gen.writeStringField("route", d.getRoute());
+                }
+                if (d.getHandler() != null) {
+                    gen.writeStringField("handler", d.getHandler());
+                }
+                gen.writeEndObject();
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        }
+
+        private static char[] writeText(JsonGenerator gen, StringBuilder text, char[] chars) throws IOException {
+            if (chars.length < text.length()) {
+                chars = new char[Math.max(text.length(), chars.length * 2)];
+            }
+            text.getChars(0, text.length(), chars, 0);
+            gen.writeString(chars, 0, text.length());
+            return chars;
+        }
+    }
+}
@@ -1,10 +1,20 @@
 package com.pro.apigraph.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 public class Dependency {
     private String source;
     private String target;
     private String label;
     private String method;
+    // HTTP method of a call or endpoint, when the source tells
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String httpMethod;
+    // Route template and Class.method of the endpoint that handles a call or is exposed
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String route;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String handler;
 
     public Dependency() {
     }
@@ -47,4 +57,28 @@ public class Dependency {
     public void setMethod(String method) {
         this.method = method;
     }
+
+    public String getHttpMethod() {
+        return httpMethod;
+    }
+
+    public void setHttpMethod(String httpMethod) {
+        this.httpMethod = httpMethod;
+    }
+
+    public String getRoute() {
+        return route;
+    }
+
+    public void setRoute(String route) {
+        this.route = route;
+    }
+
+    public String getHandler() {
+        return handler;
+    }
+
+    public void setHandler(String handler) {
+        this.handler = handler;
+    }
 }
@@ -0,0 +1,85 @@
+package com.pro.apigraph.model;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dependencies found in single files, kept while a file's size and modification
+ * time are unchanged. Shared by every scan, so rescanning a repository, or the
+ * repositories of a batch, only parses the files that changed. Bounded by entry
+ * count, least recently used first.
+ */
+public class FileScanCache {
+
+    private static final class Entry {
+        final long size;
+        final long modified;
+        final String service;
+        final List<Dependency> dependencies;
+
+        Entry(long size, long modified, String service, List<Dependency> dependencies) {
+            this.size = size;
+            this.modified = modified;
+            this.service = service;
+            this.dependencies = dependencies;
+        }
+    }
+
+    private final int maxEntries;
+    private final Map<String, Entry> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public FileScanCache(int maxEntries) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.entries = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > FileScanCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Dependencies parsed from the file when it had this size and modification time
+     * and belonged to the same service, or null
+     */
+    public List<Dependency> get(String file, long size, long modified, String service) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(file);
+        }
+        if (entry != null && entry.size == size && entry.modified == modified && entry.service.equals(service)) {
+            hits.incrementAndGet();
+            return entry.dependencies;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(String file, long size, long modified, String service, List<Dependency> dependencies) {
+        Entry entry = new Entry(size, modified, service, Collections.unmodifiableList(new ArrayList<>(dependencies)));
+        synchronized (entries) {
+            entries.put(file, entry);
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (entries) {
+            stats.put("entries", entries.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        return stats;
+    }
+}
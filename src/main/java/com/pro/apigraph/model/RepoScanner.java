@@ -2,25 +2,106 @@ package com.pro.apigraph.model;
 
 import com.pro.apigraph.parser.JavaFileParser;
 import com.pro.apigraph.parser.YamlConfigParser;
+import com.pro.job.ProgressListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class RepoScanner {
 
+    private static final Logger logger = LoggerFactory.getLogger(RepoScanner.class);
+
     private final Path root;
+    private final FileScanCache cache;
+    // Service name per directory; files of one directory share it
+    private final Map<Path, String> services = new ConcurrentHashMap<>();
     private static final Set<String> IGNORED_DIRS = Set.of(
             ".git", ".idea", "target", "build", "out", "node_modules", "test", "src/test");
 
     public RepoScanner(Path root) {
+        this(root, null);
+    }
+
+    /**
+     * A scanner that reuses per-file results from the cache while files are unchanged
+     */
+    public RepoScanner(Path root, FileScanCache cache) {
         this.root = root;
+        this.cache = cache;
     }
 
     public List<Dependency> scan() throws IOException {
-        List<Dependency> list = new ArrayList<>();
+        return scan(ProgressListener.NONE);
+    }
+
+    /**
+     * Scans the repository, reporting progress per file and stopping between files
+     * once the listener asks for cancellation. Dependencies are reported as "dependency"
+     * items while files are parsed; calls that are then matched to the endpoint
+     * handling them are reported again as "resolved" items holding the call as first
+     * reported and the edge it became.
+     */
+    public List<Dependency> scan(ProgressListener listener) throws IOException {
+        listener.phase("discovering");
+        List<Path> files = discover();
+        listener.total(files.size());
+        listener.phase("parsing");
+        // Deduplicated per file, so accepted dependencies can be reported right away
+        Set<String> seen = new HashSet<>();
+        Set<Dependency> reported = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Dependency> found = new ArrayList<>();
+        for (Path file : files) {
+            listener.checkCancelled();
+            List<Dependency> deps = dependenciesOf(file);
+            found.addAll(deps);
+            for (Dependency d : deps) {
+                if (accept(d, seen)) {
+                    listener.found("dependency", d);
+                    reported.add(d);
+                }
+            }
+            listener.fileDone(file.getFileName().toString());
+        }
+
+        // Calls can only be matched to endpoints once every file is parsed
+        listener.phase("linking");
+        List<Dependency> stitched = RouteStitcher.stitch(found);
+        for (int i = 0; i < found.size(); i++) {
+            Dependency call = found.get(i);
+            if (stitched.get(i) != call && reported.contains(call)) {
+                Map<String, Dependency> resolved = new LinkedHashMap<>();
+                resolved.put("call", call);
+                resolved.put("dependency", stitched.get(i));
+                listener.found("resolved", resolved);
+            }
+        }
+        return filter(stitched);
+    }
+
+    /**
+     * The dependencies accept keeps, in order
+     */
+    public static List<Dependency> filter(List<Dependency> dependencies) {
+        Set<String> seen = new HashSet<>();
+        List<Dependency> out = new ArrayList<>();
+        for (Dependency d : dependencies) {
+            if (accept(d, seen)) {
+                out.add(d);
+            }
+        }
+        return out;
+    }
 
+    /**
+     * Files a scan reads, sorted so repeated scans list dependencies alike
+     */
+    public List<Path> discover() throws IOException {
+        List<Path> files = new ArrayList<>();
         Files.walkFileTree(root, new SimpleFileVisitor<>() {
             @Override
             public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
@@ -33,29 +114,62 @@ public class RepoScanner {
             @Override
             public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
                 if (isSupported(file)) {
-                    processFile(file, list);
+                    files.add(file);
                 }
                 return FileVisitResult.CONTINUE;
             }
         });
+        // Walk order depends on the file system
+        Collections.sort(files);
+        return files;
+    }
 
-        return dedupe(list);
+    /**
+     * Unfiltered dependencies found in one file; safe to call from several threads
+     */
+    public List<Dependency> dependenciesOf(Path file) {
+        String serviceName = determineServiceName(file);
+        if (serviceName == null) {
+            return List.of();
+        }
+        BasicFileAttributes attrs = null;
+        if (cache != null) {
+            try {
+                attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                List<Dependency> cached = cache.get(file.toString(), attrs.size(),
+                        attrs.lastModifiedTime().toMillis(), serviceName);
+                if (cached != null) {
+                    return cached;
+                }
+            } catch (IOException e) {
+                attrs = null;
+            }
+        }
+        List<Dependency> list = new ArrayList<>();
+        processFile(file, serviceName, list);
+        if (attrs != null) {
+            cache.put(file.toString(), attrs.size(), attrs.lastModifiedTime().toMillis(), serviceName, list);
+        }
+        return list;
     }
 
     private boolean isSupported(Path p) {
-        String f = p.toString().toLowerCase();
+        return isScanned(p.toString());
+    }
+
+    /**
+     * Whether a file with this name is read by a scan
+     */
+    public static boolean isScanned(String fileName) {
+        String f = fileName.toLowerCase();
         return f.endsWith(".java") || f.endsWith(".json") || f.endsWith(".yaml") || f.endsWith(".yml")
                 || f.endsWith(".properties");
     }
 
-    private void processFile(Path file, List<Dependency> list) {
+    private void processFile(Path file, String serviceName, List<Dependency> list) {
         try {
-            String serviceName = determineServiceName(file);
-            if (serviceName == null)
-                return;
-
             String fileName = file.getFileName().toString().toLowerCase();
-            System.out.println("Processing: " + file + " (service: " + serviceName + ")");
+            logger.debug("Processing: {} (service: {})", file, serviceName);
 
             if (fileName.endsWith(".java")) {
                 list.addAll(JavaFileParser.parse(file, serviceName));
@@ -64,11 +178,16 @@ public class RepoScanner {
                 list.addAll(YamlConfigParser.parse(file, serviceName));
             }
         } catch (Exception e) {
-            System.err.println("Error processing file " + file + ": " + e.getMessage());
+            logger.warn("Error processing file {}: {}", file, e.getMessage());
         }
     }
 
     private String determineServiceName(Path file) {
+        Path parent = file.getParent();
+        return parent != null ? services.computeIfAbsent(parent, dir -> serviceName(file)) : serviceName(file);
+    }
+
+    private String serviceName(Path file) {
         // Heuristic: Use the name of the directory containing 'pom.xml' or
         // 'build.gradle'
         // closest to the file, or just the parent directory name if not found.
@@ -86,27 +205,24 @@ public class RepoScanner {
         return "unknown";
     }
 
-    private List<Dependency> dedupe(List<Dependency> list) {
-        Set<String> set = new HashSet<>();
-        List<Dependency> out = new ArrayList<>();
-
-        for (Dependency d : list) {
-            // Filter self-loops and empty targets
-            if (d.getSource().equals(d.getTarget()) || d.getTarget().isEmpty())
-                continue;
-
-            // Filter common noisy targets
-            if (isNoisyTarget(d.getTarget()))
-                continue;
-
-            String key = d.getSource() + "|" + d.getTarget() + "|" + d.getLabel();
-            if (set.add(key))
-                out.add(d);
-        }
-        return out;
+    /**
+     * Drops self-loops, noisy targets and dependencies already in seen, which
+     * collects the keys of accepted ones
+     */
+    public static boolean accept(Dependency d, Set<String> seen) {
+        // Filter self-loops and empty targets
+        if (d.getSource().equals(d.getTarget()) || d.getTarget().isEmpty())
+            return false;
+
+        // Filter common noisy targets
+        if (isNoisyTarget(d.getTarget()))
+            return false;
+
+        String key = d.getSource() + "|" + d.getTarget() + "|" + d.getLabel();
+        return seen.add(key);
     }
 
-    private boolean isNoisyTarget(String target) {
+    private static boolean isNoisyTarget(String target) {
         return target.equalsIgnoreCase("localhost") ||
                 target.equalsIgnoreCase("127.0.0.1") ||
                 target.startsWith("java.") ||
@@ -0,0 +1,115 @@
+package com.pro.apigraph.model;
+
+import com.pro.graph.RouteTrie;
+
+import java.util.*;
+
+/**
+ * Connects outbound calls to the controller endpoints that handle them. Every
+ * exposed endpoint (EXTERNAL -> service) goes into a route trie; the path of each
+ * RestTemplate, WebClient or Feign call is matched against it, and a call that
+ * resolves to one service becomes an edge to that service, annotated with the
+ * matched route and handler. Calls whose host is a placeholder or not a service
+ * name are resolved too, as long as only one service handles the path.
+ */
+public class RouteStitcher {
+
+    private static final String EXTERNAL = "EXTERNAL";
+
+    private final RouteTrie<Dependency> routes = new RouteTrie<>();
+    private final Set<String> services = new HashSet<>();
+
+    /**
+     * Indexes the endpoints among the dependencies
+     */
+    public RouteStitcher(Collection<Dependency> dependencies) {
+        for (Dependency d : dependencies) {
+            if (isEndpoint(d)) {
+                routes.add(d.getHttpMethod(), d.getRoute() != null ? d.getRoute() : d.getLabel(), d);
+                services.add(d.getTarget());
+            }
+        }
+    }
+
+    /**
+     * The dependencies with resolvable calls replaced by edges to their handlers;
+     * the input and its elements are left unchanged
+     */
+    public static List<Dependency> stitch(List<Dependency> dependencies) {
+        return new RouteStitcher(dependencies).resolve(dependencies);
+    }
+
+    /**
+     * Resolves calls against the endpoints this stitcher was built from
+     */
+    public List<Dependency> resolve(List<Dependency> dependencies) {
+        if (routes.size() == 0) {
+            return dependencies;
+        }
+        List<Dependency> out = new ArrayList<>(dependencies.size());
+        for (Dependency d : dependencies) {
+            Dependency resolved = resolve(d);
+            out.add(resolved != null ? resolved : d);
+        }
+        return out;
+    }
+
+    /**
+     * Number of exposed endpoints indexed
+     */
+    public int size() {
+        return routes.size();
+    }
+
+    private Dependency resolve(Dependency call) {
+        if (isEndpoint(call) || call.getHandler() != null || call.getLabel() == null
+                || RouteTrie.segments(call.getLabel()).isEmpty()) {
+            return null;
+        }
+        RouteTrie.Match<Dependency> match = routes.match(call.getHttpMethod(), call.getLabel());
+        if (match == null) {
+            return null;
+        }
+        RouteTrie.Route<Dependency> route = pick(call.getTarget(), match.getRoutes());
+        if (route == null) {
+            return null;
+        }
+        Dependency endpoint = route.getValue();
+        Dependency d = new Dependency(call.getSource(), endpoint.getTarget(), call.getLabel(), call.getMethod());
+        d.setHttpMethod(call.getHttpMethod() != null ? call.getHttpMethod() : endpoint.getHttpMethod());
+        d.setRoute(route.getTemplate());
+        d.setHandler(endpoint.getHandler());
+        return d;
+    }
+
+    // The route of the service named by the host, else the only service handling the path
+    private RouteTrie.Route<Dependency> pick(String host, List<RouteTrie.Route<Dependency>> candidates) {
+        if (services.contains(host) || services.contains(firstLabel(host))) {
+            for (RouteTrie.Route<Dependency> route : candidates) {
+                String service = route.getValue().getTarget();
+                if (service.equals(host) || service.equals(firstLabel(host))) {
+                    return route;
+                }
+            }
+            // The host is a known service that does not serve this path
+            return null;
+        }
+        String service = candidates.get(0).getValue().getTarget();
+        for (RouteTrie.Route<Dependency> route : candidates) {
+            if (!route.getValue().getTarget().equals(service)) {
+                return null;
+            }
+        }
+        return candidates.get(0);
+    }
+
+    // "orders.default.svc" names the orders service
+    private static String firstLabel(String host) {
+        int dot = host.indexOf('.');
+        return dot > 0 ? host.substring(0, dot) : host;
+    }
+
+    private static boolean isEndpoint(Dependency d) {
+        return EXTERNAL.equals(d.getSource()) && d.getMethod() != null && d.getMethod().endsWith("-Endpoint");
+    }
+}
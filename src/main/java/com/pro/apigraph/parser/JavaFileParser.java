@@ -1,13 +1,18 @@
 package com.pro.apigraph.parser;
 
 import com.pro.apigraph.model.Dependency;
-import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParseResult;
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.expr.ArrayInitializerExpr;
 import com.github.javaparser.ast.expr.Expression;
 import com.github.javaparser.ast.expr.MethodCallExpr;
 import com.github.javaparser.ast.expr.AnnotationExpr;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -16,12 +21,21 @@ import java.util.*;
 
 public class JavaFileParser {
 
+    private static final Logger logger = LoggerFactory.getLogger(JavaFileParser.class);
+
+    // JavaParser is not thread-safe and batch scans parse files concurrently; one per thread
+    private static final ThreadLocal<JavaParser> PARSER = ThreadLocal.withInitial(JavaParser::new);
+
     public static List<Dependency> parse(Path file, String sourceService) {
         List<Dependency> deps = new ArrayList<>();
 
         try {
             String code = Files.readString(file, StandardCharsets.UTF_8);
-            CompilationUnit cu = StaticJavaParser.parse(code);
+            ParseResult<CompilationUnit> result = PARSER.get().parse(code);
+            if (!result.isSuccessful() || result.getResult().isEmpty()) {
+                throw new ParseProblemException(result.getProblems());
+            }
+            CompilationUnit cu = result.getResult().get();
 
             // 1. Detect @FeignClient
             detectFeignClients(cu, sourceService, deps);
@@ -36,7 +50,7 @@ public class JavaFileParser {
             detectControllerEndpoints(cu, sourceService, deps);
 
         } catch (Exception e) {
-            System.err.println("Error parsing " + file + ": " + e.getMessage());
+            logger.warn("Error parsing {}: {}", file, e.getMessage());
         }
 
         return deps;
@@ -52,17 +66,17 @@ public class JavaFileParser {
                             String value = pair.getValue().toString().replace("\"", "");
                             if (key.equals("name") || key.equals("value")) {
                                 deps.add(new Dependency(sourceService, value, "/", "Feign"));
-                                System.out.println("  [Feign] " + sourceService + " -> " + value);
+                                logger.debug("[Feign] {} -> {}", sourceService, value);
                             } else if (key.equals("url")) {
                                 Dependency d = parseUrl(sourceService, value, "Feign");
                                 deps.add(d);
-                                System.out.println("  [Feign URL] " + sourceService + " -> " + d.getTarget());
+                                logger.debug("[Feign URL] {} -> {}", sourceService, d.getTarget());
                             }
                         });
                     } else if (a.isSingleMemberAnnotationExpr()) {
                         String value = a.asSingleMemberAnnotationExpr().getMemberValue().toString().replace("\"", "");
                         deps.add(new Dependency(sourceService, value, "/", "Feign"));
-                        System.out.println("  [Feign] " + sourceService + " -> " + value);
+                        logger.debug("[Feign] {} -> {}", sourceService, value);
                     }
                 });
     }
@@ -77,9 +91,9 @@ public class JavaFileParser {
                         extractStringLiteral(firstArg).ifPresent(url -> {
                             if (isValidUrlOrPath(url)) {
                                 Dependency d = parseUrl(sourceService, url, "RestTemplate");
+                                d.setHttpMethod(restTemplateHttpMethod(m));
                                 deps.add(d);
-                                System.out.println(
-                                        "  [RestTemplate] " + sourceService + " -> " + d.getTarget() + d.getLabel());
+                                logger.debug("[RestTemplate] {} -> {}{}", sourceService, d.getTarget(), d.getLabel());
                             }
                         });
                     }
@@ -97,6 +111,32 @@ public class JavaFileParser {
                 methodName.equals("execute");
     }
 
+    // HTTP method implied by the RestTemplate method, or passed to exchange as HttpMethod.X
+    private static String restTemplateHttpMethod(MethodCallExpr m) {
+        String name = m.getNameAsString();
+        if (name.startsWith("get"))
+            return "GET";
+        if (name.startsWith("post"))
+            return "POST";
+        if (name.startsWith("patch"))
+            return "PATCH";
+        if (name.equals("put"))
+            return "PUT";
+        if (name.equals("delete"))
+            return "DELETE";
+        if (m.getArguments().size() > 1) {
+            return httpMethodConstant(m.getArguments().get(1));
+        }
+        return null;
+    }
+
+    private static String httpMethodConstant(Expression e) {
+        if (e.isFieldAccessExpr() && e.asFieldAccessExpr().getScope().toString().endsWith("HttpMethod")) {
+            return e.asFieldAccessExpr().getNameAsString();
+        }
+        return null;
+    }
+
     private static void detectWebClientCalls(CompilationUnit cu, String sourceService, List<Dependency> deps) {
         cu.findAll(MethodCallExpr.class).stream()
                 .filter(m -> m.getNameAsString().equals("uri"))
@@ -106,15 +146,32 @@ public class JavaFileParser {
                         extractStringLiteral(firstArg).ifPresent(url -> {
                             if (isValidUrlOrPath(url)) {
                                 Dependency d = parseUrl(sourceService, url, "WebClient");
+                                d.setHttpMethod(webClientHttpMethod(m));
                                 deps.add(d);
-                                System.out.println(
-                                        "  [WebClient] " + sourceService + " -> " + d.getTarget() + d.getLabel());
+                                logger.debug("[WebClient] {} -> {}{}", sourceService, d.getTarget(), d.getLabel());
                             }
                         });
                     }
                 });
     }
 
+    // webClient.get().uri(...) or webClient.method(HttpMethod.X).uri(...)
+    private static String webClientHttpMethod(MethodCallExpr uri) {
+        if (uri.getScope().isEmpty() || !uri.getScope().get().isMethodCallExpr()) {
+            return null;
+        }
+        MethodCallExpr scope = uri.getScope().get().asMethodCallExpr();
+        String name = scope.getNameAsString();
+        if (name.equals("method") && scope.getArguments().size() == 1) {
+            return httpMethodConstant(scope.getArguments().get(0));
+        }
+        if (name.equals("get") || name.equals("post") || name.equals("put") || name.equals("delete")
+                || name.equals("patch") || name.equals("head") || name.equals("options")) {
+            return name.toUpperCase(Locale.ROOT);
+        }
+        return null;
+    }
+
     private static void detectControllerEndpoints(CompilationUnit cu, String sourceService, List<Dependency> deps) {
         cu.findAll(ClassOrInterfaceDeclaration.class).forEach(cls -> {
             // Check if class is a controller
@@ -125,28 +182,36 @@ public class JavaFileParser {
             if (!isController)
                 return;
 
-            // Get base path from @RequestMapping on class
-            String basePath = "";
+            // Get base paths from @RequestMapping on class
+            List<String> basePaths = List.of("");
             for (AnnotationExpr ann : cls.getAnnotations()) {
                 if (ann.getNameAsString().equals("RequestMapping")) {
-                    basePath = extractPathFromMapping(ann);
+                    basePaths = extractPathsFromMapping(ann);
                 }
             }
 
             // Process each method
-            String finalBasePath = basePath;
+            List<String> finalBasePaths = basePaths;
             cls.findAll(MethodDeclaration.class).forEach(method -> {
                 for (AnnotationExpr ann : method.getAnnotations()) {
                     String annName = ann.getNameAsString();
                     if (isMappingAnnotation(annName)) {
-                        String methodPath = extractPathFromMapping(ann);
-                        String fullPath = combinePaths(finalBasePath, methodPath);
-                        String httpMethod = getHttpMethod(annName);
-
-                        // Create a "virtual" dependency showing this service exposes an endpoint
-                        // Format: endpoint -> sourceService (reverse of normal dependency)
-                        deps.add(new Dependency("EXTERNAL", sourceService, fullPath, httpMethod + "-Endpoint"));
-                        System.out.println("  [Endpoint] " + sourceService + " exposes " + httpMethod + " " + fullPath);
+                        String httpMethod = getHttpMethod(ann);
+                        for (String basePath : finalBasePaths) {
+                            for (String methodPath : extractPathsFromMapping(ann)) {
+                                String fullPath = combinePaths(basePath, methodPath);
+
+                                // Create a "virtual" dependency showing this service exposes an endpoint
+                                // Format: endpoint -> sourceService (reverse of normal dependency)
+                                Dependency d = new Dependency("EXTERNAL", sourceService, fullPath,
+                                        httpMethod + "-Endpoint");
+                                d.setHttpMethod(httpMethod.equals("REQUEST") ? null : httpMethod);
+                                d.setRoute(fullPath);
+                                d.setHandler(cls.getNameAsString() + "." + method.getNameAsString());
+                                deps.add(d);
+                                logger.debug("[Endpoint] {} exposes {} {}", sourceService, httpMethod, fullPath);
+                            }
+                        }
                     }
                 }
             });
@@ -162,6 +227,18 @@ public class JavaFileParser {
                 name.equals("RequestMapping");
     }
 
+    private static String getHttpMethod(AnnotationExpr ann) {
+        // @RequestMapping(method = RequestMethod.X); several methods still mean any
+        if (ann.getNameAsString().equals("RequestMapping") && ann.isNormalAnnotationExpr()) {
+            return ann.asNormalAnnotationExpr().getPairs().stream()
+                    .filter(p -> p.getNameAsString().equals("method") && p.getValue().isFieldAccessExpr())
+                    .map(p -> p.getValue().asFieldAccessExpr().getNameAsString())
+                    .findFirst()
+                    .orElse("REQUEST");
+        }
+        return getHttpMethod(ann.getNameAsString());
+    }
+
     private static String getHttpMethod(String annotationName) {
         if (annotationName.equals("GetMapping"))
             return "GET";
@@ -176,26 +253,32 @@ public class JavaFileParser {
         return "REQUEST";
     }
 
-    private static String extractPathFromMapping(AnnotationExpr ann) {
+    private static List<String> extractPathsFromMapping(AnnotationExpr ann) {
         if (ann.isSingleMemberAnnotationExpr()) {
-            String value = ann.asSingleMemberAnnotationExpr().getMemberValue().toString();
-            return cleanPath(value);
+            return cleanPaths(ann.asSingleMemberAnnotationExpr().getMemberValue());
         } else if (ann.isNormalAnnotationExpr()) {
             return ann.asNormalAnnotationExpr().getPairs().stream()
                     .filter(p -> p.getNameAsString().equals("value") || p.getNameAsString().equals("path"))
                     .findFirst()
-                    .map(p -> cleanPath(p.getValue().toString()))
-                    .orElse("");
+                    .map(p -> cleanPaths(p.getValue()))
+                    .orElse(List.of(""));
         }
-        return "";
+        return List.of("");
     }
 
-    private static String cleanPath(String path) {
-        // Remove quotes and array brackets
-        path = path.replace("\"", "").replace("{", "").replace("}", "");
-        if (path.startsWith("[") && path.endsWith("]")) {
-            path = path.substring(1, path.length() - 1);
+    // One path per element of {"/a", "/b"}; path variables such as {id} are kept
+    private static List<String> cleanPaths(Expression value) {
+        if (value instanceof ArrayInitializerExpr array) {
+            List<String> paths = new ArrayList<>();
+            array.getValues().forEach(v -> paths.add(cleanPath(v)));
+            return paths.isEmpty() ? List.of("") : paths;
         }
+        return List.of(cleanPath(value));
+    }
+
+    private static String cleanPath(Expression value) {
+        String path = value.isStringLiteralExpr() ? value.asStringLiteralExpr().getValue()
+                : value.toString().replace("\"", "");
         if (!path.startsWith("/")) {
             path = "/" + path;
         }
@@ -224,13 +307,16 @@ public class JavaFileParser {
     private static Dependency parseUrl(String source, String url, String method) {
         String cleaned = url.replace("http://", "").replace("https://", "");
 
-        // Filter out placeholders and format specifiers
-        if (cleaned.contains("%") || cleaned.contains("${") || cleaned.contains("{")) {
-            return new Dependency(source, "config-dependent", "/", method);
-        }
-
         String[] parts = cleaned.split("/", 2);
         String target = parts[0];
+        // The path is kept even when the host is unknown, so the call can still be
+        // matched against the endpoints that handle it
+        String endpoint = parts.length > 1 ? "/" + parts[1] : "/";
+
+        // Placeholders and format specifiers in the host; path variables are fine
+        if (target.contains("%") || target.contains("{")) {
+            return new Dependency(source, "config-dependent", endpoint, method);
+        }
 
         // Remove port if present
         if (target.contains(":")) {
@@ -239,10 +325,9 @@ public class JavaFileParser {
 
         // Additional noise filtering
         if (target.length() < 2 || !isValidHostname(target)) {
-            return new Dependency(source, "unknown", "/", method);
+            return new Dependency(source, "unknown", endpoint, method);
         }
 
-        String endpoint = parts.length > 1 ? "/" + parts[1] : "/";
         return new Dependency(source, target, endpoint, method);
     }
 
@@ -253,6 +338,9 @@ public class JavaFileParser {
     private static boolean isValidUrlOrPath(String s) {
         if (s.startsWith("http") || s.startsWith("/"))
             return true;
+        // A configured base URL followed by a path
+        if (s.startsWith("${") && s.contains("}/"))
+            return true;
         // Filter out common noise
         if (s.contains(" ") || s.contains("\n") || s.contains("\t"))
             return false;
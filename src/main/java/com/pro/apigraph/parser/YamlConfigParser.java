@@ -1,6 +1,8 @@
 package com.pro.apigraph.parser;
 
 import com.pro.apigraph.model.Dependency;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -11,6 +13,8 @@ import java.util.regex.Pattern;
 
 public class YamlConfigParser {
 
+    private static final Logger logger = LoggerFactory.getLogger(YamlConfigParser.class);
+
     // Pattern to match URLs in config files
     private static final Pattern URL_PATTERN = Pattern.compile(
             "(https?://[a-zA-Z0-9_\\-./:]+(?:/[a-zA-Z0-9_\\-./?]*)?)");
@@ -33,13 +37,13 @@ public class YamlConfigParser {
                     Dependency d = parseUrl(sourceService, url, "Config");
                     if (!d.getTarget().equals("unknown") && !d.getTarget().equals("config-dependent")) {
                         deps.add(d);
-                        System.out.println("  [Config URL] " + sourceService + " -> " + d.getTarget() + d.getLabel());
+                        logger.debug("[Config URL] {} -> {}{}", sourceService, d.getTarget(), d.getLabel());
                     }
                 }
             }
 
         } catch (Exception e) {
-            System.err.println("Error parsing config " + file + ": " + e.getMessage());
+            logger.warn("Error parsing config {}: {}", file, e.getMessage());
         }
 
         return deps;
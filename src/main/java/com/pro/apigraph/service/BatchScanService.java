@@ -0,0 +1,371 @@
+package com.pro.apigraph.service;
+
+import com.pro.apigraph.model.Dependency;
+import com.pro.apigraph.model.RepoScanner;
+import com.pro.apigraph.model.RouteStitcher;
+import com.pro.job.AnalysisScheduler;
+import com.pro.job.JobCancelledException;
+import com.pro.job.ProgressListener;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Scans many repositories at once and merges their service-to-service calls into
+ * one organization-wide graph, matching calls against the endpoints of every
+ * repository so they point at the service that handles them. Every repository takes
+ * its own batch-lane scheduler permit and then becomes a fork/join task that splits
+ * its files into chunks, so workers that finish a small repository steal files
+ * from the large ones instead of idling. The pool is no larger than the scheduler's
+ * permit budget. Files are parsed through the same per-file cache as single scans. A repository that cannot be scanned is reported
+ * with its error and left out of the graph; the others are unaffected.
+ */
+@Service
+public class BatchScanService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchScanService.class);
+
+    // Files per leaf task; small enough to balance, large enough to amortize forking
+    private static final int FILES_PER_TASK = 8;
+
+    /**
+     * Per-repository outcome and the merged dependencies of a batch
+     */
+    public static class BatchResult {
+        private final List<Map<String, Object>> repositories;
+        private final ScanService.ScanResult merged;
+        private final Map<String, Object> summary;
+
+        BatchResult(List<Map<String, Object>> repositories, ScanService.ScanResult merged,
+                Map<String, Object> summary) {
+            this.repositories = repositories;
+            this.merged = merged;
+            this.summary = summary;
+        }
+
+        public List<Map<String, Object>> getRepositories() {
+            return repositories;
+        }
+
+        /**
+         * Calls of every repository that was scanned, without duplicates
+         */
+        public List<Dependency> getDependencies() {
+            return merged.getDependencies();
+        }
+
+        /**
+         * The merged calls as one scan result, with their graph and its version
+         */
+        public ScanService.ScanResult getMerged() {
+            return merged;
+        }
+
+        public Map<String, Object> getSummary() {
+            return summary;
+        }
+    }
+
+    private final ScanService scanService;
+    private final AnalysisScheduler analysisScheduler;
+    private final ForkJoinPool pool;
+    private final int maxRepositories;
+
+    public BatchScanService(ScanService scanService, AnalysisScheduler analysisScheduler,
+            @Value("${analyzer.batch.parallelism:0}") int parallelism,
+            @Value("${analyzer.batch.max-repositories:500}") int maxRepositories) {
+        this.scanService = scanService;
+        this.analysisScheduler = analysisScheduler;
+        int permits = analysisScheduler.getPermits();
+        this.pool = new ForkJoinPool(parallelism > 0 ? Math.min(parallelism, permits) : permits);
+        this.maxRepositories = Math.max(1, maxRepositories);
+    }
+
+    /**
+     * Scans the repositories concurrently, each once a batch slot for it is free
+     */
+    public BatchResult scan(List<String> paths, ProgressListener listener) {
+        List<Repository> repositories = repositories(paths);
+        long start = System.nanoTime();
+        long hitsBefore = scanService.getFileCache().getHits();
+        long missesBefore = scanService.getFileCache().getMisses();
+        long stealsBefore = pool.getStealCount();
+
+        listener.phase("scanning");
+        listener.total(repositories.size());
+        List<ForkJoinTask<?>> running = new ArrayList<>(repositories.size());
+        try {
+            // Permits are taken here rather than on pool threads, so workers never block on the scheduler
+            for (Repository repository : repositories) {
+                AnalysisScheduler.Permit permit = analysisScheduler.acquire(repository.root.toString(),
+                        AnalysisScheduler.Lane.BATCH, listener);
+                running.add(pool.submit(new RepositoryTask(repository, listener, permit)));
+            }
+        } finally {
+            // Started repositories stop between files once cancelled; wait so their permits are back
+            for (ForkJoinTask<?> task : running) {
+                task.quietlyJoin();
+            }
+        }
+        listener.checkCancelled();
+
+        listener.phase("merging");
+        long mergeStart = System.nanoTime();
+        List<Dependency> merged = merge(repositories);
+        int stitched = 0;
+        for (Dependency d : merged) {
+            if (d.getHandler() != null && !"EXTERNAL".equals(d.getSource())) {
+                stitched++;
+            }
+        }
+        ScanService.ScanResult result = new ScanService.ScanResult("batch", null, merged);
+        long mergeNanos = System.nanoTime() - mergeStart;
+
+        List<Map<String, Object>> reports = new ArrayList<>(repositories.size());
+        int failed = 0;
+        for (Repository repository : repositories) {
+            reports.add(repository.report());
+            if (repository.error != null) {
+                failed++;
+            }
+        }
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("repositories", repositories.size());
+        summary.put("failed", failed);
+        summary.put("services", result.getGraph().nodeCount());
+        summary.put("dependencies", merged.size());
+        summary.put("crossRepositoryDependencies", crossRepository(repositories));
+        summary.put("resolvedCalls", stitched);
+        summary.put("parallelism", pool.getParallelism());
+        summary.put("steals", pool.getStealCount() - stealsBefore);
+        summary.put("fileCacheHits", scanService.getFileCache().getHits() - hitsBefore);
+        summary.put("fileCacheMisses", scanService.getFileCache().getMisses() - missesBefore);
+        summary.put("mergeMs", mergeNanos / 1_000_000.0);
+        summary.put("elapsedMs", (System.nanoTime() - start) / 1_000_000);
+        logger.info("Batch scan of {} repositories ({} failed) found {} dependencies in {} ms",
+                repositories.size(), failed, merged.size(), summary.get("elapsedMs"));
+        return new BatchResult(reports, result, summary);
+    }
+
+    private List<Repository> repositories(List<String> paths) {
+        if (paths == null || paths.isEmpty()) {
+            throw new IllegalArgumentException("At least one repository path is required");
+        }
+        if (paths.size() > maxRepositories) {
+            throw new IllegalArgumentException("At most " + maxRepositories + " repositories per batch");
+        }
+        Map<Path, Repository> repositories = new LinkedHashMap<>();
+        Set<String> names = new HashSet<>();
+        for (String pathStr : paths) {
+            if (pathStr == null || pathStr.isBlank()) {
+                throw new IllegalArgumentException("Repository paths must not be blank");
+            }
+            Path path = Paths.get(pathStr.trim()).toAbsolutePath().normalize();
+            if (!repositories.containsKey(path)) {
+                String base = path.getFileName() != null ? path.getFileName().toString() : path.toString();
+                String name = base;
+                for (int i = 2; !names.add(name); i++) {
+                    name = base + "-" + i;
+                }
+                repositories.put(path, new Repository(name, path));
+            }
+        }
+        return new ArrayList<>(repositories.values());
+    }
+
+    // Repositories in request order, files in path order, so equal inputs merge alike.
+    // Calls are matched against the endpoints of all repositories, so calls into
+    // another repository resolve as well
+    private static List<Dependency> merge(List<Repository> repositories) {
+        List<Dependency> found = new ArrayList<>();
+        for (Repository repository : repositories) {
+            if (repository.found != null) {
+                found.addAll(repository.found);
+            }
+        }
+        RouteStitcher stitcher = new RouteStitcher(found);
+        Set<String> seen = new HashSet<>();
+        List<Dependency> merged = new ArrayList<>();
+        for (Repository repository : repositories) {
+            if (repository.found == null) {
+                continue;
+            }
+            repository.merged = RepoScanner.filter(stitcher.resolve(repository.found));
+            for (Dependency d : repository.merged) {
+                if (seen.add(d.getSource() + "|" + d.getTarget() + "|" + d.getLabel() + "|" + d.getMethod())) {
+                    merged.add(d);
+                }
+            }
+        }
+        return merged;
+    }
+
+    // Calls from one repository to a service that calls or exposes endpoints in another one
+    private static int crossRepository(List<Repository> repositories) {
+        Map<String, Set<String>> owners = new HashMap<>();
+        for (Repository repository : repositories) {
+            if (repository.merged != null) {
+                for (Dependency d : repository.merged) {
+                    String owner = "EXTERNAL".equals(d.getSource()) ? d.getTarget() : d.getSource();
+                    owners.computeIfAbsent(owner, s -> new HashSet<>()).add(repository.name);
+                }
+            }
+        }
+        int count = 0;
+        for (Repository repository : repositories) {
+            if (repository.merged != null) {
+                for (Dependency d : repository.merged) {
+                    Set<String> targetOwners = owners.get(d.getTarget());
+                    if (!"EXTERNAL".equals(d.getSource()) && targetOwners != null
+                            && !targetOwners.contains(repository.name)) {
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private static final class Repository {
+        final String name;
+        final Path root;
+        // Unfiltered, for matching against other repositories' endpoints
+        List<Dependency> found;
+        List<Dependency> dependencies;
+        List<Dependency> merged;
+        String error;
+        int files;
+        long startNanos;
+        long discoverNanos;
+        final AtomicLong parseNanos = new AtomicLong();
+        final AtomicLong lastDoneNanos = new AtomicLong();
+
+        Repository(String name, Path root) {
+            this.name = name;
+            this.root = root;
+        }
+
+        Map<String, Object> report() {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("name", name);
+            report.put("path", root.toString());
+            report.put("status", error == null ? "scanned" : "failed");
+            if (error != null) {
+                report.put("error", error);
+            }
+            report.put("files", files);
+            report.put("dependencies", dependencies != null ? dependencies.size() : 0);
+            report.put("discoverMs", discoverNanos / 1_000_000.0);
+            report.put("parseMs", parseNanos.get() / 1_000_000.0);
+            report.put("wallMs", startNanos > 0 ? (lastDoneNanos.get() - startNanos) / 1_000_000.0 : 0.0);
+            return report;
+        }
+    }
+
+    /**
+     * Discovers one repository's files and parses them in forked chunks, then
+     * releases the repository's permit
+     */
+    private final class RepositoryTask extends RecursiveAction {
+        private final Repository repository;
+        private final ProgressListener listener;
+        private final AnalysisScheduler.Permit permit;
+
+        RepositoryTask(Repository repository, ProgressListener listener, AnalysisScheduler.Permit permit) {
+            this.repository = repository;
+            this.listener = listener;
+            this.permit = permit;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                scan();
+            } finally {
+                permit.close();
+            }
+        }
+
+        private void scan() {
+            repository.startNanos = System.nanoTime();
+            repository.lastDoneNanos.set(repository.startNanos);
+            try {
+                if (!Files.isDirectory(repository.root)) {
+                    throw new IllegalArgumentException("Not a directory");
+                }
+                RepoScanner scanner = new RepoScanner(repository.root, scanService.getFileCache());
+                List<Path> files = scanner.discover();
+                repository.files = files.size();
+                repository.discoverNanos = System.nanoTime() - repository.startNanos;
+
+                List<List<Dependency>> perFile = new ArrayList<>(Collections.nCopies(files.size(), null));
+                new FileTask(scanner, files, perFile, 0, files.size()).invoke();
+
+                // Same stitching, filtering and order as a single scan of the repository
+                List<Dependency> found = new ArrayList<>();
+                for (List<Dependency> deps : perFile) {
+                    found.addAll(deps);
+                }
+                repository.dependencies = RepoScanner.filter(RouteStitcher.stitch(found));
+                repository.found = found;
+            } catch (JobCancelledException e) {
+                repository.error = "cancelled";
+            } catch (Exception e) {
+                repository.error = e.getMessage() != null ? e.getMessage() : e.toString();
+                logger.warn("Batch scan of {} failed: {}", repository.root, repository.error);
+            }
+            repository.lastDoneNanos.accumulateAndGet(System.nanoTime(), Math::max);
+            listener.fileDone(repository.name);
+        }
+
+        private final class FileTask extends RecursiveAction {
+            private final RepoScanner scanner;
+            private final List<Path> files;
+            private final List<List<Dependency>> perFile;
+            private final int from;
+            private final int to;
+
+            FileTask(RepoScanner scanner, List<Path> files, List<List<Dependency>> perFile, int from, int to) {
+                this.scanner = scanner;
+                this.files = files;
+                this.perFile = perFile;
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from > FILES_PER_TASK) {
+                    int mid = (from + to) >>> 1;
+                    invokeAll(new FileTask(scanner, files, perFile, from, mid),
+                            new FileTask(scanner, files, perFile, mid, to));
+                    return;
+                }
+                for (int i = from; i < to; i++) {
+                    listener.checkCancelled();
+                    long start = System.nanoTime();
+                    perFile.set(i, scanner.dependenciesOf(files.get(i)));
+                    long end = System.nanoTime();
+                    repository.parseNanos.addAndGet(end - start);
+                    repository.lastDoneNanos.accumulateAndGet(end, Math::max);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,172 @@
+package com.pro.apigraph.service;
+
+import com.pro.graph.CompactGraph;
+import com.pro.graph.ForceLayout;
+import com.pro.graph.LayeredLayout;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Computes force-directed node positions and layered ordering for scanned service
+ * graphs and caches both per graph version, so repeated scans of an unchanged
+ * repository reuse the same layout. Positions run on a dedicated pool.
+ */
+@Service
+public class GraphLayoutService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GraphLayoutService.class);
+
+    private static final int MAX_CACHED_LAYOUTS = 32;
+    private static final double IDEAL_EDGE_LENGTH = 120;
+
+    private static final class Layers {
+        final CompactGraph graph;
+        final LayeredLayout layout;
+
+        Layers(CompactGraph graph, LayeredLayout layout) {
+            this.graph = graph;
+            this.layout = layout;
+        }
+    }
+
+    private final ForkJoinPool layoutPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    private final Map<String, Map<String, double[]>> cache = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Map<String, double[]>> eldest) {
+                    return size() > MAX_CACHED_LAYOUTS;
+                }
+            });
+    private final Map<String, Layers> layers = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Layers> eldest) {
+                    return size() > MAX_CACHED_LAYOUTS;
+                }
+            });
+
+    /**
+     * Content hash of the graph's edges; identical edge sets share a version. Edges
+     * are sorted as packed pairs of node name ranks, so hashing allocates per node,
+     * not per edge.
+     */
+    public static String graphVersion(CompactGraph graph) {
+        int n = graph.nodeCount();
+        String[] sorted = new String[n];
+        for (int v = 0; v < n; v++) {
+            sorted[v] = graph.name(v);
+        }
+        Arrays.sort(sorted);
+        int[] rank = new int[n];
+        for (int v = 0; v < n; v++) {
+            rank[v] = Arrays.binarySearch(sorted, graph.name(v));
+        }
+        long[] edges = new long[graph.edgeCount()];
+        for (int e = 0; e < edges.length; e++) {
+            edges[e] = ((long) rank[graph.edgeSource(e)] << 32) | rank[graph.edgeTarget(e)];
+        }
+        // Same order and bytes as hashing the sorted "source\0target" lines
+        Arrays.sort(edges);
+        byte[][] names = new byte[n][];
+        for (int r = 0; r < n; r++) {
+            names[r] = sorted[r].getBytes(StandardCharsets.UTF_8);
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (long edge : edges) {
+                digest.update(names[(int) (edge >>> 32)]);
+                digest.update((byte) 0);
+                digest.update(names[(int) edge]);
+                digest.update((byte) '\n');
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 12);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Layers and in-layer order of the graph for the given version, computed once
+     * per version as long as later graphs of that version number their nodes alike
+     */
+    public LayeredLayout layers(String version, CompactGraph graph) {
+        Layers cached = layers.get(version);
+        if (cached != null && sameNodes(cached.graph, graph)) {
+            return cached.layout;
+        }
+        LayeredLayout layout = new LayeredLayout(graph);
+        layers.put(version, new Layers(graph, layout));
+        return layout;
+    }
+
+    private static boolean sameNodes(CompactGraph a, CompactGraph b) {
+        if (a == b) {
+            return true;
+        }
+        if (a.nodeCount() != b.nodeCount()) {
+            return false;
+        }
+        for (int v = 0; v < a.nodeCount(); v++) {
+            if (!a.name(v).equals(b.name(v))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns node positions keyed by node name for the given graph version
+     */
+    public Map<String, double[]> positions(String version, CompactGraph graph) {
+        Map<String, double[]> cached = cache.get(version);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Insert nodes in sorted order so the same graph always gets the same layout
+        TreeSet<String> names = new TreeSet<>();
+        for (int v = 0; v < graph.nodeCount(); v++) {
+            names.add(graph.name(v));
+        }
+        CompactGraph.Builder builder = new CompactGraph.Builder();
+        names.forEach(builder::addNode);
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            builder.addEdge(graph.name(graph.edgeSource(e)), graph.name(graph.edgeTarget(e)));
+        }
+        CompactGraph sorted = builder.build();
+
+        long start = System.nanoTime();
+        double[] coordinates = new ForceLayout(sorted, IDEAL_EDGE_LENGTH, iterationsFor(sorted.nodeCount()))
+                .run(layoutPool, version.hashCode());
+        Map<String, double[]> positions = new HashMap<>();
+        for (int v = 0; v < sorted.nodeCount(); v++) {
+            positions.put(sorted.name(v), new double[] { coordinates[v * 2], coordinates[v * 2 + 1] });
+        }
+        logger.info("Laid out {} nodes / {} edges in {} ms (version {})", sorted.nodeCount(), sorted.edgeCount(),
+                (System.nanoTime() - start) / 1_000_000, version);
+
+        cache.put(version, positions);
+        return positions;
+    }
+
+    private static int iterationsFor(int nodes) {
+        if (nodes <= 500)
+            return 300;
+        if (nodes <= 5000)
+            return 200;
+        return 100;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        layoutPool.shutdownNow();
+    }
+}
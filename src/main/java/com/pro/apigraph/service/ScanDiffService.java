@@ -0,0 +1,78 @@
+package com.pro.apigraph.service;
+
+import com.pro.apigraph.model.Dependency;
+import com.pro.graph.EdgeSetDiff;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Compares two scanned service graphs. An edge is identified by source, target and
+ * label; the same call made with a different HTTP method is reported as changed.
+ */
+@Service
+public class ScanDiffService {
+
+    public Map<String, Object> diff(List<Dependency> base, List<Dependency> head, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        long start = System.nanoTime();
+        EdgeSetDiff.Edges baseEdges = edges(base);
+        EdgeSetDiff.Edges headEdges = edges(head);
+        EdgeSetDiff.Result diff = EdgeSetDiff.diff(baseEdges, headEdges);
+
+        List<Map<String, Object>> added = new ArrayList<>();
+        for (int k = 0; k < Math.min(limit, diff.added().length); k++) {
+            added.add(edge(headEdges, diff.added()[k]));
+        }
+        List<Map<String, Object>> removed = new ArrayList<>();
+        for (int k = 0; k < Math.min(limit, diff.removed().length); k++) {
+            removed.add(edge(baseEdges, diff.removed()[k]));
+        }
+        List<Map<String, Object>> changed = new ArrayList<>();
+        for (int k = 0; k < Math.min(limit, diff.changed().length); k++) {
+            int[] pair = diff.changed()[k];
+            Map<String, Object> edge = edge(headEdges, pair[1]);
+            edge.put("previousMethod", baseEdges.method(pair[0]));
+            changed.add(edge);
+        }
+
+        Map<String, Integer> summary = new LinkedHashMap<>();
+        summary.put("added", diff.added().length);
+        summary.put("removed", diff.removed().length);
+        summary.put("changed", diff.changed().length);
+        summary.put("unchanged", diff.unchanged());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("summary", summary);
+        result.put("added", added);
+        result.put("removed", removed);
+        result.put("changed", changed);
+        result.put("truncated", added.size() < diff.added().length || removed.size() < diff.removed().length
+                || changed.size() < diff.changed().length);
+        result.put("diffTimeMs", (System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    private static EdgeSetDiff.Edges edges(List<Dependency> deps) {
+        EdgeSetDiff.Edges edges = new EdgeSetDiff.Edges();
+        if (deps != null) {
+            for (Dependency d : deps) {
+                if (d.getSource() != null && d.getTarget() != null) {
+                    edges.add(d.getSource(), d.getTarget(), d.getLabel(), d.getMethod());
+                }
+            }
+        }
+        return edges;
+    }
+
+    private static Map<String, Object> edge(EdgeSetDiff.Edges edges, int i) {
+        Map<String, Object> edge = new LinkedHashMap<>();
+        edge.put("source", edges.source(i));
+        edge.put("target", edges.target(i));
+        edge.put("label", edges.label(i));
+        edge.put("method", edges.method(i));
+        return edge;
+    }
+}
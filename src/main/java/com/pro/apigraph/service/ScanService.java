@@ -0,0 +1,243 @@
+package com.pro.apigraph.service;
+
+import com.pro.apigraph.model.Dependency;
+import com.pro.apigraph.model.FileScanCache;
+import com.pro.apigraph.model.RepoScanner;
+import com.pro.graph.CompactGraph;
+import com.pro.graph.EgoGraph;
+import com.pro.job.AnalysisScheduler;
+import com.pro.job.ProgressListener;
+import com.pro.service.EgoGraphService;
+import com.pro.service.ProjectFingerprint;
+import com.pro.snapshot.SnapshotStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Scans repositories for service-to-service calls and retains the most recent
+ * results per repository so follow-up queries do not rescan.
+ */
+@Service
+public class ScanService {
+
+    private static final int MAX_RETAINED_SCANS = 16;
+    // Bumped whenever the same files scan into different dependencies
+    private static final String SCAN_FORMAT = "2:";
+
+    /**
+     * Dependencies of one scan with a CompactGraph whose edge ids are the list indexes,
+     * and the graph's content version
+     */
+    public static class ScanResult {
+        private final String key;
+        private final String version;
+        private final String fingerprint;
+        private final List<Dependency> dependencies;
+        private final CompactGraph graph;
+
+        public ScanResult(String key, String fingerprint, List<Dependency> dependencies) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+            this.dependencies = Collections.unmodifiableList(dependencies);
+            CompactGraph.Builder builder = new CompactGraph.Builder();
+            for (Dependency d : dependencies) {
+                builder.addEdge(d.getSource(), d.getTarget());
+            }
+            this.graph = builder.build();
+            this.version = GraphLayoutService.graphVersion(graph);
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        /**
+         * Fingerprint of the scanned files, taken before the scan started
+         */
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        public List<Dependency> getDependencies() {
+            return dependencies;
+        }
+
+        public CompactGraph getGraph() {
+            return graph;
+        }
+    }
+
+    private final AnalysisScheduler analysisScheduler;
+    private final SnapshotStore snapshotStore;
+
+    private final FileScanCache fileCache;
+    private final Map<String, ScanResult> retained = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ScanResult> eldest) {
+                    return size() > MAX_RETAINED_SCANS;
+                }
+            });
+
+    public ScanService(AnalysisScheduler analysisScheduler, SnapshotStore snapshotStore,
+            @Value("${analyzer.scan.file-cache-entries:100000}") int fileCacheEntries) {
+        this.analysisScheduler = analysisScheduler;
+        this.snapshotStore = snapshotStore;
+        this.fileCache = new FileScanCache(fileCacheEntries);
+    }
+
+    /**
+     * Per-file results shared by all scans
+     */
+    public FileScanCache getFileCache() {
+        return fileCache;
+    }
+
+    /**
+     * Scans the repository and retains the result
+     */
+    public ScanResult scan(String pathStr) throws IOException {
+        return scan(pathStr, ProgressListener.NONE);
+    }
+
+    /**
+     * Scans the repository with progress reporting and retains the result
+     */
+    public ScanResult scan(String pathStr, ProgressListener listener) throws IOException {
+        return scan(pathStr, listener, AnalysisScheduler.Lane.INTERACTIVE);
+    }
+
+    /**
+     * Scans once a scheduler slot in the given lane is free, and retains the result
+     */
+    public ScanResult scan(String pathStr, ProgressListener listener, AnalysisScheduler.Lane lane)
+            throws IOException {
+        Path path = resolve(pathStr);
+        List<Dependency> dependencies;
+        String fingerprint;
+        AnalysisScheduler.Permit permit = analysisScheduler.acquire(path.toString(), lane, listener);
+        try {
+            fingerprint = fingerprint(path);
+            dependencies = new RepoScanner(path, fileCache).scan(listener);
+        } finally {
+            permit.close();
+        }
+        ScanResult result = new ScanResult(path.toString(), fingerprint, dependencies);
+        retained.put(result.getKey(), result);
+        snapshotStore.recordScan(result.getKey(), fingerprint, dependencies);
+        return result;
+    }
+
+    /**
+     * Returns the retained scan of the repository, restoring it from its newest
+     * snapshot if the files are unchanged or else scanning it first
+     */
+    public ScanResult load(String pathStr) throws IOException {
+        Path path = resolve(pathStr);
+        ScanResult result = retained.get(path.toString());
+        if (result != null) {
+            return result;
+        }
+        String fingerprint = fingerprint(path);
+        List<Dependency> dependencies = snapshotStore.restoreScan(path.toString(), fingerprint);
+        if (dependencies == null) {
+            return scan(pathStr);
+        }
+        result = new ScanResult(path.toString(), fingerprint, dependencies);
+        retained.put(result.getKey(), result);
+        return result;
+    }
+
+    /**
+     * Returns the retained scan of the repository if none of the scanned files
+     * changed since, or null; never scans
+     */
+    public ScanResult current(String pathStr) {
+        Path path = resolve(pathStr);
+        ScanResult result = retained.get(path.toString());
+        return result != null && result.getFingerprint().equals(fingerprint(path)) ? result : null;
+    }
+
+    /**
+     * Fingerprint of the files a scan reads, versioned with the scan output so
+     * snapshots of older scans are not restored; callers recording scan snapshots
+     * outside this service must use it too
+     */
+    public static String fingerprint(Path path) {
+        return SCAN_FORMAT + ProjectFingerprint.of(path.toString(), RepoScanner::isScanned);
+    }
+
+    /**
+     * Pages through the k-hop neighborhood of a service, keeping edge labels and methods
+     */
+    public Map<String, Object> egoGraph(String pathStr, String service, String hops, String direction,
+            String budget, String token) throws IOException {
+        ScanResult result = load(pathStr);
+        CompactGraph graph = result.getGraph();
+        EgoGraph.Cursor cursor = EgoGraphService.cursor(result.getVersion(), token, () -> {
+            if (service == null || service.isBlank()) {
+                throw new IllegalArgumentException("Service is required");
+            }
+            if (graph.id(service.trim()) < 0) {
+                throw new IllegalArgumentException("Unknown service: " + service);
+            }
+            return new EgoGraph.Cursor(result.getVersion(), service.trim(),
+                    EgoGraphService.parseBounded("hops", hops, EgoGraphService.DEFAULT_HOPS, 0,
+                            EgoGraphService.MAX_HOPS),
+                    EgoGraph.Direction.parse(direction),
+                    EgoGraphService.parseBounded("budget", budget, EgoGraphService.DEFAULT_BUDGET, 1,
+                            EgoGraphService.MAX_BUDGET),
+                    0);
+        });
+
+        long start = System.nanoTime();
+        EgoGraph.Page page = EgoGraph.page(graph, graph.id(cursor.getCenter()), cursor.getHops(),
+                cursor.getDirection(), cursor.getOffset(), cursor.getBudget());
+        long elapsed = System.nanoTime() - start;
+
+        List<Map<String, Object>> nodes = new ArrayList<>(page.getNodes().length);
+        for (int i = 0; i < page.getNodes().length; i++) {
+            int v = page.getNodes()[i];
+            Map<String, Object> node = new LinkedHashMap<>();
+            node.put("id", graph.name(v));
+            node.put("label", graph.name(v));
+            node.put("hop", page.getHops()[i]);
+            node.put("outDegree", graph.outDegree(v));
+            node.put("inDegree", graph.inDegree(v));
+            nodes.add(node);
+        }
+        List<Map<String, Object>> edges = new ArrayList<>(page.getEdges().length);
+        for (int e : page.getEdges()) {
+            // Edge ids are indexes into the dependency list
+            Dependency d = result.getDependencies().get(e);
+            Map<String, Object> edge = new LinkedHashMap<>();
+            edge.put("source", d.getSource());
+            edge.put("target", d.getTarget());
+            edge.put("label", d.getLabel() != null ? d.getLabel() : "");
+            edge.put("method", d.getMethod() != null ? d.getMethod() : "");
+            edges.add(edge);
+        }
+        return EgoGraphService.response(cursor, page, nodes, edges, elapsed);
+    }
+
+    private static Path resolve(String pathStr) {
+        if (pathStr == null || pathStr.isBlank()) {
+            throw new IllegalArgumentException("Path is required");
+        }
+        Path path = Paths.get(pathStr).toAbsolutePath().normalize();
+        if (!Files.exists(path) || !Files.isDirectory(path)) {
+            throw new IllegalArgumentException("Invalid directory path");
+        }
+        return path;
+    }
+}
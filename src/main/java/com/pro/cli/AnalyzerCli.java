@@ -0,0 +1,424 @@
+package com.pro.cli;
+
+import ch.qos.logback.classic.Level;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pro.apigraph.model.Dependency;
+import com.pro.apigraph.model.RepoScanner;
+import com.pro.apigraph.service.ScanService;
+import com.pro.codec.AnalysisCodec;
+import com.pro.graph.CompactGraph;
+import com.pro.graph.StronglyConnectedComponents;
+import com.pro.job.AnalysisScheduler;
+import com.pro.job.ProgressListener;
+import com.pro.model.ProjectAnalysis;
+import com.pro.model.WireGraph;
+import com.pro.service.*;
+import com.pro.snapshot.SnapshotStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Headless batch mode for CI: analyzes and scans project checkouts without
+ * starting a web context, writes the results to files and reports through its
+ * exit code whether architecture rules were violated or dependency cycles found.
+ * The services are wired by hand, which keeps startup to plain class loading.
+ *
+ * <pre>
+ * java -jar pro.jar cli [options] &lt;path&gt;...
+ *   --out DIR          where result files go (default: current directory)
+ *   --format FORMAT    json (default) or compact: the binary analysis encoding
+ *                      and the compact wire graph for scans
+ *   --rules FILE       architecture rules to check, one per line
+ *   --fail-on-cycles   treat dependency cycles between components as a failure
+ *   --no-analysis      only scan for service-to-service calls
+ *   --no-scan          only analyze components
+ *   --snapshots DIR    also record every result in a snapshot store at DIR
+ *   --verbose          log analysis progress
+ * </pre>
+ *
+ * Exit status is a bit set: 1 a project failed, 2 rules were violated, 4 cycles
+ * were found (with --fail-on-cycles); 64 for invalid arguments.
+ */
+public class AnalyzerCli {
+
+    public static final String COMMAND = "cli";
+
+    static final int EXIT_OK = 0;
+    static final int EXIT_FAILED = 1;
+    static final int EXIT_VIOLATIONS = 2;
+    static final int EXIT_CYCLES = 4;
+    static final int EXIT_USAGE = 64;
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalyzerCli.class);
+
+    private final PrintStream err;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Path out = Paths.get(".");
+    private boolean compact;
+    private String rules;
+    private boolean failOnCycles;
+    private boolean analyze = true;
+    private boolean scan = true;
+    private Path snapshotDirectory;
+    private boolean verbose;
+    private boolean help;
+    private final List<String> paths = new ArrayList<>();
+
+    private GraphQueryService graphQueryService;
+    private ArchitectureRuleService architectureRuleService;
+    private SnapshotStore snapshotStore;
+
+    AnalyzerCli(PrintStream err) {
+        this.err = err;
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    /**
+     * Runs the command line and returns the exit status
+     */
+    public static int run(String[] args) {
+        return new AnalyzerCli(System.err).execute(args);
+    }
+
+    int execute(String[] args) {
+        long start = System.nanoTime();
+        try {
+            parse(args);
+        } catch (IllegalArgumentException e) {
+            err.println("error: " + e.getMessage());
+            usage();
+            return EXIT_USAGE;
+        }
+        if (help || paths.isEmpty()) {
+            usage();
+            return help ? EXIT_OK : EXIT_USAGE;
+        }
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME))
+                .setLevel(verbose ? Level.INFO : Level.WARN);
+
+        long wireStart = System.nanoTime();
+        wire();
+        double wireMs = millis(System.nanoTime() - wireStart);
+
+        int status = EXIT_OK;
+        List<Map<String, Object>> projects = new ArrayList<>();
+        Set<String> usedNames = new HashSet<>();
+        try {
+            Files.createDirectories(out);
+            for (String path : paths) {
+                Map<String, Object> project = runProject(path, usedNames);
+                status |= (Integer) project.remove("status");
+                projects.add(project);
+            }
+        } catch (IOException e) {
+            err.println("error: cannot write to " + out + ": " + e.getMessage());
+            status |= EXIT_FAILED;
+        } finally {
+            if (snapshotStore != null) {
+                snapshotStore.shutdown();
+            }
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("exitCode", status);
+        summary.put("wallTimeMs", millis(System.nanoTime() - start));
+        summary.put("startupMs", wireMs);
+        summary.put("projects", projects);
+        try {
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(out.resolve("summary.json").toFile(), summary);
+        } catch (IOException e) {
+            err.println("error: cannot write summary: " + e.getMessage());
+            status |= EXIT_FAILED;
+        }
+        err.printf(Locale.ROOT, "done in %.0f ms, exit code %d%n", millis(System.nanoTime() - start), status);
+        return status;
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--out" -> out = Paths.get(value(args, ++i, arg));
+                case "--format" -> {
+                    String format = value(args, ++i, arg);
+                    if (!format.equals("json") && !WireGraph.requested(format)) {
+                        throw new IllegalArgumentException("Unknown format: " + format + ", expected json or compact");
+                    }
+                    compact = WireGraph.requested(format);
+                }
+                case "--rules" -> {
+                    Path file = Paths.get(value(args, ++i, arg));
+                    try {
+                        rules = Files.readString(file, StandardCharsets.UTF_8);
+                    } catch (IOException e) {
+                        throw new IllegalArgumentException("Cannot read rules from " + file);
+                    }
+                }
+                case "--fail-on-cycles" -> failOnCycles = true;
+                case "--no-analysis" -> analyze = false;
+                case "--no-scan" -> scan = false;
+                case "--snapshots" -> snapshotDirectory = Paths.get(value(args, ++i, arg));
+                case "--verbose" -> verbose = true;
+                case "--help", "-h" -> help = true;
+                default -> {
+                    if (arg.startsWith("-")) {
+                        throw new IllegalArgumentException("Unknown option: " + arg);
+                    }
+                    paths.add(arg);
+                }
+            }
+        }
+        if (!analyze && !scan) {
+            throw new IllegalArgumentException("Nothing to do with both --no-analysis and --no-scan");
+        }
+        if (!analyze && (rules != null || failOnCycles)) {
+            throw new IllegalArgumentException("--rules and --fail-on-cycles need the analysis");
+        }
+    }
+
+    private static String value(String[] args, int i, String option) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException(option + " needs a value");
+        }
+        return args[i];
+    }
+
+    // The same services the application context would create, minus the web layer
+    private void wire() {
+        SpringBootAnalyzerService analyzerService = new SpringBootAnalyzerService(new DependencyAnalysisService(),
+                new PomAnalysisService(), new ApiDependencyParser());
+        snapshotStore = new SnapshotStore(objectMapper, snapshotDirectory != null,
+                (snapshotDirectory != null ? snapshotDirectory : out).toString(), 32, 500, 90, 0);
+        graphQueryService = new GraphQueryService(analyzerService, new AnalysisCache(paths.size(), 512, 30, 0, 30),
+                new AnalysisScheduler(1, 1, 0, 30), snapshotStore);
+        architectureRuleService = new ArchitectureRuleService(graphQueryService);
+    }
+
+    private Map<String, Object> runProject(String path, Set<String> usedNames) {
+        PhaseTimer timer = new PhaseTimer();
+        Map<String, Object> project = new LinkedHashMap<>();
+        project.put("path", path);
+        int status = EXIT_OK;
+        try {
+            Path root = Paths.get(path).toAbsolutePath().normalize();
+            if (!Files.isDirectory(root)) {
+                throw new IllegalArgumentException("Not a directory: " + path);
+            }
+            String name = uniqueName(root, usedNames);
+            project.put("name", name);
+            List<String> files = new ArrayList<>();
+
+            if (analyze) {
+                CachedAnalysis entry = graphQueryService.load(root.toString(), true, timer);
+                ProjectAnalysis analysis = entry.getAnalysis();
+                project.put("components", analysis.getTotalComponents());
+                project.put("endpoints", analysis.getTotalEndpoints());
+
+                timer.phase("cycles");
+                List<List<String>> cycles = cycles(graphQueryService.graph(entry));
+                project.put("cycleCount", cycles.size());
+                project.put("cycles", cycles);
+                if (failOnCycles && !cycles.isEmpty()) {
+                    status |= EXIT_CYCLES;
+                }
+
+                if (rules != null) {
+                    timer.phase("rules");
+                    Map<String, Object> check = architectureRuleService.check(root.toString(), rules);
+                    project.put("rules", check);
+                    if (!Boolean.TRUE.equals(check.get("passed"))) {
+                        status |= EXIT_VIOLATIONS;
+                    }
+                }
+
+                timer.phase("writing");
+                files.add(write(name + (compact ? ".analysis.bin" : ".analysis.json"), stream -> {
+                    if (compact) {
+                        AnalysisCodec.write(analysis, stream);
+                    } else {
+                        objectMapper.writeValue(stream, analysis);
+                    }
+                }));
+            }
+
+            if (scan) {
+                timer.phase("scanning");
+                String fingerprint = ScanService.fingerprint(root);
+                List<Dependency> dependencies = new RepoScanner(root).scan(timer);
+                project.put("serviceCalls", dependencies.size());
+                snapshotStore.recordScan(root.toString(), fingerprint, dependencies);
+
+                timer.phase("writing");
+                ScanService.ScanResult scanned = new ScanService.ScanResult(root.toString(), fingerprint, dependencies);
+                CompactGraph graph = scanned.getGraph();
+                files.add(write(name + (compact ? ".scan.compact.json" : ".scan.json"), stream -> {
+                    if (compact) {
+                        // Edge ids are indexes into the dependency list
+                        objectMapper.writeValue(stream, new WireGraph(scanned.getVersion(), graph).sortedById()
+                                .edgeText(e -> dependencies.get(e).getMethod(), e -> dependencies.get(e).getLabel())
+                                .edgeRoutes(e -> dependencies.get(e).getRoute(), e -> dependencies.get(e).getHandler()));
+                    } else {
+                        Map<String, Object> result = new LinkedHashMap<>();
+                        result.put("path", root.toString());
+                        result.put("services", graph.nodeCount());
+                        result.put("totalDependencies", dependencies.size());
+                        result.put("dependencies", dependencies);
+                        objectMapper.writeValue(stream, result);
+                    }
+                }));
+            }
+            project.put("files", files);
+        } catch (Exception e) {
+            logger.debug("Project {} failed", path, e);
+            project.put("error", e.getMessage() != null ? e.getMessage() : e.toString());
+            status |= EXIT_FAILED;
+        }
+        timer.finish();
+        project.put("timeMs", timer.totalMillis());
+        project.put("phasesMs", timer.phases());
+        project.put("status", status);
+        report(project, status);
+        return project;
+    }
+
+    /**
+     * Components on dependency cycles, one sorted list per strongly connected component
+     */
+    static List<List<String>> cycles(CompactGraph graph) {
+        StronglyConnectedComponents scc = new StronglyConnectedComponents(graph);
+        List<List<String>> cycles = new ArrayList<>();
+        for (int c = 0; c < scc.count(); c++) {
+            if (!scc.isCyclic(scc.member(c, 0))) {
+                continue;
+            }
+            List<String> members = new ArrayList<>(scc.size(c));
+            for (int i = 0; i < scc.size(c); i++) {
+                members.add(graph.name(scc.member(c, i)));
+            }
+            Collections.sort(members);
+            cycles.add(members);
+        }
+        cycles.sort(Comparator.comparing(members -> members.get(0)));
+        return cycles;
+    }
+
+    private interface Body {
+        void writeTo(OutputStream stream) throws IOException;
+    }
+
+    private String write(String fileName, Body body) throws IOException {
+        Path file = out.resolve(fileName);
+        try (OutputStream stream = Files.newOutputStream(file)) {
+            body.writeTo(stream);
+        }
+        return file.toString();
+    }
+
+    private static String uniqueName(Path root, Set<String> usedNames) {
+        String base = root.getFileName() != null ? root.getFileName().toString() : "root";
+        String name = base;
+        for (int i = 2; !usedNames.add(name); i++) {
+            name = base + "-" + i;
+        }
+        return name;
+    }
+
+    private void report(Map<String, Object> project, int status) {
+        StringBuilder line = new StringBuilder();
+        line.append(project.get("path")).append(": ");
+        if (project.containsKey("error")) {
+            line.append("failed: ").append(project.get("error"));
+        } else {
+            if (project.containsKey("components")) {
+                line.append(project.get("components")).append(" components, ")
+                        .append(project.get("endpoints")).append(" endpoints, ")
+                        .append(project.get("cycleCount")).append(" cycles, ");
+            }
+            if (project.containsKey("rules")) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> check = (Map<String, Object>) project.get("rules");
+                line.append(check.get("violationCount")).append(" rule violations, ");
+            }
+            if (project.containsKey("serviceCalls")) {
+                line.append(project.get("serviceCalls")).append(" service calls, ");
+            }
+            line.append(String.format(Locale.ROOT, "%.0f ms", (Double) project.get("timeMs")));
+        }
+        if (status != EXIT_OK) {
+            line.append(" [exit ").append(status).append(']');
+        }
+        err.println(line);
+        @SuppressWarnings("unchecked")
+        Map<String, Double> phases = (Map<String, Double>) project.get("phasesMs");
+        StringBuilder timings = new StringBuilder("  ");
+        phases.forEach((phase, ms) -> timings.append(String.format(Locale.ROOT, "%s %.1f ms  ", phase, ms)));
+        err.println(timings.toString().stripTrailing());
+    }
+
+    private void usage() {
+        err.println("usage: java -jar pro.jar " + COMMAND + " [options] <path>...");
+        err.println("  --out DIR          where result files go (default: current directory)");
+        err.println("  --format FORMAT    json (default) or compact");
+        err.println("  --rules FILE       architecture rules to check, one per line");
+        err.println("  --fail-on-cycles   treat dependency cycles between components as a failure");
+        err.println("  --no-analysis      only scan for service-to-service calls");
+        err.println("  --no-scan          only analyze components");
+        err.println("  --snapshots DIR    also record every result in a snapshot store at DIR");
+        err.println("  --verbose          log analysis progress");
+        err.println("exit status: 1 a project failed, 2 rules violated, 4 cycles found (bits combine), 64 usage");
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+
+    /**
+     * Wall-clock time per phase, from the phases the analyzer and scanner report
+     * and the ones the command line adds around them
+     */
+    private static final class PhaseTimer implements ProgressListener {
+        private final long start = System.nanoTime();
+        private final Map<String, Long> nanos = new LinkedHashMap<>();
+        private String current;
+        private long currentStart = start;
+        private long end;
+
+        @Override
+        public void phase(String phase) {
+            long now = System.nanoTime();
+            if (current != null) {
+                nanos.merge(current, now - currentStart, Long::sum);
+            }
+            current = phase;
+            currentStart = now;
+        }
+
+        void finish() {
+            phase(null);
+            end = System.nanoTime();
+        }
+
+        double totalMillis() {
+            return millis(end - start);
+        }
+
+        Map<String, Double> phases() {
+            Map<String, Double> phases = new LinkedHashMap<>();
+            nanos.forEach((phase, time) -> phases.put(phase, millis(time)));
+            return phases;
+        }
+    }
+}
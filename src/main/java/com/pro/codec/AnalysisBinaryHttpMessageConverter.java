@@ -0,0 +1,41 @@
+package com.pro.codec;
+
+import com.pro.model.ProjectAnalysis;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes ProjectAnalysis bodies as application/vnd.pro.analysis+bin, so
+ * clients choose the binary format through Accept and Content-Type
+ */
+public class AnalysisBinaryHttpMessageConverter extends AbstractHttpMessageConverter<ProjectAnalysis> {
+
+    public AnalysisBinaryHttpMessageConverter() {
+        super(AnalysisCodec.MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ProjectAnalysis.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected ProjectAnalysis readInternal(Class<? extends ProjectAnalysis> clazz, HttpInputMessage inputMessage)
+            throws IOException {
+        try {
+            return AnalysisCodec.read(inputMessage.getBody());
+        } catch (IOException e) {
+            throw new HttpMessageNotReadableException("Invalid binary analysis: " + e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(ProjectAnalysis analysis, HttpOutputMessage outputMessage) throws IOException {
+        // Streamed straight to the response, the encoded form is never held in memory
+        AnalysisCodec.write(analysis, outputMessage.getBody());
+    }
+}
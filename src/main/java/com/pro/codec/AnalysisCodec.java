@@ -0,0 +1,192 @@
+package com.pro.codec;
+
+import com.pro.model.ApiEndpoint;
+import com.pro.model.ComponentInfo;
+import com.pro.model.ModuleInfo;
+import com.pro.model.ProjectAnalysis;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.*;
+
+/**
+ * Compact binary encoding of a ProjectAnalysis.
+ *
+ * <p>The stream starts with the magic bytes "PROA" and a format version, followed
+ * by tagged records and an END tag. Components, endpoints, graph entries, package
+ * entries and modules are written in chunks of up to CHUNK_ROWS rows, each chunk
+ * laid out column by column so that repeated values sit next to each other.
+ *
+ * <p>All strings go through a string table that is built inline: a reference is a
+ * varint where 0 is null, 1 introduces a new literal (length and UTF-8 bytes) that
+ * takes the next id, and n &gt;= 2 refers to id n - 2. Reader and writer grow the
+ * table in step, and a RESET record clears it on both sides once it reaches
+ * MAX_TABLE_SIZE, so neither side needs the whole analysis in memory. Lists are
+ * prefixed with a varint of size + 1, where 0 means null.
+ */
+public final class AnalysisCodec {
+
+    public static final String MEDIA_TYPE_VALUE = "application/vnd.pro.analysis+bin";
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+    static final byte[] MAGIC = { 'P', 'R', 'O', 'A' };
+    static final int VERSION = 1;
+    static final int CHUNK_ROWS = 1024;
+    static final int MAX_TABLE_SIZE = 1 << 20;
+
+    static final int TAG_END = 0;
+    static final int TAG_HEADER = 1;
+    static final int TAG_COMPONENTS = 2;
+    static final int TAG_ENDPOINTS = 3;
+    static final int TAG_GRAPH = 4;
+    static final int TAG_PACKAGES = 5;
+    static final int TAG_MODULES = 6;
+    static final int TAG_RESET = 7;
+
+    /**
+     * Component lists of a ProjectAnalysis, in encoding order
+     */
+    public enum Category {
+        CONTROLLERS, SERVICES, REPOSITORIES, MODELS, CONFIGURATIONS, EXTERNAL_DEPENDENCIES;
+
+        List<ComponentInfo> of(ProjectAnalysis analysis) {
+            switch (this) {
+                case CONTROLLERS:
+                    return analysis.getControllers();
+                case SERVICES:
+                    return analysis.getServices();
+                case REPOSITORIES:
+                    return analysis.getRepositories();
+                case MODELS:
+                    return analysis.getModels();
+                case CONFIGURATIONS:
+                    return analysis.getConfigurations();
+                default:
+                    return analysis.getExternalDependencies();
+            }
+        }
+
+        void set(ProjectAnalysis analysis, List<ComponentInfo> components) {
+            switch (this) {
+                case CONTROLLERS:
+                    analysis.setControllers(components);
+                    break;
+                case SERVICES:
+                    analysis.setServices(components);
+                    break;
+                case REPOSITORIES:
+                    analysis.setRepositories(components);
+                    break;
+                case MODELS:
+                    analysis.setModels(components);
+                    break;
+                case CONFIGURATIONS:
+                    analysis.setConfigurations(components);
+                    break;
+                default:
+                    analysis.setExternalDependencies(components);
+            }
+        }
+    }
+
+    private AnalysisCodec() {
+    }
+
+    /**
+     * Encodes a whole analysis; the stream is flushed but not closed
+     */
+    public static void write(ProjectAnalysis analysis, OutputStream out) throws IOException {
+        AnalysisWriter writer = new AnalysisWriter(out);
+        writer.header(analysis.getProjectName(), analysis.getProjectPath(), analysis.getMainClass(),
+                analysis.getAnalysisTimestamp());
+        for (Category category : Category.values()) {
+            List<ComponentInfo> components = category.of(analysis);
+            if (components == null)
+                continue;
+            for (ComponentInfo component : components) {
+                writer.component(category, component);
+            }
+        }
+        if (analysis.getApiEndpoints() != null) {
+            for (ApiEndpoint endpoint : analysis.getApiEndpoints()) {
+                writer.endpoint(endpoint);
+            }
+        }
+        if (analysis.getDependencyGraph() != null) {
+            for (Map.Entry<String, List<String>> entry : analysis.getDependencyGraph().entrySet()) {
+                writer.dependencies(entry.getKey(), entry.getValue());
+            }
+        }
+        if (analysis.getPackageStructure() != null) {
+            for (Map.Entry<String, String> entry : analysis.getPackageStructure().entrySet()) {
+                writer.packageEntry(entry.getKey(), entry.getValue());
+            }
+        }
+        if (analysis.getModules() != null) {
+            for (ModuleInfo module : analysis.getModules()) {
+                writer.module(module);
+            }
+        }
+        writer.finish();
+    }
+
+    /**
+     * Decodes a whole analysis into memory; collections without rows come back
+     * empty rather than null. Use AnalysisReader with a visitor to process analyses
+     * that do not fit.
+     */
+    public static ProjectAnalysis read(InputStream in) throws IOException {
+        ProjectAnalysis analysis = new ProjectAnalysis();
+        EnumMap<Category, List<ComponentInfo>> components = new EnumMap<>(Category.class);
+        List<ApiEndpoint> endpoints = new ArrayList<>();
+        Map<String, List<String>> graph = new LinkedHashMap<>();
+        Map<String, String> packages = new LinkedHashMap<>();
+        List<ModuleInfo> modules = new ArrayList<>();
+
+        new AnalysisReader(in).read(new AnalysisReader.Visitor() {
+            @Override
+            public void header(String projectName, String projectPath, String mainClass, long timestamp) {
+                analysis.setProjectName(projectName);
+                analysis.setProjectPath(projectPath);
+                analysis.setMainClass(mainClass);
+                analysis.setAnalysisTimestamp(timestamp);
+            }
+
+            @Override
+            public void component(Category category, ComponentInfo component) {
+                components.computeIfAbsent(category, c -> new ArrayList<>()).add(component);
+            }
+
+            @Override
+            public void endpoint(ApiEndpoint endpoint) {
+                endpoints.add(endpoint);
+            }
+
+            @Override
+            public void dependencies(String source, List<String> targets) {
+                graph.put(source, targets);
+            }
+
+            @Override
+            public void packageEntry(String className, String packageName) {
+                packages.put(className, packageName);
+            }
+
+            @Override
+            public void module(ModuleInfo module) {
+                modules.add(module);
+            }
+        });
+
+        for (Category category : Category.values()) {
+            category.set(analysis, components.getOrDefault(category, new ArrayList<>()));
+        }
+        analysis.setApiEndpoints(endpoints);
+        analysis.setDependencyGraph(graph);
+        analysis.setPackageStructure(packages);
+        analysis.setModules(modules);
+        return analysis;
+    }
+}
@@ -0,0 +1,281 @@
+package com.pro.codec;
+
+import com.pro.model.ApiEndpoint;
+import com.pro.model.ComponentInfo;
+import com.pro.model.ModuleInfo;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static com.pro.codec.AnalysisCodec.*;
+
+/**
+ * Streaming decoder for the binary analysis format. Rows are handed to a visitor
+ * one chunk at a time, so an analysis larger than the heap can be processed as
+ * long as the visitor does not keep every row.
+ */
+public class AnalysisReader {
+
+    /**
+     * Receives decoded rows in stream order
+     */
+    public interface Visitor {
+        default void header(String projectName, String projectPath, String mainClass, long timestamp) {
+        }
+
+        default void component(Category category, ComponentInfo component) {
+        }
+
+        default void endpoint(ApiEndpoint endpoint) {
+        }
+
+        default void dependencies(String source, List<String> targets) {
+        }
+
+        default void packageEntry(String className, String packageName) {
+        }
+
+        default void module(ModuleInfo module) {
+        }
+    }
+
+    private final InputStream in;
+    private final List<String> table = new ArrayList<>();
+
+    public AnalysisReader(InputStream in) {
+        this.in = in instanceof BufferedInputStream ? in : new BufferedInputStream(in, 1 << 16);
+    }
+
+    public void read(Visitor visitor) throws IOException {
+        for (byte expected : MAGIC) {
+            if (readByte() != expected) {
+                throw new IOException("Not a binary analysis stream");
+            }
+        }
+        int version = readVarInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary analysis version " + version);
+        }
+
+        while (true) {
+            int tag = readVarInt();
+            switch (tag) {
+                case TAG_END:
+                    return;
+                case TAG_HEADER:
+                    visitor.header(readString(), readString(), readString(), readVarLong());
+                    break;
+                case TAG_COMPONENTS:
+                    readComponents(visitor);
+                    break;
+                case TAG_ENDPOINTS:
+                    readEndpoints(visitor);
+                    break;
+                case TAG_GRAPH:
+                    readGraph(visitor);
+                    break;
+                case TAG_PACKAGES:
+                    readPackages(visitor);
+                    break;
+                case TAG_MODULES:
+                    readModules(visitor);
+                    break;
+                case TAG_RESET:
+                    table.clear();
+                    break;
+                default:
+                    throw new IOException("Unknown record tag " + tag);
+            }
+        }
+    }
+
+    private void readComponents(Visitor visitor) throws IOException {
+        int rows = readRows();
+        int ordinal = readVarInt();
+        if (ordinal < 0 || ordinal >= Category.values().length) {
+            throw new IOException("Unknown component category " + ordinal);
+        }
+        Category category = Category.values()[ordinal];
+        ComponentInfo[] chunk = new ComponentInfo[rows];
+        for (int i = 0; i < rows; i++) {
+            chunk[i] = new ComponentInfo();
+            chunk[i].setClassName(readString());
+        }
+        for (ComponentInfo c : chunk)
+            c.setPackageName(readString());
+        for (ComponentInfo c : chunk)
+            c.setComponentType(readString());
+        for (ComponentInfo c : chunk)
+            c.setFullyQualifiedName(readString());
+        for (ComponentInfo c : chunk)
+            c.setFilePath(readString());
+        for (ComponentInfo c : chunk)
+            c.setAnnotations(readList());
+        for (ComponentInfo c : chunk)
+            c.setImplementedInterfaces(readList());
+        for (ComponentInfo c : chunk)
+            c.setMethods(readList());
+        for (ComponentInfo c : chunk)
+            c.setDependencies(readList());
+        for (ComponentInfo c : chunk)
+            c.setUsedBy(readList());
+        for (ComponentInfo c : chunk)
+            visitor.component(category, c);
+    }
+
+    private void readEndpoints(Visitor visitor) throws IOException {
+        int rows = readRows();
+        ApiEndpoint[] chunk = new ApiEndpoint[rows];
+        for (int i = 0; i < rows; i++) {
+            chunk[i] = new ApiEndpoint();
+            chunk[i].setPath(readString());
+        }
+        for (ApiEndpoint e : chunk)
+            e.setHttpMethod(readString());
+        for (ApiEndpoint e : chunk)
+            e.setControllerClass(readString());
+        for (ApiEndpoint e : chunk)
+            e.setMethodName(readString());
+        for (ApiEndpoint e : chunk)
+            e.setReturnType(readString());
+        for (ApiEndpoint e : chunk)
+            e.setParameters(readList());
+        for (ApiEndpoint e : chunk)
+            e.setAnnotations(readList());
+        for (ApiEndpoint e : chunk)
+            e.setRequestMappingDetails(readMap());
+        for (ApiEndpoint e : chunk)
+            visitor.endpoint(e);
+    }
+
+    private void readGraph(Visitor visitor) throws IOException {
+        int rows = readRows();
+        String[] sources = new String[rows];
+        for (int i = 0; i < rows; i++)
+            sources[i] = readString();
+        for (int i = 0; i < rows; i++)
+            visitor.dependencies(sources[i], readList());
+    }
+
+    private void readPackages(Visitor visitor) throws IOException {
+        int rows = readRows();
+        String[] keys = new String[rows];
+        for (int i = 0; i < rows; i++)
+            keys[i] = readString();
+        for (int i = 0; i < rows; i++)
+            visitor.packageEntry(keys[i], readString());
+    }
+
+    private void readModules(Visitor visitor) throws IOException {
+        int rows = readRows();
+        ModuleInfo[] chunk = new ModuleInfo[rows];
+        for (int i = 0; i < rows; i++) {
+            chunk[i] = new ModuleInfo();
+            chunk[i].setArtifactId(readString());
+        }
+        for (ModuleInfo m : chunk)
+            m.setGroupId(readString());
+        for (ModuleInfo m : chunk)
+            m.setVersion(readString());
+        for (ModuleInfo m : chunk)
+            m.setPackaging(readString());
+        for (ModuleInfo m : chunk)
+            m.setPath(readString());
+        for (ModuleInfo m : chunk)
+            m.setDependencies(readList());
+        for (ModuleInfo m : chunk)
+            visitor.module(m);
+    }
+
+    private int readRows() throws IOException {
+        int rows = readVarInt();
+        if (rows < 0 || rows > CHUNK_ROWS) {
+            throw new IOException("Chunk of " + rows + " rows exceeds the limit of " + CHUNK_ROWS);
+        }
+        return rows;
+    }
+
+    private String readString() throws IOException {
+        int ref = readVarInt();
+        if (ref == 0) {
+            return null;
+        }
+        if (ref >= 2) {
+            if (ref - 2 >= table.size()) {
+                throw new IOException("String reference " + (ref - 2) + " is not defined");
+            }
+            return table.get(ref - 2);
+        }
+        int length = readVarInt();
+        if (length < 0) {
+            throw new IOException("Malformed string length");
+        }
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length != length) {
+            throw new EOFException("Truncated binary analysis stream");
+        }
+        String value = new String(bytes, StandardCharsets.UTF_8);
+        table.add(value);
+        return value;
+    }
+
+    private List<String> readList() throws IOException {
+        int size = readVarInt();
+        if (size == 0) {
+            return null;
+        }
+        List<String> values = new ArrayList<>(Math.min(size - 1, CHUNK_ROWS));
+        for (int i = 1; i < size; i++) {
+            values.add(readString());
+        }
+        return values;
+    }
+
+    private Map<String, String> readMap() throws IOException {
+        int size = readVarInt();
+        if (size == 0) {
+            return null;
+        }
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int i = 1; i < size; i++) {
+            values.put(readString(), readString());
+        }
+        return values;
+    }
+
+    private int readByte() throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException("Truncated binary analysis stream");
+        }
+        return b;
+    }
+
+    private int readVarInt() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
@@ -0,0 +1,267 @@
+package com.pro.codec;
+
+import com.pro.model.ApiEndpoint;
+import com.pro.model.ComponentInfo;
+import com.pro.model.ModuleInfo;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static com.pro.codec.AnalysisCodec.*;
+
+/**
+ * Streaming encoder for the binary analysis format. Rows are buffered per section
+ * until a chunk is full, so memory stays bounded by the chunk size and the string
+ * table no matter how large the analysis is.
+ */
+public class AnalysisWriter {
+
+    private final OutputStream out;
+    private final int maxTableSize;
+    private final Map<String, Integer> table = new HashMap<>();
+
+    private final EnumMap<Category, List<ComponentInfo>> components = new EnumMap<>(Category.class);
+    private final List<ApiEndpoint> endpoints = new ArrayList<>();
+    private final List<String> graphSources = new ArrayList<>();
+    private final List<List<String>> graphTargets = new ArrayList<>();
+    private final List<String> packageKeys = new ArrayList<>();
+    private final List<String> packageValues = new ArrayList<>();
+    private final List<ModuleInfo> modules = new ArrayList<>();
+
+    public AnalysisWriter(OutputStream out) throws IOException {
+        this(out, MAX_TABLE_SIZE);
+    }
+
+    // A smaller table resets more often; lets tests exercise RESET records
+    AnalysisWriter(OutputStream out, int maxTableSize) throws IOException {
+        this.out = out instanceof BufferedOutputStream ? out : new BufferedOutputStream(out, 1 << 16);
+        this.maxTableSize = maxTableSize;
+        this.out.write(MAGIC);
+        writeVarInt(VERSION);
+    }
+
+    public void header(String projectName, String projectPath, String mainClass, long timestamp)
+            throws IOException {
+        writeVarInt(TAG_HEADER);
+        writeString(projectName);
+        writeString(projectPath);
+        writeString(mainClass);
+        writeVarLong(timestamp);
+    }
+
+    public void component(Category category, ComponentInfo component) throws IOException {
+        List<ComponentInfo> pending = components.computeIfAbsent(category, c -> new ArrayList<>());
+        pending.add(component);
+        if (pending.size() == CHUNK_ROWS) {
+            flushComponents(category, pending);
+        }
+    }
+
+    public void endpoint(ApiEndpoint endpoint) throws IOException {
+        endpoints.add(endpoint);
+        if (endpoints.size() == CHUNK_ROWS) {
+            flushEndpoints();
+        }
+    }
+
+    public void dependencies(String source, List<String> targets) throws IOException {
+        graphSources.add(source);
+        graphTargets.add(targets);
+        if (graphSources.size() == CHUNK_ROWS) {
+            flushGraph();
+        }
+    }
+
+    public void packageEntry(String className, String packageName) throws IOException {
+        packageKeys.add(className);
+        packageValues.add(packageName);
+        if (packageKeys.size() == CHUNK_ROWS) {
+            flushPackages();
+        }
+    }
+
+    public void module(ModuleInfo module) throws IOException {
+        modules.add(module);
+        if (modules.size() == CHUNK_ROWS) {
+            flushModules();
+        }
+    }
+
+    /**
+     * Writes pending chunks and the end marker, then flushes; the stream stays open
+     */
+    public void finish() throws IOException {
+        for (Map.Entry<Category, List<ComponentInfo>> entry : components.entrySet()) {
+            flushComponents(entry.getKey(), entry.getValue());
+        }
+        flushEndpoints();
+        flushGraph();
+        flushPackages();
+        flushModules();
+        writeVarInt(TAG_END);
+        out.flush();
+    }
+
+    private void flushComponents(Category category, List<ComponentInfo> rows) throws IOException {
+        if (rows.isEmpty())
+            return;
+        startChunk(TAG_COMPONENTS, rows.size());
+        writeVarInt(category.ordinal());
+        for (ComponentInfo c : rows)
+            writeString(c.getClassName());
+        for (ComponentInfo c : rows)
+            writeString(c.getPackageName());
+        for (ComponentInfo c : rows)
+            writeString(c.getComponentType());
+        for (ComponentInfo c : rows)
+            writeString(c.getFullyQualifiedName());
+        for (ComponentInfo c : rows)
+            writeString(c.getFilePath());
+        for (ComponentInfo c : rows)
+            writeList(c.getAnnotations());
+        for (ComponentInfo c : rows)
+            writeList(c.getImplementedInterfaces());
+        for (ComponentInfo c : rows)
+            writeList(c.getMethods());
+        for (ComponentInfo c : rows)
+            writeList(c.getDependencies());
+        for (ComponentInfo c : rows)
+            writeList(c.getUsedBy());
+        rows.clear();
+    }
+
+    private void flushEndpoints() throws IOException {
+        if (endpoints.isEmpty())
+            return;
+        startChunk(TAG_ENDPOINTS, endpoints.size());
+        for (ApiEndpoint e : endpoints)
+            writeString(e.getPath());
+        for (ApiEndpoint e : endpoints)
+            writeString(e.getHttpMethod());
+        for (ApiEndpoint e : endpoints)
+            writeString(e.getControllerClass());
+        for (ApiEndpoint e : endpoints)
+            writeString(e.getMethodName());
+        for (ApiEndpoint e : endpoints)
+            writeString(e.getReturnType());
+        for (ApiEndpoint e : endpoints)
+            writeList(e.getParameters());
+        for (ApiEndpoint e : endpoints)
+            writeList(e.getAnnotations());
+        for (ApiEndpoint e : endpoints)
+            writeMap(e.getRequestMappingDetails());
+        endpoints.clear();
+    }
+
+    private void flushGraph() throws IOException {
+        if (graphSources.isEmpty())
+            return;
+        startChunk(TAG_GRAPH, graphSources.size());
+        for (String source : graphSources)
+            writeString(source);
+        for (List<String> targets : graphTargets)
+            writeList(targets);
+        graphSources.clear();
+        graphTargets.clear();
+    }
+
+    private void flushPackages() throws IOException {
+        if (packageKeys.isEmpty())
+            return;
+        startChunk(TAG_PACKAGES, packageKeys.size());
+        for (String key : packageKeys)
+            writeString(key);
+        for (String value : packageValues)
+            writeString(value);
+        packageKeys.clear();
+        packageValues.clear();
+    }
+
+    private void flushModules() throws IOException {
+        if (modules.isEmpty())
+            return;
+        startChunk(TAG_MODULES, modules.size());
+        for (ModuleInfo m : modules)
+            writeString(m.getArtifactId());
+        for (ModuleInfo m : modules)
+            writeString(m.getGroupId());
+        for (ModuleInfo m : modules)
+            writeString(m.getVersion());
+        for (ModuleInfo m : modules)
+            writeString(m.getPackaging());
+        for (ModuleInfo m : modules)
+            writeString(m.getPath());
+        for (ModuleInfo m : modules)
+            writeList(m.getDependencies());
+        modules.clear();
+    }
+
+    private void startChunk(int tag, int rows) throws IOException {
+        // Resetting only between chunks keeps every chunk decodable with one table
+        if (table.size() >= maxTableSize) {
+            writeVarInt(TAG_RESET);
+            table.clear();
+        }
+        writeVarInt(tag);
+        writeVarInt(rows);
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            writeVarInt(0);
+            return;
+        }
+        Integer id = table.get(value);
+        if (id != null) {
+            writeVarInt(id + 2);
+            return;
+        }
+        table.put(value, table.size());
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(1);
+        writeVarInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private void writeList(List<String> values) throws IOException {
+        if (values == null) {
+            writeVarInt(0);
+            return;
+        }
+        writeVarInt(values.size() + 1);
+        for (String value : values) {
+            writeString(value);
+        }
+    }
+
+    private void writeMap(Map<String, String> values) throws IOException {
+        if (values == null) {
+            writeVarInt(0);
+            return;
+        }
+        writeVarInt(values.size() + 1);
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            writeString(entry.getKey());
+            writeString(entry.getValue());
+        }
+    }
+
+    private void writeVarInt(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
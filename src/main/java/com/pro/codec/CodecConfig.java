@@ -0,0 +1,19 @@
+package com.pro.codec;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class CodecConfig implements WebMvcConfigurer {
+
+    /**
+     * Appended after the defaults, so JSON stays the format for clients that accept anything
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new AnalysisBinaryHttpMessageConverter());
+    }
+}
@@ -0,0 +1,40 @@
+package com.pro.controller;
+
+import com.pro.job.AnalysisRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Answers requests the analysis scheduler turned away with 429 and a Retry-After
+ * header. Controllers with their own global exception handler take precedence over
+ * this advice, so those, and controllers that catch rejections before a generic
+ * catch block, answer with {@link #tooManyRequests} to keep one 429 body.
+ */
+@RestControllerAdvice
+public class AnalysisRejectedAdvice {
+
+    /**
+     * The analysis scheduler is saturated
+     */
+    @ExceptionHandler(AnalysisRejectedException.class)
+    public ResponseEntity<Map<String, String>> handleRejected(AnalysisRejectedException e) {
+        return tooManyRequests(e);
+    }
+
+    public static ResponseEntity<Map<String, String>> tooManyRequests(AnalysisRejectedException e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Too Many Requests");
+        error.put("message", e.getMessage());
+        error.put("retryAfterSeconds", String.valueOf(e.getRetryAfterSeconds()));
+        error.put("timestamp", String.valueOf(System.currentTimeMillis()));
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(error);
+    }
+}
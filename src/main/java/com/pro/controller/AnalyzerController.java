@@ -1,11 +1,26 @@
 package com.pro.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pro.codec.AnalysisCodec;
+import com.pro.job.AnalysisRejectedException;
+import com.pro.job.AnalysisScheduler;
+import com.pro.job.EventStream;
 import com.pro.model.ProjectAnalysis;
+import com.pro.service.AnalysisCache;
+import com.pro.service.AnalysisCollectionService;
+import com.pro.service.AnalysisDiffService;
+import com.pro.service.AnalysisStreamService;
+import com.pro.service.CachedAnalysis;
 import com.pro.service.DependencyAnalysisService;
-import com.pro.service.SpringBootAnalyzerService;
+import com.pro.service.DependencyMetricsEngine;
+import com.pro.service.GraphQueryService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.HashMap;
 import java.util.List;
@@ -17,16 +32,41 @@ import java.util.Map;
 public class AnalyzerController {
 
     @Autowired
-    private SpringBootAnalyzerService analyzerService;
+    private DependencyAnalysisService dependencyAnalysisService;
 
     @Autowired
-    private DependencyAnalysisService dependencyAnalysisService;
+    private GraphQueryService graphQueryService;
+
+    @Autowired
+    private DependencyMetricsEngine dependencyMetricsEngine;
+
+    @Autowired
+    private AnalysisDiffService analysisDiffService;
+
+    @Autowired
+    private AnalysisCollectionService analysisCollectionService;
+
+    @Autowired
+    private AnalysisCache analysisCache;
+
+    @Autowired
+    private AnalysisStreamService analysisStreamService;
+
+    @Autowired
+    private AnalysisScheduler analysisScheduler;
+
+    @Autowired
+    private ObjectMapper objectMapper;
 
     /**
-     * Analyzes a Spring Boot project at the given path
+     * Analyzes a Spring Boot project at the given path. The response carries a strong
+     * ETag; a matching If-None-Match is answered with 304 while the cached analysis
+     * is still valid, without loading or serializing it.
      */
     @PostMapping("/analyze")
-    public ResponseEntity<ProjectAnalysis> analyzeProject(@RequestBody Map<String, String> request) {
+    public ResponseEntity<ProjectAnalysis> analyzeProject(@RequestBody Map<String, String> request,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         try {
             String projectPath = request.get("projectPath");
 
@@ -34,30 +74,93 @@ public class AnalyzerController {
                 throw new IllegalArgumentException("Project path is required");
             }
 
-            ProjectAnalysis analysis = analyzerService.analyzeProject(projectPath);
-            return ResponseEntity.ok(analysis);
+            return conditionalAnalysis(projectPath, bypassCache(request.get("bypassCache")), ifNoneMatch, accept);
 
         } catch (Exception e) {
             throw new RuntimeException("Failed to analyze project: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Streams an analysis as NDJSON, or as Server-Sent Events when the client accepts
+     * text/event-stream: components, endpoints and edges while files are parsed, then
+     * the enhanced graph and a summary
+     */
+    @PostMapping("/analyze/stream")
+    public ResponseEntity<StreamingResponseBody> analyzeStream(@RequestBody Map<String, String> request,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        String projectPath = request.get("projectPath");
+        if (projectPath == null || projectPath.trim().isEmpty()) {
+            throw new IllegalArgumentException("Project path is required");
+        }
+        return stream(projectPath, bypassCache(request.get("bypassCache")), accept);
+    }
+
+    /**
+     * Streaming variant of the self-analysis
+     */
+    @GetMapping("/analyze-self/stream")
+    public ResponseEntity<StreamingResponseBody> analyzeSelfStream(
+            @RequestParam(required = false) String bypassCache,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return stream(System.getProperty("user.dir"), bypassCache(bypassCache), accept);
+    }
+
+    private ResponseEntity<StreamingResponseBody> stream(String projectPath, boolean bypassCache, String accept) {
+        boolean sse = EventStream.wantsSse(accept);
+        StreamingResponseBody body = out -> analysisStreamService.stream(projectPath, bypassCache,
+                new EventStream(out, objectMapper, sse));
+        return ResponseEntity.ok()
+                .contentType(EventStream.mediaType(sse))
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                .body(body);
+    }
+
     /**
      * Analyzes the current project (self-analysis)
      */
     @GetMapping("/analyze-self")
-    public ResponseEntity<ProjectAnalysis> analyzeSelf() {
+    public ResponseEntity<ProjectAnalysis> analyzeSelf(@RequestParam(required = false) String bypassCache,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         try {
             // Get the current project path (where this application is running)
             String currentPath = System.getProperty("user.dir");
-            ProjectAnalysis analysis = analyzerService.analyzeProject(currentPath);
-            return ResponseEntity.ok(analysis);
+            return conditionalAnalysis(currentPath, bypassCache(bypassCache), ifNoneMatch, accept);
 
         } catch (Exception e) {
             throw new RuntimeException("Failed to analyze current project: " + e.getMessage(), e);
         }
     }
 
+    private ResponseEntity<ProjectAnalysis> conditionalAnalysis(String projectPath, boolean bypassCache,
+            String ifNoneMatch, String accept) {
+        String representation = accept != null && accept.contains(AnalysisCodec.MEDIA_TYPE_VALUE)
+                ? "binary"
+                : "json";
+        if (!bypassCache && ifNoneMatch != null) {
+            CachedAnalysis cached = analysisCache.get(projectPath);
+            if (cached != null && EntityTag.matches(ifNoneMatch, etag(cached, representation))) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(etag(cached, representation))
+                        .varyBy(HttpHeaders.ACCEPT)
+                        .build();
+            }
+        }
+        CachedAnalysis entry = graphQueryService.load(projectPath, bypassCache);
+        return ResponseEntity.ok()
+                .eTag(etag(entry, representation))
+                .varyBy(HttpHeaders.ACCEPT)
+                .cacheControl(CacheControl.noCache())
+                .body(entry.getAnalysis());
+    }
+
+    // Sources, analysis run and wire format fully determine the body
+    private static String etag(CachedAnalysis entry, String representation) {
+        return EntityTag.strong("analysis", entry.getKey(), entry.getFingerprint(),
+                String.valueOf(entry.getAnalysis().getAnalysisTimestamp()), representation);
+    }
+
     /**
      * Gets basic project statistics
      */
@@ -70,7 +173,8 @@ public class AnalyzerController {
                 throw new IllegalArgumentException("Project path is required");
             }
 
-            ProjectAnalysis analysis = analyzerService.analyzeProject(projectPath);
+            ProjectAnalysis analysis = graphQueryService.load(projectPath, bypassCache(request.get("bypassCache")))
+                    .getAnalysis();
 
             Map<String, Object> stats = new HashMap<>();
             stats.put("projectName", analysis.getProjectName());
@@ -92,6 +196,34 @@ public class AnalyzerController {
         }
     }
 
+    /**
+     * Pages through components (one category or all) with fields=, sort=, page= and size=
+     */
+    @PostMapping("/components")
+    public ResponseEntity<Map<String, Object>> listComponents(@RequestBody Map<String, String> request) {
+        return ResponseEntity.ok(analysisCollectionService.components(request.get("projectPath"),
+                request.get("category"), request.get("fields"), request.get("sort"), request.get("page"),
+                request.get("size")));
+    }
+
+    /**
+     * Pages through API endpoints with fields=, sort=, page= and size=
+     */
+    @PostMapping("/endpoints")
+    public ResponseEntity<Map<String, Object>> listEndpoints(@RequestBody Map<String, String> request) {
+        return ResponseEntity.ok(analysisCollectionService.endpoints(request.get("projectPath"),
+                request.get("fields"), request.get("sort"), request.get("page"), request.get("size")));
+    }
+
+    /**
+     * Returns every field of one component, looked up by fully qualified name
+     */
+    @PostMapping("/component")
+    public ResponseEntity<Map<String, Object>> componentDetail(@RequestBody Map<String, String> request) {
+        return ResponseEntity.ok(analysisCollectionService.component(request.get("projectPath"),
+                request.get("component")));
+    }
+
     /**
      * Gets dependency analysis metrics for a project
      */
@@ -104,15 +236,8 @@ public class AnalyzerController {
                 throw new IllegalArgumentException("Project path is required");
             }
 
-            ProjectAnalysis analysis = analyzerService.analyzeProject(projectPath);
-            Map<String, Object> metrics = dependencyAnalysisService.calculateDependencyMetrics(analysis);
-
-            // Add circular dependency detection
-            List<List<String>> circularDependencies = dependencyAnalysisService.detectCircularDependencies(analysis);
-            metrics.put("circularDependencies", circularDependencies);
-            metrics.put("hasCircularDependencies", !circularDependencies.isEmpty());
-
-            return ResponseEntity.ok(metrics);
+            CachedAnalysis entry = graphQueryService.load(projectPath, bypassCache(request.get("bypassCache")));
+            return ResponseEntity.ok(dependencyMetrics(entry));
 
         } catch (Exception e) {
             throw new RuntimeException("Failed to calculate dependency metrics: " + e.getMessage(), e);
@@ -123,24 +248,101 @@ public class AnalyzerController {
      * Gets dependency metrics for the current project
      */
     @GetMapping("/dependency-metrics-self")
-    public ResponseEntity<Map<String, Object>> getDependencyMetricsSelf() {
+    public ResponseEntity<Map<String, Object>> getDependencyMetricsSelf(
+            @RequestParam(required = false) String bypassCache) {
         try {
             String currentPath = System.getProperty("user.dir");
-            ProjectAnalysis analysis = analyzerService.analyzeProject(currentPath);
-            Map<String, Object> metrics = dependencyAnalysisService.calculateDependencyMetrics(analysis);
-
-            // Add circular dependency detection
-            List<List<String>> circularDependencies = dependencyAnalysisService.detectCircularDependencies(analysis);
-            metrics.put("circularDependencies", circularDependencies);
-            metrics.put("hasCircularDependencies", !circularDependencies.isEmpty());
-
-            return ResponseEntity.ok(metrics);
+            CachedAnalysis entry = graphQueryService.load(currentPath, bypassCache(bypassCache));
+            return ResponseEntity.ok(dependencyMetrics(entry));
 
         } catch (Exception e) {
             throw new RuntimeException("Failed to calculate dependency metrics: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Basic metrics, graph metrics and cycles, each computed once per cached analysis
+     */
+    private Map<String, Object> dependencyMetrics(CachedAnalysis entry) {
+        ProjectAnalysis analysis = entry.getAnalysis();
+        Map<String, Object> metrics = new HashMap<>(entry.derived("basicMetrics",
+                () -> dependencyAnalysisService.calculateDependencyMetrics(analysis)));
+        metrics.putAll(dependencyMetricsEngine.compute(entry));
+
+        // Add circular dependency detection
+        List<List<String>> circularDependencies = entry.derived("cycles",
+                () -> dependencyAnalysisService.detectCircularDependencies(analysis));
+        metrics.put("circularDependencies", circularDependencies);
+        metrics.put("hasCircularDependencies", !circularDependencies.isEmpty());
+        return metrics;
+    }
+
+    private static boolean bypassCache(String flag) {
+        return flag != null && Boolean.parseBoolean(flag.trim());
+    }
+
+    /**
+     * Reports analysis scheduler permits, queue depth per lane, wait times and rejections
+     */
+    @GetMapping("/scheduler")
+    public ResponseEntity<Map<String, Object>> schedulerStats() {
+        return ResponseEntity.ok(analysisScheduler.stats());
+    }
+
+    /**
+     * Reports analysis cache size, hit/miss counts and evictions
+     */
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> cacheStats() {
+        return ResponseEntity.ok(analysisCache.stats());
+    }
+
+    /**
+     * Drops the cached analysis of one project, or of all projects when no path is given
+     */
+    @PostMapping("/cache/invalidate")
+    public ResponseEntity<Map<String, Object>> invalidateCache(
+            @RequestBody(required = false) Map<String, String> request) {
+        String projectPath = request != null ? request.get("projectPath") : null;
+        Map<String, Object> result = new HashMap<>();
+        if (projectPath == null || projectPath.trim().isEmpty()) {
+            result.put("invalidated", analysisCache.invalidateAll());
+        } else {
+            result.put("projectPath", AnalysisCache.canonicalPath(projectPath));
+            result.put("invalidated", analysisCache.invalidate(projectPath) ? 1 : 0);
+        }
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Diffs two analyses, given either as project paths (basePath/headPath) or as
+     * previously returned analysis documents (base/head)
+     */
+    @PostMapping("/diff")
+    public ResponseEntity<Map<String, Object>> diffAnalyses(@RequestBody Map<String, Object> request) {
+        ProjectAnalysis base = analysisFrom(request, "base");
+        ProjectAnalysis head = analysisFrom(request, "head");
+        Object limit = request.get("limit");
+        try {
+            return ResponseEntity.ok(analysisDiffService.diff(base, head,
+                    limit != null ? Integer.parseInt(limit.toString().trim()) : AnalysisDiffService.DEFAULT_LIMIT));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("limit must be a number");
+        }
+    }
+
+    private ProjectAnalysis analysisFrom(Map<String, Object> request, String side) {
+        Object document = request.get(side);
+        if (document != null) {
+            return objectMapper.convertValue(document, ProjectAnalysis.class);
+        }
+        Object path = request.get(side + "Path");
+        if (path == null || path.toString().trim().isEmpty()) {
+            throw new IllegalArgumentException("Either " + side + " or " + side + "Path is required");
+        }
+        return graphQueryService.load(path.toString()).getAnalysis();
+    }
+
     /**
      * Health check endpoint
      */
@@ -158,6 +360,10 @@ public class AnalyzerController {
      */
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, String>> handleException(Exception e) {
+        AnalysisRejectedException rejected = AnalysisRejectedException.find(e);
+        if (rejected != null) {
+            return AnalysisRejectedAdvice.tooManyRequests(rejected);
+        }
         Map<String, String> error = new HashMap<>();
         error.put("error", "Internal Server Error");
         error.put("message", e.getMessage());
@@ -176,4 +382,4 @@ public class AnalyzerController {
         error.put("timestamp", String.valueOf(System.currentTimeMillis()));
         return ResponseEntity.badRequest().body(error);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,61 @@
+package com.pro.controller;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Strong entity tags for responses that are a pure function of their inputs, and
+ * If-None-Match evaluation that runs before the response is computed.
+ */
+public final class EntityTag {
+
+    /**
+     * Appended by StrongETagGzipFilter to the tag of the gzip-encoded representation
+     */
+    static final String GZIP_SUFFIX = "-gzip";
+
+    private EntityTag() {
+    }
+
+    /**
+     * Quoted strong tag over the given parts; equal parts always give the same tag
+     */
+    public static String strong(String... parts) {
+        StringBuilder joined = new StringBuilder();
+        for (String part : parts) {
+            joined.append(part).append('\u0000');
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(joined.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * Whether an If-None-Match header matches the tag, using the weak comparison
+     * the header calls for. Tags of the gzip variant match their identity tag.
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*")) {
+                return true;
+            }
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.endsWith(GZIP_SUFFIX + "\"")) {
+                candidate = candidate.substring(0, candidate.length() - GZIP_SUFFIX.length() - 1) + "\"";
+            }
+            if (candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static String gzipVariant(String etag) {
+        return etag.substring(0, etag.length() - 1) + GZIP_SUFFIX + "\"";
+    }
+}
@@ -0,0 +1,166 @@
+package com.pro.controller;
+
+import com.pro.job.AnalysisRejectedException;
+import com.pro.model.WireGraph;
+import com.pro.service.ArchitectureRuleService;
+import com.pro.service.EgoGraphService;
+import com.pro.service.GraphAggregationService;
+import com.pro.service.GraphQueryService;
+import com.pro.service.SubgraphQueryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/analyzer/graph")
+@CrossOrigin(origins = "*")
+public class GraphQueryController {
+
+    @Autowired
+    private GraphQueryService graphQueryService;
+
+    @Autowired
+    private GraphAggregationService graphAggregationService;
+
+    @Autowired
+    private ArchitectureRuleService architectureRuleService;
+
+    @Autowired
+    private SubgraphQueryService subgraphQueryService;
+
+    @Autowired
+    private EgoGraphService egoGraphService;
+
+    /**
+     * Checks whether a component transitively depends on another one
+     */
+    @PostMapping("/depends-on")
+    public ResponseEntity<Map<String, Object>> dependsOn(@RequestBody Map<String, String> request) {
+        return ResponseEntity.ok(graphQueryService.dependsOn(request.get("projectPath"),
+                request.get("source"), request.get("target")));
+    }
+
+    /**
+     * Lists all transitive dependencies of a component
+     */
+    @PostMapping("/transitive-dependencies")
+    public ResponseEntity<Map<String, Object>> transitiveDependencies(@RequestBody Map<String, String> request) {
+        return ResponseEntity.ok(graphQueryService.transitiveDependencies(request.get("projectPath"),
+                request.get("component")));
+    }
+
+    /**
+     * Lists all components that transitively depend on a component
+     */
+    @PostMapping("/transitive-dependents")
+    public ResponseEntity<Map<String, Object>> transitiveDependents(@RequestBody Map<String, String> request) {
+        return ResponseEntity.ok(graphQueryService.transitiveDependents(request.get("projectPath"),
+                request.get("component")));
+    }
+
+    /**
+     * Returns the k shortest dependency chains between two components
+     */
+    @PostMapping("/paths")
+    public ResponseEntity<Map<String, Object>> shortestPaths(@RequestBody Map<String, String> request) {
+        String k = request.get("k");
+        try {
+            return ResponseEntity.ok(graphQueryService.shortestChains(request.get("projectPath"),
+                    request.get("source"), request.get("target"), k != null ? Integer.parseInt(k.trim()) : 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("k must be a number");
+        }
+    }
+
+    /**
+     * Returns the dependency graph with a precomputed layer and order per node
+     */
+    @PostMapping("/layers")
+    public ResponseEntity<Map<String, Object>> layers(@RequestBody Map<String, String> request) {
+        return ResponseEntity.ok(graphQueryService.layers(request.get("projectPath")));
+    }
+
+    /**
+     * Returns the dependency graph in the compact wire format
+     */
+    @PostMapping("/compact")
+    public ResponseEntity<WireGraph> compact(@RequestBody Map<String, String> request) {
+        return ResponseEntity.ok(graphQueryService.compactGraph(request.get("projectPath")));
+    }
+
+    /**
+     * Returns the dependency graph condensed to class, package or module level
+     */
+    @PostMapping("/aggregate")
+    public ResponseEntity<Map<String, Object>> aggregate(@RequestBody Map<String, String> request) {
+        return ResponseEntity.ok(graphAggregationService.aggregate(request.get("projectPath"),
+                request.get("level")));
+    }
+
+    /**
+     * Expands one package or module node into its children
+     */
+    @PostMapping("/expand")
+    public ResponseEntity<Map<String, Object>> expand(@RequestBody Map<String, String> request) {
+        return ResponseEntity.ok(graphAggregationService.expand(request.get("projectPath"),
+                request.get("level"), request.get("node")));
+    }
+
+    /**
+     * Returns the subgraph induced by components matching all given filters (type,
+     * package, module, annotation, endpointPath, inCycle)
+     */
+    @PostMapping("/subgraph")
+    public ResponseEntity<Map<String, Object>> subgraph(@RequestBody Map<String, String> request) {
+        return ResponseEntity.ok(subgraphQueryService.query(request.get("projectPath"), request));
+    }
+
+    /**
+     * Returns one page of the k-hop neighborhood of a component; pass the returned
+     * nextToken to continue expanding
+     */
+    @PostMapping("/ego")
+    public ResponseEntity<Map<String, Object>> egoGraph(@RequestBody Map<String, String> request) {
+        return ResponseEntity.ok(egoGraphService.egoGraph(request.get("projectPath"), request.get("component"),
+                request.get("hops"), request.get("direction"), request.get("budget"), request.get("token")));
+    }
+
+    /**
+     * Checks the dependency graph against architecture rules, one rule per line
+     */
+    @PostMapping("/rules")
+    public ResponseEntity<Map<String, Object>> checkRules(@RequestBody Map<String, String> request) {
+        return ResponseEntity.ok(architectureRuleService.check(request.get("projectPath"), request.get("rules")));
+    }
+
+    /**
+     * Global exception handler
+     */
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<Map<String, String>> handleException(Exception e) {
+        AnalysisRejectedException rejected = AnalysisRejectedException.find(e);
+        if (rejected != null) {
+            return AnalysisRejectedAdvice.tooManyRequests(rejected);
+        }
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Internal Server Error");
+        error.put("message", e.getMessage());
+        error.put("timestamp", String.valueOf(System.currentTimeMillis()));
+        return ResponseEntity.internalServerError().body(error);
+    }
+
+    /**
+     * Handle illegal argument exceptions
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalArgument(IllegalArgumentException e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Bad Request");
+        error.put("message", e.getMessage());
+        error.put("timestamp", String.valueOf(System.currentTimeMillis()));
+        return ResponseEntity.badRequest().body(error);
+    }
+}
@@ -0,0 +1,117 @@
+package com.pro.controller;
+
+import com.pro.job.Job;
+import com.pro.job.JobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/api/jobs")
+@CrossOrigin(origins = "*")
+public class JobController {
+
+    @Autowired
+    private JobService jobService;
+
+    /**
+     * Starts an analysis or scan job and returns its id right away
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> submit(@RequestBody Map<String, String> request) {
+        String path = request.get("projectPath") != null ? request.get("projectPath") : request.get("path");
+        Job job = jobService.submit(Job.Type.parse(request.get("type")), path,
+                Boolean.parseBoolean(request.get("bypassCache")));
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job.describe());
+    }
+
+    /**
+     * Lists retained jobs, newest last
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> list() {
+        List<Map<String, Object>> jobs = new ArrayList<>();
+        for (Job job : jobService.list()) {
+            jobs.add(job.describe());
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("jobs", jobs);
+        response.put("executor", jobService.stats());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Reports phase, files done/total and elapsed time of a job
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> status(@PathVariable String id) {
+        return ResponseEntity.ok(jobService.get(id).describe());
+    }
+
+    /**
+     * Returns the result of a succeeded job, or its status while it is not done
+     */
+    @GetMapping("/{id}/result")
+    public ResponseEntity<Object> result(@PathVariable String id) {
+        Job job = jobService.get(id);
+        if (job.getStatus() == Job.Status.SUCCEEDED) {
+            return ResponseEntity.ok(job.getResult());
+        }
+        if (job.getStatus().isFinished()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(job.describe());
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job.describe());
+    }
+
+    /**
+     * Cancels a job; a running job stops before its next file
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> cancel(@PathVariable String id) {
+        return ResponseEntity.ok(jobService.cancel(id).describe());
+    }
+
+    /**
+     * Global exception handler
+     */
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<Map<String, String>> handleException(Exception e) {
+        return error(HttpStatus.INTERNAL_SERVER_ERROR, "Internal Server Error", e);
+    }
+
+    /**
+     * Handle illegal argument exceptions
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalArgument(IllegalArgumentException e) {
+        return error(HttpStatus.BAD_REQUEST, "Bad Request", e);
+    }
+
+    /**
+     * Unknown job ids
+     */
+    @ExceptionHandler(NoSuchElementException.class)
+    public ResponseEntity<Map<String, String>> handleNotFound(NoSuchElementException e) {
+        return error(HttpStatus.NOT_FOUND, "Not Found", e);
+    }
+
+    /**
+     * Job queue is full
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Map<String, String>> handleRejected(RejectedExecutionException e) {
+        return error(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", e);
+    }
+
+    private static ResponseEntity<Map<String, String>> error(HttpStatus status, String title, Exception e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", title);
+        error.put("message", e.getMessage());
+        error.put("timestamp", String.valueOf(System.currentTimeMillis()));
+        return ResponseEntity.status(status).body(error);
+    }
+}
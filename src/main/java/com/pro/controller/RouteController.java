@@ -0,0 +1,73 @@
+package com.pro.controller;
+
+import com.pro.job.AnalysisRejectedException;
+import com.pro.service.RouteQueryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/analyzer/routes")
+@CrossOrigin(origins = "*")
+public class RouteController {
+
+    @Autowired
+    private RouteQueryService routeQueryService;
+
+    /**
+     * Finds the endpoints a request (method, path) is dispatched to
+     */
+    @PostMapping("/lookup")
+    public ResponseEntity<Map<String, Object>> lookup(@RequestBody Map<String, String> request) {
+        return ResponseEntity.ok(routeQueryService.lookup(request.get("projectPath"), request.get("method"),
+                request.get("path")));
+    }
+
+    /**
+     * Lists the routes under a path prefix, optionally for one method
+     */
+    @PostMapping("/list")
+    public ResponseEntity<Map<String, Object>> list(@RequestBody Map<String, String> request) {
+        return ResponseEntity.ok(routeQueryService.list(request.get("projectPath"), request.get("method"),
+                request.get("prefix"), request.get("limit")));
+    }
+
+    /**
+     * Reports duplicate, ambiguous and shadowed routes across controllers
+     */
+    @PostMapping("/conflicts")
+    public ResponseEntity<Map<String, Object>> conflicts(@RequestBody Map<String, String> request) {
+        return ResponseEntity.ok(routeQueryService.conflicts(request.get("projectPath"), request.get("limit")));
+    }
+
+    /**
+     * Global exception handler
+     */
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<Map<String, String>> handleException(Exception e) {
+        AnalysisRejectedException rejected = AnalysisRejectedException.find(e);
+        if (rejected != null) {
+            return AnalysisRejectedAdvice.tooManyRequests(rejected);
+        }
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Internal Server Error");
+        error.put("message", e.getMessage());
+        error.put("timestamp", String.valueOf(System.currentTimeMillis()));
+        return ResponseEntity.internalServerError().body(error);
+    }
+
+    /**
+     * Handle illegal argument exceptions
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalArgument(IllegalArgumentException e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Bad Request");
+        error.put("message", e.getMessage());
+        error.put("timestamp", String.valueOf(System.currentTimeMillis()));
+        return ResponseEntity.badRequest().body(error);
+    }
+}
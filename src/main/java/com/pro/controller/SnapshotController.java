@@ -0,0 +1,107 @@
+package com.pro.controller;
+
+import com.pro.apigraph.model.Dependency;
+import com.pro.model.ProjectAnalysis;
+import com.pro.snapshot.SnapshotStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/analyzer/snapshots")
+@CrossOrigin(origins = "*")
+public class SnapshotController {
+
+    @Autowired
+    private SnapshotStore snapshotStore;
+
+    /**
+     * Lists the retained analysis or scan snapshots of a project, oldest first
+     */
+    @PostMapping("/list")
+    public ResponseEntity<Map<String, Object>> list(@RequestBody Map<String, String> request) {
+        return ResponseEntity.ok(snapshotStore.history(SnapshotStore.Kind.parse(request.get("kind")),
+                request.get("projectPath")));
+    }
+
+    /**
+     * Returns a past analysis by sequence number, or the one current at a time
+     * ("at", epoch millis); the newest one when neither is given
+     */
+    @PostMapping("/analysis")
+    public ResponseEntity<ProjectAnalysis> analysis(@RequestBody Map<String, String> request) {
+        return ResponseEntity.ok(snapshotStore.analysis(request.get("projectPath"),
+                parseLong("seq", request.get("seq")), parseLong("at", request.get("at"))));
+    }
+
+    /**
+     * Returns the dependencies of a past scan, selected like analyses
+     */
+    @PostMapping("/scan")
+    public ResponseEntity<Map<String, Object>> scan(@RequestBody Map<String, String> request) {
+        List<Dependency> dependencies = snapshotStore.scan(request.get("projectPath"),
+                parseLong("seq", request.get("seq")), parseLong("at", request.get("at")));
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("projectPath", request.get("projectPath"));
+        response.put("totalDependencies", dependencies.size());
+        response.put("dependencies", dependencies);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Drops snapshots outside the retention limits now instead of waiting for the
+     * background compaction
+     */
+    @PostMapping("/compact")
+    public ResponseEntity<Map<String, Object>> compact() {
+        return ResponseEntity.ok(snapshotStore.compact());
+    }
+
+    /**
+     * Snapshot counts, sizes on disk and write counters
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> stats() {
+        return ResponseEntity.ok(snapshotStore.stats());
+    }
+
+    private static Long parseLong(String name, String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number");
+        }
+    }
+
+    /**
+     * Global exception handler
+     */
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<Map<String, String>> handleException(Exception e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Internal Server Error");
+        error.put("message", e.getMessage());
+        error.put("timestamp", String.valueOf(System.currentTimeMillis()));
+        return ResponseEntity.internalServerError().body(error);
+    }
+
+    /**
+     * Handle illegal argument exceptions
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalArgument(IllegalArgumentException e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Bad Request");
+        error.put("message", e.getMessage());
+        error.put("timestamp", String.valueOf(System.currentTimeMillis()));
+        return ResponseEntity.badRequest().body(error);
+    }
+}
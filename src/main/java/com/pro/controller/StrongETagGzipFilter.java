@@ -0,0 +1,192 @@
+package com.pro.controller;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzips responses that carry a strong ETag. The container's compression skips them,
+ * since a strong tag must not be shared by two encodings, so the encoded variant is
+ * tagged separately here and EntityTag maps it back when matching If-None-Match.
+ * Other responses are left to server.compression.
+ */
+@Component
+public class StrongETagGzipFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null || !acceptEncoding.toLowerCase().contains("gzip")) {
+            chain.doFilter(request, response);
+            return;
+        }
+        GzipResponse gzipResponse = new GzipResponse(response);
+        try {
+            chain.doFilter(request, gzipResponse);
+        } finally {
+            gzipResponse.finish();
+        }
+    }
+
+    private static final class GzipResponse extends HttpServletResponseWrapper {
+        private boolean compress;
+        private GzipStream stream;
+        private PrintWriter writer;
+
+        GzipResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (!intercept(name, value)) {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (!intercept(name, value)) {
+                super.addHeader(name, value);
+            }
+        }
+
+        // Swaps a strong tag for the gzip variant's tag and drops the identity length
+        private boolean intercept(String name, String value) {
+            if (HttpHeaders.ETAG.equalsIgnoreCase(name) && value != null && !value.startsWith("W/")
+                    && !isCommitted()) {
+                compress = true;
+                super.setHeader(HttpHeaders.ETAG, EntityTag.gzipVariant(value));
+                super.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                return true;
+            }
+            return compress && HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+        }
+
+        @Override
+        public void setContentLength(int len) {
+            if (!compress) {
+                super.setContentLength(len);
+            }
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            if (!compress) {
+                super.setContentLengthLong(len);
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (!compress || getStatus() == SC_NOT_MODIFIED || getStatus() == SC_NO_CONTENT) {
+                return super.getOutputStream();
+            }
+            if (stream == null) {
+                super.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                stream = new GzipStream(super.getOutputStream());
+            }
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (!compress) {
+                return super.getWriter();
+            }
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (stream != null) {
+                stream.flush();
+            }
+            super.flushBuffer();
+        }
+
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (stream != null) {
+                stream.finish();
+            }
+        }
+    }
+
+    private static final class GzipStream extends ServletOutputStream {
+        private final ServletOutputStream target;
+        private final GZIPOutputStream gzip;
+        private boolean finished;
+
+        GzipStream(ServletOutputStream target) throws IOException {
+            this.target = target;
+            // Analysis bodies are repetitive enough that the fastest level gets most of the gain
+            this.gzip = new GZIPOutputStream(target, 1 << 13) {
+                {
+                    def.setLevel(Deflater.BEST_SPEED);
+                }
+            };
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            gzip.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            gzip.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            gzip.flush();
+        }
+
+        void finish() throws IOException {
+            if (!finished) {
+                finished = true;
+                gzip.finish();
+                target.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+            target.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return target.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            target.setWriteListener(writeListener);
+        }
+    }
+}
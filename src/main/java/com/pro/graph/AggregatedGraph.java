@@ -0,0 +1,117 @@
+package com.pro.graph;
+
+import java.util.*;
+import java.util.function.IntFunction;
+
+/**
+ * Condensed view of a CompactGraph where nodes are grouped (by package, module, ...)
+ * and parallel edges between groups are merged into one edge with a multiplicity.
+ */
+public class AggregatedGraph {
+
+    private final CompactGraph graph;
+    private final int[] groupOf;
+    private final List<String> groups = new ArrayList<>();
+    private final Map<String, Integer> groupIds = new HashMap<>();
+    private final int[] memberOffsets;
+    private final int[] members;
+    private final int[] internalEdges;
+    private final Map<Long, Integer> edgeWeights = new HashMap<>();
+
+    public AggregatedGraph(CompactGraph graph, IntFunction<String> grouping) {
+        this.graph = graph;
+        int n = graph.nodeCount();
+        this.groupOf = new int[n];
+        for (int v = 0; v < n; v++) {
+            String group = grouping.apply(v);
+            Integer id = groupIds.get(group);
+            if (id == null) {
+                id = groups.size();
+                groups.add(group);
+                groupIds.put(group, id);
+            }
+            groupOf[v] = id;
+        }
+
+        int g = groups.size();
+        this.memberOffsets = new int[g + 1];
+        for (int v = 0; v < n; v++) {
+            memberOffsets[groupOf[v] + 1]++;
+        }
+        for (int i = 0; i < g; i++) {
+            memberOffsets[i + 1] += memberOffsets[i];
+        }
+        this.members = new int[n];
+        int[] fill = Arrays.copyOf(memberOffsets, g);
+        for (int v = 0; v < n; v++) {
+            members[fill[groupOf[v]]++] = v;
+        }
+
+        this.internalEdges = new int[g];
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            int s = groupOf[graph.edgeSource(e)];
+            int t = groupOf[graph.edgeTarget(e)];
+            if (s == t) {
+                internalEdges[s]++;
+            } else {
+                edgeWeights.merge(key(s, t), 1, Integer::sum);
+            }
+        }
+    }
+
+    private static long key(int source, int target) {
+        return ((long) source << 32) | (target & 0xffffffffL);
+    }
+
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    public int groupCount() {
+        return groups.size();
+    }
+
+    public String groupName(int group) {
+        return groups.get(group);
+    }
+
+    /**
+     * Returns the group id for a name, or -1 if unknown
+     */
+    public int groupId(String name) {
+        Integer id = groupIds.get(name);
+        return id != null ? id : -1;
+    }
+
+    public int groupOf(int node) {
+        return groupOf[node];
+    }
+
+    public int memberCount(int group) {
+        return memberOffsets[group + 1] - memberOffsets[group];
+    }
+
+    public int member(int group, int i) {
+        return members[memberOffsets[group] + i];
+    }
+
+    /**
+     * Number of edges whose both ends fall into the group
+     */
+    public int internalEdges(int group) {
+        return internalEdges[group];
+    }
+
+    /**
+     * Cross-group edges as {source group, target group, multiplicity}
+     */
+    public List<int[]> edges() {
+        List<int[]> result = new ArrayList<>(edgeWeights.size());
+        for (Map.Entry<Long, Integer> entry : edgeWeights.entrySet()) {
+            long k = entry.getKey();
+            result.add(new int[] { (int) (k >>> 32), (int) k, entry.getValue() });
+        }
+        result.sort(Comparator.<int[]>comparingInt(e -> e[0]).thenComparingInt(e -> e[1]));
+        return result;
+    }
+}
@@ -0,0 +1,173 @@
+package com.pro.graph;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Parallel centrality measures over a CompactGraph
+ */
+public final class Centrality {
+
+    private Centrality() {
+    }
+
+    /**
+     * PageRank with uniform teleport; dangling mass is spread evenly. Each iteration
+     * pulls contributions over incoming edges in parallel.
+     */
+    public static double[] pageRank(CompactGraph graph, double damping, int maxIterations, double tolerance) {
+        int n = graph.nodeCount();
+        double[] rank = new double[n];
+        if (n == 0) {
+            return rank;
+        }
+        Arrays.fill(rank, 1.0 / n);
+        double[] next = new double[n];
+        double[] share = new double[n];
+
+        for (int iteration = 0; iteration < maxIterations; iteration++) {
+            double dangling = 0;
+            for (int u = 0; u < n; u++) {
+                int degree = graph.outDegree(u);
+                if (degree == 0) {
+                    dangling += rank[u];
+                    share[u] = 0;
+                } else {
+                    share[u] = rank[u] / degree;
+                }
+            }
+            double base = (1 - damping) / n + damping * dangling / n;
+            double[] current = next;
+            IntStream.range(0, n).parallel().forEach(v -> {
+                double sum = 0;
+                for (int i = 0; i < graph.inDegree(v); i++) {
+                    sum += share[graph.inSource(v, i)];
+                }
+                current[v] = base + damping * sum;
+            });
+
+            double delta = 0;
+            for (int v = 0; v < n; v++) {
+                delta += Math.abs(next[v] - rank[v]);
+            }
+            next = rank;
+            rank = current;
+            if (delta < tolerance) {
+                break;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Brandes betweenness over unweighted directed edges. When sampleSize is smaller
+     * than the node count, that many pivots are drawn and the result is scaled up.
+     * Pivots are processed in parallel chunks with per-chunk scratch arrays.
+     */
+    public static double[] betweenness(CompactGraph graph, int sampleSize, long seed) {
+        int n = graph.nodeCount();
+        int[] sources;
+        if (sampleSize >= n) {
+            sources = IntStream.range(0, n).toArray();
+        } else {
+            sources = IntStream.range(0, n).toArray();
+            Random random = new Random(seed);
+            for (int i = 0; i < sampleSize; i++) {
+                int j = i + random.nextInt(n - i);
+                int tmp = sources[i];
+                sources[i] = sources[j];
+                sources[j] = tmp;
+            }
+            sources = Arrays.copyOf(sources, sampleSize);
+        }
+        if (sources.length == 0) {
+            return new double[n];
+        }
+
+        int chunks = Math.min(sources.length, ForkJoinPool.commonPool().getParallelism() * 4);
+        int[] sourceList = sources;
+        double[] total = IntStream.range(0, chunks).parallel()
+                .mapToObj(chunk -> {
+                    double[] local = new double[n];
+                    BrandesScratch scratch = new BrandesScratch(n);
+                    for (int i = chunk; i < sourceList.length; i += chunks) {
+                        scratch.accumulate(graph, sourceList[i], local);
+                    }
+                    return local;
+                })
+                .reduce((a, b) -> {
+                    for (int i = 0; i < a.length; i++) {
+                        a[i] += b[i];
+                    }
+                    return a;
+                })
+                .orElseGet(() -> new double[n]);
+
+        if (sources.length < n) {
+            double scale = (double) n / sources.length;
+            for (int i = 0; i < n; i++) {
+                total[i] *= scale;
+            }
+        }
+        return total;
+    }
+
+    private static final class BrandesScratch {
+        private final int[] distance;
+        private final double[] sigma;
+        private final double[] delta;
+        private final int[] order;
+
+        BrandesScratch(int n) {
+            distance = new int[n];
+            sigma = new double[n];
+            delta = new double[n];
+            order = new int[n];
+            Arrays.fill(distance, -1);
+        }
+
+        void accumulate(CompactGraph graph, int source, double[] into) {
+            int head = 0;
+            int tail = 0;
+            order[tail++] = source;
+            distance[source] = 0;
+            sigma[source] = 1;
+            while (head < tail) {
+                int u = order[head++];
+                for (int i = 0; i < graph.outDegree(u); i++) {
+                    int v = graph.outTarget(u, i);
+                    if (distance[v] < 0) {
+                        distance[v] = distance[u] + 1;
+                        order[tail++] = v;
+                    }
+                    if (distance[v] == distance[u] + 1) {
+                        sigma[v] += sigma[u];
+                    }
+                }
+            }
+
+            // Predecessors are recovered from incoming edges instead of stored lists
+            for (int k = tail - 1; k >= 0; k--) {
+                int w = order[k];
+                for (int i = 0; i < graph.inDegree(w); i++) {
+                    int v = graph.inSource(w, i);
+                    if (distance[v] >= 0 && distance[v] == distance[w] - 1) {
+                        delta[v] += sigma[v] / sigma[w] * (1 + delta[w]);
+                    }
+                }
+                if (w != source) {
+                    into[w] += delta[w];
+                }
+            }
+
+            for (int k = 0; k < tail; k++) {
+                int w = order[k];
+                distance[w] = -1;
+                sigma[w] = 0;
+                delta[w] = 0;
+            }
+        }
+    }
+}
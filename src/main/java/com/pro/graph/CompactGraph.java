@@ -0,0 +1,197 @@
+package com.pro.graph;
+
+import java.util.*;
+
+/**
+ * Immutable, integer-indexed directed graph stored in compressed sparse row form.
+ * Node names are interned once; adjacency in both directions is kept as flat int arrays.
+ */
+public class CompactGraph {
+
+    private final String[] names;
+    private final Map<String, Integer> ids;
+    private final int[] edgeSource;
+    private final int[] edgeTarget;
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final int[] outEdges;
+    private final int[] inOffsets;
+    private final int[] inSources;
+    private final int[] inEdges;
+
+    private CompactGraph(String[] names, Map<String, Integer> ids, int[] edgeSource, int[] edgeTarget) {
+        this.names = names;
+        this.ids = ids;
+        this.edgeSource = edgeSource;
+        this.edgeTarget = edgeTarget;
+
+        int n = names.length;
+        int m = edgeSource.length;
+        this.outOffsets = new int[n + 1];
+        this.inOffsets = new int[n + 1];
+        for (int e = 0; e < m; e++) {
+            outOffsets[edgeSource[e] + 1]++;
+            inOffsets[edgeTarget[e] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            outOffsets[i + 1] += outOffsets[i];
+            inOffsets[i + 1] += inOffsets[i];
+        }
+
+        this.outTargets = new int[m];
+        this.outEdges = new int[m];
+        this.inSources = new int[m];
+        this.inEdges = new int[m];
+        int[] outFill = Arrays.copyOf(outOffsets, n);
+        int[] inFill = Arrays.copyOf(inOffsets, n);
+        for (int e = 0; e < m; e++) {
+            int s = edgeSource[e];
+            int t = edgeTarget[e];
+            outTargets[outFill[s]] = t;
+            outEdges[outFill[s]++] = e;
+            inSources[inFill[t]] = s;
+            inEdges[inFill[t]++] = e;
+        }
+    }
+
+    /**
+     * Builds a graph from a component dependency map. Targets that are not keys
+     * of the map still become nodes.
+     */
+    public static CompactGraph fromDependencyGraph(Map<String, List<String>> dependencyGraph) {
+        Builder builder = new Builder();
+        if (dependencyGraph == null) {
+            return builder.build();
+        }
+        for (String node : dependencyGraph.keySet()) {
+            builder.addNode(node);
+        }
+        for (Map.Entry<String, List<String>> entry : dependencyGraph.entrySet()) {
+            if (entry.getValue() == null)
+                continue;
+            for (String target : entry.getValue()) {
+                builder.addEdge(entry.getKey(), target);
+            }
+        }
+        return builder.build();
+    }
+
+    public int nodeCount() {
+        return names.length;
+    }
+
+    public int edgeCount() {
+        return edgeSource.length;
+    }
+
+    public String name(int node) {
+        return names[node];
+    }
+
+    /**
+     * Returns the node id for a name, or -1 when the graph does not contain it
+     */
+    public int id(String name) {
+        Integer id = ids.get(name);
+        return id != null ? id : -1;
+    }
+
+    public int edgeSource(int edge) {
+        return edgeSource[edge];
+    }
+
+    public int edgeTarget(int edge) {
+        return edgeTarget[edge];
+    }
+
+    public int outDegree(int node) {
+        return outOffsets[node + 1] - outOffsets[node];
+    }
+
+    public int inDegree(int node) {
+        return inOffsets[node + 1] - inOffsets[node];
+    }
+
+    /**
+     * Target of the i-th outgoing edge of a node
+     */
+    public int outTarget(int node, int i) {
+        return outTargets[outOffsets[node] + i];
+    }
+
+    /**
+     * Edge id of the i-th outgoing edge of a node
+     */
+    public int outEdge(int node, int i) {
+        return outEdges[outOffsets[node] + i];
+    }
+
+    /**
+     * Source of the i-th incoming edge of a node
+     */
+    public int inSource(int node, int i) {
+        return inSources[inOffsets[node] + i];
+    }
+
+    /**
+     * Edge id of the i-th incoming edge of a node
+     */
+    public int inEdge(int node, int i) {
+        return inEdges[inOffsets[node] + i];
+    }
+
+    /**
+     * Approximate heap footprint of the adjacency arrays in bytes
+     */
+    public long estimatedBytes() {
+        long ints = (long) edgeSource.length * 6 + (long) (names.length + 1) * 2;
+        return ints * Integer.BYTES + (long) names.length * 48;
+    }
+
+    /**
+     * Incrementally collects nodes and edges before freezing them into a CompactGraph
+     */
+    public static class Builder {
+        private final List<String> names = new ArrayList<>();
+        private final Map<String, Integer> ids = new HashMap<>();
+        private int[] sources = new int[16];
+        private int[] targets = new int[16];
+        private int edges;
+
+        public int addNode(String name) {
+            Integer id = ids.get(name);
+            if (id != null) {
+                return id;
+            }
+            int newId = names.size();
+            names.add(name);
+            ids.put(name, newId);
+            return newId;
+        }
+
+        /**
+         * Adds an edge and returns its id; edge ids follow insertion order
+         */
+        public int addEdge(String source, String target) {
+            return addEdge(addNode(source), addNode(target));
+        }
+
+        /**
+         * Adds an edge between two node ids previously returned by addNode
+         */
+        public int addEdge(int s, int t) {
+            if (edges == sources.length) {
+                sources = Arrays.copyOf(sources, edges * 2);
+                targets = Arrays.copyOf(targets, edges * 2);
+            }
+            sources[edges] = s;
+            targets[edges] = t;
+            return edges++;
+        }
+
+        public CompactGraph build() {
+            return new CompactGraph(names.toArray(new String[0]), new HashMap<>(ids),
+                    Arrays.copyOf(sources, edges), Arrays.copyOf(targets, edges));
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package com.pro.graph;
+
+import java.util.*;
+
+/**
+ * Linear merge diff of two labeled edge sets. Node, label and method strings are
+ * interned into shared sorted tables, each edge is packed into one long whose bit
+ * layout preserves lexicographic (source, target, label, method) order, and the two
+ * sorted arrays are merged in a single pass. Edge identity is (source, target, label);
+ * a different method on the same identity is reported as a change.
+ */
+public class EdgeSetDiff {
+
+    /**
+     * Column-oriented edge list; label and method may be null
+     */
+    public static class Edges {
+        private String[] source = new String[16];
+        private String[] target = new String[16];
+        private String[] label = new String[16];
+        private String[] method = new String[16];
+        private int size;
+
+        public void add(String s, String t, String l, String m) {
+            if (size == source.length) {
+                int capacity = size * 2;
+                source = Arrays.copyOf(source, capacity);
+                target = Arrays.copyOf(target, capacity);
+                label = Arrays.copyOf(label, capacity);
+                method = Arrays.copyOf(method, capacity);
+            }
+            source[size] = s;
+            target[size] = t;
+            label[size] = l != null ? l : "";
+            method[size] = m != null ? m : "";
+            size++;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public String source(int i) {
+            return source[i];
+        }
+
+        public String target(int i) {
+            return target[i];
+        }
+
+        public String label(int i) {
+            return label[i];
+        }
+
+        public String method(int i) {
+            return method[i];
+        }
+    }
+
+    /**
+     * Indices into the base/head edge lists, in lexicographic edge order
+     */
+    public static class Result {
+        private final int[] removed;
+        private final int[] added;
+        private final int[][] changed;
+        private final int unchanged;
+
+        Result(int[] removed, int[] added, int[][] changed, int unchanged) {
+            this.removed = removed;
+            this.added = added;
+            this.changed = changed;
+            this.unchanged = unchanged;
+        }
+
+        /**
+         * Indices into the base edges that no longer exist in head
+         */
+        public int[] removed() {
+            return removed;
+        }
+
+        /**
+         * Indices into the head edges that did not exist in base
+         */
+        public int[] added() {
+            return added;
+        }
+
+        /**
+         * {base index, head index} pairs whose method differs
+         */
+        public int[][] changed() {
+            return changed;
+        }
+
+        public int unchanged() {
+            return unchanged;
+        }
+    }
+
+    private EdgeSetDiff() {
+    }
+
+    /**
+     * Diffs two edge lists. An identity repeated within one side counts once: the
+     * edge with the lexicographically smallest method is kept, the earliest on ties,
+     * and the others are ignored rather than reported as added or removed.
+     */
+    public static Result diff(Edges base, Edges head) {
+        Table nodes = new Table();
+        Table labels = new Table();
+        Table methods = new Table();
+        for (Edges edges : List.of(base, head)) {
+            for (int i = 0; i < edges.size; i++) {
+                nodes.intern(edges.source[i]);
+                nodes.intern(edges.target[i]);
+                labels.intern(edges.label[i]);
+                methods.intern(edges.method[i]);
+            }
+        }
+        int nodeBits = nodes.freeze();
+        int labelBits = labels.freeze();
+        int methodBits = methods.freeze();
+        if (nodeBits * 2 + labelBits + methodBits > 63) {
+            return diffByStrings(base, head);
+        }
+
+        long[] baseKeys = pack(base, nodes, labels, methods, nodeBits, labelBits, methodBits);
+        long[] headKeys = pack(head, nodes, labels, methods, nodeBits, labelBits, methodBits);
+        return merge(baseKeys, headKeys, methodBits);
+    }
+
+    /**
+     * Packs edges as (source, target, label, method) ranks and returns them sorted,
+     * interleaved with their original index: {key0, index0, key1, index1, ...}
+     */
+    private static long[] pack(Edges edges, Table nodes, Table labels, Table methods, int nodeBits, int labelBits,
+            int methodBits) {
+        int n = edges.size;
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            long key = nodes.rank(edges.source[i]);
+            key = (key << nodeBits) | nodes.rank(edges.target[i]);
+            key = (key << labelBits) | labels.rank(edges.label[i]);
+            key = (key << methodBits) | methods.rank(edges.method[i]);
+            keys[i] = key;
+        }
+        long[] pairs = new long[n * 2];
+        int[] index = sortedOrder(keys);
+        for (int i = 0; i < n; i++) {
+            pairs[i * 2] = keys[index[i]];
+            pairs[i * 2 + 1] = index[i];
+        }
+        return pairs;
+    }
+
+    /**
+     * Stable LSD radix sort of indices by 64-bit key, 16 bits per pass
+     */
+    private static int[] sortedOrder(long[] keys) {
+        int n = keys.length;
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        long max = 0;
+        for (long key : keys) {
+            max |= key;
+        }
+        int[] buffer = new int[n];
+        int[] counts = new int[1 << 16];
+        for (int shift = 0; shift < 64 && (max >>> shift) != 0; shift += 16) {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < n; i++) {
+                counts[(int) ((keys[order[i]] >>> shift) & 0xffff)]++;
+            }
+            int sum = 0;
+            for (int b = 0; b < counts.length; b++) {
+                int c = counts[b];
+                counts[b] = sum;
+                sum += c;
+            }
+            for (int i = 0; i < n; i++) {
+                int idx = order[i];
+                buffer[counts[(int) ((keys[idx] >>> shift) & 0xffff)]++] = idx;
+            }
+            int[] tmp = order;
+            order = buffer;
+            buffer = tmp;
+        }
+        return order;
+    }
+
+    private static Result merge(long[] base, long[] head, int methodBits) {
+        int[] removed = new int[16];
+        int[] added = new int[16];
+        List<int[]> changed = new ArrayList<>();
+        int removedCount = 0;
+        int addedCount = 0;
+        int unchanged = 0;
+
+        int i = 0;
+        int j = 0;
+        int nb = base.length / 2;
+        int nh = head.length / 2;
+        while (i < nb || j < nh) {
+            // Skip duplicate identities within one side, keeping the first occurrence
+            if (i > 0 && i < nb && identity(base[i * 2], methodBits) == identity(base[(i - 1) * 2], methodBits)) {
+                i++;
+                continue;
+            }
+            if (j > 0 && j < nh && identity(head[j * 2], methodBits) == identity(head[(j - 1) * 2], methodBits)) {
+                j++;
+                continue;
+            }
+            if (j >= nh || (i < nb && identity(base[i * 2], methodBits) < identity(head[j * 2], methodBits))) {
+                if (removedCount == removed.length)
+                    removed = Arrays.copyOf(removed, removedCount * 2);
+                removed[removedCount++] = (int) base[i * 2 + 1];
+                i++;
+            } else if (i >= nb || identity(head[j * 2], methodBits) < identity(base[i * 2], methodBits)) {
+                if (addedCount == added.length)
+                    added = Arrays.copyOf(added, addedCount * 2);
+                added[addedCount++] = (int) head[j * 2 + 1];
+                j++;
+            } else {
+                if (base[i * 2] != head[j * 2]) {
+                    changed.add(new int[] { (int) base[i * 2 + 1], (int) head[j * 2 + 1] });
+                } else {
+                    unchanged++;
+                }
+                i++;
+                j++;
+            }
+        }
+        return new Result(Arrays.copyOf(removed, removedCount), Arrays.copyOf(added, addedCount),
+                changed.toArray(new int[0][]), unchanged);
+    }
+
+    private static long identity(long key, int methodBits) {
+        return key >>> methodBits;
+    }
+
+    /**
+     * Fallback for string tables too large to pack into one long
+     */
+    private static Result diffByStrings(Edges base, Edges head) {
+        Comparator<Integer> byBase = Comparator.comparing((Integer i) -> identityString(base, i))
+                .thenComparing(i -> base.method[i]);
+        Comparator<Integer> byHead = Comparator.comparing((Integer i) -> identityString(head, i))
+                .thenComparing(i -> head.method[i]);
+        List<Integer> b = new ArrayList<>();
+        List<Integer> h = new ArrayList<>();
+        for (int i = 0; i < base.size; i++)
+            b.add(i);
+        for (int i = 0; i < head.size; i++)
+            h.add(i);
+        b.sort(byBase);
+        h.sort(byHead);
+
+        List<Integer> removed = new ArrayList<>();
+        List<Integer> added = new ArrayList<>();
+        List<int[]> changed = new ArrayList<>();
+        int unchanged = 0;
+        int i = 0;
+        int j = 0;
+        while (i < b.size() || j < h.size()) {
+            if (i > 0 && i < b.size() && identityString(base, b.get(i)).equals(identityString(base, b.get(i - 1)))) {
+                i++;
+                continue;
+            }
+            if (j > 0 && j < h.size() && identityString(head, h.get(j)).equals(identityString(head, h.get(j - 1)))) {
+                j++;
+                continue;
+            }
+            int cmp = i >= b.size() ? 1
+                    : j >= h.size() ? -1
+                            : identityString(base, b.get(i)).compareTo(identityString(head, h.get(j)));
+            if (cmp < 0) {
+                removed.add(b.get(i++));
+            } else if (cmp > 0) {
+                added.add(h.get(j++));
+            } else {
+                if (!base.method[b.get(i)].equals(head.method[h.get(j)])) {
+                    changed.add(new int[] { b.get(i), h.get(j) });
+                } else {
+                    unchanged++;
+                }
+                i++;
+                j++;
+            }
+        }
+        return new Result(removed.stream().mapToInt(Integer::intValue).toArray(),
+                added.stream().mapToInt(Integer::intValue).toArray(), changed.toArray(new int[0][]), unchanged);
+    }
+
+    private static String identityString(Edges edges, int i) {
+        return edges.source[i] + '\u0000' + edges.target[i] + '\u0000' + edges.label[i];
+    }
+
+    /**
+     * Interning table whose ranks follow the lexicographic order of the strings
+     */
+    private static final class Table {
+        private final Map<String, Integer> ranks = new HashMap<>();
+
+        void intern(String value) {
+            ranks.putIfAbsent(value, 0);
+        }
+
+        /**
+         * Assigns sorted ranks and returns the number of bits needed to store one
+         */
+        int freeze() {
+            String[] values = ranks.keySet().toArray(new String[0]);
+            Arrays.sort(values);
+            for (int i = 0; i < values.length; i++) {
+                ranks.put(values[i], i);
+            }
+            return values.length <= 1 ? 0 : 64 - Long.numberOfLeadingZeros(values.length - 1);
+        }
+
+        long rank(String value) {
+            return ranks.get(value);
+        }
+    }
+}
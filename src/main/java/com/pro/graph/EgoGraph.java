@@ -0,0 +1,221 @@
+package com.pro.graph;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Paged k-hop neighborhood of a node. Nodes are numbered in deterministic BFS order
+ * (CSR adjacency order), and a page is a window of that order, so a continuation
+ * only needs the offset. Each edge between discovered nodes is emitted exactly once,
+ * on the page of whichever endpoint was discovered later, which lets clients append
+ * pages without deduplicating.
+ */
+public class EgoGraph {
+
+    public enum Direction {
+        OUT, IN, BOTH;
+
+        public static Direction parse(String value) {
+            if (value == null || value.trim().isEmpty()) {
+                return BOTH;
+            }
+            String v = value.trim().toUpperCase();
+            if (v.equals("DEPENDENCIES") || v.equals("DOWNSTREAM"))
+                return OUT;
+            if (v.equals("DEPENDENTS") || v.equals("UPSTREAM"))
+                return IN;
+            try {
+                return Direction.valueOf(v);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown direction: " + value + " (expected out, in or both)");
+            }
+        }
+    }
+
+    /**
+     * One window of the BFS order
+     */
+    public static class Page {
+        private final int[] nodes;
+        private final int[] hops;
+        private final int[] edges;
+        private final int offset;
+        private final boolean hasMore;
+
+        Page(int[] nodes, int[] hops, int[] edges, int offset, boolean hasMore) {
+            this.nodes = nodes;
+            this.hops = hops;
+            this.edges = edges;
+            this.offset = offset;
+            this.hasMore = hasMore;
+        }
+
+        public int[] getNodes() {
+            return nodes;
+        }
+
+        /**
+         * Hop distance from the center, parallel to getNodes()
+         */
+        public int[] getHops() {
+            return hops;
+        }
+
+        /**
+         * Edge ids of the CompactGraph
+         */
+        public int[] getEdges() {
+            return edges;
+        }
+
+        public int getOffset() {
+            return offset;
+        }
+
+        public int getNextOffset() {
+            return offset + nodes.length;
+        }
+
+        public boolean hasMore() {
+            return hasMore;
+        }
+    }
+
+    /**
+     * Query parameters plus the graph version, serialized as an opaque page token
+     */
+    public static class Cursor {
+        private final String version;
+        private final String center;
+        private final int hops;
+        private final Direction direction;
+        private final int budget;
+        private final int offset;
+
+        public Cursor(String version, String center, int hops, Direction direction, int budget, int offset) {
+            this.version = version;
+            this.center = center;
+            this.hops = hops;
+            this.direction = direction;
+            this.budget = budget;
+            this.offset = offset;
+        }
+
+        public String encode() {
+            String raw = String.join("\n", version, center, Integer.toString(hops), direction.name(),
+                    Integer.toString(budget), Integer.toString(offset));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public static Cursor decode(String token) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8)
+                        .split("\n", -1);
+                if (parts.length != 6) {
+                    throw new IllegalArgumentException("Malformed continuation token");
+                }
+                return new Cursor(parts[0], parts[1], Integer.parseInt(parts[2]), Direction.valueOf(parts[3]),
+                        Integer.parseInt(parts[4]), Integer.parseInt(parts[5]));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Malformed continuation token");
+            }
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        public String getCenter() {
+            return center;
+        }
+
+        public int getHops() {
+            return hops;
+        }
+
+        public Direction getDirection() {
+            return direction;
+        }
+
+        public int getBudget() {
+            return budget;
+        }
+
+        public int getOffset() {
+            return offset;
+        }
+
+        public Cursor next(int nextOffset) {
+            return new Cursor(version, center, hops, direction, budget, nextOffset);
+        }
+    }
+
+    private EgoGraph() {
+    }
+
+    /**
+     * Runs a BFS from the center up to maxHops, stopping as soon as the page window
+     * [offset, offset + budget) is filled and one more node proves there is a next page
+     */
+    public static Page page(CompactGraph graph, int center, int maxHops, Direction direction, int offset,
+            int budget) {
+        int n = graph.nodeCount();
+        int end = (int) Math.min((long) offset + budget, n);
+        int[] position = new int[n];
+        Arrays.fill(position, -1);
+        int[] order = new int[Math.min(n, end + 1)];
+        int[] depth = new int[order.length];
+        int size = 0;
+        order[size] = center;
+        depth[size] = 0;
+        position[center] = size++;
+
+        boolean out = direction != Direction.IN;
+        boolean in = direction != Direction.OUT;
+        for (int head = 0; head < size && size <= end; head++) {
+            int v = order[head];
+            if (depth[head] == maxHops)
+                break;
+            int outDegree = out ? graph.outDegree(v) : 0;
+            int inDegree = in ? graph.inDegree(v) : 0;
+            for (int i = 0; i < outDegree + inDegree && size <= end; i++) {
+                int w = i < outDegree ? graph.outTarget(v, i) : graph.inSource(v, i - outDegree);
+                if (position[w] < 0) {
+                    order[size] = w;
+                    depth[size] = depth[head] + 1;
+                    position[w] = size++;
+                }
+            }
+        }
+
+        int from = Math.min(offset, size);
+        int to = Math.min(end, size);
+        int[] nodes = Arrays.copyOfRange(order, from, to);
+        int[] hops = Arrays.copyOfRange(depth, from, to);
+
+        int[] edges = new int[16];
+        int edgeCount = 0;
+        for (int p = from; p < to; p++) {
+            int v = order[p];
+            // Outgoing edges to nodes discovered no later than v, incoming from strictly earlier ones
+            for (int i = 0; i < graph.outDegree(v); i++) {
+                int q = position[graph.outTarget(v, i)];
+                if (q >= 0 && q <= p) {
+                    if (edgeCount == edges.length)
+                        edges = Arrays.copyOf(edges, edgeCount * 2);
+                    edges[edgeCount++] = graph.outEdge(v, i);
+                }
+            }
+            for (int i = 0; i < graph.inDegree(v); i++) {
+                int q = position[graph.inSource(v, i)];
+                if (q >= 0 && q < p) {
+                    if (edgeCount == edges.length)
+                        edges = Arrays.copyOf(edges, edgeCount * 2);
+                    edges[edgeCount++] = graph.inEdge(v, i);
+                }
+            }
+        }
+        return new Page(nodes, hops, Arrays.copyOf(edges, edgeCount), from, size > end);
+    }
+}
@@ -0,0 +1,279 @@
+package com.pro.graph;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Fruchterman-Reingold force-directed layout with Barnes-Hut approximation of the
+ * repulsive forces. The quadtree is rebuilt once per iteration; force evaluation
+ * and position updates run in parallel on the supplied pool.
+ */
+public class ForceLayout {
+
+    private static final double THETA = 0.9;
+    private static final double GRAVITY = 0.05;
+    private static final int MAX_DEPTH = 24;
+
+    private final CompactGraph graph;
+    private final double idealEdgeLength;
+    private final int iterations;
+
+    public ForceLayout(CompactGraph graph, double idealEdgeLength, int iterations) {
+        this.graph = graph;
+        this.idealEdgeLength = idealEdgeLength;
+        this.iterations = iterations;
+    }
+
+    /**
+     * Runs the layout and returns interleaved coordinates {x0, y0, x1, y1, ...}
+     */
+    public double[] run(ForkJoinPool pool, long seed) {
+        int n = graph.nodeCount();
+        double[] x = new double[n];
+        double[] y = new double[n];
+        if (n == 0) {
+            return new double[0];
+        }
+
+        double k = idealEdgeLength;
+        double side = Math.sqrt(n) * k;
+        Random random = new Random(seed);
+        for (int i = 0; i < n; i++) {
+            x[i] = (random.nextDouble() - 0.5) * side;
+            y[i] = (random.nextDouble() - 0.5) * side;
+        }
+
+        double[] dx = new double[n];
+        double[] dy = new double[n];
+        double startTemperature = side / 10;
+        QuadTree tree = new QuadTree(n);
+
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            double temperature = startTemperature * (1 - iteration / (double) iterations) + 1;
+            tree.build(x, y);
+
+            pool.submit(() -> IntStream.range(0, n).parallel().forEach(i -> {
+                double[] force = tree.repulsion(i, x[i], y[i], k * k);
+                double fx = force[0];
+                double fy = force[1];
+                for (int j = 0; j < graph.outDegree(i); j++) {
+                    int w = graph.outTarget(i, j);
+                    double ex = x[w] - x[i];
+                    double ey = y[w] - y[i];
+                    double d = Math.max(Math.hypot(ex, ey), 0.01);
+                    fx += ex * d / k;
+                    fy += ey * d / k;
+                }
+                for (int j = 0; j < graph.inDegree(i); j++) {
+                    int w = graph.inSource(i, j);
+                    double ex = x[w] - x[i];
+                    double ey = y[w] - y[i];
+                    double d = Math.max(Math.hypot(ex, ey), 0.01);
+                    fx += ex * d / k;
+                    fy += ey * d / k;
+                }
+                fx -= GRAVITY * x[i];
+                fy -= GRAVITY * y[i];
+                dx[i] = fx;
+                dy[i] = fy;
+            })).join();
+
+            pool.submit(() -> IntStream.range(0, n).parallel().forEach(i -> {
+                double length = Math.hypot(dx[i], dy[i]);
+                if (length > 0) {
+                    double step = Math.min(length, temperature) / length;
+                    x[i] += dx[i] * step;
+                    y[i] += dy[i] * step;
+                }
+            })).join();
+        }
+
+        double[] coordinates = new double[n * 2];
+        for (int i = 0; i < n; i++) {
+            coordinates[i * 2] = Math.round(x[i] * 10) / 10.0;
+            coordinates[i * 2 + 1] = Math.round(y[i] * 10) / 10.0;
+        }
+        return coordinates;
+    }
+
+    /**
+     * Array-backed quadtree storing total mass and center of mass per cell
+     */
+    private static final class QuadTree {
+        private int[] children;
+        private int[] body;
+        private double[] minX;
+        private double[] minY;
+        private double[] size;
+        private double[] mass;
+        private double[] centerX;
+        private double[] centerY;
+        private int cells;
+
+        QuadTree(int n) {
+            allocate(Math.max(16, n * 4));
+        }
+
+        private void allocate(int capacity) {
+            children = new int[capacity * 4];
+            body = new int[capacity];
+            minX = new double[capacity];
+            minY = new double[capacity];
+            size = new double[capacity];
+            mass = new double[capacity];
+            centerX = new double[capacity];
+            centerY = new double[capacity];
+        }
+
+        private void grow() {
+            int capacity = body.length * 2;
+            children = Arrays.copyOf(children, capacity * 4);
+            body = Arrays.copyOf(body, capacity);
+            minX = Arrays.copyOf(minX, capacity);
+            minY = Arrays.copyOf(minY, capacity);
+            size = Arrays.copyOf(size, capacity);
+            mass = Arrays.copyOf(mass, capacity);
+            centerX = Arrays.copyOf(centerX, capacity);
+            centerY = Arrays.copyOf(centerY, capacity);
+        }
+
+        private int newCell(double x0, double y0, double s) {
+            if (cells == body.length) {
+                grow();
+            }
+            int c = cells++;
+            Arrays.fill(children, c * 4, c * 4 + 4, -1);
+            body[c] = -1;
+            minX[c] = x0;
+            minY[c] = y0;
+            size[c] = s;
+            mass[c] = 0;
+            centerX[c] = 0;
+            centerY[c] = 0;
+            return c;
+        }
+
+        void build(double[] x, double[] y) {
+            double lowX = Double.MAX_VALUE;
+            double lowY = Double.MAX_VALUE;
+            double highX = -Double.MAX_VALUE;
+            double highY = -Double.MAX_VALUE;
+            for (int i = 0; i < x.length; i++) {
+                lowX = Math.min(lowX, x[i]);
+                lowY = Math.min(lowY, y[i]);
+                highX = Math.max(highX, x[i]);
+                highY = Math.max(highY, y[i]);
+            }
+            cells = 0;
+            newCell(lowX, lowY, Math.max(highX - lowX, highY - lowY) + 1);
+            for (int i = 0; i < x.length; i++) {
+                insert(i, x[i], y[i], x, y);
+            }
+        }
+
+        private void insert(int i, double px, double py, double[] x, double[] y) {
+            int c = 0;
+            int depth = 0;
+            while (true) {
+                boolean leaf = children[c * 4] == -1 && children[c * 4 + 1] == -1
+                        && children[c * 4 + 2] == -1 && children[c * 4 + 3] == -1;
+                if (leaf && (mass[c] == 0 || depth >= MAX_DEPTH)) {
+                    if (mass[c] == 0) {
+                        body[c] = i;
+                    }
+                    addMass(c, px, py);
+                    return;
+                }
+                if (leaf) {
+                    // Push the resident body one level down before descending
+                    int resident = body[c];
+                    body[c] = -1;
+                    double residentMass = mass[c];
+                    int q = quadrant(c, x[resident], y[resident]);
+                    int child = childCell(c, q);
+                    body[child] = resident;
+                    mass[child] = residentMass;
+                    centerX[child] = centerX[c];
+                    centerY[child] = centerY[c];
+                }
+                addMass(c, px, py);
+                c = childCell(c, quadrant(c, px, py));
+                depth++;
+            }
+        }
+
+        private void addMass(int c, double px, double py) {
+            double total = mass[c] + 1;
+            centerX[c] = (centerX[c] * mass[c] + px) / total;
+            centerY[c] = (centerY[c] * mass[c] + py) / total;
+            mass[c] = total;
+        }
+
+        private int quadrant(int c, double px, double py) {
+            double half = size[c] / 2;
+            int q = 0;
+            if (px >= minX[c] + half)
+                q |= 1;
+            if (py >= minY[c] + half)
+                q |= 2;
+            return q;
+        }
+
+        private int childCell(int c, int q) {
+            int existing = children[c * 4 + q];
+            if (existing >= 0) {
+                return existing;
+            }
+            double half = size[c] / 2;
+            int child = newCell(minX[c] + ((q & 1) != 0 ? half : 0), minY[c] + ((q & 2) != 0 ? half : 0), half);
+            children[c * 4 + q] = child;
+            return child;
+        }
+
+        /**
+         * Repulsive force k^2 / d on a body, approximating distant cells by their center of mass
+         */
+        double[] repulsion(int i, double px, double py, double k2) {
+            double fx = 0;
+            double fy = 0;
+            int[] stack = new int[64];
+            int top = 0;
+            stack[top++] = 0;
+            while (top > 0) {
+                int c = stack[--top];
+                if (mass[c] == 0)
+                    continue;
+                double ex = px - centerX[c];
+                double ey = py - centerY[c];
+                double d = Math.hypot(ex, ey);
+                boolean leaf = body[c] >= 0;
+                if (leaf && body[c] == i && mass[c] == 1)
+                    continue;
+                if (leaf || size[c] / Math.max(d, 1e-9) < THETA) {
+                    double m = leaf && body[c] == i ? mass[c] - 1 : mass[c];
+                    if (d < 0.01) {
+                        // Coincident points: push apart in a deterministic direction
+                        ex = ((i * 31) % 7) - 3 + 0.5;
+                        ey = ((i * 17) % 5) - 2 + 0.5;
+                        d = Math.hypot(ex, ey);
+                    }
+                    double f = k2 * m / (d * d);
+                    fx += ex * f;
+                    fy += ey * f;
+                    continue;
+                }
+                for (int q = 0; q < 4; q++) {
+                    int child = children[c * 4 + q];
+                    if (child >= 0) {
+                        if (top == stack.length)
+                            stack = Arrays.copyOf(stack, top * 2);
+                        stack[top++] = child;
+                    }
+                }
+            }
+            return new double[] { fx, fy };
+        }
+    }
+}
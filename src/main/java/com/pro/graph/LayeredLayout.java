@@ -0,0 +1,137 @@
+package com.pro.graph;
+
+import java.util.*;
+
+/**
+ * Sugiyama-style layering of a CompactGraph: cycles are collapsed into their strongly
+ * connected component, components get a longest-path layer (sources on layer 0) and
+ * nodes inside a layer are ordered by barycenter sweeps to reduce edge crossings.
+ * Members of one cycle always share a layer and sit next to each other.
+ */
+public class LayeredLayout {
+
+    private static final int SWEEPS = 4;
+
+    private final int[] layer;
+    private final int[] order;
+    private final int[] layerSizes;
+    private final StronglyConnectedComponents components;
+
+    public LayeredLayout(CompactGraph graph) {
+        this.components = new StronglyConnectedComponents(graph);
+        CompactGraph dag = components.condensation();
+        int c = components.count();
+
+        // Reverse topological ids: predecessors always have larger ids
+        int[] componentLayer = new int[c];
+        int layers = 0;
+        for (int u = c - 1; u >= 0; u--) {
+            for (int i = 0; i < dag.outDegree(u); i++) {
+                int v = dag.outTarget(u, i);
+                componentLayer[v] = Math.max(componentLayer[v], componentLayer[u] + 1);
+            }
+            layers = Math.max(layers, componentLayer[u] + 1);
+        }
+
+        List<List<Integer>> byLayer = new ArrayList<>(layers);
+        for (int l = 0; l < layers; l++) {
+            byLayer.add(new ArrayList<>());
+        }
+        for (int u = c - 1; u >= 0; u--) {
+            byLayer.get(componentLayer[u]).add(u);
+        }
+        String[] firstName = new String[c];
+        for (int u = 0; u < c; u++) {
+            String min = null;
+            for (int i = 0; i < components.size(u); i++) {
+                String name = graph.name(components.member(u, i));
+                if (min == null || name.compareTo(min) < 0)
+                    min = name;
+            }
+            firstName[u] = min;
+        }
+        for (List<Integer> row : byLayer) {
+            row.sort(Comparator.comparing(u -> firstName[u]));
+        }
+
+        double[] position = new double[c];
+        assignPositions(byLayer, position);
+        for (int sweep = 0; sweep < SWEEPS; sweep++) {
+            boolean down = sweep % 2 == 0;
+            for (int step = 1; step < layers; step++) {
+                int l = down ? step : layers - 1 - step;
+                List<Integer> row = byLayer.get(l);
+                Map<Integer, Double> barycenter = new HashMap<>();
+                for (int u : row) {
+                    double sum = 0;
+                    int count = 0;
+                    int degree = down ? dag.inDegree(u) : dag.outDegree(u);
+                    for (int i = 0; i < degree; i++) {
+                        int w = down ? dag.inSource(u, i) : dag.outTarget(u, i);
+                        sum += position[w];
+                        count++;
+                    }
+                    barycenter.put(u, count > 0 ? sum / count : position[u]);
+                }
+                row.sort(Comparator.<Integer>comparingDouble(barycenter::get).thenComparing(u -> firstName[u]));
+                assignPositions(List.of(row), position);
+            }
+        }
+
+        // Expand components back into nodes
+        int n = graph.nodeCount();
+        this.layer = new int[n];
+        this.order = new int[n];
+        this.layerSizes = new int[layers];
+        for (int l = 0; l < layers; l++) {
+            int next = 0;
+            for (int u : byLayer.get(l)) {
+                List<Integer> members = new ArrayList<>(components.size(u));
+                for (int i = 0; i < components.size(u); i++) {
+                    members.add(components.member(u, i));
+                }
+                members.sort(Comparator.comparing(graph::name));
+                for (int v : members) {
+                    layer[v] = l;
+                    order[v] = next++;
+                }
+            }
+            layerSizes[l] = next;
+        }
+    }
+
+    /**
+     * Positions are normalized to [0, 1] so that layers of different widths compare
+     */
+    private static void assignPositions(List<List<Integer>> rows, double[] position) {
+        for (List<Integer> row : rows) {
+            for (int i = 0; i < row.size(); i++) {
+                position[row.get(i)] = row.size() > 1 ? i / (double) (row.size() - 1) : 0.5;
+            }
+        }
+    }
+
+    public int layer(int node) {
+        return layer[node];
+    }
+
+    public int order(int node) {
+        return order[node];
+    }
+
+    public int layerCount() {
+        return layerSizes.length;
+    }
+
+    public int layerSize(int layer) {
+        return layerSizes[layer];
+    }
+
+    public int componentOf(int node) {
+        return components.componentOf(node);
+    }
+
+    public boolean isCyclic(int node) {
+        return components.isCyclic(node);
+    }
+}
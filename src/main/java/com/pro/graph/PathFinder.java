@@ -0,0 +1,194 @@
+package com.pro.graph;
+
+import java.util.*;
+
+/**
+ * Shortest dependency chains between two nodes of a CompactGraph.
+ * Single shortest paths use bidirectional BFS; the k shortest loop-free chains are
+ * enumerated with Yen's algorithm on top of it. Scratch arrays are epoch-stamped and
+ * reused, so an instance must not be shared between threads.
+ */
+public class PathFinder {
+
+    private final CompactGraph graph;
+    private final int[] forwardMark;
+    private final int[] backwardMark;
+    private final int[] forwardParent;
+    private final int[] backwardParent;
+    private final int[] blockedMark;
+    private int epoch;
+    private int blockedEpoch;
+    private Set<Long> blockedEdges = Collections.emptySet();
+
+    public PathFinder(CompactGraph graph) {
+        this.graph = graph;
+        int n = graph.nodeCount();
+        this.forwardMark = new int[n];
+        this.backwardMark = new int[n];
+        this.forwardParent = new int[n];
+        this.backwardParent = new int[n];
+        this.blockedMark = new int[n];
+    }
+
+    /**
+     * Returns the shortest path from source to target as node ids, or null if unreachable
+     */
+    public int[] shortestPath(int source, int target) {
+        blockedEpoch++;
+        blockedEdges = Collections.emptySet();
+        return bidirectionalSearch(source, target);
+    }
+
+    /**
+     * Returns up to k loop-free paths from source to target in order of increasing length
+     */
+    public List<int[]> kShortestPaths(int source, int target, int k) {
+        List<int[]> accepted = new ArrayList<>();
+        int[] first = shortestPath(source, target);
+        if (first == null || k <= 0) {
+            return accepted;
+        }
+        accepted.add(first);
+
+        PriorityQueue<int[]> candidates = new PriorityQueue<>(
+                Comparator.<int[]>comparingInt(p -> p.length).thenComparing(Arrays::compare));
+        Set<String> seen = new HashSet<>();
+        seen.add(Arrays.toString(first));
+
+        while (accepted.size() < k) {
+            int[] previous = accepted.get(accepted.size() - 1);
+            for (int i = 0; i < previous.length - 1; i++) {
+                int spur = previous[i];
+
+                Set<Long> removedEdges = new HashSet<>();
+                for (int[] path : accepted) {
+                    if (path.length > i + 1 && Arrays.equals(path, 0, i + 1, previous, 0, i + 1)) {
+                        removedEdges.add(edgeKey(path[i], path[i + 1]));
+                    }
+                }
+
+                blockedEpoch++;
+                for (int j = 0; j < i; j++) {
+                    blockedMark[previous[j]] = blockedEpoch;
+                }
+                blockedEdges = removedEdges;
+                int[] spurPath = bidirectionalSearch(spur, target);
+                if (spurPath == null)
+                    continue;
+
+                int[] candidate = new int[i + spurPath.length];
+                System.arraycopy(previous, 0, candidate, 0, i);
+                System.arraycopy(spurPath, 0, candidate, i, spurPath.length);
+                if (seen.add(Arrays.toString(candidate))) {
+                    candidates.add(candidate);
+                }
+            }
+            if (candidates.isEmpty())
+                break;
+            accepted.add(candidates.poll());
+        }
+        blockedEdges = Collections.emptySet();
+        return accepted;
+    }
+
+    private static long edgeKey(int from, int to) {
+        return ((long) from << 32) | (to & 0xffffffffL);
+    }
+
+    private boolean blocked(int node) {
+        return blockedMark[node] == blockedEpoch;
+    }
+
+    private boolean edgeBlocked(int from, int to) {
+        return !blockedEdges.isEmpty() && blockedEdges.contains(edgeKey(from, to));
+    }
+
+    /**
+     * Level-synchronous BFS from both ends, always expanding the smaller frontier.
+     * The meeting level is finished completely so the best meeting point is kept.
+     */
+    private int[] bidirectionalSearch(int source, int target) {
+        if (blocked(source) || blocked(target)) {
+            return null;
+        }
+        epoch++;
+        if (source == target) {
+            return new int[] { source };
+        }
+
+        forwardMark[source] = epoch;
+        forwardParent[source] = -1;
+        backwardMark[target] = epoch;
+        backwardParent[target] = -1;
+        int[] forwardFrontier = { source };
+        int[] backwardFrontier = { target };
+        int forwardSize = 1;
+        int backwardSize = 1;
+
+        while (forwardSize > 0 && backwardSize > 0) {
+            boolean expandForward = forwardSize <= backwardSize;
+            int[] frontier = expandForward ? forwardFrontier : backwardFrontier;
+            int size = expandForward ? forwardSize : backwardSize;
+            int[] next = new int[Math.max(size * 2, 4)];
+            int nextSize = 0;
+            int meetFrom = -1;
+            int meetTo = -1;
+
+            for (int f = 0; f < size && meetFrom < 0; f++) {
+                int u = frontier[f];
+                int degree = expandForward ? graph.outDegree(u) : graph.inDegree(u);
+                for (int i = 0; i < degree; i++) {
+                    int v = expandForward ? graph.outTarget(u, i) : graph.inSource(u, i);
+                    if (blocked(v) || (expandForward ? edgeBlocked(u, v) : edgeBlocked(v, u)))
+                        continue;
+                    int[] ownMark = expandForward ? forwardMark : backwardMark;
+                    int[] otherMark = expandForward ? backwardMark : forwardMark;
+                    if (otherMark[v] == epoch) {
+                        meetFrom = u;
+                        meetTo = v;
+                        break;
+                    }
+                    if (ownMark[v] != epoch) {
+                        ownMark[v] = epoch;
+                        (expandForward ? forwardParent : backwardParent)[v] = u;
+                        if (nextSize == next.length)
+                            next = Arrays.copyOf(next, nextSize * 2);
+                        next[nextSize++] = v;
+                    }
+                }
+            }
+
+            if (meetFrom >= 0) {
+                // Every frontier node sits at the same depth, so the first meeting edge is optimal
+                return expandForward ? join(meetFrom, meetTo) : join(meetTo, meetFrom);
+            }
+            if (expandForward) {
+                forwardFrontier = next;
+                forwardSize = nextSize;
+            } else {
+                backwardFrontier = next;
+                backwardSize = nextSize;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Joins the forward chain ending at left with the backward chain starting at right
+     */
+    private int[] join(int left, int right) {
+        Deque<Integer> path = new ArrayDeque<>();
+        for (int v = left; v >= 0; v = forwardParent[v]) {
+            path.addFirst(v);
+        }
+        for (int v = right; v >= 0; v = backwardParent[v]) {
+            path.addLast(v);
+        }
+        int[] result = new int[path.size()];
+        int i = 0;
+        for (int v : path) {
+            result[i++] = v;
+        }
+        return result;
+    }
+}
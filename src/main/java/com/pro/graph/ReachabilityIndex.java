@@ -0,0 +1,333 @@
+package com.pro.graph;
+
+import java.util.*;
+
+/**
+ * Precomputed transitive reachability over a CompactGraph.
+ * Cycles are collapsed first; the resulting condensation DAG is then indexed either
+ * with a full bitset transitive closure (medium graphs) or with GRAIL-style
+ * randomized interval labels plus pruned search (large graphs).
+ */
+public class ReachabilityIndex {
+
+    public enum Strategy {
+        BITSET_CLOSURE, INTERVAL_LABELING
+    }
+
+    /**
+     * Largest condensation that still gets a full closure (two n*n bit matrices)
+     */
+    public static final int DEFAULT_BITSET_LIMIT = 8192;
+
+    private static final int LABEL_DIMENSIONS = 4;
+
+    private final CompactGraph graph;
+    private final StronglyConnectedComponents components;
+    private final CompactGraph dag;
+    private final Strategy strategy;
+    private final long buildNanos;
+
+    // Bitset closure: descendant and ancestor sets per component
+    private long[][] forward;
+    private long[][] backward;
+
+    // Interval labels: [low, post] per dimension and component
+    private int[][] low;
+    private int[][] post;
+    private final ThreadLocal<int[]> visitMarks = new ThreadLocal<>();
+    private final ThreadLocal<int[]> visitEpoch = ThreadLocal.withInitial(() -> new int[1]);
+
+    public ReachabilityIndex(CompactGraph graph) {
+        this(graph, DEFAULT_BITSET_LIMIT);
+    }
+
+    public ReachabilityIndex(CompactGraph graph, int bitsetLimit) {
+        long start = System.nanoTime();
+        this.graph = graph;
+        this.components = new StronglyConnectedComponents(graph);
+        this.dag = components.condensation();
+        if (components.count() <= bitsetLimit) {
+            this.strategy = Strategy.BITSET_CLOSURE;
+            buildClosure();
+        } else {
+            this.strategy = Strategy.INTERVAL_LABELING;
+            buildLabels();
+        }
+        this.buildNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Component ids are in reverse topological order, so every successor of c has a
+     * smaller id and every predecessor a larger one.
+     */
+    private void buildClosure() {
+        int c = components.count();
+        int words = (c + 63) >>> 6;
+        forward = new long[c][words];
+        backward = new long[c][words];
+
+        for (int u = 0; u < c; u++) {
+            long[] row = forward[u];
+            row[u >>> 6] |= 1L << u;
+            for (int i = 0; i < dag.outDegree(u); i++) {
+                or(row, forward[dag.outTarget(u, i)]);
+            }
+        }
+        for (int u = c - 1; u >= 0; u--) {
+            long[] row = backward[u];
+            row[u >>> 6] |= 1L << u;
+            for (int i = 0; i < dag.inDegree(u); i++) {
+                or(row, backward[dag.inSource(u, i)]);
+            }
+        }
+    }
+
+    private static void or(long[] into, long[] from) {
+        for (int w = 0; w < into.length; w++) {
+            into[w] |= from[w];
+        }
+    }
+
+    private void buildLabels() {
+        int c = components.count();
+        low = new int[LABEL_DIMENSIONS][c];
+        post = new int[LABEL_DIMENSIONS][c];
+        Random random = new Random(c);
+
+        int[] roots = new int[c];
+        int rootCount = 0;
+        for (int u = 0; u < c; u++) {
+            if (dag.inDegree(u) == 0) {
+                roots[rootCount++] = u;
+            }
+        }
+
+        boolean[] visited = new boolean[c];
+        int[] stackNode = new int[c];
+        int[] stackStep = new int[c];
+        int[] stackRotation = new int[c];
+        for (int d = 0; d < LABEL_DIMENSIONS; d++) {
+            Arrays.fill(visited, false);
+            int[] lowD = low[d];
+            int[] postD = post[d];
+            int counter = 0;
+            int rootRotation = random.nextInt(Math.max(rootCount, 1));
+
+            for (int r = 0; r < rootCount; r++) {
+                int root = roots[(r + rootRotation) % rootCount];
+                if (visited[root])
+                    continue;
+                int depth = 0;
+                stackNode[0] = root;
+                stackStep[0] = 0;
+                stackRotation[0] = random.nextInt(Math.max(dag.outDegree(root), 1));
+                visited[root] = true;
+                lowD[root] = Integer.MAX_VALUE;
+
+                while (depth >= 0) {
+                    int u = stackNode[depth];
+                    int degree = dag.outDegree(u);
+                    if (stackStep[depth] < degree) {
+                        int child = dag.outTarget(u, (stackStep[depth]++ + stackRotation[depth]) % degree);
+                        if (!visited[child]) {
+                            visited[child] = true;
+                            lowD[child] = Integer.MAX_VALUE;
+                            depth++;
+                            stackNode[depth] = child;
+                            stackStep[depth] = 0;
+                            stackRotation[depth] = random.nextInt(Math.max(dag.outDegree(child), 1));
+                        } else {
+                            lowD[u] = Math.min(lowD[u], lowD[child]);
+                        }
+                        continue;
+                    }
+                    postD[u] = counter++;
+                    lowD[u] = Math.min(lowD[u], postD[u]);
+                    depth--;
+                    if (depth >= 0) {
+                        int parent = stackNode[depth];
+                        lowD[parent] = Math.min(lowD[parent], lowD[u]);
+                    }
+                }
+            }
+        }
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    public StronglyConnectedComponents getComponents() {
+        return components;
+    }
+
+    public long getBuildNanos() {
+        return buildNanos;
+    }
+
+    /**
+     * Approximate heap used by the index structures, excluding the source graph
+     */
+    public long memoryBytes() {
+        long bytes = dag.estimatedBytes() + (long) graph.nodeCount() * 3 * Integer.BYTES;
+        if (strategy == Strategy.BITSET_CLOSURE) {
+            int c = components.count();
+            long words = (c + 63) >>> 6;
+            bytes += 2L * c * (words * Long.BYTES + 16);
+        } else {
+            bytes += 2L * LABEL_DIMENSIONS * components.count() * Integer.BYTES;
+        }
+        return bytes;
+    }
+
+    /**
+     * True when there is a path of at least one edge from source to target
+     */
+    public boolean reaches(int source, int target) {
+        if (source == target) {
+            return components.isCyclic(source);
+        }
+        int cs = components.componentOf(source);
+        int ct = components.componentOf(target);
+        if (cs == ct) {
+            return true;
+        }
+        if (strategy == Strategy.BITSET_CLOSURE) {
+            return (forward[cs][ct >>> 6] & (1L << ct)) != 0;
+        }
+        return labelReaches(cs, ct);
+    }
+
+    private boolean contains(int outer, int inner) {
+        for (int d = 0; d < LABEL_DIMENSIONS; d++) {
+            if (low[d][inner] < low[d][outer] || post[d][inner] > post[d][outer]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean labelReaches(int cs, int ct) {
+        // Reverse topological numbering: a component can only reach smaller ids
+        if (cs < ct || !contains(cs, ct)) {
+            return false;
+        }
+        int[] marks = marks();
+        int epoch = ++visitEpoch.get()[0];
+        Deque<Integer> stack = new ArrayDeque<>();
+        stack.push(cs);
+        marks[cs] = epoch;
+        while (!stack.isEmpty()) {
+            int u = stack.pop();
+            for (int i = 0; i < dag.outDegree(u); i++) {
+                int w = dag.outTarget(u, i);
+                if (w == ct) {
+                    return true;
+                }
+                if (marks[w] != epoch && w > ct && contains(w, ct)) {
+                    marks[w] = epoch;
+                    stack.push(w);
+                }
+            }
+        }
+        return false;
+    }
+
+    private int[] marks() {
+        int[] marks = visitMarks.get();
+        if (marks == null) {
+            marks = new int[components.count()];
+            visitMarks.set(marks);
+        }
+        return marks;
+    }
+
+    /**
+     * All nodes transitively reachable from the given node, excluding itself
+     */
+    public int[] descendants(int node) {
+        return collect(node, true);
+    }
+
+    /**
+     * All nodes that transitively reach the given node, excluding itself
+     */
+    public int[] ancestors(int node) {
+        return collect(node, false);
+    }
+
+    private int[] collect(int node, boolean down) {
+        int start = components.componentOf(node);
+        int[] result = new int[16];
+        int size = 0;
+
+        if (strategy == Strategy.BITSET_CLOSURE) {
+            long[] row = down ? forward[start] : backward[start];
+            for (int w = 0; w < row.length; w++) {
+                long bits = row[w];
+                while (bits != 0) {
+                    int c = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    for (int i = 0; i < components.size(c); i++) {
+                        int v = components.member(c, i);
+                        if (v != node) {
+                            if (size == result.length)
+                                result = Arrays.copyOf(result, size * 2);
+                            result[size++] = v;
+                        }
+                    }
+                }
+            }
+            return Arrays.copyOf(result, size);
+        }
+
+        int[] marks = marks();
+        int epoch = ++visitEpoch.get()[0];
+        int[] queue = new int[16];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        marks[start] = epoch;
+        while (head < tail) {
+            int c = queue[head++];
+            for (int i = 0; i < components.size(c); i++) {
+                int v = components.member(c, i);
+                if (v != node) {
+                    if (size == result.length)
+                        result = Arrays.copyOf(result, size * 2);
+                    result[size++] = v;
+                }
+            }
+            int degree = down ? dag.outDegree(c) : dag.inDegree(c);
+            for (int i = 0; i < degree; i++) {
+                int w = down ? dag.outTarget(c, i) : dag.inSource(c, i);
+                if (marks[w] != epoch) {
+                    marks[w] = epoch;
+                    if (tail == queue.length)
+                        queue = Arrays.copyOf(queue, tail * 2);
+                    queue[tail++] = w;
+                }
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Build statistics suitable for API responses
+     */
+    public Map<String, Object> describe() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("strategy", strategy.name());
+        stats.put("nodes", graph.nodeCount());
+        stats.put("edges", graph.edgeCount());
+        stats.put("stronglyConnectedComponents", components.count());
+        stats.put("condensedEdges", dag.edgeCount());
+        stats.put("memoryBytes", memoryBytes());
+        stats.put("buildTimeMs", Math.round(buildNanos / 10_000.0) / 100.0);
+        return stats;
+    }
+}
@@ -0,0 +1,421 @@
+package com.pro.graph;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Path-template trie with one root per HTTP method. Templates are split on '/';
+ * "{name}" and "*" segments match any single segment and "**" or "{*name}" match
+ * the rest of the path. Matching walks the path once, trying literal segments
+ * before variables and variables before catch-alls, and only backtracks when a
+ * more specific branch dead-ends. Routes registered without a method match
+ * every method. Overlapping routes are found by walking the trie against itself,
+ * which only visits pairs of nodes that some path reaches together.
+ */
+public class RouteTrie<T> {
+
+    /**
+     * Method of routes that match any method
+     */
+    public static final String ANY_METHOD = "*";
+
+    /**
+     * A registered template and the value it was registered with
+     */
+    public static class Route<T> {
+        private final String method;
+        private final String template;
+        private final T value;
+
+        Route(String method, String template, T value) {
+            this.method = method;
+            this.template = template;
+            this.value = value;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getTemplate() {
+            return template;
+        }
+
+        public T getValue() {
+            return value;
+        }
+    }
+
+    /**
+     * Routes ending at the node a path matched, and how many of the path's
+     * segments were matched by variables or a catch-all
+     */
+    public static class Match<T> {
+        private final List<Route<T>> routes;
+        private final int wildcards;
+
+        Match(List<Route<T>> routes, int wildcards) {
+            this.routes = routes;
+            this.wildcards = wildcards;
+        }
+
+        public List<Route<T>> getRoutes() {
+            return routes;
+        }
+
+        public int getWildcards() {
+            return wildcards;
+        }
+    }
+
+    private static final class Node<T> {
+        Map<String, Node<T>> literals;
+        Node<T> variable;
+        Node<T> catchAll;
+        List<Route<T>> routes;
+
+        Node<T> literal(String segment) {
+            if (literals == null) {
+                literals = new HashMap<>(4);
+            }
+            return literals.computeIfAbsent(segment, s -> new Node<>());
+        }
+    }
+
+    private final Map<String, Node<T>> roots = new LinkedHashMap<>();
+    private int size;
+
+    /**
+     * Registers a template under a method; null, blank, "*" and "REQUEST" mean any method
+     */
+    public void add(String method, String template, T value) {
+        String m = normalizeMethod(method);
+        Node<T> node = roots.computeIfAbsent(m, k -> new Node<>());
+        for (String segment : segments(template)) {
+            if (isCatchAll(segment)) {
+                if (node.catchAll == null) {
+                    node.catchAll = new Node<>();
+                }
+                // Nothing after a catch-all can be matched
+                node = node.catchAll;
+                break;
+            } else if (isVariable(segment)) {
+                if (node.variable == null) {
+                    node.variable = new Node<>();
+                }
+                node = node.variable;
+            } else {
+                node = node.literal(segment);
+            }
+        }
+        if (node.routes == null) {
+            node.routes = new ArrayList<>(1);
+        }
+        node.routes.add(new Route<>(m, template, value));
+        size++;
+    }
+
+    /**
+     * Number of registered routes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The most specific routes matching a concrete path, or null. A null method
+     * matches routes of every method. Placeholder segments in the path ("{id}",
+     * "%d", "${x}") stand for unknown values and only match variables.
+     */
+    public Match<T> match(String method, String path) {
+        String[] segments = segments(stripQuery(path)).toArray(new String[0]);
+        List<Node<T>> candidates = new ArrayList<>(2);
+        if (method == null || method.isBlank()) {
+            candidates.addAll(roots.values());
+        } else {
+            String m = normalizeMethod(method);
+            if (roots.containsKey(m)) {
+                candidates.add(roots.get(m));
+            }
+            if (!m.equals(ANY_METHOD) && roots.containsKey(ANY_METHOD)) {
+                candidates.add(roots.get(ANY_METHOD));
+            }
+        }
+        Match<T> best = null;
+        int[] wildcards = new int[1];
+        for (Node<T> root : candidates) {
+            wildcards[0] = 0;
+            Node<T> node = find(root, segments, 0, wildcards);
+            // Ties go to the earlier candidate, so a route of the method beats one of any method
+            if (node != null && (best == null || wildcards[0] < best.wildcards)) {
+                best = new Match<>(Collections.unmodifiableList(node.routes), wildcards[0]);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Routes of a method, or of every method when null, whose templates start with
+     * the prefix. Prefix variables only follow variables, so "/orders/{id}" lists
+     * "/orders/{orderId}/items" but not "/orders/recent". Literal children are
+     * visited in sorted order, so listings are stable.
+     */
+    public List<Route<T>> routes(String method, String prefix, int limit) {
+        List<Route<T>> out = new ArrayList<>();
+        for (Map.Entry<String, Node<T>> root : roots.entrySet()) {
+            if (method != null && !method.isBlank() && !root.getKey().equals(normalizeMethod(method))) {
+                continue;
+            }
+            Node<T> node = root.getValue();
+            for (String segment : segments(prefix)) {
+                if (node == null) {
+                    break;
+                }
+                node = isCatchAll(segment) ? node.catchAll
+                        : isVariable(segment) ? node.variable
+                        : node.literals != null ? node.literals.get(segment) : null;
+            }
+            if (node != null && !collect(node, out, limit)) {
+                break;
+            }
+        }
+        return out;
+    }
+
+    // Depth first; false once the limit is reached
+    private static <T> boolean collect(Node<T> node, List<Route<T>> out, int limit) {
+        if (node.routes != null) {
+            for (Route<T> route : node.routes) {
+                if (out.size() >= limit) {
+                    return false;
+                }
+                out.add(route);
+            }
+        }
+        if (node.literals != null) {
+            for (String segment : new TreeSet<>(node.literals.keySet())) {
+                if (!collect(node.literals.get(segment), out, limit)) {
+                    return false;
+                }
+            }
+        }
+        if (node.variable != null && !collect(node.variable, out, limit)) {
+            return false;
+        }
+        return node.catchAll == null || collect(node.catchAll, out, limit);
+    }
+
+    /**
+     * Calls the consumer once for every pair of routes that match at least one
+     * common path under a common method, including routes with the same template.
+     * Routes of a method are paired with each other and with routes of any method.
+     */
+    public void forEachOverlap(BiConsumer<Route<T>, Route<T>> consumer) {
+        Node<T> any = roots.get(ANY_METHOD);
+        for (Map.Entry<String, Node<T>> root : roots.entrySet()) {
+            within(root.getValue(), consumer);
+            if (any != null && !root.getKey().equals(ANY_METHOD)) {
+                between(any, root.getValue(), consumer);
+            }
+        }
+    }
+
+    // Pairs of routes that both lie in one subtree
+    private static <T> void within(Node<T> node, BiConsumer<Route<T>, Route<T>> consumer) {
+        if (node.routes != null) {
+            for (int i = 0; i < node.routes.size(); i++) {
+                for (int j = i + 1; j < node.routes.size(); j++) {
+                    consumer.accept(node.routes.get(i), node.routes.get(j));
+                }
+            }
+        }
+        if (node.literals != null) {
+            for (Node<T> child : node.literals.values()) {
+                within(child, consumer);
+                if (node.variable != null) {
+                    between(child, node.variable, consumer);
+                }
+            }
+        }
+        if (node.variable != null) {
+            within(node.variable, consumer);
+        }
+        if (node.catchAll != null) {
+            within(node.catchAll, consumer);
+            // A catch-all also matches this node's own path and everything below it
+            if (node.catchAll.routes != null) {
+                List<Route<T>> rest = new ArrayList<>();
+                below(node, rest, false);
+                pairAll(node.catchAll.routes, rest, consumer);
+            }
+        }
+    }
+
+    // Pairs of one route from each of two subtrees that sit at the same depth
+    private static <T> void between(Node<T> a, Node<T> b, BiConsumer<Route<T>, Route<T>> consumer) {
+        if (a.routes != null && b.routes != null) {
+            pairAll(a.routes, b.routes, consumer);
+        }
+        if (a.literals != null) {
+            for (Map.Entry<String, Node<T>> child : a.literals.entrySet()) {
+                Node<T> same = b.literals != null ? b.literals.get(child.getKey()) : null;
+                if (same != null) {
+                    between(child.getValue(), same, consumer);
+                }
+                if (b.variable != null) {
+                    between(child.getValue(), b.variable, consumer);
+                }
+            }
+        }
+        if (a.variable != null) {
+            if (b.literals != null) {
+                for (Node<T> child : b.literals.values()) {
+                    between(a.variable, child, consumer);
+                }
+            }
+            if (b.variable != null) {
+                between(a.variable, b.variable, consumer);
+            }
+        }
+        if (a.catchAll != null && a.catchAll.routes != null) {
+            List<Route<T>> rest = new ArrayList<>();
+            below(b, rest, true);
+            pairAll(a.catchAll.routes, rest, consumer);
+        }
+        if (b.catchAll != null && b.catchAll.routes != null) {
+            // a's own catch-all was paired with b's above
+            List<Route<T>> rest = new ArrayList<>();
+            below(a, rest, false);
+            pairAll(rest, b.catchAll.routes, consumer);
+        }
+    }
+
+    // Routes at the node and under it, with or without those of its catch-all
+    private static <T> void below(Node<T> node, List<Route<T>> out, boolean withCatchAll) {
+        if (node.routes != null) {
+            out.addAll(node.routes);
+        }
+        if (node.literals != null) {
+            for (Node<T> child : node.literals.values()) {
+                below(child, out, true);
+            }
+        }
+        if (node.variable != null) {
+            below(node.variable, out, true);
+        }
+        if (withCatchAll && node.catchAll != null) {
+            below(node.catchAll, out, true);
+        }
+    }
+
+    private static <T> void pairAll(List<Route<T>> as, List<Route<T>> bs,
+            BiConsumer<Route<T>, Route<T>> consumer) {
+        for (Route<T> a : as) {
+            for (Route<T> b : bs) {
+                consumer.accept(a, b);
+            }
+        }
+    }
+
+    private static <T> Node<T> find(Node<T> node, String[] segments, int i, int[] wildcards) {
+        if (i == segments.length) {
+            if (node.routes != null) {
+                return node;
+            }
+            // "/files/**" also matches "/files"
+            if (node.catchAll != null && node.catchAll.routes != null) {
+                wildcards[0]++;
+                return node.catchAll;
+            }
+            return null;
+        }
+        String segment = segments[i];
+        if (node.literals != null && !isPlaceholder(segment)) {
+            Node<T> child = node.literals.get(segment);
+            if (child != null) {
+                Node<T> found = find(child, segments, i + 1, wildcards);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        if (node.variable != null) {
+            wildcards[0]++;
+            Node<T> found = find(node.variable, segments, i + 1, wildcards);
+            if (found != null) {
+                return found;
+            }
+            wildcards[0]--;
+        }
+        if (node.catchAll != null && node.catchAll.routes != null) {
+            wildcards[0]++;
+            return node.catchAll;
+        }
+        return null;
+    }
+
+    /**
+     * Non-empty segments of a path or template, so "//a/b/" and "/a/b" are alike
+     */
+    public static List<String> segments(String path) {
+        List<String> segments = new ArrayList<>();
+        if (path == null) {
+            return segments;
+        }
+        int start = 0;
+        for (int i = 0; i <= path.length(); i++) {
+            if (i == path.length() || path.charAt(i) == '/') {
+                if (i > start) {
+                    segments.add(path.substring(start, i));
+                }
+                start = i + 1;
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * The upper-case method, or {@link #ANY_METHOD} for routes of every method
+     */
+    public static String normalizeMethod(String method) {
+        if (method == null || method.isBlank()) {
+            return ANY_METHOD;
+        }
+        String m = method.trim().toUpperCase(Locale.ROOT);
+        return m.equals("REQUEST") ? ANY_METHOD : m;
+    }
+
+    /**
+     * Whether a template segment matches any single segment
+     */
+    public static boolean isVariable(String segment) {
+        return segment.equals("*") || (segment.startsWith("{") && segment.endsWith("}") && !isCatchAll(segment));
+    }
+
+    /**
+     * Whether a template segment matches the rest of the path
+     */
+    public static boolean isCatchAll(String segment) {
+        return segment.equals("**") || segment.startsWith("{*");
+    }
+
+    private static boolean isPlaceholder(String segment) {
+        return segment.indexOf('{') >= 0 || segment.indexOf('%') >= 0;
+    }
+
+    private static String stripQuery(String path) {
+        if (path == null) {
+            return null;
+        }
+        int end = path.length();
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            end = query;
+        }
+        int fragment = path.indexOf('#');
+        if (fragment >= 0 && fragment < end) {
+            end = fragment;
+        }
+        return path.substring(0, end);
+    }
+}
@@ -0,0 +1,151 @@
+package com.pro.graph;
+
+import java.util.Arrays;
+
+/**
+ * Strongly connected components of a CompactGraph (iterative Tarjan).
+ * Components are numbered in reverse topological order: every edge between two
+ * different components goes from a higher component id to a lower one.
+ */
+public class StronglyConnectedComponents {
+
+    private final CompactGraph graph;
+    private final int[] componentOf;
+    private final int[] memberOffsets;
+    private final int[] members;
+    private final int count;
+
+    public StronglyConnectedComponents(CompactGraph graph) {
+        this.graph = graph;
+        int n = graph.nodeCount();
+        this.componentOf = new int[n];
+        Arrays.fill(componentOf, -1);
+
+        int[] index = new int[n];
+        int[] lowLink = new int[n];
+        Arrays.fill(index, -1);
+        boolean[] onStack = new boolean[n];
+        int[] stack = new int[n];
+        int stackSize = 0;
+        int[] callNode = new int[n];
+        int[] callEdge = new int[n];
+        int nextIndex = 0;
+        int components = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (index[root] >= 0)
+                continue;
+
+            int depth = 0;
+            callNode[0] = root;
+            callEdge[0] = 0;
+            index[root] = lowLink[root] = nextIndex++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+
+            while (depth >= 0) {
+                int v = callNode[depth];
+                if (callEdge[depth] < graph.outDegree(v)) {
+                    int w = graph.outTarget(v, callEdge[depth]++);
+                    if (index[w] < 0) {
+                        index[w] = lowLink[w] = nextIndex++;
+                        stack[stackSize++] = w;
+                        onStack[w] = true;
+                        depth++;
+                        callNode[depth] = w;
+                        callEdge[depth] = 0;
+                    } else if (onStack[w]) {
+                        lowLink[v] = Math.min(lowLink[v], index[w]);
+                    }
+                    continue;
+                }
+
+                if (lowLink[v] == index[v]) {
+                    int w;
+                    do {
+                        w = stack[--stackSize];
+                        onStack[w] = false;
+                        componentOf[w] = components;
+                    } while (w != v);
+                    components++;
+                }
+                depth--;
+                if (depth >= 0) {
+                    int parent = callNode[depth];
+                    lowLink[parent] = Math.min(lowLink[parent], lowLink[v]);
+                }
+            }
+        }
+
+        this.count = components;
+        this.memberOffsets = new int[components + 1];
+        for (int v = 0; v < n; v++) {
+            memberOffsets[componentOf[v] + 1]++;
+        }
+        for (int c = 0; c < components; c++) {
+            memberOffsets[c + 1] += memberOffsets[c];
+        }
+        this.members = new int[n];
+        int[] fill = Arrays.copyOf(memberOffsets, components);
+        for (int v = 0; v < n; v++) {
+            members[fill[componentOf[v]]++] = v;
+        }
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public int componentOf(int node) {
+        return componentOf[node];
+    }
+
+    public int size(int component) {
+        return memberOffsets[component + 1] - memberOffsets[component];
+    }
+
+    public int member(int component, int i) {
+        return members[memberOffsets[component] + i];
+    }
+
+    /**
+     * True when the node sits on a cycle (non-trivial component or self-loop)
+     */
+    public boolean isCyclic(int node) {
+        if (size(componentOf[node]) > 1) {
+            return true;
+        }
+        for (int i = 0; i < graph.outDegree(node); i++) {
+            if (graph.outTarget(node, i) == node) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Builds the condensation DAG. Node names are component ids, parallel edges
+     * are collapsed and intra-component edges dropped.
+     */
+    public CompactGraph condensation() {
+        CompactGraph.Builder builder = new CompactGraph.Builder();
+        for (int c = 0; c < count; c++) {
+            builder.addNode(String.valueOf(c));
+        }
+        int[] lastSeen = new int[count];
+        Arrays.fill(lastSeen, -1);
+        for (int c = 0; c < count; c++) {
+            for (int i = 0; i < size(c); i++) {
+                int v = member(c, i);
+                for (int j = 0; j < graph.outDegree(v); j++) {
+                    int target = componentOf[graph.outTarget(v, j)];
+                    if (target != c && lastSeen[target] != c) {
+                        lastSeen[target] = c;
+                        builder.addEdge(c, target);
+                    }
+                }
+            }
+        }
+        return builder.build();
+    }
+}
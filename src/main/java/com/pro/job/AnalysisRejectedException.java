@@ -0,0 +1,31 @@
+package com.pro.job;
+
+/**
+ * Thrown when the analysis scheduler is saturated and does not admit more work;
+ * callers should answer 429 with the suggested Retry-After
+ */
+public class AnalysisRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public AnalysisRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /**
+     * Finds a rejection in the cause chain of an exception wrapped by callers
+     */
+    public static AnalysisRejectedException find(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof AnalysisRejectedException rejected) {
+                return rejected;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,241 @@
+package com.pro.job;
+
+import com.pro.service.AnalysisCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control in front of analyses and scans. Running work holds one of a
+ * fixed number of permits, and no project runs more than a fixed number of times
+ * at once. Work that cannot start waits in a bounded queue with two lanes:
+ * interactive requests are always admitted before batch jobs, and a waiter blocked
+ * only by its project's cap does not hold up waiters for other projects. When the
+ * queue is full, or an interactive waiter times out, the work is rejected with a
+ * Retry-After estimate instead of piling up.
+ */
+@Service
+public class AnalysisScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisScheduler.class);
+
+    // Waiters wake up at least this often to notice cancellation
+    private static final long CANCEL_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    public enum Lane {
+        INTERACTIVE, BATCH
+    }
+
+    /**
+     * A granted slot; closing it hands the slot to the next waiter
+     */
+    public final class Permit implements AutoCloseable {
+        private final String project;
+        private final long grantedAt = System.nanoTime();
+        private boolean released;
+
+        private Permit(String project) {
+            this.project = project;
+        }
+
+        @Override
+        public void close() {
+            release(this);
+        }
+    }
+
+    private static final class Waiter {
+        final String project;
+        final Lane lane;
+        final long enqueuedAt = System.nanoTime();
+        boolean granted;
+
+        Waiter(String project, Lane lane) {
+            this.project = project;
+            this.lane = lane;
+        }
+    }
+
+    private final int permits;
+    private final int perProject;
+    private final int queueCapacity;
+    private final long interactiveMaxWaitNanos;
+
+    private final EnumMap<Lane, ArrayDeque<Waiter>> queues = new EnumMap<>(Lane.class);
+    private final Map<String, Integer> runningPerProject = new HashMap<>();
+    private int running;
+
+    private final EnumMap<Lane, long[]> laneStats = new EnumMap<>(Lane.class);
+    private long rejected;
+    private long timedOut;
+    private long holdNanos;
+    private long releases;
+
+    public AnalysisScheduler(@Value("${analyzer.scheduler.permits:0}") int permits,
+            @Value("${analyzer.scheduler.per-project:1}") int perProject,
+            @Value("${analyzer.scheduler.queue-capacity:16}") int queueCapacity,
+            @Value("${analyzer.scheduler.interactive-max-wait-seconds:30}") long interactiveMaxWaitSeconds) {
+        // By default leave one core to request handling
+        this.permits = permits > 0 ? permits : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        this.perProject = Math.max(1, perProject);
+        this.queueCapacity = Math.max(0, queueCapacity);
+        this.interactiveMaxWaitNanos = TimeUnit.SECONDS.toNanos(Math.max(1, interactiveMaxWaitSeconds));
+        for (Lane lane : Lane.values()) {
+            queues.put(lane, new ArrayDeque<>());
+            // granted, total wait nanos, max wait nanos
+            laneStats.put(lane, new long[3]);
+        }
+    }
+
+    public Permit acquire(String projectPath, Lane lane) {
+        return acquire(projectPath, lane, ProgressListener.NONE);
+    }
+
+    /**
+     * Blocks until the work may start. Interactive callers give up after the
+     * configured wait, batch callers wait as long as it takes; both stop waiting
+     * when the listener is cancelled.
+     */
+    public synchronized Permit acquire(String projectPath, Lane lane, ProgressListener listener) {
+        String project = AnalysisCache.canonicalPath(projectPath);
+        if (queuedCount() >= queueCapacity && !canRun(project)) {
+            rejected++;
+            logger.warn("Rejected {} analysis of {}, {} requests waiting", lane, project, queuedCount());
+            throw new AnalysisRejectedException("Analysis capacity exhausted, " + queuedCount()
+                    + " requests already waiting", retryAfterSeconds());
+        }
+
+        // Enqueue first so lane priority applies even when a slot is free right now
+        Waiter waiter = new Waiter(project, lane);
+        queues.get(lane).addLast(waiter);
+        dispatch();
+        if (!waiter.granted) {
+            listener.phase("waiting");
+        }
+        long deadline = waiter.enqueuedAt + interactiveMaxWaitNanos;
+        try {
+            while (!waiter.granted) {
+                if (listener.isCancelled()) {
+                    queues.get(lane).remove(waiter);
+                    throw new JobCancelledException();
+                }
+                long remaining = deadline - System.nanoTime();
+                if (lane == Lane.INTERACTIVE && remaining <= 0) {
+                    queues.get(lane).remove(waiter);
+                    timedOut++;
+                    logger.warn("Gave up waiting for a slot to analyze {}", project);
+                    throw new AnalysisRejectedException("Timed out waiting for analysis capacity",
+                            retryAfterSeconds());
+                }
+                TimeUnit.NANOSECONDS.timedWait(this,
+                        lane == Lane.INTERACTIVE ? Math.min(remaining, CANCEL_POLL_NANOS) : CANCEL_POLL_NANOS);
+            }
+        } catch (InterruptedException e) {
+            if (waiter.granted) {
+                // Granted while being interrupted, hand the slot on
+                release(new Permit(project));
+            } else {
+                queues.get(lane).remove(waiter);
+            }
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for analysis capacity", e);
+        }
+        return new Permit(project);
+    }
+
+    private boolean canRun(String project) {
+        return running < permits && runningPerProject.getOrDefault(project, 0) < perProject;
+    }
+
+    private void grant(String project, Lane lane, long waitedNanos) {
+        running++;
+        runningPerProject.merge(project, 1, Integer::sum);
+        long[] stats = laneStats.get(lane);
+        stats[0]++;
+        stats[1] += waitedNanos;
+        stats[2] = Math.max(stats[2], waitedNanos);
+    }
+
+    private synchronized void release(Permit permit) {
+        if (permit.released) {
+            return;
+        }
+        permit.released = true;
+        running--;
+        runningPerProject.computeIfPresent(permit.project, (k, v) -> v > 1 ? v - 1 : null);
+        holdNanos += System.nanoTime() - permit.grantedAt;
+        releases++;
+        dispatch();
+    }
+
+    // Hands free slots to waiters, interactive lane first, skipping waiters whose project is at its cap
+    private void dispatch() {
+        boolean any = false;
+        for (Lane lane : Lane.values()) {
+            Iterator<Waiter> it = queues.get(lane).iterator();
+            while (running < permits && it.hasNext()) {
+                Waiter waiter = it.next();
+                if (canRun(waiter.project)) {
+                    it.remove();
+                    grant(waiter.project, lane, System.nanoTime() - waiter.enqueuedAt);
+                    waiter.granted = true;
+                    any = true;
+                }
+            }
+        }
+        if (any) {
+            notifyAll();
+        }
+    }
+
+    private int queuedCount() {
+        int count = 0;
+        for (ArrayDeque<Waiter> queue : queues.values()) {
+            count += queue.size();
+        }
+        return count;
+    }
+
+    // Queued work ahead divided by parallelism, times the average run time
+    private long retryAfterSeconds() {
+        long averageMs = releases > 0 ? holdNanos / releases / 1_000_000 : 5000;
+        long estimate = averageMs * (queuedCount() / permits + 1) / 1000;
+        return Math.max(1, Math.min(300, estimate));
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("permits", permits);
+        stats.put("perProject", perProject);
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("running", running);
+        stats.put("queued", queuedCount());
+        long now = System.nanoTime();
+        Map<String, Object> lanes = new LinkedHashMap<>();
+        for (Lane lane : Lane.values()) {
+            long[] values = laneStats.get(lane);
+            Waiter oldest = queues.get(lane).peekFirst();
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("queued", queues.get(lane).size());
+            item.put("oldestWaitMs", oldest != null ? (now - oldest.enqueuedAt) / 1_000_000 : 0);
+            item.put("granted", values[0]);
+            item.put("averageWaitMs", values[0] > 0 ? values[1] / values[0] / 1_000_000 : 0);
+            item.put("maxWaitMs", values[2] / 1_000_000);
+            lanes.put(lane.name().toLowerCase(), item);
+        }
+        stats.put("lanes", lanes);
+        stats.put("rejected", rejected);
+        stats.put("timedOut", timedOut);
+        stats.put("averageRunMs", releases > 0 ? holdNanos / releases / 1_000_000 : 0);
+        stats.put("retryAfterSeconds", retryAfterSeconds());
+        return stats;
+    }
+
+    public int getPermits() {
+        return permits;
+    }
+}
@@ -0,0 +1,137 @@
+package com.pro.job;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Writes progress and partial results to a streaming response, either as
+ * Server-Sent Events or as newline-delimited JSON. Output is flushed at most every
+ * FLUSH_INTERVAL_MS while results arrive, and on phase changes. Once the client is
+ * gone, writes stop and the running work is cancelled at its next check.
+ */
+public class EventStream implements ProgressListener {
+
+    public static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private static final long FLUSH_INTERVAL_MS = 100;
+
+    private final OutputStream out;
+    private final ObjectWriter writer;
+    private final boolean sse;
+    private volatile boolean closed;
+    private long lastFlush = System.currentTimeMillis();
+    private String phase = "starting";
+    private int filesTotal;
+    private int filesDone;
+    private int found;
+
+    public EventStream(OutputStream out, ObjectMapper objectMapper, boolean sse) {
+        this.out = out;
+        // Flushing is batched here, and the response stream must stay open between events
+        this.writer = objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.sse = sse;
+    }
+
+    /**
+     * SSE when the client asks for text/event-stream, NDJSON otherwise
+     */
+    public static boolean wantsSse(String accept) {
+        return accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+    }
+
+    public static MediaType mediaType(boolean sse) {
+        return sse ? MediaType.TEXT_EVENT_STREAM : NDJSON;
+    }
+
+    public synchronized void event(String name, Object data) {
+        if (closed) {
+            return;
+        }
+        try {
+            if (sse) {
+                out.write(("event: " + name + "\ndata: ").getBytes(StandardCharsets.UTF_8));
+                writer.writeValue(out, data);
+                out.write("\n\n".getBytes(StandardCharsets.UTF_8));
+            } else {
+                Map<String, Object> line = new LinkedHashMap<>();
+                line.put("event", name);
+                line.put("data", data);
+                writer.writeValue(out, line);
+                out.write('\n');
+            }
+        } catch (IOException e) {
+            closed = true;
+        }
+    }
+
+    public synchronized void flush() {
+        if (closed) {
+            return;
+        }
+        try {
+            out.flush();
+        } catch (IOException e) {
+            closed = true;
+        }
+        lastFlush = System.currentTimeMillis();
+    }
+
+    @Override
+    public synchronized void phase(String phase) {
+        this.phase = phase;
+        progress();
+        flush();
+    }
+
+    @Override
+    public synchronized void total(int files) {
+        filesTotal = files;
+        filesDone = 0;
+    }
+
+    @Override
+    public synchronized void found(String kind, Object item) {
+        found++;
+        event(kind, item);
+    }
+
+    @Override
+    public synchronized void fileDone(String file) {
+        filesDone++;
+        if (System.currentTimeMillis() - lastFlush >= FLUSH_INTERVAL_MS) {
+            progress();
+            flush();
+        }
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return closed;
+    }
+
+    /**
+     * Number of partial results streamed so far
+     */
+    public synchronized int getFound() {
+        return found;
+    }
+
+    private void progress() {
+        Map<String, Object> progress = new LinkedHashMap<>();
+        progress.put("phase", phase);
+        progress.put("filesDone", filesDone);
+        progress.put("filesTotal", filesTotal);
+        event("progress", progress);
+    }
+}
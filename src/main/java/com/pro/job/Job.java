@@ -0,0 +1,174 @@
+package com.pro.job;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One asynchronous analysis or scan together with its live progress. The job is
+ * its own ProgressListener, so the worker thread updates it directly while
+ * request threads read it.
+ */
+public class Job implements ProgressListener {
+
+    public enum Type {
+        ANALYSIS, SCAN;
+
+        public static Type parse(String value) {
+            if (value == null || value.trim().isEmpty()) {
+                return ANALYSIS;
+            }
+            try {
+                return Type.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown job type: " + value + " (expected analysis or scan)");
+            }
+        }
+    }
+
+    public enum Status {
+        QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED;
+
+        public boolean isFinished() {
+            return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final Type type;
+    private final String path;
+    private final long createdAt = System.currentTimeMillis();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile String phase = "queued";
+    private volatile int filesTotal;
+    private final AtomicInteger filesDone = new AtomicInteger();
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile boolean cancelRequested;
+    private volatile String error;
+    private volatile Object result;
+
+    public Job(Type type, String path) {
+        this.type = type;
+        this.path = path;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Object getResult() {
+        return result;
+    }
+
+    @Override
+    public void phase(String phase) {
+        this.phase = phase;
+    }
+
+    @Override
+    public void total(int files) {
+        filesTotal = files;
+        filesDone.set(0);
+    }
+
+    @Override
+    public void fileDone(String file) {
+        filesDone.incrementAndGet();
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelRequested;
+    }
+
+    /**
+     * Asks the job to stop; a running job notices it before its next file
+     */
+    public void requestCancel() {
+        cancelRequested = true;
+    }
+
+    synchronized boolean start() {
+        if (status != Status.QUEUED) {
+            return false;
+        }
+        status = Status.RUNNING;
+        startedAt = System.currentTimeMillis();
+        return true;
+    }
+
+    synchronized void succeed(Object result) {
+        this.result = result;
+        finish(Status.SUCCEEDED, "done");
+    }
+
+    synchronized void fail(String error) {
+        this.error = error;
+        finish(Status.FAILED, phase);
+    }
+
+    synchronized void cancel() {
+        finish(Status.CANCELLED, phase);
+    }
+
+    private void finish(Status status, String phase) {
+        if (this.status.isFinished()) {
+            return;
+        }
+        this.status = status;
+        this.phase = phase;
+        this.finishedAt = System.currentTimeMillis();
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    /**
+     * Wall-clock time spent running so far, or in total once finished
+     */
+    public long getElapsedMs() {
+        long started = startedAt;
+        if (started == 0) {
+            return 0;
+        }
+        long finished = finishedAt;
+        return (finished != 0 ? finished : System.currentTimeMillis()) - started;
+    }
+
+    public Map<String, Object> describe() {
+        int total = filesTotal;
+        int done = filesDone.get();
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("id", id);
+        view.put("type", type.name().toLowerCase());
+        view.put("path", path);
+        view.put("status", status.name().toLowerCase());
+        view.put("phase", phase);
+        view.put("filesDone", done);
+        view.put("filesTotal", total);
+        view.put("percent", total > 0 ? Math.min(100, done * 100 / total) : (status == Status.SUCCEEDED ? 100 : 0));
+        view.put("elapsedMs", getElapsedMs());
+        view.put("createdAt", createdAt);
+        view.put("cancelRequested", cancelRequested);
+        if (error != null) {
+            view.put("error", error);
+        }
+        return view;
+    }
+}
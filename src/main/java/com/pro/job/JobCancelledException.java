@@ -0,0 +1,11 @@
+package com.pro.job;
+
+/**
+ * Thrown from inside an analysis or scan when its job was cancelled
+ */
+public class JobCancelledException extends RuntimeException {
+
+    public JobCancelledException() {
+        super("Job was cancelled");
+    }
+}
@@ -0,0 +1,161 @@
+package com.pro.job;
+
+import com.pro.apigraph.service.ScanService;
+import com.pro.service.GraphQueryService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs analyses and scans as background jobs on a dedicated executor, so long
+ * operations neither hold request threads nor compete with them for the servlet pool.
+ * Finished jobs are kept for polling until the retention limit pushes them out.
+ */
+@Service
+public class JobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobService.class);
+
+    private final GraphQueryService graphQueryService;
+    private final ScanService scanService;
+    private final ThreadPoolExecutor executor;
+    private final int retained;
+    private final Map<String, Job> jobs = new LinkedHashMap<>();
+
+    public JobService(GraphQueryService graphQueryService, ScanService scanService,
+            @Value("${analyzer.jobs.threads:2}") int threads,
+            @Value("${analyzer.jobs.queue-capacity:100}") int queueCapacity,
+            @Value("${analyzer.jobs.retained:200}") int retained) {
+        this.graphQueryService = graphQueryService;
+        this.scanService = scanService;
+        this.retained = Math.max(1, retained);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(Math.max(1, threads), Math.max(1, threads), 0L,
+                TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                    Thread thread = new Thread(runnable, "analysis-job-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Queues a job; throws RejectedExecutionException when the queue is full
+     */
+    public Job submit(Job.Type type, String path, boolean bypassCache) {
+        if (path == null || path.trim().isEmpty()) {
+            throw new IllegalArgumentException("Project path is required");
+        }
+        Job job = new Job(type, path.trim());
+        synchronized (jobs) {
+            jobs.put(job.getId(), job);
+            prune();
+        }
+        try {
+            executor.execute(() -> run(job, bypassCache));
+        } catch (RejectedExecutionException e) {
+            synchronized (jobs) {
+                jobs.remove(job.getId());
+            }
+            throw e;
+        }
+        logger.info("Queued {} job {} for {}", type, job.getId(), job.getPath());
+        return job;
+    }
+
+    private void run(Job job, boolean bypassCache) {
+        if (!job.start()) {
+            return;
+        }
+        try {
+            job.checkCancelled();
+            Object result;
+            if (job.getType() == Job.Type.SCAN) {
+                ScanService.ScanResult scan = scanService.scan(job.getPath(), job, AnalysisScheduler.Lane.BATCH);
+                Map<String, Object> summary = new LinkedHashMap<>();
+                summary.put("path", scan.getKey());
+                summary.put("version", scan.getVersion());
+                summary.put("dependencies", scan.getDependencies());
+                result = summary;
+            } else {
+                result = graphQueryService.load(job.getPath(), bypassCache, job, AnalysisScheduler.Lane.BATCH)
+                        .getAnalysis();
+            }
+            job.succeed(result);
+            logger.info("Job {} finished in {} ms", job.getId(), job.getElapsedMs());
+        } catch (JobCancelledException e) {
+            job.cancel();
+            logger.info("Job {} cancelled after {} ms", job.getId(), job.getElapsedMs());
+        } catch (Exception e) {
+            job.fail(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            logger.error("Job {} failed: {}", job.getId(), e.getMessage(), e);
+        }
+    }
+
+    public Job get(String id) {
+        Job job;
+        synchronized (jobs) {
+            job = jobs.get(id);
+        }
+        if (job == null) {
+            throw new NoSuchElementException("Unknown job: " + id);
+        }
+        return job;
+    }
+
+    public List<Job> list() {
+        synchronized (jobs) {
+            return new ArrayList<>(jobs.values());
+        }
+    }
+
+    /**
+     * Requests cancellation. A queued job is cancelled right away, a running one
+     * stops before its next file.
+     */
+    public Job cancel(String id) {
+        Job job = get(id);
+        job.requestCancel();
+        if (job.getStatus() == Job.Status.QUEUED) {
+            job.cancel();
+        }
+        return job;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("threads", executor.getMaximumPoolSize());
+        stats.put("active", executor.getActiveCount());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("completed", executor.getCompletedTaskCount());
+        synchronized (jobs) {
+            stats.put("retained", jobs.size());
+        }
+        return stats;
+    }
+
+    // Drops the oldest finished jobs beyond the retention limit; callers hold the lock
+    private void prune() {
+        Iterator<Job> it = jobs.values().iterator();
+        int excess = jobs.size() - retained;
+        while (excess > 0 && it.hasNext()) {
+            if (it.next().getStatus().isFinished()) {
+                it.remove();
+                excess--;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        synchronized (jobs) {
+            jobs.values().forEach(Job::requestCancel);
+        }
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,49 @@
+package com.pro.job;
+
+/**
+ * Receives progress from long-running analyses and scans, and lets the caller
+ * request cooperative cancellation, which is checked between files
+ */
+public interface ProgressListener {
+
+    ProgressListener NONE = new ProgressListener() {
+    };
+
+    /**
+     * Called when the work moves to a new phase (discovering, parsing, linking, ...)
+     */
+    default void phase(String phase) {
+    }
+
+    /**
+     * Number of files that will be processed in the current phase
+     */
+    default void total(int files) {
+    }
+
+    /**
+     * Called after each processed file
+     */
+    default void fileDone(String file) {
+    }
+
+    /**
+     * Called for each partial result (component, endpoint, dependency, ...) as soon
+     * as the file that produced it has been processed
+     */
+    default void found(String kind, Object item) {
+    }
+
+    default boolean isCancelled() {
+        return false;
+    }
+
+    /**
+     * Throws JobCancelledException when cancellation was requested
+     */
+    default void checkCancelled() {
+        if (isCancelled()) {
+            throw new JobCancelledException();
+        }
+    }
+}
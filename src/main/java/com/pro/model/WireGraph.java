@@ -0,0 +1,221 @@
+package com.pro.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.pro.graph.CompactGraph;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.function.IntFunction;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Compact, id-indexed wire format for graphs sent to the browser. Every name is
+ * written once: nodes are a table of columns, edges refer to nodes by their row,
+ * and repeated strings (types, modules, edge methods, labels, routes and handlers)
+ * are indexes into a dictionary written at the end, whose entry 0 is the empty
+ * string and stands for a missing value.
+ *
+ * <pre>
+ * {"format": "compact", "version": ...,
+ *  "nodes": {"id": [...], "label": [...], "type": [...], "module": [...], "layer": [...], ...},
+ *  "edges": {"pairs": [source, target, ...], "method": [...], "label": [...],
+ *            "route": [...], "handler": [...]},
+ *  "dictionary": ["", ...]}
+ * </pre>
+ *
+ * Columns other than id and pairs are optional; a missing label column means labels equal ids.
+ * Like CytoscapeGraph the serializer writes columns straight from the graph.
+ */
+@JsonSerialize(using = WireGraph.Serializer.class)
+public class WireGraph {
+
+    public static final String FORMAT = "compact";
+
+    private final String version;
+    private final CompactGraph graph;
+    private boolean sortById;
+    private IntFunction<String> labels;
+    private IntFunction<String> types;
+    private IntFunction<String> modules;
+    private final Map<String, IntUnaryOperator> intColumns = new LinkedHashMap<>();
+    private final Map<String, IntToDoubleFunction> doubleColumns = new LinkedHashMap<>();
+    private IntFunction<String> edgeMethods;
+    private IntFunction<String> edgeLabels;
+    private IntFunction<String> edgeRoutes;
+    private IntFunction<String> edgeHandlers;
+
+    public WireGraph(String version, CompactGraph graph) {
+        this.version = version;
+        this.graph = graph;
+    }
+
+    /**
+     * Whether a request asked for this format
+     */
+    public static boolean requested(String format) {
+        return format != null && FORMAT.equalsIgnoreCase(format.trim());
+    }
+
+    /**
+     * Emits nodes sorted by id instead of in graph order
+     */
+    public WireGraph sortedById() {
+        this.sortById = true;
+        return this;
+    }
+
+    public WireGraph labels(IntFunction<String> labels) {
+        this.labels = labels;
+        return this;
+    }
+
+    public WireGraph types(IntFunction<String> types) {
+        this.types = types;
+        return this;
+    }
+
+    public WireGraph modules(IntFunction<String> modules) {
+        this.modules = modules;
+        return this;
+    }
+
+    public WireGraph intColumn(String name, IntUnaryOperator values) {
+        intColumns.put(name, values);
+        return this;
+    }
+
+    public WireGraph doubleColumn(String name, IntToDoubleFunction values) {
+        doubleColumns.put(name, values);
+        return this;
+    }
+
+    /**
+     * Per-edge method and label, looked up by the graph's edge id
+     */
+    public WireGraph edgeText(IntFunction<String> methods, IntFunction<String> labels) {
+        this.edgeMethods = methods;
+        this.edgeLabels = labels;
+        return this;
+    }
+
+    /**
+     * Per-edge route template and handling method, looked up by the graph's edge id
+     */
+    public WireGraph edgeRoutes(IntFunction<String> routes, IntFunction<String> handlers) {
+        this.edgeRoutes = routes;
+        this.edgeHandlers = handlers;
+        return this;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    static class Serializer extends StdSerializer<WireGraph> {
+
+        Serializer() {
+            super(WireGraph.class);
+        }
+
+        @Override
+        public void serialize(WireGraph value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            CompactGraph graph = value.graph;
+            int n = graph.nodeCount();
+            int[] order = new int[n];
+            int[] row = new int[n];
+            if (value.sortById) {
+                Integer[] sorted = new Integer[n];
+                for (int v = 0; v < n; v++) {
+                    sorted[v] = v;
+                }
+                Arrays.sort(sorted, Comparator.comparing(graph::name));
+                for (int i = 0; i < n; i++) {
+                    order[i] = sorted[i];
+                }
+            } else {
+                for (int v = 0; v < n; v++) {
+                    order[v] = v;
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                row[order[i]] = i;
+            }
+            Map<String, Integer> dictionary = new LinkedHashMap<>();
+            dictionary.put("", 0);
+
+            gen.writeStartObject();
+            gen.writeStringField("format", FORMAT);
+            gen.writeStringField("version", value.version);
+
+            gen.writeObjectFieldStart("nodes");
+            gen.writeArrayFieldStart("id");
+            for (int v : order) {
+                gen.writeString(graph.name(v));
+            }
+            gen.writeEndArray();
+            if (value.labels != null) {
+                gen.writeArrayFieldStart("label");
+                for (int v : order) {
+                    gen.writeString(value.labels.apply(v));
+                }
+                gen.writeEndArray();
+            }
+            writeIndexes(gen, "type", value.types, n, i -> order[i], dictionary);
+            writeIndexes(gen, "module", value.modules, n, i -> order[i], dictionary);
+            for (Map.Entry<String, IntUnaryOperator> column : value.intColumns.entrySet()) {
+                gen.writeArrayFieldStart(column.getKey());
+                for (int v : order) {
+                    gen.writeNumber(column.getValue().applyAsInt(v));
+                }
+                gen.writeEndArray();
+            }
+            for (Map.Entry<String, IntToDoubleFunction> column : value.doubleColumns.entrySet()) {
+                gen.writeArrayFieldStart(column.getKey());
+                for (int v : order) {
+                    gen.writeNumber(column.getValue().applyAsDouble(v));
+                }
+                gen.writeEndArray();
+            }
+            gen.writeEndObject();
+
+            int m = graph.edgeCount();
+            gen.writeObjectFieldStart("edges");
+            gen.writeArrayFieldStart("pairs");
+            for (int e = 0; e < m; e++) {
+                gen.writeNumber(row[graph.edgeSource(e)]);
+                gen.writeNumber(row[graph.edgeTarget(e)]);
+            }
+            gen.writeEndArray();
+            writeIndexes(gen, "method", value.edgeMethods, m, e -> e, dictionary);
+            writeIndexes(gen, "label", value.edgeLabels, m, e -> e, dictionary);
+            writeIndexes(gen, "route", value.edgeRoutes, m, e -> e, dictionary);
+            writeIndexes(gen, "handler", value.edgeHandlers, m, e -> e, dictionary);
+            gen.writeEndObject();
+
+            gen.writeArrayFieldStart("dictionary");
+            for (String entry : dictionary.keySet()) {
+                gen.writeString(entry);
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }
+
+        // Writes the dictionary index of values.apply(idAt(i)) for i below count
+        private static void writeIndexes(JsonGenerator gen, String field, IntFunction<String> values, int count,
+                IntUnaryOperator idAt, Map<String, Integer> dictionary) throws IOException {
+            if (values == null) {
+                return;
+            }
+            gen.writeArrayFieldStart(field);
+            for (int i = 0; i < count; i++) {
+                String text = values.apply(idAt.applyAsInt(i));
+                gen.writeNumber(dictionary.computeIfAbsent(text != null ? text : "", k -> dictionary.size()));
+            }
+            gen.writeEndArray();
+        }
+    }
+}
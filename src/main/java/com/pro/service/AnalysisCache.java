@@ -0,0 +1,342 @@
+package com.pro.service;
+
+import com.pro.job.AnalysisRejectedException;
+import com.pro.job.AnalysisScheduler;
+import com.pro.job.JobCancelledException;
+import com.pro.job.ProgressListener;
+import com.pro.model.ProjectAnalysis;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * Keeps recent analyses keyed by canonical project path. An entry is reused while
+ * the project's source fingerprint is unchanged and its TTL has not expired; the
+ * cache is bounded by entry count and by estimated weight, evicting least recently
+ * used entries first. Concurrent loads of the same project are coalesced into one
+ * analysis whose result every caller shares; callers waiting for another caller's
+ * load give up on cancellation and, in the interactive lane, after the same wait
+ * the scheduler allows for a slot.
+ */
+@Service
+public class AnalysisCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisCache.class);
+
+    // Callers joining a running load wake up at least this often to notice cancellation
+    private static final long JOIN_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final int maxEntries;
+    private final long maxWeightBytes;
+    private final long ttlMillis;
+    private final long revalidateMillis;
+    private final long interactiveMaxWaitNanos;
+
+    private final LinkedHashMap<String, CachedAnalysis> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalWeight;
+    private final AtomicLong versions = new AtomicLong();
+    private final ConcurrentHashMap<String, FutureTask<CachedAnalysis>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong bypasses = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong joinTimeouts = new AtomicLong();
+    private final AtomicLong staleReloads = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong loadNanos = new AtomicLong();
+
+    public AnalysisCache(@Value("${analyzer.cache.max-entries:16}") int maxEntries,
+            @Value("${analyzer.cache.max-weight-mb:512}") long maxWeightMb,
+            @Value("${analyzer.cache.ttl-minutes:30}") long ttlMinutes,
+            @Value("${analyzer.cache.revalidate-seconds:5}") long revalidateSeconds,
+            @Value("${analyzer.scheduler.interactive-max-wait-seconds:30}") long interactiveMaxWaitSeconds) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.maxWeightBytes = Math.max(1, maxWeightMb) * 1024 * 1024;
+        this.ttlMillis = ttlMinutes * 60_000;
+        this.revalidateMillis = revalidateSeconds * 1000;
+        this.interactiveMaxWaitNanos = TimeUnit.SECONDS.toNanos(Math.max(1, interactiveMaxWaitSeconds));
+    }
+
+    /**
+     * Returns a valid cached analysis, or runs the loader with the canonical path
+     * and the source fingerprint taken before loading, and caches its result.
+     * With bypass set the loader always runs and replaces any cached entry. A caller
+     * that finds a load of the same project already running waits for it instead
+     * of starting another one; that load is fresh, so it also satisfies bypass. The
+     * wait ends when the listener is cancelled and, in the interactive lane, with
+     * an AnalysisRejectedException once the scheduler's interactive wait is over.
+     */
+    public CachedAnalysis getOrLoad(String projectPath, boolean bypass, ProgressListener listener,
+            AnalysisScheduler.Lane lane, BiFunction<String, String, ProjectAnalysis> loader) {
+        String key = canonicalPath(projectPath);
+        if (bypass) {
+            bypasses.incrementAndGet();
+        } else {
+            CachedAnalysis entry = lookup(key);
+            if (entry != null) {
+                hits.incrementAndGet();
+                return entry;
+            }
+            misses.incrementAndGet();
+        }
+
+        while (true) {
+            FutureTask<CachedAnalysis> task = new FutureTask<>(() -> load(key, bypass, loader));
+            FutureTask<CachedAnalysis> running = inFlight.putIfAbsent(key, task);
+            if (running == null) {
+                try {
+                    task.run();
+                } finally {
+                    inFlight.remove(key, task);
+                }
+                return await(task);
+            }
+            coalesced.incrementAndGet();
+            logger.debug("Joining in-flight analysis of {}", key);
+            try {
+                return join(key, running, listener, lane);
+            } catch (JobCancelledException e) {
+                if (listener.isCancelled()) {
+                    throw e;
+                }
+                // The caller that started the load cancelled it; start over without it
+                logger.debug("In-flight analysis of {} was cancelled, retrying", key);
+            }
+        }
+    }
+
+    private CachedAnalysis load(String key, boolean bypass, BiFunction<String, String, ProjectAnalysis> loader) {
+        if (!bypass) {
+            // Another load may have finished between the miss and taking over the key
+            CachedAnalysis entry = lookup(key);
+            if (entry != null) {
+                return entry;
+            }
+        }
+        String fingerprint = ProjectFingerprint.of(key);
+        long start = System.nanoTime();
+        ProjectAnalysis analysis = loader.apply(key, fingerprint);
+        loadNanos.addAndGet(System.nanoTime() - start);
+        loads.incrementAndGet();
+        return put(key, analysis, fingerprint);
+    }
+
+    // Waits for another caller's load in short steps, like a scheduler waiter
+    private CachedAnalysis join(String key, FutureTask<CachedAnalysis> task, ProgressListener listener,
+            AnalysisScheduler.Lane lane) {
+        long deadline = System.nanoTime() + interactiveMaxWaitNanos;
+        while (!task.isDone()) {
+            listener.checkCancelled();
+            long remaining = deadline - System.nanoTime();
+            if (lane == AnalysisScheduler.Lane.INTERACTIVE && remaining <= 0) {
+                joinTimeouts.incrementAndGet();
+                logger.warn("Gave up waiting for the running analysis of {}", key);
+                throw new AnalysisRejectedException("Timed out waiting for a running analysis of the project",
+                        retryAfterSeconds());
+            }
+            try {
+                task.get(lane == AnalysisScheduler.Lane.INTERACTIVE ? Math.min(remaining, JOIN_POLL_NANOS)
+                        : JOIN_POLL_NANOS, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                // Check cancellation and the deadline again
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for analysis", e);
+            } catch (ExecutionException e) {
+                break;
+            }
+        }
+        return await(task);
+    }
+
+    // The running load usually finishes within an average load time
+    private long retryAfterSeconds() {
+        long averageMs = loads.get() > 0 ? loadNanos.get() / loads.get() / 1_000_000 : 5000;
+        return Math.max(1, Math.min(300, averageMs / 1000));
+    }
+
+    private static CachedAnalysis await(FutureTask<CachedAnalysis> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for analysis", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Analysis failed", e.getCause());
+        }
+    }
+
+    /**
+     * Returns the cached analysis for a project if it is still valid, or null
+     */
+    public CachedAnalysis get(String projectPath) {
+        return lookup(canonicalPath(projectPath));
+    }
+
+    private CachedAnalysis lookup(String key) {
+        CachedAnalysis entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        if (entry == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (ttlMillis > 0 && now - entry.getCreatedAt() > ttlMillis) {
+            if (remove(key, entry)) {
+                expirations.incrementAndGet();
+            }
+            return null;
+        }
+        if (now - entry.getLastValidatedAt() > revalidateMillis) {
+            if (!ProjectFingerprint.of(key).equals(entry.getFingerprint())) {
+                if (remove(key, entry)) {
+                    staleReloads.incrementAndGet();
+                    logger.info("Sources of {} changed, dropping cached analysis", key);
+                }
+                return null;
+            }
+            entry.markValidated(now);
+        }
+        return entry;
+    }
+
+    private CachedAnalysis put(String key, ProjectAnalysis analysis, String fingerprint) {
+        CachedAnalysis entry = new CachedAnalysis(key, versions.incrementAndGet(), analysis, fingerprint);
+        synchronized (this) {
+            CachedAnalysis previous = entries.put(key, entry);
+            if (previous != null) {
+                totalWeight -= previous.getWeight();
+            }
+            totalWeight += entry.getWeight();
+
+            Iterator<Map.Entry<String, CachedAnalysis>> eldest = entries.entrySet().iterator();
+            while ((entries.size() > maxEntries || totalWeight > maxWeightBytes) && eldest.hasNext()) {
+                CachedAnalysis candidate = eldest.next().getValue();
+                if (candidate == entry) {
+                    // Never evict the entry just added, even if it alone exceeds the budget
+                    continue;
+                }
+                eldest.remove();
+                totalWeight -= candidate.getWeight();
+                evictions.incrementAndGet();
+                logger.info("Evicted cached analysis of {} ({} bytes)", candidate.getKey(), candidate.getWeight());
+            }
+        }
+        return entry;
+    }
+
+    private synchronized boolean remove(String key, CachedAnalysis entry) {
+        if (entries.get(key) == entry) {
+            entries.remove(key);
+            totalWeight -= entry.getWeight();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Drops the cached analysis of one project; returns whether there was one
+     */
+    public boolean invalidate(String projectPath) {
+        String key = canonicalPath(projectPath);
+        CachedAnalysis entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        boolean removed = entry != null && remove(key, entry);
+        if (removed) {
+            invalidations.incrementAndGet();
+        }
+        return removed;
+    }
+
+    /**
+     * Drops every cached analysis and returns how many were removed
+     */
+    public synchronized int invalidateAll() {
+        int count = entries.size();
+        entries.clear();
+        totalWeight = 0;
+        invalidations.addAndGet(count);
+        return count;
+    }
+
+    public Map<String, Object> stats() {
+        List<Map<String, Object>> cached = new ArrayList<>();
+        long weight;
+        synchronized (this) {
+            weight = totalWeight;
+            for (CachedAnalysis entry : entries.values()) {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("projectPath", entry.getKey());
+                item.put("version", entry.getVersion());
+                item.put("weightBytes", entry.getWeight());
+                item.put("ageSeconds", (System.currentTimeMillis() - entry.getCreatedAt()) / 1000);
+                cached.add(item);
+            }
+        }
+        long lookups = hits.get() + misses.get();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", cached.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("weightBytes", weight);
+        stats.put("maxWeightBytes", maxWeightBytes);
+        stats.put("ttlSeconds", ttlMillis / 1000);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("hitRate", lookups > 0 ? Math.round(hits.get() * 1000.0 / lookups) / 1000.0 : 0.0);
+        stats.put("bypasses", bypasses.get());
+        stats.put("loads", loads.get());
+        stats.put("coalesced", coalesced.get());
+        stats.put("joinTimeouts", joinTimeouts.get());
+        stats.put("inFlight", inFlight.size());
+        stats.put("staleReloads", staleReloads.get());
+        stats.put("expirations", expirations.get());
+        stats.put("evictions", evictions.get());
+        stats.put("invalidations", invalidations.get());
+        stats.put("averageLoadMs", loads.get() > 0 ? loadNanos.get() / loads.get() / 1_000_000 : 0);
+        stats.put("cached", cached);
+        return stats;
+    }
+
+    /**
+     * Canonical project path so equivalent spellings and symlinks share one entry
+     */
+    public static String canonicalPath(String projectPath) {
+        if (projectPath == null || projectPath.trim().isEmpty()) {
+            throw new IllegalArgumentException("Project path is required");
+        }
+        Path path = Paths.get(projectPath.trim()).toAbsolutePath().normalize();
+        try {
+            return Files.exists(path) ? path.toRealPath().toString() : path.toString();
+        } catch (IOException e) {
+            return path.toString();
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.pro.service;
+
+import com.pro.model.ApiEndpoint;
+import com.pro.model.ComponentInfo;
+import com.pro.model.ProjectAnalysis;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Pages through the component and endpoint collections of a retained analysis with
+ * field projection and sorting, and serves the full record of one component on
+ * demand, so list views only transfer the fields they show.
+ */
+@Service
+public class AnalysisCollectionService {
+
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 1000;
+
+    private static final Map<String, Function<ComponentInfo, Object>> COMPONENT_FIELDS = new LinkedHashMap<>();
+    private static final Map<String, Function<ApiEndpoint, Object>> ENDPOINT_FIELDS = new LinkedHashMap<>();
+    private static final Map<String, Function<ProjectAnalysis, List<ComponentInfo>>> CATEGORIES =
+            new LinkedHashMap<>();
+
+    static {
+        COMPONENT_FIELDS.put("className", ComponentInfo::getClassName);
+        COMPONENT_FIELDS.put("fullyQualifiedName", ComponentInfo::getFullyQualifiedName);
+        COMPONENT_FIELDS.put("packageName", ComponentInfo::getPackageName);
+        COMPONENT_FIELDS.put("componentType", ComponentInfo::getComponentType);
+        COMPONENT_FIELDS.put("filePath", ComponentInfo::getFilePath);
+        COMPONENT_FIELDS.put("annotations", ComponentInfo::getAnnotations);
+        COMPONENT_FIELDS.put("implementedInterfaces", ComponentInfo::getImplementedInterfaces);
+        COMPONENT_FIELDS.put("methods", ComponentInfo::getMethods);
+        COMPONENT_FIELDS.put("dependencies", ComponentInfo::getDependencies);
+        COMPONENT_FIELDS.put("usedBy", ComponentInfo::getUsedBy);
+        COMPONENT_FIELDS.put("methodCount", c -> size(c.getMethods()));
+        COMPONENT_FIELDS.put("dependencyCount", c -> size(c.getDependencies()));
+        COMPONENT_FIELDS.put("usedByCount", c -> size(c.getUsedBy()));
+
+        ENDPOINT_FIELDS.put("httpMethod", ApiEndpoint::getHttpMethod);
+        ENDPOINT_FIELDS.put("path", ApiEndpoint::getPath);
+        ENDPOINT_FIELDS.put("controllerClass", ApiEndpoint::getControllerClass);
+        ENDPOINT_FIELDS.put("methodName", ApiEndpoint::getMethodName);
+        ENDPOINT_FIELDS.put("returnType", ApiEndpoint::getReturnType);
+        ENDPOINT_FIELDS.put("parameters", ApiEndpoint::getParameters);
+        ENDPOINT_FIELDS.put("annotations", ApiEndpoint::getAnnotations);
+        ENDPOINT_FIELDS.put("requestMappingDetails", ApiEndpoint::getRequestMappingDetails);
+
+        CATEGORIES.put("controllers", ProjectAnalysis::getControllers);
+        CATEGORIES.put("services", ProjectAnalysis::getServices);
+        CATEGORIES.put("repositories", ProjectAnalysis::getRepositories);
+        CATEGORIES.put("models", ProjectAnalysis::getModels);
+        CATEGORIES.put("configurations", ProjectAnalysis::getConfigurations);
+        CATEGORIES.put("externalDependencies", ProjectAnalysis::getExternalDependencies);
+    }
+
+    private static final List<String> DEFAULT_COMPONENT_FIELDS = List.of("className", "fullyQualifiedName",
+            "packageName", "componentType", "methodCount", "dependencyCount");
+    private static final List<String> DEFAULT_ENDPOINT_FIELDS = List.of("httpMethod", "path", "controllerClass",
+            "methodName", "returnType");
+
+    private final GraphQueryService graphQueryService;
+
+    public AnalysisCollectionService(GraphQueryService graphQueryService) {
+        this.graphQueryService = graphQueryService;
+    }
+
+    /**
+     * One page of components, of one category or of all of them. Sorted lists are kept
+     * with the analysis, so paging only slices.
+     */
+    public Map<String, Object> components(String projectPath, String category, String fields, String sort,
+            String page, String size) {
+        String categoryName = category == null || category.trim().isEmpty() ? "all" : category.trim();
+        if (!categoryName.equals("all") && !CATEGORIES.containsKey(categoryName)) {
+            throw new IllegalArgumentException("Unknown category: " + categoryName + ", expected all or one of "
+                    + CATEGORIES.keySet());
+        }
+        List<String> projection = fields(fields, COMPONENT_FIELDS, DEFAULT_COMPONENT_FIELDS);
+        String order = sort(sort, COMPONENT_FIELDS, "fullyQualifiedName");
+        CachedAnalysis entry = graphQueryService.load(projectPath);
+
+        List<ComponentInfo> sorted = entry.derived("components:" + categoryName + ":" + order, () -> {
+            List<ComponentInfo> list = new ArrayList<>();
+            for (Map.Entry<String, Function<ProjectAnalysis, List<ComponentInfo>>> c : CATEGORIES.entrySet()) {
+                List<ComponentInfo> members = c.getValue().apply(entry.getAnalysis());
+                if (members != null && (categoryName.equals("all") || categoryName.equals(c.getKey()))) {
+                    list.addAll(members);
+                }
+            }
+            list.sort(comparator(order, COMPONENT_FIELDS)
+                    .thenComparing(ComponentInfo::getFullyQualifiedName, Comparator.nullsFirst(String::compareTo)));
+            return Collections.unmodifiableList(list);
+        });
+
+        Map<String, Object> result = page(sorted, projection, COMPONENT_FIELDS, page, size);
+        result.put("category", categoryName);
+        result.put("sort", order);
+        return result;
+    }
+
+    /**
+     * One page of endpoints
+     */
+    public Map<String, Object> endpoints(String projectPath, String fields, String sort, String page,
+            String size) {
+        List<String> projection = fields(fields, ENDPOINT_FIELDS, DEFAULT_ENDPOINT_FIELDS);
+        String order = sort(sort, ENDPOINT_FIELDS, "path");
+        CachedAnalysis entry = graphQueryService.load(projectPath);
+
+        List<ApiEndpoint> sorted = entry.derived("endpoints:" + order, () -> {
+            List<ApiEndpoint> list = entry.getAnalysis().getApiEndpoints() != null
+                    ? new ArrayList<>(entry.getAnalysis().getApiEndpoints())
+                    : new ArrayList<>();
+            list.sort(comparator(order, ENDPOINT_FIELDS)
+                    .thenComparing(ApiEndpoint::getPath, Comparator.nullsFirst(String::compareTo))
+                    .thenComparing(ApiEndpoint::getHttpMethod, Comparator.nullsFirst(String::compareTo)));
+            return Collections.unmodifiableList(list);
+        });
+
+        Map<String, Object> result = page(sorted, projection, ENDPOINT_FIELDS, page, size);
+        result.put("sort", order);
+        return result;
+    }
+
+    /**
+     * Every field of one component, its category and the endpoints it declares
+     */
+    public Map<String, Object> component(String projectPath, String name) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Component is required");
+        }
+        CachedAnalysis entry = graphQueryService.load(projectPath);
+        ComponentInfo component = graphQueryService.components(entry).get(name.trim());
+        if (component == null) {
+            throw new IllegalArgumentException("Unknown component: " + name);
+        }
+
+        Map<String, Object> result = project(component, new ArrayList<>(COMPONENT_FIELDS.keySet()),
+                COMPONENT_FIELDS);
+        for (Map.Entry<String, Function<ProjectAnalysis, List<ComponentInfo>>> c : CATEGORIES.entrySet()) {
+            List<ComponentInfo> members = c.getValue().apply(entry.getAnalysis());
+            if (members != null && members.contains(component)) {
+                result.put("category", c.getKey());
+                break;
+            }
+        }
+        List<ApiEndpoint> endpoints = new ArrayList<>();
+        if (entry.getAnalysis().getApiEndpoints() != null) {
+            for (ApiEndpoint endpoint : entry.getAnalysis().getApiEndpoints()) {
+                if (component.getFullyQualifiedName().equals(endpoint.getControllerClass())) {
+                    endpoints.add(endpoint);
+                }
+            }
+        }
+        result.put("endpoints", endpoints);
+        return result;
+    }
+
+    private static <T> Map<String, Object> page(List<T> sorted, List<String> projection,
+            Map<String, Function<T, Object>> registry, String page, String size) {
+        int pageSize = EgoGraphService.parseBounded("size", size, DEFAULT_PAGE_SIZE, 1, MAX_PAGE_SIZE);
+        int pageNumber = EgoGraphService.parseBounded("page", page, 0, 0, Integer.MAX_VALUE);
+        int from = (int) Math.min((long) pageNumber * pageSize, sorted.size());
+        int to = Math.min(from + pageSize, sorted.size());
+
+        List<Map<String, Object>> items = new ArrayList<>(to - from);
+        for (T item : sorted.subList(from, to)) {
+            items.add(project(item, projection, registry));
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("total", sorted.size());
+        result.put("page", pageNumber);
+        result.put("size", pageSize);
+        result.put("hasMore", to < sorted.size());
+        result.put("fields", projection);
+        result.put("items", items);
+        return result;
+    }
+
+    private static <T> Map<String, Object> project(T item, List<String> projection,
+            Map<String, Function<T, Object>> registry) {
+        Map<String, Object> projected = new LinkedHashMap<>();
+        for (String field : projection) {
+            projected.put(field, registry.get(field).apply(item));
+        }
+        return projected;
+    }
+
+    private static List<String> fields(String fields, Map<String, ?> registry, List<String> defaults) {
+        if (fields == null || fields.trim().isEmpty()) {
+            return defaults;
+        }
+        List<String> projection = new ArrayList<>();
+        for (String field : fields.split(",")) {
+            field = field.trim();
+            if (field.isEmpty() || projection.contains(field)) {
+                continue;
+            }
+            if (!registry.containsKey(field)) {
+                throw new IllegalArgumentException("Unknown field: " + field + ", expected any of "
+                        + registry.keySet());
+            }
+            projection.add(field);
+        }
+        return projection;
+    }
+
+    // "name" sorts ascending, "-name" descending; only scalar fields can be sorted on
+    private static <T> String sort(String sort, Map<String, Function<T, Object>> registry, String defaultField) {
+        if (sort == null || sort.trim().isEmpty()) {
+            return defaultField;
+        }
+        String field = sort.trim().startsWith("-") ? sort.trim().substring(1) : sort.trim();
+        if (!registry.containsKey(field) || field.equals("requestMappingDetails") || isListField(field)) {
+            throw new IllegalArgumentException("Cannot sort by " + field);
+        }
+        return sort.trim();
+    }
+
+    private static boolean isListField(String field) {
+        return Set.of("annotations", "implementedInterfaces", "methods", "dependencies", "usedBy", "parameters")
+                .contains(field);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static <T> Comparator<T> comparator(String order, Map<String, Function<T, Object>> registry) {
+        boolean descending = order.startsWith("-");
+        Function<T, Object> field = registry.get(descending ? order.substring(1) : order);
+        Comparator<T> comparator = Comparator.comparing(item -> (Comparable) field.apply(item),
+                Comparator.nullsFirst(Comparator.naturalOrder()));
+        return descending ? comparator.reversed() : comparator;
+    }
+
+    private static int size(List<?> list) {
+        return list != null ? list.size() : 0;
+    }
+}
@@ -0,0 +1,250 @@
+package com.pro.service;
+
+import com.pro.graph.EdgeSetDiff;
+import com.pro.model.ApiEndpoint;
+import com.pro.model.ComponentInfo;
+import com.pro.model.ProjectAnalysis;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Compares two analyses of a project. Components, endpoints and dependency edges are
+ * each sorted by identity once and merged in a single pass, so the diff stays linear
+ * after sorting regardless of how many items changed.
+ */
+@Service
+public class AnalysisDiffService {
+
+    public static final int DEFAULT_LIMIT = 1000;
+
+    /**
+     * Returns added/removed/changed components, endpoints and edges, each list capped at
+     * limit entries while the summary counts stay exact
+     */
+    public Map<String, Object> diff(ProjectAnalysis base, ProjectAnalysis head, int limit) {
+        if (base == null || head == null) {
+            throw new IllegalArgumentException("Both base and head analyses are required");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        long start = System.nanoTime();
+
+        Map<String, Object> components = mergeDiff(allComponents(base), allComponents(head),
+                ComponentInfo::getFullyQualifiedName, AnalysisDiffService::componentChanges,
+                AnalysisDiffService::describe, limit);
+        Map<String, Object> endpoints = mergeDiff(endpoints(base), endpoints(head),
+                AnalysisDiffService::endpointKey, AnalysisDiffService::endpointChanges,
+                AnalysisDiffService::describe, limit);
+        Map<String, Object> edges = edgeDiff(base.getDependencyGraph(), head.getDependencyGraph(), limit);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, Object>> section : List.of(Map.entry("components", components),
+                Map.entry("endpoints", endpoints), Map.entry("edges", edges))) {
+            @SuppressWarnings("unchecked")
+            Map<String, Integer> counts = (Map<String, Integer>) section.getValue().get("counts");
+            summary.put(section.getKey(), counts);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("base", base.getProjectName());
+        result.put("head", head.getProjectName());
+        result.put("summary", summary);
+        result.put("components", components);
+        result.put("endpoints", endpoints);
+        result.put("edges", edges);
+        result.put("diffTimeMs", (System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    private static <T> Map<String, Object> mergeDiff(List<T> base, List<T> head, Function<T, String> key,
+            BiFunction<T, T, List<String>> changes, Function<T, Map<String, Object>> describe, int limit) {
+        base = sortedUnique(base, key);
+        head = sortedUnique(head, key);
+
+        List<Map<String, Object>> added = new ArrayList<>();
+        List<Map<String, Object>> removed = new ArrayList<>();
+        List<Map<String, Object>> changed = new ArrayList<>();
+        int addedCount = 0;
+        int removedCount = 0;
+        int changedCount = 0;
+        int i = 0;
+        int j = 0;
+        while (i < base.size() || j < head.size()) {
+            int cmp = i >= base.size() ? 1
+                    : j >= head.size() ? -1 : key.apply(base.get(i)).compareTo(key.apply(head.get(j)));
+            if (cmp < 0) {
+                if (removedCount++ < limit)
+                    removed.add(describe.apply(base.get(i)));
+                i++;
+            } else if (cmp > 0) {
+                if (addedCount++ < limit)
+                    added.add(describe.apply(head.get(j)));
+                j++;
+            } else {
+                List<String> fields = changes.apply(base.get(i), head.get(j));
+                if (!fields.isEmpty()) {
+                    if (changedCount++ < limit) {
+                        Map<String, Object> entry = describe.apply(head.get(j));
+                        entry.put("changedFields", fields);
+                        changed.add(entry);
+                    }
+                }
+                i++;
+                j++;
+            }
+        }
+        return section(added, removed, changed, addedCount, removedCount, changedCount);
+    }
+
+    /**
+     * Sorts by identity and keeps the first item per key, dropping null keys
+     */
+    private static <T> List<T> sortedUnique(List<T> items, Function<T, String> key) {
+        List<T> sorted = new ArrayList<>(items.size());
+        for (T item : items) {
+            if (key.apply(item) != null)
+                sorted.add(item);
+        }
+        sorted.sort(Comparator.comparing(key));
+        List<T> unique = new ArrayList<>(sorted.size());
+        for (T item : sorted) {
+            if (unique.isEmpty() || !key.apply(unique.get(unique.size() - 1)).equals(key.apply(item)))
+                unique.add(item);
+        }
+        return unique;
+    }
+
+    private static Map<String, Object> edgeDiff(Map<String, List<String>> base, Map<String, List<String>> head,
+            int limit) {
+        EdgeSetDiff.Edges baseEdges = edges(base);
+        EdgeSetDiff.Edges headEdges = edges(head);
+        EdgeSetDiff.Result diff = EdgeSetDiff.diff(baseEdges, headEdges);
+
+        List<Map<String, Object>> added = new ArrayList<>();
+        for (int k = 0; k < Math.min(limit, diff.added().length); k++) {
+            added.add(edge(headEdges, diff.added()[k]));
+        }
+        List<Map<String, Object>> removed = new ArrayList<>();
+        for (int k = 0; k < Math.min(limit, diff.removed().length); k++) {
+            removed.add(edge(baseEdges, diff.removed()[k]));
+        }
+        // Plain dependency edges carry no attributes, so they can only be added or removed
+        return section(added, removed, new ArrayList<>(), diff.added().length, diff.removed().length, 0);
+    }
+
+    private static EdgeSetDiff.Edges edges(Map<String, List<String>> graph) {
+        EdgeSetDiff.Edges edges = new EdgeSetDiff.Edges();
+        if (graph != null) {
+            graph.forEach((source, targets) -> {
+                if (targets != null) {
+                    for (String target : targets) {
+                        edges.add(source, target, null, null);
+                    }
+                }
+            });
+        }
+        return edges;
+    }
+
+    private static Map<String, Object> edge(EdgeSetDiff.Edges edges, int i) {
+        Map<String, Object> edge = new LinkedHashMap<>();
+        edge.put("source", edges.source(i));
+        edge.put("target", edges.target(i));
+        return edge;
+    }
+
+    private static Map<String, Object> section(List<Map<String, Object>> added, List<Map<String, Object>> removed,
+            List<Map<String, Object>> changed, int addedCount, int removedCount, int changedCount) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        counts.put("added", addedCount);
+        counts.put("removed", removedCount);
+        counts.put("changed", changedCount);
+
+        Map<String, Object> section = new LinkedHashMap<>();
+        section.put("counts", counts);
+        section.put("added", added);
+        section.put("removed", removed);
+        section.put("changed", changed);
+        section.put("truncated", added.size() < addedCount || removed.size() < removedCount
+                || changed.size() < changedCount);
+        return section;
+    }
+
+    private static List<ComponentInfo> allComponents(ProjectAnalysis analysis) {
+        List<ComponentInfo> components = new ArrayList<>();
+        for (List<ComponentInfo> list : Arrays.asList(analysis.getControllers(), analysis.getServices(),
+                analysis.getRepositories(), analysis.getModels(), analysis.getConfigurations(),
+                analysis.getExternalDependencies())) {
+            if (list != null) {
+                components.addAll(list);
+            }
+        }
+        return components;
+    }
+
+    private static List<ApiEndpoint> endpoints(ProjectAnalysis analysis) {
+        return analysis.getApiEndpoints() != null ? analysis.getApiEndpoints() : new ArrayList<>();
+    }
+
+    private static String endpointKey(ApiEndpoint endpoint) {
+        return endpoint.getHttpMethod() + " " + endpoint.getPath();
+    }
+
+    private static List<String> componentChanges(ComponentInfo base, ComponentInfo head) {
+        List<String> fields = new ArrayList<>();
+        if (!Objects.equals(base.getComponentType(), head.getComponentType()))
+            fields.add("componentType");
+        if (!sameElements(base.getDependencies(), head.getDependencies()))
+            fields.add("dependencies");
+        if (!sameElements(base.getMethods(), head.getMethods()))
+            fields.add("methods");
+        if (!sameElements(base.getAnnotations(), head.getAnnotations()))
+            fields.add("annotations");
+        if (!sameElements(base.getImplementedInterfaces(), head.getImplementedInterfaces()))
+            fields.add("implementedInterfaces");
+        return fields;
+    }
+
+    private static List<String> endpointChanges(ApiEndpoint base, ApiEndpoint head) {
+        List<String> fields = new ArrayList<>();
+        if (!Objects.equals(base.getControllerClass(), head.getControllerClass()))
+            fields.add("controllerClass");
+        if (!Objects.equals(base.getMethodName(), head.getMethodName()))
+            fields.add("methodName");
+        if (!Objects.equals(base.getReturnType(), head.getReturnType()))
+            fields.add("returnType");
+        if (!Objects.equals(base.getParameters(), head.getParameters()))
+            fields.add("parameters");
+        return fields;
+    }
+
+    /**
+     * Order-insensitive list comparison; null counts as empty
+     */
+    private static boolean sameElements(List<String> a, List<String> b) {
+        Set<String> left = a != null ? new HashSet<>(a) : Set.of();
+        Set<String> right = b != null ? new HashSet<>(b) : Set.of();
+        return left.equals(right);
+    }
+
+    private static Map<String, Object> describe(ComponentInfo component) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("id", component.getFullyQualifiedName());
+        entry.put("className", component.getClassName());
+        entry.put("type", component.getComponentType());
+        return entry;
+    }
+
+    private static Map<String, Object> describe(ApiEndpoint endpoint) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("httpMethod", endpoint.getHttpMethod());
+        entry.put("path", endpoint.getPath());
+        entry.put("controllerClass", endpoint.getControllerClass());
+        entry.put("methodName", endpoint.getMethodName());
+        return entry;
+    }
+}
@@ -0,0 +1,101 @@
+package com.pro.service;
+
+import com.pro.job.AnalysisRejectedException;
+import com.pro.job.EventStream;
+import com.pro.job.JobCancelledException;
+import com.pro.model.ApiEndpoint;
+import com.pro.model.ComponentInfo;
+import com.pro.model.ProjectAnalysis;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Streams an analysis as it is built: components, endpoints and edges while files
+ * are parsed, then the enhanced dependency graph and a summary. A cached analysis
+ * is replayed in the same event order.
+ */
+@Service
+public class AnalysisStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisStreamService.class);
+
+    private final GraphQueryService graphQueryService;
+
+    public AnalysisStreamService(GraphQueryService graphQueryService) {
+        this.graphQueryService = graphQueryService;
+    }
+
+    public void stream(String projectPath, boolean bypassCache, EventStream events) {
+        long start = System.nanoTime();
+        try {
+            CachedAnalysis entry = graphQueryService.load(projectPath, bypassCache, events);
+            ProjectAnalysis analysis = entry.getAnalysis();
+            boolean cached = events.getFound() == 0;
+            if (cached) {
+                replay(analysis, events);
+            }
+
+            Map<String, Object> graph = new LinkedHashMap<>();
+            graph.put("dependencyGraph", analysis.getDependencyGraph());
+            graph.put("packageStructure", analysis.getPackageStructure());
+            events.event("graph", graph);
+
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("projectName", analysis.getProjectName());
+            summary.put("projectPath", analysis.getProjectPath());
+            summary.put("mainClass", analysis.getMainClass());
+            summary.put("version", entry.getVersion());
+            summary.put("cached", cached);
+            summary.put("totalEndpoints", analysis.getTotalEndpoints());
+            summary.put("totalComponents", analysis.getTotalComponents());
+            summary.put("modules", analysis.getModules());
+            summary.put("elapsedMs", (System.nanoTime() - start) / 1_000_000);
+            events.event("summary", summary);
+        } catch (JobCancelledException e) {
+            logger.info("Client left, stopped streaming analysis of {}", projectPath);
+        } catch (AnalysisRejectedException e) {
+            events.event("error", Map.of("message", e.getMessage(), "retryAfterSeconds", e.getRetryAfterSeconds()));
+        } catch (RuntimeException e) {
+            logger.error("Streaming analysis of {} failed: {}", projectPath, e.getMessage(), e);
+            events.event("error", Map.of("message", String.valueOf(e.getMessage())));
+        }
+        events.flush();
+    }
+
+    private static void replay(ProjectAnalysis analysis, EventStream events) {
+        Map<String, List<ComponentInfo>> categories = new LinkedHashMap<>();
+        categories.put("controllers", analysis.getControllers());
+        categories.put("services", analysis.getServices());
+        categories.put("repositories", analysis.getRepositories());
+        categories.put("models", analysis.getModels());
+        categories.put("configurations", analysis.getConfigurations());
+        categories.put("externalDependencies", analysis.getExternalDependencies());
+        Map<String, List<String>> graph = analysis.getDependencyGraph() != null ? analysis.getDependencyGraph()
+                : Collections.emptyMap();
+        for (Map.Entry<String, List<ComponentInfo>> category : categories.entrySet()) {
+            if (category.getValue() == null)
+                continue;
+            for (ComponentInfo component : category.getValue()) {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("category", category.getKey());
+                item.put("component", component);
+                events.found("component", item);
+                List<String> targets = graph.get(component.getFullyQualifiedName());
+                if (targets != null && !targets.isEmpty()) {
+                    Map<String, Object> edges = new LinkedHashMap<>();
+                    edges.put("source", component.getFullyQualifiedName());
+                    edges.put("targets", targets);
+                    events.found("edges", edges);
+                }
+            }
+        }
+        if (analysis.getApiEndpoints() != null) {
+            for (ApiEndpoint endpoint : analysis.getApiEndpoints()) {
+                events.found("endpoint", endpoint);
+            }
+        }
+    }
+}
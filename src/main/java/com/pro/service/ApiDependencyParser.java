@@ -4,6 +4,8 @@ import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.expr.AnnotationExpr;
 import com.github.javaparser.ast.expr.Expression;
 import com.github.javaparser.ast.expr.MethodCallExpr;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
@@ -13,6 +15,8 @@ import java.util.Optional;
 @Service
 public class ApiDependencyParser {
 
+    private static final Logger logger = LoggerFactory.getLogger(ApiDependencyParser.class);
+
     public static class Dependency {
         public String source;
         public String target;
@@ -41,7 +45,7 @@ public class ApiDependencyParser {
             detectWebClientCalls(cu, sourceService, deps);
 
         } catch (Exception e) {
-            System.err.println("Error parsing dependencies for " + sourceService + ": " + e.getMessage());
+            logger.warn("Error parsing dependencies for {}: {}", sourceService, e.getMessage());
         }
 
         return deps;
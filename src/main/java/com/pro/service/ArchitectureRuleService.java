@@ -0,0 +1,95 @@
+package com.pro.service;
+
+import com.pro.graph.CompactGraph;
+import com.pro.model.ComponentInfo;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Checks retained analyses against architecture rules. Compiled rule sets are cached
+ * by their text so repeated checks with the same rules skip parsing.
+ */
+@Service
+public class ArchitectureRuleService {
+
+    static final int SAMPLES_PER_RULE = 100;
+    private static final int MAX_COMPILED_RULE_SETS = 64;
+
+    private final GraphQueryService graphQueryService;
+    private final Map<String, ArchitectureRules> compiled = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ArchitectureRules> eldest) {
+                    return size() > MAX_COMPILED_RULE_SETS;
+                }
+            });
+
+    public ArchitectureRuleService(GraphQueryService graphQueryService) {
+        this.graphQueryService = graphQueryService;
+    }
+
+    public Map<String, Object> check(String projectPath, String ruleText) {
+        long compileStart = System.nanoTime();
+        ArchitectureRules rules = compile(ruleText);
+        long compileNanos = System.nanoTime() - compileStart;
+
+        CachedAnalysis entry = graphQueryService.load(projectPath);
+        CompactGraph graph = graphQueryService.graph(entry);
+        Map<String, ComponentInfo> components = graphQueryService.components(entry);
+        ArchitectureRules.Result result = rules.evaluate(graph,
+                v -> {
+                    ComponentInfo component = components.get(graph.name(v));
+                    return component != null ? component.getComponentType() : "Unknown";
+                },
+                v -> graphQueryService.packageOf(entry, graph.name(v)),
+                SAMPLES_PER_RULE);
+
+        List<Map<String, Object>> violations = new ArrayList<>();
+        int total = 0;
+        for (int i = 0; i < rules.getRules().size(); i++) {
+            ArchitectureRules.Rule rule = rules.getRules().get(i);
+            total += result.count(i);
+            if (result.count(i) == 0) {
+                continue;
+            }
+            List<Map<String, String>> edges = new ArrayList<>();
+            for (int e : result.sampleEdges(i)) {
+                Map<String, String> edge = new LinkedHashMap<>();
+                edge.put("source", graph.name(graph.edgeSource(e)));
+                edge.put("target", graph.name(graph.edgeTarget(e)));
+                edges.add(edge);
+            }
+            Map<String, Object> violation = new LinkedHashMap<>();
+            violation.put("rule", rule.getText());
+            violation.put("line", rule.getLine());
+            violation.put("count", result.count(i));
+            violation.put("edges", edges);
+            violation.put("truncated", edges.size() < result.count(i));
+            violations.add(violation);
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("projectName", entry.getAnalysis().getProjectName());
+        response.put("rulesEvaluated", rules.getRules().size());
+        response.put("edgesScanned", graph.edgeCount());
+        response.put("passed", total == 0);
+        response.put("violationCount", total);
+        response.put("violations", violations);
+        response.put("compileTimeMs", compileNanos / 1_000_000.0);
+        response.put("evaluateTimeMs", result.getEvaluateNanos() / 1_000_000.0);
+        return response;
+    }
+
+    ArchitectureRules compile(String ruleText) {
+        if (ruleText == null || ruleText.trim().isEmpty()) {
+            throw new IllegalArgumentException("Rules are required");
+        }
+        ArchitectureRules rules = compiled.get(ruleText);
+        if (rules == null) {
+            rules = ArchitectureRules.compile(ruleText);
+            compiled.put(ruleText, rules);
+        }
+        return rules;
+    }
+}
@@ -0,0 +1,291 @@
+package com.pro.service;
+
+import com.pro.graph.CompactGraph;
+
+import java.util.*;
+import java.util.function.IntFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compiled set of architecture rules. One rule per line:
+ *
+ * <pre>
+ * Controllers must not depend on Repositories
+ * package ..billing.. must not depend on package ..user..
+ * Service in package com.acme.. may only depend on Repository, package java..
+ * </pre>
+ *
+ * A selector is a component type, a package pattern, or a type restricted to a
+ * package. Package patterns use {@code ..x..} (contains segments), {@code x..}
+ * (x or below), {@code ..x} (ends with) or an exact name; {@code *} matches anything.
+ *
+ * Evaluation maps every node to an equivalence class of (type, package), computes
+ * per class a bitmask of rules it is a source for and a bitmask of rules it violates
+ * as a target, then checks each edge with a handful of word ANDs.
+ */
+public class ArchitectureRules {
+
+    private static final Pattern RULE = Pattern.compile(
+            "(?i)^(.+?)\\s+(must\\s+not|may\\s+only)\\s+depend\\s+on\\s+(.+)$");
+    private static final Pattern SELECTOR = Pattern.compile(
+            "(?i)^(?:(\\*|[A-Za-z]+)\\s*)?(?:(?:in\\s+)?package\\s+(\\S+))?$");
+
+    /**
+     * Parsed rule; allowed selectors for "may only", forbidden ones for "must not"
+     */
+    public static class Rule {
+        private final String text;
+        private final int line;
+        private final boolean only;
+        private final int source;
+        private final int[] targets;
+
+        Rule(String text, int line, boolean only, int source, int[] targets) {
+            this.text = text;
+            this.line = line;
+            this.only = only;
+            this.source = source;
+            this.targets = targets;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public int getLine() {
+            return line;
+        }
+    }
+
+    /**
+     * Violation counts per rule plus up to a fixed number of offending edge ids each
+     */
+    public static class Result {
+        private final int[] counts;
+        private final int[][] sampleEdges;
+        private final long evaluateNanos;
+
+        Result(int[] counts, int[][] sampleEdges, long evaluateNanos) {
+            this.counts = counts;
+            this.sampleEdges = sampleEdges;
+            this.evaluateNanos = evaluateNanos;
+        }
+
+        public int count(int rule) {
+            return counts[rule];
+        }
+
+        public int[] sampleEdges(int rule) {
+            return sampleEdges[rule];
+        }
+
+        public long getEvaluateNanos() {
+            return evaluateNanos;
+        }
+    }
+
+    private final List<Rule> rules = new ArrayList<>();
+    private final List<Selector> selectors = new ArrayList<>();
+    private final Map<String, Integer> selectorIds = new HashMap<>();
+    private final int words;
+
+    private ArchitectureRules(String source) {
+        String[] lines = source.split("\\r?\\n");
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].trim();
+            if (line.isEmpty() || line.startsWith("#") || line.startsWith("//")) {
+                continue;
+            }
+            Matcher matcher = RULE.matcher(line);
+            if (!matcher.matches()) {
+                throw new IllegalArgumentException("Line " + (i + 1)
+                        + ": expected '<selector> must not depend on <selector>' or "
+                        + "'<selector> may only depend on <selector>, ...' but got: " + line);
+            }
+            int sourceSelector = selector(matcher.group(1), i + 1);
+            boolean only = matcher.group(2).toLowerCase().startsWith("may");
+            String[] targetTexts = matcher.group(3).split("\\s*,\\s*|\\s+or\\s+");
+            int[] targets = new int[targetTexts.length];
+            for (int t = 0; t < targetTexts.length; t++) {
+                targets[t] = selector(targetTexts[t], i + 1);
+            }
+            rules.add(new Rule(line, i + 1, only, sourceSelector, targets));
+        }
+        this.words = Math.max(1, (rules.size() + 63) / 64);
+    }
+
+    /**
+     * Parses and compiles rule text; throws IllegalArgumentException on syntax errors
+     */
+    public static ArchitectureRules compile(String source) {
+        if (source == null || source.trim().isEmpty()) {
+            throw new IllegalArgumentException("Rules are required");
+        }
+        return new ArchitectureRules(source);
+    }
+
+    public List<Rule> getRules() {
+        return Collections.unmodifiableList(rules);
+    }
+
+    private int selector(String text, int line) {
+        String trimmed = text.trim();
+        Matcher matcher = SELECTOR.matcher(trimmed);
+        if (trimmed.isEmpty() || !matcher.matches()) {
+            throw new IllegalArgumentException("Line " + line + ": invalid selector: " + trimmed);
+        }
+        String type = matcher.group(1) != null ? normalizeType(matcher.group(1)) : null;
+        String pattern = matcher.group(2);
+        String key = type + "|" + pattern;
+        Integer id = selectorIds.get(key);
+        if (id == null) {
+            id = selectors.size();
+            selectors.add(new Selector(type, pattern));
+            selectorIds.put(key, id);
+        }
+        return id;
+    }
+
+    /**
+     * Singular, lower-case component type: "Repositories" becomes "repository"
+     */
+    static String normalizeType(String type) {
+        String lower = type.toLowerCase();
+        if (lower.equals("*")) {
+            return null;
+        }
+        if (lower.endsWith("ies")) {
+            return lower.substring(0, lower.length() - 3) + "y";
+        }
+        if (lower.endsWith("s")) {
+            return lower.substring(0, lower.length() - 1);
+        }
+        return lower;
+    }
+
+    /**
+     * Checks every edge of the graph against all rules in a single pass
+     */
+    public Result evaluate(CompactGraph graph, IntFunction<String> typeOf, IntFunction<String> packageOf,
+            int samplesPerRule) {
+        long start = System.nanoTime();
+        int n = graph.nodeCount();
+        int r = rules.size();
+
+        // Nodes sharing type and package behave identically, so masks are built per class
+        Map<String, Integer> classIds = new HashMap<>();
+        List<String[]> classes = new ArrayList<>();
+        int[] classOf = new int[n];
+        for (int v = 0; v < n; v++) {
+            String type = typeOf.apply(v);
+            String pkg = packageOf.apply(v);
+            String key = type + "|" + pkg;
+            Integer id = classIds.get(key);
+            if (id == null) {
+                id = classes.size();
+                classes.add(new String[] { type != null ? type.toLowerCase() : "", pkg != null ? pkg : "" });
+                classIds.put(key, id);
+            }
+            classOf[v] = id;
+        }
+
+        int c = classes.size();
+        long[] sourceMask = new long[c * words];
+        long[] violationMask = new long[c * words];
+        boolean[] anySource = new boolean[c];
+        boolean[] matches = new boolean[selectors.size()];
+        for (int k = 0; k < c; k++) {
+            String[] cls = classes.get(k);
+            for (int s = 0; s < selectors.size(); s++) {
+                matches[s] = selectors.get(s).matches(cls[0], cls[1]);
+            }
+            for (int i = 0; i < r; i++) {
+                Rule rule = rules.get(i);
+                if (matches[rule.source]) {
+                    sourceMask[k * words + (i >>> 6)] |= 1L << i;
+                    anySource[k] = true;
+                }
+                boolean targetMatched = false;
+                for (int target : rule.targets) {
+                    targetMatched |= matches[target];
+                }
+                if (rule.only != targetMatched) {
+                    violationMask[k * words + (i >>> 6)] |= 1L << i;
+                }
+            }
+        }
+
+        int[] counts = new int[r];
+        int[][] samples = new int[r][samplesPerRule];
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            int u = graph.edgeSource(e);
+            int cu = classOf[u];
+            if (!anySource[cu]) {
+                continue;
+            }
+            int v = graph.edgeTarget(e);
+            if (u == v) {
+                continue;
+            }
+            int cv = classOf[v];
+            for (int w = 0; w < words; w++) {
+                long hit = sourceMask[cu * words + w] & violationMask[cv * words + w];
+                while (hit != 0) {
+                    int i = (w << 6) + Long.numberOfTrailingZeros(hit);
+                    hit &= hit - 1;
+                    if (counts[i] < samplesPerRule) {
+                        samples[i][counts[i]] = e;
+                    }
+                    counts[i]++;
+                }
+            }
+        }
+        for (int i = 0; i < r; i++) {
+            samples[i] = Arrays.copyOf(samples[i], Math.min(counts[i], samplesPerRule));
+        }
+        return new Result(counts, samples, System.nanoTime() - start);
+    }
+
+    /**
+     * Component type and/or package pattern; null parts match anything
+     */
+    private static final class Selector {
+        private final String type;
+        private final String pattern;
+
+        Selector(String type, String pattern) {
+            this.type = type;
+            this.pattern = pattern;
+        }
+
+        boolean matches(String componentType, String pkg) {
+            if (type != null && !type.equals(componentType)) {
+                return false;
+            }
+            return pattern == null || packageMatches(pattern, pkg);
+        }
+
+        private static boolean packageMatches(String pattern, String pkg) {
+            if (pattern.equals("*")) {
+                return true;
+            }
+            boolean leading = pattern.startsWith("..");
+            boolean trailing = pattern.endsWith("..") && pattern.length() > 2;
+            String core = pattern.substring(leading ? 2 : 0, pattern.length() - (trailing ? 2 : 0));
+            if (core.isEmpty()) {
+                return true;
+            }
+            if (leading && trailing) {
+                return ("." + pkg + ".").contains("." + core + ".");
+            }
+            if (leading) {
+                return pkg.equals(core) || pkg.endsWith("." + core);
+            }
+            if (trailing) {
+                return pkg.equals(core) || pkg.startsWith(core + ".");
+            }
+            return pkg.equals(core);
+        }
+    }
+}
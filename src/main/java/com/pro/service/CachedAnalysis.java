@@ -0,0 +1,151 @@
+package com.pro.service;
+
+import com.pro.model.ApiEndpoint;
+import com.pro.model.ComponentInfo;
+import com.pro.model.ProjectAnalysis;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Supplier;
+
+/**
+ * A retained ProjectAnalysis together with the structures derived from it
+ * (graph indexes, metrics, ...), all tied to one analysis version.
+ */
+public class CachedAnalysis {
+
+    private final String key;
+    private final long version;
+    private final ProjectAnalysis analysis;
+    private final String fingerprint;
+    private final long weight;
+    private final long createdAt;
+    private volatile long lastValidatedAt;
+    private final Map<String, FutureTask<Object>> derived = new ConcurrentHashMap<>();
+
+    public CachedAnalysis(String key, long version, ProjectAnalysis analysis, String fingerprint) {
+        this.key = key;
+        this.version = version;
+        this.analysis = analysis;
+        this.fingerprint = fingerprint;
+        this.weight = estimateWeight(analysis);
+        this.createdAt = System.currentTimeMillis();
+        this.lastValidatedAt = createdAt;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public ProjectAnalysis getAnalysis() {
+        return analysis;
+    }
+
+    /**
+     * Fingerprint of the project sources the analysis was built from
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Approximate heap footprint of the analysis in bytes
+     */
+    public long getWeight() {
+        return weight;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getLastValidatedAt() {
+        return lastValidatedAt;
+    }
+
+    void markValidated(long now) {
+        this.lastValidatedAt = now;
+    }
+
+    /**
+     * Returns a derived result, computing it once per analysis version. Factories may
+     * themselves ask for other derived results; they run outside any map lock.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T derived(String name, Supplier<T> factory) {
+        FutureTask<Object> task = derived.get(name);
+        if (task == null) {
+            FutureTask<Object> created = new FutureTask<>(factory::get);
+            task = derived.putIfAbsent(name, created);
+            if (task == null) {
+                task = created;
+                created.run();
+            }
+        }
+        try {
+            return (T) task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while computing " + name, e);
+        } catch (ExecutionException e) {
+            // Let the next caller retry instead of caching the failure
+            derived.remove(name, task);
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Failed to compute " + name, e.getCause());
+        }
+    }
+
+    /**
+     * Rough size estimate: fixed overhead per object plus two bytes per character
+     */
+    static long estimateWeight(ProjectAnalysis analysis) {
+        long bytes = 1024;
+        for (List<ComponentInfo> list : Arrays.asList(analysis.getControllers(), analysis.getServices(),
+                analysis.getRepositories(), analysis.getModels(), analysis.getConfigurations(),
+                analysis.getExternalDependencies())) {
+            if (list == null)
+                continue;
+            for (ComponentInfo component : list) {
+                bytes += 256 + chars(component.getFullyQualifiedName()) + chars(component.getFilePath())
+                        + chars(component.getAnnotations()) + chars(component.getMethods())
+                        + chars(component.getDependencies()) + chars(component.getImplementedInterfaces());
+            }
+        }
+        if (analysis.getApiEndpoints() != null) {
+            for (ApiEndpoint endpoint : analysis.getApiEndpoints()) {
+                bytes += 256 + chars(endpoint.getPath()) + chars(endpoint.getControllerClass())
+                        + chars(endpoint.getParameters());
+            }
+        }
+        if (analysis.getDependencyGraph() != null) {
+            for (Map.Entry<String, List<String>> entry : analysis.getDependencyGraph().entrySet()) {
+                bytes += 64 + chars(entry.getKey()) + chars(entry.getValue());
+            }
+        }
+        return bytes;
+    }
+
+    private static long chars(String value) {
+        return value != null ? 40 + value.length() * 2L : 0;
+    }
+
+    private static long chars(List<String> values) {
+        if (values == null)
+            return 0;
+        long bytes = 16;
+        for (String value : values) {
+            bytes += 8 + chars(value);
+        }
+        return bytes;
+    }
+}
@@ -43,7 +43,7 @@ public class DependencyAnalysisService {
      * Builds an enhanced dependency graph with better relationship mapping
      */
     private Map<String, List<String>> buildEnhancedDependencyGraph(List<ComponentInfo> allComponents) {
-        Map<String, List<String>> dependencyGraph = new HashMap<>();
+        Map<String, List<String>> dependencyGraph = new TreeMap<>();
         Map<String, ComponentInfo> componentMap = createComponentMap(allComponents);
 
         for (ComponentInfo component : allComponents) {
@@ -79,7 +79,8 @@ public class DependencyAnalysisService {
      * Creates a map of component names to ComponentInfo for quick lookup
      */
     private Map<String, ComponentInfo> createComponentMap(List<ComponentInfo> components) {
-        Map<String, ComponentInfo> componentMap = new HashMap<>();
+        // Insertion order keeps partial-match resolution stable between runs
+        Map<String, ComponentInfo> componentMap = new LinkedHashMap<>();
 
         for (ComponentInfo component : components) {
             // Add by fully qualified name
@@ -258,15 +259,15 @@ public class DependencyAnalysisService {
                 .orElse("None");
 
         // Calculate average dependencies
-        double avgDependencies = totalEdges / (double) totalNodes;
+        double avgDependencies = totalNodes > 0 ? totalEdges / (double) totalNodes : 0.0;
 
         metrics.put("totalNodes", totalNodes);
         metrics.put("totalEdges", totalEdges);
         metrics.put("averageDependencies", Math.round(avgDependencies * 100.0) / 100.0);
         metrics.put("mostDependedOnComponent", extractSimpleClassName(mostDependedOn));
         metrics.put("mostDependentComponent", extractSimpleClassName(mostDependent));
-        metrics.put("maxInDegree", Collections.max(inDegree.values()));
-        metrics.put("maxOutDegree", Collections.max(outDegree.values()));
+        metrics.put("maxInDegree", inDegree.isEmpty() ? 0 : Collections.max(inDegree.values()));
+        metrics.put("maxOutDegree", outDegree.isEmpty() ? 0 : Collections.max(outDegree.values()));
 
         return metrics;
     }
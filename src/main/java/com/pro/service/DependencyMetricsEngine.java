@@ -0,0 +1,183 @@
+package com.pro.service;
+
+import com.pro.graph.Centrality;
+import com.pro.graph.CompactGraph;
+import com.pro.model.ProjectAnalysis;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Computes centrality and package coupling metrics for a retained analysis.
+ * Independent metrics run concurrently and results are cached per analysis version.
+ */
+@Service
+public class DependencyMetricsEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(DependencyMetricsEngine.class);
+
+    static final String METRICS = "metrics";
+    static final int EXACT_BETWEENNESS_LIMIT = 2000;
+    static final int BETWEENNESS_SAMPLES = 256;
+    static final int TOP_K = 10;
+
+    private final GraphQueryService graphQueryService;
+
+    public DependencyMetricsEngine(GraphQueryService graphQueryService) {
+        this.graphQueryService = graphQueryService;
+    }
+
+    /**
+     * Returns the advanced metrics of an analysis, computing them once per version
+     */
+    public Map<String, Object> compute(CachedAnalysis entry) {
+        return entry.derived(METRICS, () -> calculate(entry));
+    }
+
+    private Map<String, Object> calculate(CachedAnalysis entry) {
+        CompactGraph graph = graphQueryService.graph(entry);
+        ProjectAnalysis analysis = entry.getAnalysis();
+        int n = graph.nodeCount();
+        Map<String, Double> timings = new LinkedHashMap<>();
+
+        CompletableFuture<double[]> pageRank = CompletableFuture.supplyAsync(
+                timed("pageRank", timings, () -> Centrality.pageRank(graph, 0.85, 100, 1e-9)));
+        boolean exact = n <= EXACT_BETWEENNESS_LIMIT;
+        CompletableFuture<double[]> betweenness = CompletableFuture.supplyAsync(
+                timed("betweenness", timings, () -> Centrality.betweenness(graph,
+                        exact ? n : BETWEENNESS_SAMPLES, entry.getVersion())));
+        CompletableFuture<List<Map<String, Object>>> coupling = CompletableFuture.supplyAsync(
+                timed("packageCoupling", timings, () -> packageCoupling(graph, entry)));
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("analysisVersion", entry.getVersion());
+        metrics.put("betweennessMode", exact ? "exact" : "sampled(" + Math.min(n, BETWEENNESS_SAMPLES) + ")");
+
+        double[] ranks = pageRank.join();
+        double[] between = betweenness.join();
+        List<Map<String, Object>> packages = coupling.join();
+        long rankingStart = System.nanoTime();
+
+        double[] inDegree = new double[n];
+        double[] outDegree = new double[n];
+        for (int v = 0; v < n; v++) {
+            inDegree[v] = graph.inDegree(v);
+            outDegree[v] = graph.outDegree(v);
+        }
+        Map<String, Object> rankings = new LinkedHashMap<>();
+        rankings.put("pageRank", topK(graph, ranks));
+        rankings.put("betweenness", topK(graph, between));
+        rankings.put("inDegree", topK(graph, inDegree));
+        rankings.put("outDegree", topK(graph, outDegree));
+        rankings.put("instability", packages.stream()
+                .sorted(Comparator.comparingDouble((Map<String, Object> p) -> (Double) p.get("instability"))
+                        .reversed()
+                        .thenComparing(p -> (String) p.get("package")))
+                .limit(TOP_K)
+                .toList());
+        synchronized (timings) {
+            timings.put("rankings", elapsedMs(rankingStart));
+        }
+
+        metrics.put("rankings", rankings);
+        metrics.put("packageCoupling", packages);
+        metrics.put("computeTimingsMs", timings);
+        logger.info("Computed dependency metrics for {} (version {}): {}", analysis.getProjectName(),
+                entry.getVersion(), timings);
+        return metrics;
+    }
+
+    private static <T> Supplier<T> timed(String name, Map<String, Double> timings, Supplier<T> work) {
+        return () -> {
+            long start = System.nanoTime();
+            T result = work.get();
+            synchronized (timings) {
+                timings.put(name, elapsedMs(start));
+            }
+            return result;
+        };
+    }
+
+    private static double elapsedMs(long startNanos) {
+        return Math.round((System.nanoTime() - startNanos) / 10_000.0) / 100.0;
+    }
+
+    private static List<Map<String, Object>> topK(CompactGraph graph, double[] scores) {
+        PriorityQueue<Integer> heap = new PriorityQueue<>(
+                Comparator.<Integer>comparingDouble(v -> scores[v]).thenComparing(v -> graph.name(v),
+                        Comparator.reverseOrder()));
+        for (int v = 0; v < scores.length; v++) {
+            heap.add(v);
+            if (heap.size() > TOP_K) {
+                heap.poll();
+            }
+        }
+        List<Map<String, Object>> top = new ArrayList<>();
+        while (!heap.isEmpty()) {
+            int v = heap.poll();
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("component", graph.name(v));
+            row.put("score", Math.round(scores[v] * 1_000_000.0) / 1_000_000.0);
+            top.add(row);
+        }
+        Collections.reverse(top);
+        return top;
+    }
+
+    /**
+     * Robert Martin's package metrics: Ca counts outside classes depending on the
+     * package, Ce counts inside classes depending on other packages, I = Ce / (Ca + Ce)
+     */
+    private List<Map<String, Object>> packageCoupling(CompactGraph graph, CachedAnalysis entry) {
+        int n = graph.nodeCount();
+        Map<String, Integer> packageIds = new HashMap<>();
+        List<String> packageNames = new ArrayList<>();
+        int[] packageOf = new int[n];
+        for (int v = 0; v < n; v++) {
+            String pkg = graphQueryService.packageOf(entry, graph.name(v));
+            packageOf[v] = packageIds.computeIfAbsent(pkg, p -> {
+                packageNames.add(p);
+                return packageNames.size() - 1;
+            });
+        }
+
+        int packages = packageNames.size();
+        List<Set<Integer>> afferent = new ArrayList<>(packages);
+        List<Set<Integer>> efferent = new ArrayList<>(packages);
+        int[] classes = new int[packages];
+        for (int p = 0; p < packages; p++) {
+            afferent.add(new HashSet<>());
+            efferent.add(new HashSet<>());
+        }
+        for (int v = 0; v < n; v++) {
+            classes[packageOf[v]]++;
+        }
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            int s = graph.edgeSource(e);
+            int t = graph.edgeTarget(e);
+            if (packageOf[s] != packageOf[t]) {
+                afferent.get(packageOf[t]).add(s);
+                efferent.get(packageOf[s]).add(s);
+            }
+        }
+
+        List<Map<String, Object>> result = new ArrayList<>(packages);
+        for (int p = 0; p < packages; p++) {
+            int ca = afferent.get(p).size();
+            int ce = efferent.get(p).size();
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("package", packageNames.get(p));
+            row.put("classes", classes[p]);
+            row.put("afferentCoupling", ca);
+            row.put("efferentCoupling", ce);
+            row.put("instability", ca + ce == 0 ? 0.0 : Math.round(ce * 1000.0 / (ca + ce)) / 1000.0);
+            result.add(row);
+        }
+        result.sort(Comparator.comparing(row -> (String) row.get("package")));
+        return result;
+    }
+}
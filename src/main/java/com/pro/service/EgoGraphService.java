@@ -0,0 +1,131 @@
+package com.pro.service;
+
+import com.pro.graph.CompactGraph;
+import com.pro.graph.EgoGraph;
+import com.pro.model.ComponentInfo;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Pages through the k-hop neighborhood of a component in a retained analysis
+ */
+@Service
+public class EgoGraphService {
+
+    public static final int DEFAULT_HOPS = 1;
+    public static final int MAX_HOPS = 10;
+    public static final int DEFAULT_BUDGET = 200;
+    public static final int MAX_BUDGET = 5000;
+
+    private final GraphQueryService graphQueryService;
+
+    public EgoGraphService(GraphQueryService graphQueryService) {
+        this.graphQueryService = graphQueryService;
+    }
+
+    /**
+     * Returns the first page for a component, or the page a continuation token points to
+     */
+    public Map<String, Object> egoGraph(String projectPath, String component, String hops, String direction,
+            String budget, String token) {
+        CachedAnalysis entry = graphQueryService.load(projectPath);
+        CompactGraph graph = graphQueryService.graph(entry);
+        String version = Long.toString(entry.getVersion());
+
+        EgoGraph.Cursor cursor = cursor(version, token, () -> new EgoGraph.Cursor(version,
+                graph.name(graphQueryService.resolveNode(graph, component)),
+                parseBounded("hops", hops, DEFAULT_HOPS, 0, MAX_HOPS), EgoGraph.Direction.parse(direction),
+                parseBounded("budget", budget, DEFAULT_BUDGET, 1, MAX_BUDGET), 0));
+        int center = graph.id(cursor.getCenter());
+        if (center < 0) {
+            throw new IllegalArgumentException("Unknown component: " + cursor.getCenter());
+        }
+
+        long start = System.nanoTime();
+        EgoGraph.Page page = EgoGraph.page(graph, center, cursor.getHops(), cursor.getDirection(),
+                cursor.getOffset(), cursor.getBudget());
+        long elapsed = System.nanoTime() - start;
+
+        Map<String, ComponentInfo> components = graphQueryService.components(entry);
+        List<Map<String, Object>> nodes = new ArrayList<>(page.getNodes().length);
+        for (int i = 0; i < page.getNodes().length; i++) {
+            int v = page.getNodes()[i];
+            ComponentInfo info = components.get(graph.name(v));
+            Map<String, Object> node = new LinkedHashMap<>();
+            node.put("id", graph.name(v));
+            node.put("label", info != null ? info.getClassName() : graph.name(v));
+            node.put("type", info != null ? info.getComponentType() : "Unknown");
+            node.put("hop", page.getHops()[i]);
+            node.put("outDegree", graph.outDegree(v));
+            node.put("inDegree", graph.inDegree(v));
+            nodes.add(node);
+        }
+        List<Map<String, Object>> edges = new ArrayList<>(page.getEdges().length);
+        for (int e : page.getEdges()) {
+            Map<String, Object> edge = new LinkedHashMap<>();
+            edge.put("source", graph.name(graph.edgeSource(e)));
+            edge.put("target", graph.name(graph.edgeTarget(e)));
+            edges.add(edge);
+        }
+        return response(cursor, page, nodes, edges, elapsed);
+    }
+
+    /**
+     * Decodes a continuation token and checks it still refers to the same graph
+     */
+    public static EgoGraph.Cursor cursor(String version, String token,
+            Supplier<EgoGraph.Cursor> first) {
+        if (token == null || token.trim().isEmpty()) {
+            return first.get();
+        }
+        EgoGraph.Cursor cursor = EgoGraph.Cursor.decode(token);
+        if (!cursor.getVersion().equals(version)) {
+            throw new IllegalArgumentException("Continuation token refers to an older graph; start again");
+        }
+        if (cursor.getOffset() < 0 || cursor.getBudget() < 1 || cursor.getBudget() > MAX_BUDGET
+                || cursor.getHops() < 0 || cursor.getHops() > MAX_HOPS) {
+            throw new IllegalArgumentException("Malformed continuation token");
+        }
+        return cursor;
+    }
+
+    /**
+     * Common response envelope for analysis and scan ego graphs
+     */
+    public static Map<String, Object> response(EgoGraph.Cursor cursor, EgoGraph.Page page,
+            List<Map<String, Object>> nodes, List<Map<String, Object>> edges, long elapsedNanos) {
+        Map<String, Object> paging = new LinkedHashMap<>();
+        paging.put("offset", page.getOffset());
+        paging.put("returned", nodes.size());
+        paging.put("hasMore", page.hasMore());
+        paging.put("nextToken", page.hasMore() ? cursor.next(page.getNextOffset()).encode() : null);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("center", cursor.getCenter());
+        result.put("hops", cursor.getHops());
+        result.put("direction", cursor.getDirection().name().toLowerCase());
+        result.put("budget", cursor.getBudget());
+        result.put("nodes", nodes);
+        result.put("edges", edges);
+        result.put("page", paging);
+        result.put("queryTimeMicros", elapsedNanos / 1000.0);
+        return result;
+    }
+
+    public static int parseBounded(String name, String value, int defaultValue, int min, int max) {
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            if (parsed < min || parsed > max) {
+                throw new IllegalArgumentException(name + " must be between " + min + " and " + max);
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number");
+        }
+    }
+}
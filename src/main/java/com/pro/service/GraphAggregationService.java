@@ -0,0 +1,252 @@
+package com.pro.service;
+
+import com.pro.graph.AggregatedGraph;
+import com.pro.graph.CompactGraph;
+import com.pro.model.ComponentInfo;
+import com.pro.model.ModuleInfo;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Builds condensed views of the dependency graph at class, package and Maven module
+ * level, and expands a single aggregate into its children on demand
+ */
+@Service
+public class GraphAggregationService {
+
+    public enum Level {
+        CLASS, PACKAGE, MODULE;
+
+        public Level finer() {
+            return this == MODULE ? PACKAGE : CLASS;
+        }
+
+        public static Level parse(String value) {
+            if (value == null || value.trim().isEmpty()) {
+                return PACKAGE;
+            }
+            try {
+                return Level.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown level: " + value + " (expected class, package or module)");
+            }
+        }
+    }
+
+    static final String UNASSIGNED_MODULE = "(unassigned)";
+    static final String EXTERNAL_MODULE = "external";
+
+    private final GraphQueryService graphQueryService;
+
+    public GraphAggregationService(GraphQueryService graphQueryService) {
+        this.graphQueryService = graphQueryService;
+    }
+
+    /**
+     * Returns the whole graph condensed to the requested level
+     */
+    public Map<String, Object> aggregate(String projectPath, String levelName) {
+        Level level = Level.parse(levelName);
+        CachedAnalysis entry = graphQueryService.load(projectPath);
+        AggregatedGraph aggregated = aggregated(entry, level);
+
+        List<Map<String, Object>> nodes = new ArrayList<>(aggregated.groupCount());
+        for (int g = 0; g < aggregated.groupCount(); g++) {
+            nodes.add(node(entry, level, aggregated.groupName(g), aggregated.memberCount(g),
+                    aggregated.internalEdges(g)));
+        }
+        nodes.sort(Comparator.comparing(node -> (String) node.get("id")));
+
+        List<Map<String, Object>> edges = new ArrayList<>();
+        for (int[] edge : aggregated.edges()) {
+            edges.add(edge(aggregated.groupName(edge[0]), aggregated.groupName(edge[1]), edge[2]));
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("level", level.name().toLowerCase());
+        result.put("nodeCount", nodes.size());
+        result.put("edgeCount", edges.size());
+        result.put("nodes", nodes);
+        result.put("edges", edges);
+        return result;
+    }
+
+    /**
+     * Expands one aggregate node into its children at the next finer level. Edges
+     * between children are returned as-is; edges leaving the aggregate are attached to
+     * the other aggregates of the original level so the client can splice them in.
+     */
+    public Map<String, Object> expand(String projectPath, String levelName, String nodeId) {
+        Level level = Level.parse(levelName);
+        if (level == Level.CLASS) {
+            throw new IllegalArgumentException("Class nodes cannot be expanded further");
+        }
+        if (nodeId == null || nodeId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Node is required");
+        }
+        CachedAnalysis entry = graphQueryService.load(projectPath);
+        AggregatedGraph parents = aggregated(entry, level);
+        AggregatedGraph children = aggregated(entry, level.finer());
+        CompactGraph graph = parents.getGraph();
+
+        int parent = parents.groupId(nodeId.trim());
+        if (parent < 0) {
+            throw new IllegalArgumentException("Unknown " + level.name().toLowerCase() + " node: " + nodeId);
+        }
+
+        Map<Integer, Integer> childMembers = new TreeMap<>();
+        Map<Integer, Integer> childInternal = new HashMap<>();
+        Map<List<Integer>, Integer> innerEdges = new HashMap<>();
+        Map<List<Object>, Integer> outerEdges = new HashMap<>();
+        for (int i = 0; i < parents.memberCount(parent); i++) {
+            int v = parents.member(parent, i);
+            int child = children.groupOf(v);
+            childMembers.merge(child, 1, Integer::sum);
+
+            for (int j = 0; j < graph.outDegree(v); j++) {
+                int w = graph.outTarget(v, j);
+                if (parents.groupOf(w) == parent) {
+                    int other = children.groupOf(w);
+                    if (other == child) {
+                        childInternal.merge(child, 1, Integer::sum);
+                    } else {
+                        innerEdges.merge(List.of(child, other), 1, Integer::sum);
+                    }
+                } else {
+                    outerEdges.merge(List.of(children.groupName(child), parents.groupName(parents.groupOf(w)),
+                            true), 1, Integer::sum);
+                }
+            }
+            for (int j = 0; j < graph.inDegree(v); j++) {
+                int w = graph.inSource(v, j);
+                if (parents.groupOf(w) != parent) {
+                    outerEdges.merge(List.of(parents.groupName(parents.groupOf(w)), children.groupName(child),
+                            false), 1, Integer::sum);
+                }
+            }
+        }
+
+        Level childLevel = level.finer();
+        List<Map<String, Object>> nodes = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> child : childMembers.entrySet()) {
+            Map<String, Object> node = node(entry, childLevel, children.groupName(child.getKey()), child.getValue(),
+                    childInternal.getOrDefault(child.getKey(), 0));
+            node.put("parent", parents.groupName(parent));
+            nodes.add(node);
+        }
+        nodes.sort(Comparator.comparing(node -> (String) node.get("id")));
+
+        List<Map<String, Object>> edges = new ArrayList<>();
+        innerEdges.forEach((pair, weight) -> edges.add(
+                edge(children.groupName(pair.get(0)), children.groupName(pair.get(1)), weight)));
+        List<Map<String, Object>> externalEdges = new ArrayList<>();
+        outerEdges.forEach((key, weight) -> externalEdges.add(edge((String) key.get(0), (String) key.get(1), weight)));
+        Comparator<Map<String, Object>> byEnds = Comparator.comparing((Map<String, Object> e) -> (String) e.get("source"))
+                .thenComparing(e -> (String) e.get("target"));
+        edges.sort(byEnds);
+        externalEdges.sort(byEnds);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("parent", parents.groupName(parent));
+        result.put("parentLevel", level.name().toLowerCase());
+        result.put("level", childLevel.name().toLowerCase());
+        result.put("nodes", nodes);
+        result.put("edges", edges);
+        result.put("externalEdges", externalEdges);
+        return result;
+    }
+
+    private AggregatedGraph aggregated(CachedAnalysis entry, Level level) {
+        return entry.derived("aggregate:" + level, () -> {
+            CompactGraph graph = graphQueryService.graph(entry);
+            return switch (level) {
+                case CLASS -> new AggregatedGraph(graph, graph::name);
+                case PACKAGE -> new AggregatedGraph(graph, v -> graphQueryService.packageOf(entry, graph.name(v)));
+                case MODULE -> {
+                    ModuleResolver resolver = new ModuleResolver(entry.getAnalysis().getModules());
+                    Map<String, ComponentInfo> components = graphQueryService.components(entry);
+                    yield new AggregatedGraph(graph, v -> resolver.moduleOf(components.get(graph.name(v))));
+                }
+            };
+        });
+    }
+
+    /**
+     * Module artifactId of a component, resolved from the module owning its source file
+     */
+    public String moduleOf(CachedAnalysis entry, String component) {
+        ModuleResolver resolver = entry.derived(GraphQueryService.MODULE_RESOLVER,
+                () -> new ModuleResolver(entry.getAnalysis().getModules()));
+        return resolver.moduleOf(graphQueryService.components(entry).get(component));
+    }
+
+    private Map<String, Object> node(CachedAnalysis entry, Level level, String id, int members, int internalEdges) {
+        Map<String, Object> node = new LinkedHashMap<>();
+        node.put("id", id);
+        if (level == Level.CLASS) {
+            ComponentInfo component = graphQueryService.components(entry).get(id);
+            node.put("label", component != null ? component.getClassName() : id);
+            node.put("type", component != null ? component.getComponentType() : "Unknown");
+        } else {
+            node.put("label", id);
+            node.put("type", level == Level.PACKAGE ? "Package" : "Module");
+        }
+        node.put("members", members);
+        node.put("internalEdges", internalEdges);
+        return node;
+    }
+
+    private static Map<String, Object> edge(String source, String target, int weight) {
+        Map<String, Object> edge = new LinkedHashMap<>();
+        edge.put("source", source);
+        edge.put("target", target);
+        edge.put("weight", weight);
+        return edge;
+    }
+
+    /**
+     * Maps source files to the Maven module whose directory contains them (deepest wins)
+     */
+    static class ModuleResolver {
+        private final List<Map.Entry<Path, String>> moduleDirectories = new ArrayList<>();
+
+        ModuleResolver(List<ModuleInfo> modules) {
+            if (modules != null) {
+                for (ModuleInfo module : modules) {
+                    if (module.getPath() == null)
+                        continue;
+                    Path directory = Paths.get(module.getPath()).toAbsolutePath().normalize().getParent();
+                    if (directory != null) {
+                        moduleDirectories.add(Map.entry(directory, module.getArtifactId() != null
+                                ? module.getArtifactId()
+                                : directory.getFileName().toString()));
+                    }
+                }
+            }
+            moduleDirectories.sort(Comparator.comparingInt((Map.Entry<Path, String> e) -> e.getKey().getNameCount())
+                    .reversed());
+        }
+
+        String moduleOf(ComponentInfo component) {
+            if (component == null) {
+                return UNASSIGNED_MODULE;
+            }
+            if ("External".equals(component.getComponentType())) {
+                return EXTERNAL_MODULE;
+            }
+            if (component.getFilePath() == null) {
+                return UNASSIGNED_MODULE;
+            }
+            Path file = Paths.get(component.getFilePath()).toAbsolutePath().normalize();
+            for (Map.Entry<Path, String> module : moduleDirectories) {
+                if (file.startsWith(module.getKey())) {
+                    return module.getValue();
+                }
+            }
+            return UNASSIGNED_MODULE;
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package com.pro.service;
+
+import com.pro.graph.CompactGraph;
+import com.pro.graph.LayeredLayout;
+import com.pro.graph.PathFinder;
+import com.pro.graph.ReachabilityIndex;
+import com.pro.job.AnalysisScheduler;
+import com.pro.job.ProgressListener;
+import com.pro.model.ComponentInfo;
+import com.pro.model.ProjectAnalysis;
+import com.pro.model.WireGraph;
+import com.pro.snapshot.SnapshotStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Answers graph queries against retained analyses using precomputed indexes
+ */
+@Service
+public class GraphQueryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GraphQueryService.class);
+    // Bumped whenever the same sources analyze into a different ProjectAnalysis
+    private static final String ANALYSIS_FORMAT = "1:";
+
+    static final String GRAPH = "graph";
+    static final String REACHABILITY = "reachability";
+    static final String COMPONENTS = "components";
+    static final String LAYERS = "layers";
+    static final String SUBGRAPH_INDEX = "subgraphIndex";
+    static final String MODULE_RESOLVER = "moduleResolver";
+    static final String ROUTE_INDEX = "routeIndex";
+    static final int MAX_PATHS = 50;
+
+    private final SpringBootAnalyzerService analyzerService;
+    private final AnalysisCache analysisCache;
+    private final AnalysisScheduler analysisScheduler;
+    private final SnapshotStore snapshotStore;
+
+    public GraphQueryService(SpringBootAnalyzerService analyzerService, AnalysisCache analysisCache,
+            AnalysisScheduler analysisScheduler, SnapshotStore snapshotStore) {
+        this.analyzerService = analyzerService;
+        this.analysisCache = analysisCache;
+        this.analysisScheduler = analysisScheduler;
+        this.snapshotStore = snapshotStore;
+    }
+
+    /**
+     * Returns the cached analysis for a project, analyzing it first if needed
+     */
+    public CachedAnalysis load(String projectPath) {
+        return load(projectPath, false);
+    }
+
+    /**
+     * Returns the cached analysis for a project, or re-analyzes it when the cache is
+     * bypassed, and makes sure the graph indexes are built
+     */
+    public CachedAnalysis load(String projectPath, boolean bypassCache) {
+        return load(projectPath, bypassCache, ProgressListener.NONE);
+    }
+
+    /**
+     * Same as load, reporting analysis progress to the listener; a cache hit only
+     * reports the "cached" phase
+     */
+    public CachedAnalysis load(String projectPath, boolean bypassCache, ProgressListener listener) {
+        return load(projectPath, bypassCache, listener, AnalysisScheduler.Lane.INTERACTIVE);
+    }
+
+    /**
+     * Same as load; an actual analysis first waits for a scheduler slot in the given lane
+     */
+    public CachedAnalysis load(String projectPath, boolean bypassCache, ProgressListener listener,
+            AnalysisScheduler.Lane lane) {
+        if (projectPath == null || projectPath.trim().isEmpty()) {
+            throw new IllegalArgumentException("Project path is required");
+        }
+        boolean[] analyzed = new boolean[1];
+        CachedAnalysis entry = analysisCache.getOrLoad(projectPath, bypassCache, listener, lane, (key, fingerprint) -> {
+            if (!bypassCache) {
+                // Sources unchanged since the last recorded analysis, e.g. across a restart;
+                // reported like a cache hit
+                ProjectAnalysis restored = snapshotStore.restoreAnalysis(key, ANALYSIS_FORMAT + fingerprint);
+                if (restored != null) {
+                    return restored;
+                }
+            }
+            analyzed[0] = true;
+            ProjectAnalysis analysis;
+            AnalysisScheduler.Permit permit = analysisScheduler.acquire(key, lane, listener);
+            try {
+                analysis = analyzerService.analyzeProject(key, listener);
+            } finally {
+                permit.close();
+            }
+            snapshotStore.recordAnalysis(key, ANALYSIS_FORMAT + fingerprint, analysis);
+            return analysis;
+        });
+        if (!analyzed[0]) {
+            listener.phase("cached");
+        }
+        listener.phase("indexing");
+        reachability(entry);
+        subgraphIndex(entry);
+        return entry;
+    }
+
+    public CompactGraph graph(CachedAnalysis entry) {
+        return entry.derived(GRAPH,
+                () -> CompactGraph.fromDependencyGraph(entry.getAnalysis().getDependencyGraph()));
+    }
+
+    public ReachabilityIndex reachability(CachedAnalysis entry) {
+        return entry.derived(REACHABILITY, () -> {
+            ReachabilityIndex index = new ReachabilityIndex(graph(entry));
+            logger.info("Reachability index for {} built with {} in {} ms ({} bytes)",
+                    entry.getAnalysis().getProjectName(), index.getStrategy(),
+                    index.describe().get("buildTimeMs"), index.memoryBytes());
+            return index;
+        });
+    }
+
+    /**
+     * Attribute indexes used to filter the graph down to a subgraph
+     */
+    public SubgraphIndex subgraphIndex(CachedAnalysis entry) {
+        return entry.derived(SUBGRAPH_INDEX, () -> {
+            CompactGraph graph = graph(entry);
+            Map<String, ComponentInfo> components = components(entry);
+            GraphAggregationService.ModuleResolver resolver = entry.derived(MODULE_RESOLVER,
+                    () -> new GraphAggregationService.ModuleResolver(entry.getAnalysis().getModules()));
+            SubgraphIndex index = new SubgraphIndex(graph, reachability(entry).getComponents(), components,
+                    entry.getAnalysis().getApiEndpoints(),
+                    v -> packageOf(entry, graph.name(v)),
+                    v -> resolver.moduleOf(components.get(graph.name(v))));
+            logger.info("Filter indexes for {} built in {} ms ({} bytes)", entry.getAnalysis().getProjectName(),
+                    index.getBuildNanos() / 1_000_000, index.memoryBytes());
+            return index;
+        });
+    }
+
+    /**
+     * Route trie over the API endpoints, keyed by HTTP method
+     */
+    public RouteIndex routeIndex(CachedAnalysis entry) {
+        return entry.derived(ROUTE_INDEX, () -> {
+            RouteIndex index = new RouteIndex(entry.getAnalysis().getApiEndpoints());
+            logger.info("Route index for {} built with {} routes in {} ms", entry.getAnalysis().getProjectName(),
+                    index.size(), index.getBuildNanos() / 1_000_000);
+            return index;
+        });
+    }
+
+    /**
+     * All components of the analysis keyed by fully qualified name
+     */
+    public Map<String, ComponentInfo> components(CachedAnalysis entry) {
+        return entry.derived(COMPONENTS, () -> {
+            ProjectAnalysis analysis = entry.getAnalysis();
+            Map<String, ComponentInfo> components = new HashMap<>();
+            for (List<ComponentInfo> list : Arrays.asList(analysis.getControllers(), analysis.getServices(),
+                    analysis.getRepositories(), analysis.getModels(), analysis.getConfigurations(),
+                    analysis.getExternalDependencies())) {
+                if (list != null) {
+                    for (ComponentInfo component : list) {
+                        components.putIfAbsent(component.getFullyQualifiedName(), component);
+                    }
+                }
+            }
+            return components;
+        });
+    }
+
+    /**
+     * Package of a component, preferring the parsed package structure over name splitting
+     */
+    public String packageOf(CachedAnalysis entry, String component) {
+        Map<String, String> packageStructure = entry.getAnalysis().getPackageStructure();
+        if (packageStructure != null) {
+            String pkg = packageStructure.get(component);
+            if (pkg != null) {
+                return pkg;
+            }
+        }
+        ComponentInfo info = components(entry).get(component);
+        if (info != null && info.getPackageName() != null) {
+            return info.getPackageName();
+        }
+        int lastDot = component.lastIndexOf('.');
+        return lastDot > 0 ? component.substring(0, lastDot) : "default";
+    }
+
+    /**
+     * Resolves a fully qualified or simple class name to a node of the graph
+     */
+    public int resolveNode(CompactGraph graph, String component) {
+        if (component == null || component.trim().isEmpty()) {
+            throw new IllegalArgumentException("Component name is required");
+        }
+        String name = component.trim();
+        int id = graph.id(name);
+        if (id >= 0) {
+            return id;
+        }
+
+        int match = -1;
+        for (int i = 0; i < graph.nodeCount(); i++) {
+            String candidate = graph.name(i);
+            if (candidate.endsWith("." + name) || candidate.endsWith(":" + name)) {
+                if (match >= 0) {
+                    throw new IllegalArgumentException("Component name is ambiguous: " + name);
+                }
+                match = i;
+            }
+        }
+        if (match < 0) {
+            throw new IllegalArgumentException("Unknown component: " + name);
+        }
+        return match;
+    }
+
+    /**
+     * Checks whether one component transitively depends on another
+     */
+    public Map<String, Object> dependsOn(String projectPath, String source, String target) {
+        ReachabilityIndex index = reachability(load(projectPath));
+        CompactGraph graph = index.getGraph();
+        int s = resolveNode(graph, source);
+        int t = resolveNode(graph, target);
+
+        long start = System.nanoTime();
+        boolean reachable = index.reaches(s, t);
+        long elapsed = System.nanoTime() - start;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("source", graph.name(s));
+        result.put("target", graph.name(t));
+        result.put("dependsOn", reachable);
+        result.put("queryTimeMicros", elapsed / 1000.0);
+        result.put("index", index.describe());
+        return result;
+    }
+
+    /**
+     * Lists everything a component transitively depends on
+     */
+    public Map<String, Object> transitiveDependencies(String projectPath, String component) {
+        return transitive(projectPath, component, true);
+    }
+
+    /**
+     * Lists every component that transitively depends on the given one
+     */
+    public Map<String, Object> transitiveDependents(String projectPath, String component) {
+        return transitive(projectPath, component, false);
+    }
+
+    private Map<String, Object> transitive(String projectPath, String component, boolean dependencies) {
+        ReachabilityIndex index = reachability(load(projectPath));
+        CompactGraph graph = index.getGraph();
+        int node = resolveNode(graph, component);
+
+        long start = System.nanoTime();
+        int[] nodes = dependencies ? index.descendants(node) : index.ancestors(node);
+        long elapsed = System.nanoTime() - start;
+
+        List<String> names = new ArrayList<>(nodes.length);
+        for (int n : nodes) {
+            names.add(graph.name(n));
+        }
+        Collections.sort(names);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("component", graph.name(node));
+        result.put(dependencies ? "dependencies" : "dependents", names);
+        result.put("count", names.size());
+        result.put("queryTimeMicros", elapsed / 1000.0);
+        result.put("index", index.describe());
+        return result;
+    }
+
+    /**
+     * Finds the k shortest dependency chains from one component to another
+     */
+    public Map<String, Object> shortestChains(String projectPath, String source, String target, int k) {
+        if (k < 1 || k > MAX_PATHS) {
+            throw new IllegalArgumentException("k must be between 1 and " + MAX_PATHS);
+        }
+        CachedAnalysis entry = load(projectPath);
+        CompactGraph graph = graph(entry);
+        int s = resolveNode(graph, source);
+        int t = resolveNode(graph, target);
+
+        long start = System.nanoTime();
+        List<int[]> paths = s == t ? List.of() : new PathFinder(graph).kShortestPaths(s, t, k);
+        long elapsed = System.nanoTime() - start;
+
+        List<Map<String, Object>> chains = new ArrayList<>();
+        for (int[] path : paths) {
+            List<String> names = new ArrayList<>(path.length);
+            for (int node : path) {
+                names.add(graph.name(node));
+            }
+            Map<String, Object> chain = new LinkedHashMap<>();
+            chain.put("length", path.length - 1);
+            chain.put("chain", names);
+            chains.add(chain);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("source", graph.name(s));
+        result.put("target", graph.name(t));
+        result.put("requested", k);
+        result.put("found", chains.size());
+        result.put("paths", chains);
+        result.put("queryTimeMs", Math.round(elapsed / 10_000.0) / 100.0);
+        return result;
+    }
+
+    /**
+     * Layered ordering of the dependency graph so clients can place nodes without
+     * running an iterative layout
+     */
+    public Map<String, Object> layers(String projectPath) {
+        CachedAnalysis entry = load(projectPath);
+        CompactGraph graph = graph(entry);
+        Map<String, ComponentInfo> components = components(entry);
+
+        long start = System.nanoTime();
+        LayeredLayout layout = entry.derived(LAYERS, () -> new LayeredLayout(graph));
+        long elapsed = System.nanoTime() - start;
+
+        List<Map<String, Object>> nodes = new ArrayList<>(graph.nodeCount());
+        for (int v = 0; v < graph.nodeCount(); v++) {
+            ComponentInfo component = components.get(graph.name(v));
+            Map<String, Object> node = new LinkedHashMap<>();
+            node.put("id", graph.name(v));
+            node.put("label", component != null ? component.getClassName() : graph.name(v));
+            node.put("type", component != null ? component.getComponentType() : "Unknown");
+            node.put("layer", layout.layer(v));
+            node.put("order", layout.order(v));
+            node.put("cycleGroup", layout.isCyclic(v) ? layout.componentOf(v) : null);
+            nodes.add(node);
+        }
+        nodes.sort(Comparator.comparingInt((Map<String, Object> node) -> (Integer) node.get("layer"))
+                .thenComparingInt(node -> (Integer) node.get("order")));
+
+        List<Map<String, Object>> edges = new ArrayList<>(graph.edgeCount());
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            Map<String, Object> edge = new LinkedHashMap<>();
+            edge.put("source", graph.name(graph.edgeSource(e)));
+            edge.put("target", graph.name(graph.edgeTarget(e)));
+            edges.add(edge);
+        }
+
+        List<Integer> layerSizes = new ArrayList<>();
+        for (int l = 0; l < layout.layerCount(); l++) {
+            layerSizes.add(layout.layerSize(l));
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("layerCount", layout.layerCount());
+        result.put("layerSizes", layerSizes);
+        result.put("nodes", nodes);
+        result.put("edges", edges);
+        result.put("layoutTimeMs", Math.round(elapsed / 10_000.0) / 100.0);
+        return result;
+    }
+
+    /**
+     * The dependency graph in the compact wire format: component names once in a node
+     * table with label, type, module, layer and order, edges as row index pairs
+     */
+    public WireGraph compactGraph(String projectPath) {
+        CachedAnalysis entry = load(projectPath);
+        CompactGraph graph = graph(entry);
+        Map<String, ComponentInfo> components = components(entry);
+        LayeredLayout layout = entry.derived(LAYERS, () -> new LayeredLayout(graph));
+        GraphAggregationService.ModuleResolver resolver = entry.derived(MODULE_RESOLVER,
+                () -> new GraphAggregationService.ModuleResolver(entry.getAnalysis().getModules()));
+
+        return new WireGraph(entry.getKey() + "@" + entry.getVersion(), graph)
+                .sortedById()
+                .labels(v -> {
+                    ComponentInfo component = components.get(graph.name(v));
+                    return component != null ? component.getClassName() : graph.name(v);
+                })
+                .types(v -> {
+                    ComponentInfo component = components.get(graph.name(v));
+                    return component != null ? component.getComponentType() : "Unknown";
+                })
+                .modules(v -> resolver.moduleOf(components.get(graph.name(v))))
+                .intColumn("layer", layout::layer)
+                .intColumn("order", layout::order);
+    }
+}
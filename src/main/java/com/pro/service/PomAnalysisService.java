@@ -33,6 +33,7 @@ public class PomAnalysisService {
         try (Stream<Path> paths = Files.walk(Paths.get(projectPath))) {
             paths.filter(path -> path.getFileName().toString().equals("pom.xml"))
                     .filter(path -> !path.toString().contains("target")) // Exclude target directories
+                    .sorted()
                     .forEach(path -> {
                         ModuleInfo module = parsePomFile(path.toFile());
                         if (module != null) {
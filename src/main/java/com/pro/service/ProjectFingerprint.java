@@ -0,0 +1,79 @@
+package com.pro.service;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Cheap change detector for a project tree: combines path, size and modification
+ * time of every Java source and build file (or of the files a caller selects)
+ * without reading file contents.
+ */
+public final class ProjectFingerprint {
+
+    private static final Set<String> IGNORED_DIRS = Set.of(".git", ".idea", "target", "build", "out",
+            "node_modules");
+
+    private ProjectFingerprint() {
+    }
+
+    public static String of(String projectPath) {
+        return of(projectPath, name -> name.endsWith(".java") || name.equals("pom.xml"));
+    }
+
+    /**
+     * Fingerprint over the files whose names pass the filter
+     */
+    public static String of(String projectPath, Predicate<String> fileNames) {
+        Path root = Paths.get(projectPath);
+        if (!Files.isDirectory(root)) {
+            return "missing";
+        }
+        long[] state = new long[2];
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    Path name = dir.getFileName();
+                    if (!dir.equals(root) && name != null && IGNORED_DIRS.contains(name.toString())) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    String name = file.getFileName().toString();
+                    if (fileNames.test(name)) {
+                        long h = mix(root.relativize(file).toString().hashCode());
+                        h = mix(h ^ attrs.size());
+                        h = mix(h ^ attrs.lastModifiedTime().toMillis());
+                        // Order-independent combination, walk order is not guaranteed
+                        state[0] += h;
+                        state[1]++;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            return "unreadable-" + System.nanoTime();
+        }
+        return state[1] + "-" + Long.toHexString(state[0]);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,207 @@
+package com.pro.service;
+
+import com.pro.graph.RouteTrie;
+import com.pro.model.ApiEndpoint;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Route trie over the API endpoints of an analysis, one root per HTTP method.
+ * Lookups and prefix listings walk the path segments once. Conflicts come from one
+ * walk of the trie against itself, so building and checking hundreds of controllers
+ * costs time proportional to the endpoints plus the overlaps found, not to every
+ * pair of endpoints.
+ */
+public class RouteIndex {
+
+    /**
+     * Two routes some request could be dispatched to. DUPLICATE routes have the same
+     * template up to variable names; AMBIGUOUS ones overlap without either being
+     * more specific; a SHADOWED route loses the paths it shares with a more
+     * specific one in another controller.
+     */
+    public enum ConflictType {
+        DUPLICATE, AMBIGUOUS, SHADOWED
+    }
+
+    /**
+     * A pair of conflicting routes; for SHADOWED the first one is the more specific
+     */
+    public static class Conflict {
+        private final ConflictType type;
+        private final RouteTrie.Route<ApiEndpoint> first;
+        private final RouteTrie.Route<ApiEndpoint> second;
+
+        Conflict(ConflictType type, RouteTrie.Route<ApiEndpoint> first, RouteTrie.Route<ApiEndpoint> second) {
+            this.type = type;
+            this.first = first;
+            this.second = second;
+        }
+
+        public ConflictType getType() {
+            return type;
+        }
+
+        public RouteTrie.Route<ApiEndpoint> getFirst() {
+            return first;
+        }
+
+        public RouteTrie.Route<ApiEndpoint> getSecond() {
+            return second;
+        }
+    }
+
+    private static final Pattern ARRAY_START = Pattern.compile("\\{\\s*/");
+
+    private static final Set<String> METHOD_MAPPINGS = Set.of(
+            "GetMapping", "PostMapping", "PutMapping", "DeleteMapping", "PatchMapping");
+
+    private final RouteTrie<ApiEndpoint> trie = new RouteTrie<>();
+    private final long buildNanos;
+
+    public RouteIndex(List<ApiEndpoint> endpoints) {
+        long start = System.nanoTime();
+        if (endpoints != null) {
+            for (ApiEndpoint endpoint : endpoints) {
+                String method = methodOf(endpoint);
+                for (String template : templates(endpoint.getPath())) {
+                    trie.add(method, template, endpoint);
+                }
+            }
+        }
+        this.buildNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * The most specific routes serving a concrete path, or null
+     */
+    public RouteTrie.Match<ApiEndpoint> lookup(String method, String path) {
+        return trie.match(method, path);
+    }
+
+    /**
+     * Routes under a path prefix, for one method or all when null
+     */
+    public List<RouteTrie.Route<ApiEndpoint>> routes(String method, String prefix, int limit) {
+        return trie.routes(method, prefix, limit);
+    }
+
+    /**
+     * Duplicate, ambiguous and shadowed route pairs; overlaps between routes of one
+     * controller are intended specializations and not reported as shadowing
+     */
+    public List<Conflict> conflicts() {
+        List<Conflict> conflicts = new ArrayList<>();
+        trie.forEachOverlap((a, b) -> {
+            int order = compareSpecificity(a, b);
+            if (order == 0 && a.getMethod().equals(b.getMethod())) {
+                conflicts.add(new Conflict(ConflictType.DUPLICATE, a, b));
+            } else if (order == Integer.MIN_VALUE) {
+                conflicts.add(new Conflict(ConflictType.AMBIGUOUS, a, b));
+            } else if (!sameController(a, b)) {
+                // Equally specific templates of a method and of any method: the method wins
+                boolean firstWins = order > 0 || (order == 0 && !a.getMethod().equals(RouteTrie.ANY_METHOD));
+                conflicts.add(firstWins ? new Conflict(ConflictType.SHADOWED, a, b)
+                        : new Conflict(ConflictType.SHADOWED, b, a));
+            }
+        });
+        return conflicts;
+    }
+
+    public int size() {
+        return trie.size();
+    }
+
+    public long getBuildNanos() {
+        return buildNanos;
+    }
+
+    /**
+     * Positive when a is more specific than b, negative when b is, zero when they
+     * have the same shape, and Integer.MIN_VALUE when each is more specific at some
+     * segment. Literals beat variables and variables beat catch-alls, segment by
+     * segment; a template that ends where the other continues with a catch-all is
+     * the more specific one.
+     */
+    static int compareSpecificity(RouteTrie.Route<ApiEndpoint> a, RouteTrie.Route<ApiEndpoint> b) {
+        List<String> as = RouteTrie.segments(a.getTemplate());
+        List<String> bs = RouteTrie.segments(b.getTemplate());
+        boolean aWins = false;
+        boolean bWins = false;
+        for (int i = 0; i < Math.max(as.size(), bs.size()); i++) {
+            int ka = i < as.size() ? rank(as.get(i)) : -1;
+            int kb = i < bs.size() ? rank(bs.get(i)) : -1;
+            if (ka < kb) {
+                aWins = true;
+            } else if (kb < ka) {
+                bWins = true;
+            }
+            if (ka == 2 || kb == 2) {
+                break;
+            }
+        }
+        if (aWins && bWins) {
+            return Integer.MIN_VALUE;
+        }
+        return aWins ? 1 : bWins ? -1 : 0;
+    }
+
+    // 0 literal, 1 variable, 2 catch-all; an ended template (-1) only overlaps a catch-all
+    private static int rank(String segment) {
+        return RouteTrie.isCatchAll(segment) ? 2 : RouteTrie.isVariable(segment) ? 1 : 0;
+    }
+
+    private static boolean sameController(RouteTrie.Route<ApiEndpoint> a, RouteTrie.Route<ApiEndpoint> b) {
+        return Objects.equals(a.getValue().getControllerClass(), b.getValue().getControllerClass());
+    }
+
+    /**
+     * A bare @RequestMapping serves every method; the analysis records those as GET
+     */
+    static String methodOf(ApiEndpoint endpoint) {
+        List<String> annotations = endpoint.getAnnotations();
+        if (annotations != null && annotations.contains("RequestMapping")
+                && annotations.stream().noneMatch(METHOD_MAPPINGS::contains)) {
+            return RouteTrie.ANY_METHOD;
+        }
+        return endpoint.getHttpMethod();
+    }
+
+    /**
+     * One template per path of a multi-path mapping, which the analysis keeps as
+     * the literal array text "{ /a, /b }"
+     */
+    static List<String> templates(String path) {
+        if (path == null || path.isBlank()) {
+            return List.of("/");
+        }
+        List<String> templates = new ArrayList<>();
+        Matcher array = ARRAY_START.matcher(path);
+        int open = array.find() ? array.start() : -1;
+        int close = -1;
+        // Elements may contain variables, so find the brace that closes the array
+        for (int i = open + 1, depth = 1; open >= 0 && i < path.length() && close < 0; i++) {
+            char c = path.charAt(i);
+            depth += c == '{' ? 1 : c == '}' ? -1 : 0;
+            if (depth == 0) {
+                close = i;
+            }
+        }
+        if (close > open) {
+            String base = path.substring(0, open);
+            if (base.endsWith("/")) {
+                base = base.substring(0, base.length() - 1);
+            }
+            String rest = path.substring(close + 1);
+            for (String part : path.substring(open + 1, close).split(",")) {
+                String element = part.trim();
+                templates.add(base + (element.startsWith("/") ? "" : "/") + element + rest);
+            }
+        } else {
+            templates.add(path.trim());
+        }
+        return templates;
+    }
+}
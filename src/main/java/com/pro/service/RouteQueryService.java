@@ -0,0 +1,123 @@
+package com.pro.service;
+
+import com.pro.graph.RouteTrie;
+import com.pro.model.ApiEndpoint;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Answers route questions about the API endpoints of retained analyses: which
+ * handler serves a request, which routes live under a prefix, and which routes
+ * collide across controllers.
+ */
+@Service
+public class RouteQueryService {
+
+    static final int DEFAULT_LIMIT = 500;
+    static final int MAX_LIMIT = 20_000;
+
+    private final GraphQueryService graphQueryService;
+
+    public RouteQueryService(GraphQueryService graphQueryService) {
+        this.graphQueryService = graphQueryService;
+    }
+
+    /**
+     * The endpoints a request would be dispatched to; a blank method matches any
+     */
+    public Map<String, Object> lookup(String projectPath, String method, String path) {
+        if (path == null || path.isBlank()) {
+            throw new IllegalArgumentException("Path is required");
+        }
+        RouteIndex index = graphQueryService.routeIndex(graphQueryService.load(projectPath));
+        long start = System.nanoTime();
+        RouteTrie.Match<ApiEndpoint> match = index.lookup(method, path.trim());
+        long elapsed = System.nanoTime() - start;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("method", method != null && !method.isBlank() ? RouteTrie.normalizeMethod(method) : null);
+        result.put("path", path.trim());
+        result.put("matched", match != null);
+        if (match != null) {
+            result.put("template", match.getRoutes().get(0).getTemplate());
+            result.put("wildcards", match.getWildcards());
+            result.put("endpoints", describe(match.getRoutes()));
+        }
+        result.put("queryTimeMicros", elapsed / 1000.0);
+        return result;
+    }
+
+    /**
+     * Routes whose templates start with the prefix, ordered by path
+     */
+    public Map<String, Object> list(String projectPath, String method, String prefix, String limit) {
+        int max = EgoGraphService.parseBounded("limit", limit, DEFAULT_LIMIT, 1, MAX_LIMIT);
+        RouteIndex index = graphQueryService.routeIndex(graphQueryService.load(projectPath));
+        long start = System.nanoTime();
+        // One extra route tells whether the listing was cut off
+        List<RouteTrie.Route<ApiEndpoint>> routes = index.routes(method, prefix, max + 1);
+        long elapsed = System.nanoTime() - start;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("prefix", prefix != null ? prefix : "/");
+        result.put("totalRoutes", index.size());
+        result.put("returnedRoutes", Math.min(routes.size(), max));
+        result.put("truncated", routes.size() > max);
+        result.put("routes", describe(routes.subList(0, Math.min(routes.size(), max))));
+        result.put("queryTimeMicros", elapsed / 1000.0);
+        return result;
+    }
+
+    /**
+     * Duplicate, ambiguous and shadowed routes, duplicates and ambiguities first
+     */
+    public Map<String, Object> conflicts(String projectPath, String limit) {
+        int max = EgoGraphService.parseBounded("limit", limit, DEFAULT_LIMIT, 1, MAX_LIMIT);
+        RouteIndex index = graphQueryService.routeIndex(graphQueryService.load(projectPath));
+        long start = System.nanoTime();
+        List<RouteIndex.Conflict> conflicts = index.conflicts();
+        long elapsed = System.nanoTime() - start;
+        conflicts.sort(Comparator.comparing(RouteIndex.Conflict::getType)
+                .thenComparing(c -> c.getFirst().getTemplate())
+                .thenComparing(c -> c.getSecond().getTemplate()));
+
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (RouteIndex.ConflictType type : RouteIndex.ConflictType.values()) {
+            counts.put(type.name().toLowerCase(Locale.ROOT), 0L);
+        }
+        List<Map<String, Object>> reported = new ArrayList<>();
+        for (RouteIndex.Conflict conflict : conflicts) {
+            counts.merge(conflict.getType().name().toLowerCase(Locale.ROOT), 1L, Long::sum);
+            if (reported.size() < max) {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("type", conflict.getType().name());
+                item.put("routes", describe(List.of(conflict.getFirst(), conflict.getSecond())));
+                reported.add(item);
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("totalRoutes", index.size());
+        result.put("totalConflicts", conflicts.size());
+        result.put("counts", counts);
+        result.put("truncated", reported.size() < conflicts.size());
+        result.put("conflicts", reported);
+        result.put("queryTimeMicros", elapsed / 1000.0);
+        return result;
+    }
+
+    private static List<Map<String, Object>> describe(List<RouteTrie.Route<ApiEndpoint>> routes) {
+        List<Map<String, Object>> out = new ArrayList<>(routes.size());
+        for (RouteTrie.Route<ApiEndpoint> route : routes) {
+            ApiEndpoint endpoint = route.getValue();
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("method", route.getMethod());
+            item.put("template", route.getTemplate());
+            item.put("controller", endpoint.getControllerClass());
+            item.put("handler", endpoint.getMethodName());
+            out.add(item);
+        }
+        return out;
+    }
+}
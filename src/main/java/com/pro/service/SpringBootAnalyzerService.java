@@ -12,6 +12,7 @@ import com.github.javaparser.ast.expr.NormalAnnotationExpr;
 import com.github.javaparser.ast.expr.SingleMemberAnnotationExpr;
 import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.pro.job.ProgressListener;
 import com.pro.model.ApiEndpoint;
 import com.pro.model.ComponentInfo;
 import com.pro.model.ProjectAnalysis;
@@ -32,14 +33,14 @@ public class SpringBootAnalyzerService {
 
     private static final Logger logger = LoggerFactory.getLogger(SpringBootAnalyzerService.class);
 
-    private JavaParser javaParser;
+    // JavaParser is not thread-safe and analyses may now run concurrently
+    private final ThreadLocal<JavaParser> javaParser = ThreadLocal.withInitial(JavaParser::new);
     private DependencyAnalysisService dependencyAnalysisService;
     private PomAnalysisService pomAnalysisService;
     private ApiDependencyParser apiDependencyParser;
 
     public SpringBootAnalyzerService(DependencyAnalysisService dependencyAnalysisService,
             PomAnalysisService pomAnalysisService, ApiDependencyParser apiDependencyParser) {
-        this.javaParser = new JavaParser();
         this.dependencyAnalysisService = dependencyAnalysisService;
         this.pomAnalysisService = pomAnalysisService;
         this.apiDependencyParser = apiDependencyParser;
@@ -49,17 +50,29 @@ public class SpringBootAnalyzerService {
      * Analyzes a Spring Boot project and returns comprehensive analysis
      */
     public ProjectAnalysis analyzeProject(String projectPath) {
+        return analyzeProject(projectPath, ProgressListener.NONE);
+    }
+
+    /**
+     * Analyzes a project, reporting progress per file and stopping between files
+     * once the listener asks for cancellation
+     */
+    public ProjectAnalysis analyzeProject(String projectPath, ProgressListener listener) {
         logger.info("Starting analysis for project at: {}", projectPath);
         ProjectAnalysis analysis = new ProjectAnalysis(extractProjectName(projectPath), projectPath);
 
         try {
             // Analyze POM files
             logger.info("Scanning POM files...");
+            listener.phase("scanning-poms");
             analysis.setModules(pomAnalysisService.scanPomFiles(projectPath));
             logger.info("Found {} modules", analysis.getModules() != null ? analysis.getModules().size() : 0);
 
             // Find all Java files
+            listener.checkCancelled();
+            listener.phase("discovering");
             List<File> javaFiles = findJavaFiles(projectPath);
+            listener.total(javaFiles.size());
             logger.info("Found {} Java files to analyze", javaFiles.size());
 
             if (javaFiles.isEmpty()) {
@@ -74,10 +87,21 @@ public class SpringBootAnalyzerService {
             List<ComponentInfo> models = new ArrayList<>();
             List<ComponentInfo> configurations = new ArrayList<>();
             List<ComponentInfo> externalDependencies = new ArrayList<>();
-            Map<String, List<String>> dependencyGraph = new HashMap<>();
+            Map<String, List<String>> dependencyGraph = new TreeMap<>();
 
             // Analyze each Java file
+            listener.phase("parsing");
+            Map<String, List<ComponentInfo>> categories = new LinkedHashMap<>();
+            categories.put("controllers", controllers);
+            categories.put("services", services);
+            categories.put("repositories", repositories);
+            categories.put("models", models);
+            categories.put("configurations", configurations);
+            categories.put("externalDependencies", externalDependencies);
+            int[] sizes = new int[categories.size()];
+            int endpointCount = 0;
             for (File javaFile : javaFiles) {
+                listener.checkCancelled();
                 logger.debug("Analyzing file: {}", javaFile.getName());
                 try {
                     analyzeJavaFile(javaFile, analysis, endpoints, controllers, services, repositories, models,
@@ -85,6 +109,13 @@ public class SpringBootAnalyzerService {
                 } catch (Exception e) {
                     logger.error("Error analyzing file {}: {}", javaFile.getName(), e.getMessage());
                 }
+                if (listener != ProgressListener.NONE) {
+                    reportFound(listener, categories, sizes, dependencyGraph);
+                    for (; endpointCount < endpoints.size(); endpointCount++) {
+                        listener.found("endpoint", endpoints.get(endpointCount));
+                    }
+                }
+                listener.fileDone(javaFile.getName());
             }
 
             // Set results
@@ -105,6 +136,8 @@ public class SpringBootAnalyzerService {
             analysis.setPackageStructure(buildPackageStructure(javaFiles));
 
             // Enhance dependency analysis
+            listener.checkCancelled();
+            listener.phase("linking");
             logger.info("Enhancing dependency analysis...");
             dependencyAnalysisService.enhanceDependencyAnalysis(analysis);
 
@@ -121,7 +154,36 @@ public class SpringBootAnalyzerService {
     }
 
     /**
-     * Finds all Java files in the project
+     * Reports components added since the previous file, each followed by its
+     * dependency edges as far as they are known before linking
+     */
+    private void reportFound(ProgressListener listener, Map<String, List<ComponentInfo>> categories, int[] sizes,
+            Map<String, List<String>> dependencyGraph) {
+        int i = 0;
+        for (Map.Entry<String, List<ComponentInfo>> category : categories.entrySet()) {
+            List<ComponentInfo> list = category.getValue();
+            for (; sizes[i] < list.size(); sizes[i]++) {
+                ComponentInfo component = list.get(sizes[i]);
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("category", category.getKey());
+                item.put("component", component);
+                listener.found("component", item);
+
+                List<String> targets = dependencyGraph.get(component.getFullyQualifiedName());
+                if (targets != null && !targets.isEmpty()) {
+                    Map<String, Object> edges = new LinkedHashMap<>();
+                    edges.put("source", component.getFullyQualifiedName());
+                    edges.put("targets", targets);
+                    listener.found("edges", edges);
+                }
+            }
+            i++;
+        }
+    }
+
+    /**
+     * Finds all Java files in the project, in path order so results do not depend
+     * on directory listing order
      */
     private List<File> findJavaFiles(String projectPath) throws IOException {
         List<File> javaFiles = new ArrayList<>();
@@ -131,6 +193,7 @@ public class SpringBootAnalyzerService {
             paths.filter(path -> path.toString().endsWith(".java"))
                     .filter(path -> !path.toString().contains("target"))
                     .filter(path -> !path.toString().contains(".git"))
+                    .sorted()
                     .forEach(path -> javaFiles.add(path.toFile()));
         }
 
@@ -148,7 +211,7 @@ public class SpringBootAnalyzerService {
             Map<String, List<String>> dependencyGraph) {
 
         try {
-            ParseResult<CompilationUnit> parseResult = javaParser.parse(javaFile);
+            ParseResult<CompilationUnit> parseResult = javaParser.get().parse(javaFile);
 
             if (parseResult.isSuccessful() && parseResult.getResult().isPresent()) {
                 CompilationUnit cu = parseResult.getResult().get();
@@ -526,11 +589,11 @@ public class SpringBootAnalyzerService {
      * Builds package structure map
      */
     private Map<String, String> buildPackageStructure(List<File> javaFiles) {
-        Map<String, String> packageStructure = new HashMap<>();
+        Map<String, String> packageStructure = new TreeMap<>();
 
         for (File javaFile : javaFiles) {
             try {
-                ParseResult<CompilationUnit> parseResult = javaParser.parse(javaFile);
+                ParseResult<CompilationUnit> parseResult = javaParser.get().parse(javaFile);
                 if (parseResult.isSuccessful() && parseResult.getResult().isPresent()) {
                     CompilationUnit cu = parseResult.getResult().get();
                     String packageName = cu.getPackageDeclaration()
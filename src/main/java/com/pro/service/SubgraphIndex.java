@@ -0,0 +1,237 @@
+package com.pro.service;
+
+import com.pro.graph.CompactGraph;
+import com.pro.graph.StronglyConnectedComponents;
+import com.pro.model.ApiEndpoint;
+import com.pro.model.ComponentInfo;
+
+import java.util.*;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+/**
+ * Per-attribute node indexes over the dependency graph. Each attribute value maps to
+ * a sorted posting list of node ids, so memory stays proportional to the number of
+ * nodes; prefix attributes (package, endpoint path) keep their values in a sorted
+ * array so a prefix resolves to a contiguous range by binary search. Queries turn
+ * postings into BitSets that callers intersect.
+ */
+public class SubgraphIndex {
+
+    private final CompactGraph graph;
+    private final String[] types;
+    private final String[] packages;
+    private final String[] modules;
+    private final Map<String, int[]> byType;
+    private final Map<String, int[]> byModule;
+    private final Map<String, int[]> byAnnotation;
+    private final SortedKeys byPackage;
+    private final SortedKeys byEndpointPath;
+    private final BitSet inCycle;
+    private final long buildNanos;
+
+    public SubgraphIndex(CompactGraph graph, StronglyConnectedComponents components,
+            Map<String, ComponentInfo> componentInfo, List<ApiEndpoint> endpoints,
+            IntFunction<String> packageOf, IntFunction<String> moduleOf) {
+        long start = System.nanoTime();
+        this.graph = graph;
+        int n = graph.nodeCount();
+        this.types = new String[n];
+        this.packages = new String[n];
+        this.modules = new String[n];
+        this.inCycle = new BitSet(n);
+
+        Map<String, List<Integer>> typePostings = new HashMap<>();
+        Map<String, List<Integer>> modulePostings = new HashMap<>();
+        Map<String, List<Integer>> annotationPostings = new HashMap<>();
+        Map<String, List<Integer>> packagePostings = new HashMap<>();
+        for (int v = 0; v < n; v++) {
+            ComponentInfo component = componentInfo.get(graph.name(v));
+            types[v] = component != null && component.getComponentType() != null
+                    ? component.getComponentType()
+                    : "Unknown";
+            packages[v] = packageOf.apply(v);
+            modules[v] = moduleOf.apply(v);
+            add(typePostings, types[v].toLowerCase(), v);
+            add(modulePostings, modules[v], v);
+            add(packagePostings, packages[v], v);
+            if (component != null && component.getAnnotations() != null) {
+                for (String annotation : component.getAnnotations()) {
+                    add(annotationPostings, normalizeAnnotation(annotation), v);
+                }
+            }
+            if (components.isCyclic(v)) {
+                inCycle.set(v);
+            }
+        }
+        this.byType = postings(typePostings);
+        this.byModule = postings(modulePostings);
+        this.byAnnotation = postings(annotationPostings);
+        this.byPackage = new SortedKeys(postings(packagePostings));
+
+        Map<String, List<Integer>> endpointPostings = new HashMap<>();
+        if (endpoints != null) {
+            for (ApiEndpoint endpoint : endpoints) {
+                int controller = endpoint.getControllerClass() != null ? graph.id(endpoint.getControllerClass()) : -1;
+                if (controller >= 0 && endpoint.getPath() != null) {
+                    add(endpointPostings, endpoint.getPath(), controller);
+                }
+            }
+        }
+        this.byEndpointPath = new SortedKeys(postings(endpointPostings));
+        this.buildNanos = System.nanoTime() - start;
+    }
+
+    private static void add(Map<String, List<Integer>> index, String key, int node) {
+        List<Integer> nodes = index.computeIfAbsent(key, k -> new ArrayList<>());
+        if (nodes.isEmpty() || nodes.get(nodes.size() - 1) != node) {
+            nodes.add(node);
+        }
+    }
+
+    private static Map<String, int[]> postings(Map<String, List<Integer>> lists) {
+        Map<String, int[]> postings = new HashMap<>(lists.size() * 2);
+        lists.forEach((key, nodes) -> postings.put(key, nodes.stream().mapToInt(Integer::intValue).toArray()));
+        return postings;
+    }
+
+    private BitSet toBitSet(int[] nodes) {
+        BitSet set = new BitSet(graph.nodeCount());
+        if (nodes != null) {
+            for (int node : nodes) {
+                set.set(node);
+            }
+        }
+        return set;
+    }
+
+    static String normalizeAnnotation(String annotation) {
+        String name = annotation.trim();
+        if (name.startsWith("@")) {
+            name = name.substring(1);
+        }
+        int dot = name.lastIndexOf('.');
+        return (dot >= 0 ? name.substring(dot + 1) : name).toLowerCase();
+    }
+
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    public String typeOf(int node) {
+        return types[node];
+    }
+
+    public String packageOf(int node) {
+        return packages[node];
+    }
+
+    public String moduleOf(int node) {
+        return modules[node];
+    }
+
+    public boolean isInCycle(int node) {
+        return inCycle.get(node);
+    }
+
+    public long getBuildNanos() {
+        return buildNanos;
+    }
+
+    /**
+     * All nodes; the starting point for intersecting filters
+     */
+    public BitSet all() {
+        BitSet all = new BitSet(graph.nodeCount());
+        all.set(0, graph.nodeCount());
+        return all;
+    }
+
+    public BitSet withType(String type) {
+        return toBitSet(byType.get(type.toLowerCase()));
+    }
+
+    public BitSet inModule(String module) {
+        return toBitSet(byModule.get(module));
+    }
+
+    public BitSet withAnnotation(String annotation) {
+        return toBitSet(byAnnotation.get(normalizeAnnotation(annotation)));
+    }
+
+    /**
+     * Nodes in the package or any of its subpackages
+     */
+    public BitSet inPackage(String prefix) {
+        String trimmed = prefix.endsWith(".") ? prefix.substring(0, prefix.length() - 1) : prefix;
+        return byPackage.union(trimmed, key -> key.equals(trimmed) || key.startsWith(trimmed + "."), this);
+    }
+
+    /**
+     * Controllers exposing an endpoint at or below the path
+     */
+    public BitSet exposingPath(String prefix) {
+        String trimmed = prefix.length() > 1 && prefix.endsWith("/") ? prefix.substring(0, prefix.length() - 1)
+                : prefix;
+        return byEndpointPath.union(trimmed,
+                key -> key.equals(trimmed) || trimmed.endsWith("/") || key.startsWith(trimmed + "/"), this);
+    }
+
+    public BitSet inCycle() {
+        return (BitSet) inCycle.clone();
+    }
+
+    /**
+     * Approximate size of the postings and the cycle set
+     */
+    public long memoryBytes() {
+        long bytes = inCycle.size() / 8;
+        for (Map<String, int[]> index : List.of(byType, byModule, byAnnotation)) {
+            for (int[] nodes : index.values()) {
+                bytes += 16 + nodes.length * 4L;
+            }
+        }
+        return bytes + byPackage.memoryBytes() + byEndpointPath.memoryBytes();
+    }
+
+    /**
+     * Sorted attribute values with their postings, for prefix lookups
+     */
+    private static final class SortedKeys {
+        private final String[] keys;
+        private final int[][] postings;
+
+        SortedKeys(Map<String, int[]> index) {
+            this.keys = index.keySet().toArray(new String[0]);
+            Arrays.sort(keys);
+            this.postings = new int[keys.length][];
+            for (int i = 0; i < keys.length; i++) {
+                postings[i] = index.get(keys[i]);
+            }
+        }
+
+        BitSet union(String prefix, Predicate<String> accept, SubgraphIndex owner) {
+            BitSet result = owner.toBitSet(null);
+            int from = Arrays.binarySearch(keys, prefix);
+            if (from < 0) {
+                from = -from - 1;
+            }
+            for (int i = from; i < keys.length && keys[i].startsWith(prefix); i++) {
+                if (accept.test(keys[i])) {
+                    for (int node : postings[i]) {
+                        result.set(node);
+                    }
+                }
+            }
+            return result;
+        }
+
+        long memoryBytes() {
+            long bytes = 0;
+            for (int[] nodes : postings) {
+                bytes += 16 + nodes.length * 4L;
+            }
+            return bytes;
+        }
+    }
+}
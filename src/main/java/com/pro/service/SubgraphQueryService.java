@@ -0,0 +1,131 @@
+package com.pro.service;
+
+import com.pro.graph.CompactGraph;
+import com.pro.model.ComponentInfo;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Filters the dependency graph down to the subgraph induced by the nodes matching
+ * every given filter. Comma-separated values within one filter are alternatives.
+ */
+@Service
+public class SubgraphQueryService {
+
+    static final int DEFAULT_LIMIT = 500;
+    static final int MAX_LIMIT = 20_000;
+
+    private final GraphQueryService graphQueryService;
+
+    public SubgraphQueryService(GraphQueryService graphQueryService) {
+        this.graphQueryService = graphQueryService;
+    }
+
+    public Map<String, Object> query(String projectPath, Map<String, String> filters) {
+        int limit = parseLimit(filters.get("limit"));
+        CachedAnalysis entry = graphQueryService.load(projectPath);
+        SubgraphIndex index = graphQueryService.subgraphIndex(entry);
+        CompactGraph graph = index.getGraph();
+        Map<String, ComponentInfo> components = graphQueryService.components(entry);
+
+        long start = System.nanoTime();
+        BitSet matched = index.all();
+        Map<String, Object> applied = new LinkedHashMap<>();
+        intersect(matched, applied, "type", filters.get("type"), index::withType);
+        intersect(matched, applied, "package", filters.get("package"), index::inPackage);
+        intersect(matched, applied, "module", filters.get("module"), index::inModule);
+        intersect(matched, applied, "annotation", filters.get("annotation"), index::withAnnotation);
+        intersect(matched, applied, "endpointPath", filters.get("endpointPath"), index::exposingPath);
+        String inCycle = filters.get("inCycle");
+        if (inCycle != null && !inCycle.trim().isEmpty()) {
+            boolean wanted = Boolean.parseBoolean(inCycle.trim());
+            if (wanted) {
+                matched.and(index.inCycle());
+            } else {
+                matched.andNot(index.inCycle());
+            }
+            applied.put("inCycle", wanted);
+        }
+
+        // Keep the first nodes in id order when the match exceeds the limit
+        BitSet selected = new BitSet(graph.nodeCount());
+        int count = 0;
+        for (int v = matched.nextSetBit(0); v >= 0 && count < limit; v = matched.nextSetBit(v + 1)) {
+            selected.set(v);
+            count++;
+        }
+
+        List<Map<String, Object>> nodes = new ArrayList<>(count);
+        List<Map<String, Object>> edges = new ArrayList<>();
+        for (int v = selected.nextSetBit(0); v >= 0; v = selected.nextSetBit(v + 1)) {
+            ComponentInfo component = components.get(graph.name(v));
+            Map<String, Object> node = new LinkedHashMap<>();
+            node.put("id", graph.name(v));
+            node.put("label", component != null ? component.getClassName() : graph.name(v));
+            node.put("type", index.typeOf(v));
+            node.put("package", index.packageOf(v));
+            node.put("module", index.moduleOf(v));
+            node.put("inCycle", index.isInCycle(v));
+            nodes.add(node);
+
+            for (int i = 0; i < graph.outDegree(v); i++) {
+                int w = graph.outTarget(v, i);
+                if (selected.get(w)) {
+                    Map<String, Object> edge = new LinkedHashMap<>();
+                    edge.put("source", graph.name(v));
+                    edge.put("target", graph.name(w));
+                    edges.add(edge);
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("filters", applied);
+        result.put("matchedNodes", matched.cardinality());
+        result.put("returnedNodes", nodes.size());
+        result.put("truncated", nodes.size() < matched.cardinality());
+        result.put("nodes", nodes);
+        result.put("edges", edges);
+        result.put("queryTimeMicros", elapsed / 1000.0);
+        return result;
+    }
+
+    private interface Lookup {
+        BitSet nodes(String value);
+    }
+
+    private static void intersect(BitSet matched, Map<String, Object> applied, String name, String value,
+            Lookup lookup) {
+        if (value == null || value.trim().isEmpty()) {
+            return;
+        }
+        List<String> alternatives = new ArrayList<>();
+        BitSet union = new BitSet();
+        for (String alternative : value.split(",")) {
+            String trimmed = alternative.trim();
+            if (!trimmed.isEmpty()) {
+                union.or(lookup.nodes(trimmed));
+                alternatives.add(trimmed);
+            }
+        }
+        matched.and(union);
+        applied.put(name, alternatives);
+    }
+
+    private static int parseLimit(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return DEFAULT_LIMIT;
+        }
+        try {
+            int limit = Integer.parseInt(value.trim());
+            if (limit < 1 || limit > MAX_LIMIT) {
+                throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+            }
+            return limit;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("limit must be a number");
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.pro.snapshot;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Delta between two ordered lists of lines as a sequence of copy and insert
+ * operations. A copy takes a run of consecutive lines from the previous list, an
+ * insert carries new lines, so a snapshot that changed a few records costs a few
+ * operations and keeps its exact record order. Encoding against an empty list
+ * yields a single insert, which is what a keyframe is.
+ */
+final class LineDelta {
+
+    private static final int OP_COPY = 0;
+    private static final int OP_INSERT = 1;
+
+    private LineDelta() {
+    }
+
+    /**
+     * Writes the operations that turn previous into next
+     */
+    static void encode(List<String> previous, List<String> next, DataOutput out) throws IOException {
+        Map<String, Integer> firstIndex = new HashMap<>(previous.size() * 2);
+        for (int i = previous.size() - 1; i >= 0; i--) {
+            firstIndex.put(previous.get(i), i);
+        }
+
+        List<int[]> ops = new ArrayList<>();
+        int i = 0;
+        while (i < next.size()) {
+            Integer start = firstIndex.get(next.get(i));
+            if (start != null) {
+                // Extend the copy as long as both lists keep matching
+                int length = 1;
+                while (i + length < next.size() && start + length < previous.size()
+                        && previous.get(start + length).equals(next.get(i + length))) {
+                    length++;
+                }
+                ops.add(new int[] { OP_COPY, start, length, i });
+                i += length;
+            } else {
+                int from = i;
+                while (i < next.size() && !firstIndex.containsKey(next.get(i))) {
+                    i++;
+                }
+                ops.add(new int[] { OP_INSERT, from, i - from, from });
+            }
+        }
+
+        writeVarInt(out, ops.size());
+        for (int[] op : ops) {
+            writeVarInt(out, op[0]);
+            if (op[0] == OP_COPY) {
+                writeVarInt(out, op[1]);
+                writeVarInt(out, op[2]);
+            } else {
+                writeVarInt(out, op[2]);
+                for (int k = op[1]; k < op[1] + op[2]; k++) {
+                    byte[] bytes = next.get(k).getBytes(StandardCharsets.UTF_8);
+                    writeVarInt(out, bytes.length);
+                    out.write(bytes);
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies encoded operations to previous and returns the resulting list
+     */
+    static List<String> apply(List<String> previous, DataInput in) throws IOException {
+        int count = readVarInt(in);
+        List<String> next = new ArrayList<>(previous.size());
+        for (int k = 0; k < count; k++) {
+            int op = readVarInt(in);
+            if (op == OP_COPY) {
+                int start = readVarInt(in);
+                int length = readVarInt(in);
+                if (start < 0 || length < 0 || start + length > previous.size()) {
+                    throw new IOException("Copy of lines " + start + "+" + length + " outside of "
+                            + previous.size() + " lines");
+                }
+                next.addAll(previous.subList(start, start + length));
+            } else if (op == OP_INSERT) {
+                int length = readVarInt(in);
+                for (int n = 0; n < length; n++) {
+                    byte[] bytes = new byte[readVarInt(in)];
+                    in.readFully(bytes);
+                    next.add(new String(bytes, StandardCharsets.UTF_8));
+                }
+            } else {
+                throw new IOException("Unknown delta operation " + op);
+            }
+        }
+        return next;
+    }
+
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
@@ -0,0 +1,223 @@
+package com.pro.snapshot;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pro.apigraph.model.Dependency;
+import com.pro.model.ApiEndpoint;
+import com.pro.model.ComponentInfo;
+import com.pro.model.ModuleInfo;
+import com.pro.model.ProjectAnalysis;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Turns analyses and scans into ordered lists of one-record lines and back. Each
+ * line is a record tag, a tab and the record as JSON, so a component, endpoint or
+ * graph entry that did not change between two snapshots yields an identical line
+ * that the delta can copy. Records keep their original order, so restoring a
+ * snapshot gives back collections in the order they were analyzed.
+ */
+final class SnapshotLines {
+
+    private static final String HEADER = "H";
+    private static final String COMPONENT = "C";
+    private static final String ENDPOINT = "E";
+    private static final String GRAPH = "G";
+    private static final String PACKAGE = "P";
+    private static final String MODULE = "M";
+    private static final String DEPENDENCY = "D";
+
+    private static final Map<String, Function<ProjectAnalysis, List<ComponentInfo>>> CATEGORIES =
+            new LinkedHashMap<>();
+    private static final Map<String, BiConsumer<ProjectAnalysis, List<ComponentInfo>>> SETTERS = new HashMap<>();
+
+    static {
+        category("controllers", ProjectAnalysis::getControllers, ProjectAnalysis::setControllers);
+        category("services", ProjectAnalysis::getServices, ProjectAnalysis::setServices);
+        category("repositories", ProjectAnalysis::getRepositories, ProjectAnalysis::setRepositories);
+        category("models", ProjectAnalysis::getModels, ProjectAnalysis::setModels);
+        category("configurations", ProjectAnalysis::getConfigurations, ProjectAnalysis::setConfigurations);
+        category("externalDependencies", ProjectAnalysis::getExternalDependencies,
+                ProjectAnalysis::setExternalDependencies);
+    }
+
+    private static void category(String name, Function<ProjectAnalysis, List<ComponentInfo>> getter,
+            BiConsumer<ProjectAnalysis, List<ComponentInfo>> setter) {
+        CATEGORIES.put(name, getter);
+        SETTERS.put(name, setter);
+    }
+
+    private final ObjectMapper objectMapper;
+
+    SnapshotLines(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    List<String> fromAnalysis(ProjectAnalysis analysis) {
+        List<String> lines = new ArrayList<>();
+        // The header lists which collections are present so nulls survive a round trip
+        Map<String, Object> header = new LinkedHashMap<>();
+        header.put("projectName", analysis.getProjectName());
+        header.put("projectPath", analysis.getProjectPath());
+        header.put("mainClass", analysis.getMainClass());
+        header.put("analysisTimestamp", analysis.getAnalysisTimestamp());
+        List<String> present = new ArrayList<>();
+        for (Map.Entry<String, Function<ProjectAnalysis, List<ComponentInfo>>> c : CATEGORIES.entrySet()) {
+            if (c.getValue().apply(analysis) != null) {
+                present.add(c.getKey());
+            }
+        }
+        if (analysis.getApiEndpoints() != null) {
+            present.add("apiEndpoints");
+        }
+        if (analysis.getDependencyGraph() != null) {
+            present.add("dependencyGraph");
+        }
+        if (analysis.getPackageStructure() != null) {
+            present.add("packageStructure");
+        }
+        if (analysis.getModules() != null) {
+            present.add("modules");
+        }
+        header.put("present", present);
+        lines.add(line(HEADER, header));
+
+        for (Map.Entry<String, Function<ProjectAnalysis, List<ComponentInfo>>> c : CATEGORIES.entrySet()) {
+            List<ComponentInfo> members = c.getValue().apply(analysis);
+            if (members != null) {
+                for (ComponentInfo component : members) {
+                    lines.add(COMPONENT + '\t' + c.getKey() + '\t' + json(component));
+                }
+            }
+        }
+        if (analysis.getApiEndpoints() != null) {
+            for (ApiEndpoint endpoint : analysis.getApiEndpoints()) {
+                lines.add(line(ENDPOINT, endpoint));
+            }
+        }
+        if (analysis.getDependencyGraph() != null) {
+            for (Map.Entry<String, List<String>> e : analysis.getDependencyGraph().entrySet()) {
+                lines.add(line(GRAPH, Arrays.asList(e.getKey(), e.getValue())));
+            }
+        }
+        if (analysis.getPackageStructure() != null) {
+            for (Map.Entry<String, String> e : analysis.getPackageStructure().entrySet()) {
+                lines.add(line(PACKAGE, Arrays.asList(e.getKey(), e.getValue())));
+            }
+        }
+        if (analysis.getModules() != null) {
+            for (ModuleInfo module : analysis.getModules()) {
+                lines.add(line(MODULE, module));
+            }
+        }
+        return lines;
+    }
+
+    ProjectAnalysis toAnalysis(List<String> lines) {
+        if (lines.isEmpty() || !lines.get(0).startsWith(HEADER + '\t')) {
+            throw new IllegalStateException("Snapshot has no analysis header");
+        }
+        Map<String, Object> header = read(body(lines.get(0)), new TypeReference<Map<String, Object>>() {
+        });
+        ProjectAnalysis analysis = new ProjectAnalysis();
+        analysis.setProjectName((String) header.get("projectName"));
+        analysis.setProjectPath((String) header.get("projectPath"));
+        analysis.setMainClass((String) header.get("mainClass"));
+        analysis.setAnalysisTimestamp(((Number) header.get("analysisTimestamp")).longValue());
+        @SuppressWarnings("unchecked")
+        List<String> present = (List<String>) header.get("present");
+
+        Map<String, List<ComponentInfo>> categories = new HashMap<>();
+        for (String category : CATEGORIES.keySet()) {
+            if (present.contains(category)) {
+                categories.put(category, new ArrayList<>());
+            }
+        }
+        List<ApiEndpoint> endpoints = present.contains("apiEndpoints") ? new ArrayList<>() : null;
+        Map<String, List<String>> graph = present.contains("dependencyGraph") ? new TreeMap<>() : null;
+        Map<String, String> packages = present.contains("packageStructure") ? new TreeMap<>() : null;
+        List<ModuleInfo> modules = present.contains("modules") ? new ArrayList<>() : null;
+
+        for (String line : lines.subList(1, lines.size())) {
+            String tag = line.substring(0, line.indexOf('\t'));
+            String body = body(line);
+            switch (tag) {
+                case COMPONENT -> {
+                    int tab = body.indexOf('\t');
+                    categories.get(body.substring(0, tab))
+                            .add(read(body.substring(tab + 1), new TypeReference<ComponentInfo>() {
+                            }));
+                }
+                case ENDPOINT -> endpoints.add(read(body, new TypeReference<ApiEndpoint>() {
+                }));
+                case GRAPH -> {
+                    List<Object> entry = read(body, new TypeReference<List<Object>>() {
+                    });
+                    @SuppressWarnings("unchecked")
+                    List<String> targets = (List<String>) entry.get(1);
+                    graph.put((String) entry.get(0), targets);
+                }
+                case PACKAGE -> {
+                    List<String> entry = read(body, new TypeReference<List<String>>() {
+                    });
+                    packages.put(entry.get(0), entry.get(1));
+                }
+                case MODULE -> modules.add(read(body, new TypeReference<ModuleInfo>() {
+                }));
+                default -> throw new IllegalStateException("Unknown snapshot record " + tag);
+            }
+        }
+        for (Map.Entry<String, List<ComponentInfo>> c : categories.entrySet()) {
+            SETTERS.get(c.getKey()).accept(analysis, c.getValue());
+        }
+        analysis.setApiEndpoints(endpoints);
+        analysis.setDependencyGraph(graph);
+        analysis.setPackageStructure(packages);
+        analysis.setModules(modules);
+        return analysis;
+    }
+
+    List<String> fromScan(List<Dependency> dependencies) {
+        List<String> lines = new ArrayList<>(dependencies.size());
+        for (Dependency d : dependencies) {
+            lines.add(line(DEPENDENCY, d));
+        }
+        return lines;
+    }
+
+    List<Dependency> toScan(List<String> lines) {
+        List<Dependency> dependencies = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            dependencies.add(read(body(line), new TypeReference<Dependency>() {
+            }));
+        }
+        return dependencies;
+    }
+
+    private String line(String tag, Object record) {
+        return tag + '\t' + json(record);
+    }
+
+    private static String body(String line) {
+        return line.substring(line.indexOf('\t') + 1);
+    }
+
+    private String json(Object record) {
+        try {
+            return objectMapper.writeValueAsString(record);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot write snapshot record", e);
+        }
+    }
+
+    private <T> T read(String json, TypeReference<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read snapshot record", e);
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package com.pro.snapshot;
+
+import java.io.*;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Append-only file of the snapshots of one project. Each frame holds a snapshot as
+ * a deflated LineDelta against the frame before it, with a keyframe (a delta against
+ * nothing) every keyframeInterval frames so that reading any snapshot replays a
+ * bounded chain.
+ *
+ * <pre>
+ * segment: "PROS" version:int projectPath:UTF frame*
+ * frame:   length:int crc32:int body[length]
+ * body:    type:byte seq:long timestamp:long fingerprint:UTF lineCount:int payload
+ * </pre>
+ *
+ * Opening reads frame headers through a memory mapping and leaves payloads alone;
+ * a payload is inflated, and its checksum verified, only when a snapshot that needs
+ * it is read. A torn frame at the end, left by a crash during an append, is cut off.
+ * Not thread-safe on its own; SnapshotStore synchronizes on the segment.
+ */
+final class SnapshotSegment implements Closeable {
+
+    static final int MAGIC = 0x50524F53;
+    static final int VERSION = 1;
+    static final byte KEYFRAME = 1;
+    static final byte DELTA = 2;
+
+    /**
+     * Header of one frame; the payload stays on disk
+     */
+    static final class Frame {
+        final long offset;
+        final int length;
+        final byte type;
+        final long seq;
+        final long timestamp;
+        final String fingerprint;
+        final int lineCount;
+
+        Frame(long offset, int length, byte type, long seq, long timestamp, String fingerprint, int lineCount) {
+            this.offset = offset;
+            this.length = length;
+            this.type = type;
+            this.seq = seq;
+            this.timestamp = timestamp;
+            this.fingerprint = fingerprint;
+            this.lineCount = lineCount;
+        }
+
+        /**
+         * Bytes the frame takes on disk
+         */
+        long size() {
+            return 8L + length;
+        }
+    }
+
+    private final Path file;
+    private final String projectPath;
+    private final FileChannel channel;
+    private final List<Frame> frames = new ArrayList<>();
+    private MappedByteBuffer mapped;
+    private long end;
+
+    // Last reconstructed snapshot, so appends and sequential reads do not replay chains
+    private SoftReference<List<String>> cachedLines = new SoftReference<>(null);
+    private int cachedIndex = -1;
+
+    private SnapshotSegment(Path file, String projectPath, FileChannel channel) {
+        this.file = file;
+        this.projectPath = projectPath;
+        this.channel = channel;
+    }
+
+    /**
+     * Opens an existing segment, or returns null when there is none
+     */
+    static SnapshotSegment open(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() == 0) {
+            // Left behind by a crash while the segment was being created
+            channel.close();
+            return null;
+        }
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            DataInputStream header = new DataInputStream(new ByteBufferInput(buffer.duplicate()));
+            if (header.readInt() != MAGIC || header.readInt() != VERSION) {
+                throw new IOException("Not a snapshot segment: " + file);
+            }
+            SnapshotSegment segment = new SnapshotSegment(file, header.readUTF(), channel);
+            segment.mapped = buffer;
+            segment.scan(channel.size() - header.available());
+            return segment;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates an empty segment, replacing any file already there
+     */
+    static SnapshotSegment create(Path file, String projectPath) throws IOException {
+        Files.createDirectories(file.getParent());
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(projectPath);
+        channel.write(ByteBuffer.wrap(bytes.toByteArray()), 0);
+        SnapshotSegment segment = new SnapshotSegment(file, projectPath, channel);
+        segment.end = bytes.size();
+        return segment;
+    }
+
+    // Reads frame headers from start on and truncates whatever follows the last whole frame
+    private void scan(long start) throws IOException {
+        long position = start;
+        long size = mapped.capacity();
+        while (position + 8 <= size) {
+            int length = mapped.getInt((int) position);
+            if (length <= 0 || position + 8 + length > size) {
+                break;
+            }
+            DataInputStream in = new DataInputStream(
+                    new ByteBufferInput(mapped.slice((int) position + 8, length)));
+            try {
+                byte type = in.readByte();
+                if (type != KEYFRAME && type != DELTA) {
+                    break;
+                }
+                frames.add(new Frame(position, length, type, in.readLong(), in.readLong(), in.readUTF(),
+                        in.readInt()));
+            } catch (IOException e) {
+                break;
+            }
+            position += 8 + length;
+        }
+        // Only the newest frame can be torn, so only its checksum is checked up front
+        if (!frames.isEmpty() && !checksumMatches(frames.get(frames.size() - 1))) {
+            position = frames.remove(frames.size() - 1).offset;
+        }
+        end = position;
+        if (end < size) {
+            channel.truncate(end);
+        }
+    }
+
+    String getProjectPath() {
+        return projectPath;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    List<Frame> frames() {
+        return Collections.unmodifiableList(frames);
+    }
+
+    Frame last() {
+        return frames.isEmpty() ? null : frames.get(frames.size() - 1);
+    }
+
+    long sizeOnDisk() {
+        return end;
+    }
+
+    /**
+     * Index of the frame with the given sequence number, or -1
+     */
+    int indexOf(long seq) {
+        int low = 0;
+        int high = frames.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midSeq = frames.get(mid).seq;
+            if (midSeq < seq) {
+                low = mid + 1;
+            } else if (midSeq > seq) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Index of the newest frame taken at or before the timestamp, or -1
+     */
+    int indexAt(long timestamp) {
+        for (int i = frames.size() - 1; i >= 0; i--) {
+            if (frames.get(i).timestamp <= timestamp) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Lines of the snapshot at the index, replayed from the nearest keyframe before it
+     */
+    List<String> lines(int index) throws IOException {
+        List<String> cached = cachedLines.get();
+        if (cached != null && cachedIndex == index) {
+            return cached;
+        }
+        int from;
+        List<String> lines;
+        if (cached != null && cachedIndex >= 0 && cachedIndex < index && !hasKeyframe(cachedIndex + 1, index)) {
+            from = cachedIndex + 1;
+            lines = cached;
+        } else {
+            from = index;
+            while (frames.get(from).type != KEYFRAME) {
+                from--;
+            }
+            lines = List.of();
+        }
+        for (int i = from; i <= index; i++) {
+            lines = decode(frames.get(i), lines);
+        }
+        lines = Collections.unmodifiableList(lines);
+        cachedLines = new SoftReference<>(lines);
+        cachedIndex = index;
+        return lines;
+    }
+
+    private boolean hasKeyframe(int from, int to) {
+        for (int i = from; i <= to; i++) {
+            if (frames.get(i).type == KEYFRAME) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Appends a snapshot as a delta against the newest one, or as a keyframe when
+     * the segment is empty or keyframeInterval frames have passed since the last one.
+     * Returns the appended frame, or null when the lines equal the newest snapshot.
+     */
+    Frame append(List<String> lines, long timestamp, String fingerprint, int keyframeInterval) throws IOException {
+        Frame last = last();
+        List<String> previous = last != null ? lines(frames.size() - 1) : List.of();
+        if (last != null && previous.equals(lines)) {
+            return null;
+        }
+        Frame frame = write(last != null ? last.seq + 1 : 1, timestamp, fingerprint, previous, lines,
+                keyframeInterval);
+        channel.force(false);
+        cachedLines = new SoftReference<>(Collections.unmodifiableList(new ArrayList<>(lines)));
+        cachedIndex = frames.size() - 1;
+        return frame;
+    }
+
+    /**
+     * Appends a frame that keeps the sequence number, time and fingerprint of a frame
+     * from another segment; compaction uses it to re-base the snapshots it keeps
+     */
+    Frame copy(Frame source, List<String> previous, List<String> lines, int keyframeInterval) throws IOException {
+        return write(source.seq, source.timestamp, source.fingerprint, previous, lines, keyframeInterval);
+    }
+
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    private Frame write(long seq, long timestamp, String fingerprint, List<String> previous, List<String> lines,
+            int keyframeInterval) throws IOException {
+        int sinceKeyframe = 0;
+        for (int i = frames.size() - 1; i >= 0 && frames.get(i).type != KEYFRAME; i--) {
+            sinceKeyframe++;
+        }
+        byte type = frames.isEmpty() || sinceKeyframe + 1 >= keyframeInterval ? KEYFRAME : DELTA;
+        List<String> base = type == KEYFRAME ? List.of() : previous;
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(body);
+        header.writeByte(type);
+        header.writeLong(seq);
+        header.writeLong(timestamp);
+        header.writeUTF(fingerprint != null ? fingerprint : "");
+        header.writeInt(lines.size());
+        header.flush();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DataOutputStream payload = new DataOutputStream(new DeflaterOutputStream(body, deflater, 8192))) {
+            LineDelta.encode(base, lines, payload);
+        } finally {
+            deflater.end();
+        }
+
+        byte[] bytes = body.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        ByteBuffer frame = ByteBuffer.allocate(8 + bytes.length);
+        frame.putInt(bytes.length).putInt((int) crc.getValue()).put(bytes).flip();
+        long offset = end;
+        while (frame.hasRemaining()) {
+            channel.write(frame, offset + frame.position());
+        }
+        end = offset + frame.capacity();
+        Frame written = new Frame(offset, bytes.length, type, seq, timestamp, fingerprint != null ? fingerprint : "",
+                lines.size());
+        frames.add(written);
+        return written;
+    }
+
+    private List<String> decode(Frame frame, List<String> previous) throws IOException {
+        byte[] body = body(frame);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        if ((int) crc.getValue() != mapped().getInt((int) frame.offset + 4)) {
+            throw new IOException("Corrupt snapshot " + frame.seq + " in " + file);
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        in.skipBytes(1 + 8 + 8);
+        in.readUTF();
+        in.readInt();
+        try (DataInputStream payload = new DataInputStream(new InflaterInputStream(in))) {
+            List<String> lines = LineDelta.apply(frame.type == KEYFRAME ? List.of() : previous, payload);
+            if (lines.size() != frame.lineCount) {
+                throw new IOException("Snapshot " + frame.seq + " in " + file + " has " + lines.size()
+                        + " lines, expected " + frame.lineCount);
+            }
+            return lines;
+        }
+    }
+
+    private boolean checksumMatches(Frame frame) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(body(frame));
+        return (int) crc.getValue() == mapped().getInt((int) frame.offset + 4);
+    }
+
+    private byte[] body(Frame frame) throws IOException {
+        byte[] body = new byte[frame.length];
+        mapped().get((int) frame.offset + 8, body);
+        return body;
+    }
+
+    // Frames appended since the file was mapped are past the mapping's end
+    private MappedByteBuffer mapped() throws IOException {
+        if (mapped == null || mapped.capacity() < end) {
+            if (end > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot segment too large: " + file);
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, end);
+        }
+        return mapped;
+    }
+
+    @Override
+    public void close() throws IOException {
+        mapped = null;
+        channel.close();
+    }
+
+    /**
+     * Sequential reads over a buffer without copying it
+     */
+    private static final class ByteBufferInput extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInput(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
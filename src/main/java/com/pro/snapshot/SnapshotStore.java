@@ -0,0 +1,504 @@
+package com.pro.snapshot;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pro.apigraph.model.Dependency;
+import com.pro.model.ProjectAnalysis;
+import com.pro.service.AnalysisCache;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * On-disk history of analyses and scans. Every project gets one append-only
+ * segment per kind under the snapshot directory, holding each snapshot as a delta
+ * against the one before it, so a long history of a slowly changing project costs
+ * little more than its first snapshot. Snapshots are written off the request thread,
+ * read lazily through memory-mapped segments, and a background compaction drops
+ * snapshots outside the retention limits.
+ */
+@Service
+public class SnapshotStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotStore.class);
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    public enum Kind {
+        ANALYSIS, SCAN;
+
+        String directory() {
+            return name().toLowerCase();
+        }
+
+        /**
+         * Parses a kind name, defaulting to ANALYSIS
+         */
+        public static Kind parse(String value) {
+            if (value == null || value.trim().isEmpty()) {
+                return ANALYSIS;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown snapshot kind: " + value + ", expected analysis or scan");
+            }
+        }
+    }
+
+    private final SnapshotLines snapshotLines;
+    private final boolean enabled;
+    private final Path directory;
+    private final int keyframeInterval;
+    private final int maxPerProject;
+    private final long maxAgeMillis;
+
+    private final ThreadPoolExecutor writer;
+    private final ScheduledExecutorService compactor;
+    private final Map<Path, SnapshotSegment> segments = new HashMap<>();
+    private final ConcurrentHashMap<Path, Object> locks = new ConcurrentHashMap<>();
+
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong unchanged = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong restored = new AtomicLong();
+    private final AtomicLong compactions = new AtomicLong();
+    private final AtomicLong removedByCompaction = new AtomicLong();
+    private final AtomicLong bytesReclaimed = new AtomicLong();
+
+    public SnapshotStore(ObjectMapper objectMapper,
+            @Value("${analyzer.snapshots.enabled:true}") boolean enabled,
+            @Value("${analyzer.snapshots.dir:${user.home}/.pro-analyzer/snapshots}") String directory,
+            @Value("${analyzer.snapshots.keyframe-interval:32}") int keyframeInterval,
+            @Value("${analyzer.snapshots.max-per-project:500}") int maxPerProject,
+            @Value("${analyzer.snapshots.max-age-days:90}") int maxAgeDays,
+            @Value("${analyzer.snapshots.compaction-interval-minutes:30}") long compactionMinutes) {
+        this.snapshotLines = new SnapshotLines(
+                objectMapper.copy().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES));
+        this.enabled = enabled;
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+        this.keyframeInterval = Math.max(1, keyframeInterval);
+        this.maxPerProject = Math.max(1, maxPerProject);
+        this.maxAgeMillis = TimeUnit.DAYS.toMillis(Math.max(1, maxAgeDays));
+
+        // One writer keeps appends to a segment in submission order
+        this.writer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(256),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "snapshot-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "snapshot-compactor");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        if (enabled && compactionMinutes > 0) {
+            compactor.scheduleWithFixedDelay(this::compactQuietly, compactionMinutes, compactionMinutes,
+                    TimeUnit.MINUTES);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues a snapshot of the analysis; fingerprint is the project's source
+     * fingerprint taken before it was analyzed
+     */
+    public void recordAnalysis(String projectPath, String fingerprint, ProjectAnalysis analysis) {
+        record(Kind.ANALYSIS, projectPath, fingerprint, analysis.getAnalysisTimestamp(),
+                () -> snapshotLines.fromAnalysis(analysis));
+    }
+
+    /**
+     * Queues a snapshot of the dependencies found by a scan
+     */
+    public void recordScan(String projectPath, String fingerprint, List<Dependency> dependencies) {
+        record(Kind.SCAN, projectPath, fingerprint, System.currentTimeMillis(),
+                () -> snapshotLines.fromScan(dependencies));
+    }
+
+    private void record(Kind kind, String projectPath, String fingerprint, long timestamp,
+            Callable<List<String>> lines) {
+        if (!enabled) {
+            return;
+        }
+        Path file = file(kind, projectPath);
+        String key = AnalysisCache.canonicalPath(projectPath);
+        try {
+            writer.execute(() -> {
+                try {
+                    List<String> snapshot = lines.call();
+                    synchronized (lock(file)) {
+                        SnapshotSegment segment = segment(file);
+                        if (segment == null) {
+                            segment = SnapshotSegment.create(file, key);
+                            put(file, segment);
+                        }
+                        SnapshotSegment.Frame frame = segment.append(snapshot, timestamp, fingerprint,
+                                keyframeInterval);
+                        if (frame == null) {
+                            unchanged.incrementAndGet();
+                        } else {
+                            appended.incrementAndGet();
+                            logger.debug("Recorded {} snapshot {} of {} ({} bytes)", kind.directory(), frame.seq,
+                                    key, frame.size());
+                        }
+                    }
+                } catch (Exception e) {
+                    failed.incrementAndGet();
+                    logger.warn("Could not record {} snapshot of {}: {}", kind.directory(), key, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            dropped.incrementAndGet();
+            logger.warn("Snapshot queue full, dropped {} snapshot of {}", kind.directory(), key);
+        }
+    }
+
+    /**
+     * The newest analysis snapshot of the project if it was taken from the same
+     * sources, or null
+     */
+    public ProjectAnalysis restoreAnalysis(String projectPath, String fingerprint) {
+        List<String> lines = restore(Kind.ANALYSIS, projectPath, fingerprint);
+        return lines != null ? snapshotLines.toAnalysis(lines) : null;
+    }
+
+    /**
+     * The newest scan snapshot of the project if it was taken from the same files, or null
+     */
+    public List<Dependency> restoreScan(String projectPath, String fingerprint) {
+        List<String> lines = restore(Kind.SCAN, projectPath, fingerprint);
+        return lines != null ? snapshotLines.toScan(lines) : null;
+    }
+
+    private List<String> restore(Kind kind, String projectPath, String fingerprint) {
+        if (!enabled) {
+            return null;
+        }
+        Path file = file(kind, projectPath);
+        try {
+            synchronized (lock(file)) {
+                SnapshotSegment segment = segment(file);
+                SnapshotSegment.Frame last = segment != null ? segment.last() : null;
+                if (last == null || !last.fingerprint.equals(fingerprint)) {
+                    return null;
+                }
+                List<String> lines = segment.lines(segment.frames().size() - 1);
+                restored.incrementAndGet();
+                return lines;
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not restore {} snapshot of {}: {}", kind.directory(), projectPath, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Sequence number, time and size of every retained snapshot of a project, oldest first
+     */
+    public Map<String, Object> history(Kind kind, String projectPath) {
+        Path file = file(kind, projectPath);
+        List<Map<String, Object>> snapshots = new ArrayList<>();
+        long bytes = 0;
+        synchronized (lock(file)) {
+            SnapshotSegment segment = openForRead(file);
+            if (segment != null) {
+                for (SnapshotSegment.Frame frame : segment.frames()) {
+                    Map<String, Object> snapshot = new LinkedHashMap<>();
+                    snapshot.put("seq", frame.seq);
+                    snapshot.put("timestamp", frame.timestamp);
+                    snapshot.put("fingerprint", frame.fingerprint);
+                    snapshot.put("keyframe", frame.type == SnapshotSegment.KEYFRAME);
+                    snapshot.put("records", frame.lineCount);
+                    snapshot.put("bytes", frame.size());
+                    snapshots.add(snapshot);
+                }
+                bytes = segment.sizeOnDisk();
+            }
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("projectPath", AnalysisCache.canonicalPath(projectPath));
+        result.put("kind", kind.directory());
+        result.put("count", snapshots.size());
+        result.put("bytes", bytes);
+        result.put("snapshots", snapshots);
+        return result;
+    }
+
+    /**
+     * The analysis snapshot with the given sequence number or, when seq is null, the
+     * newest one taken at or before the timestamp
+     */
+    public ProjectAnalysis analysis(String projectPath, Long seq, Long at) {
+        return snapshotLines.toAnalysis(lines(Kind.ANALYSIS, projectPath, seq, at));
+    }
+
+    /**
+     * The scan snapshot with the given sequence number or, when seq is null, the
+     * newest one taken at or before the timestamp
+     */
+    public List<Dependency> scan(String projectPath, Long seq, Long at) {
+        return snapshotLines.toScan(lines(Kind.SCAN, projectPath, seq, at));
+    }
+
+    private List<String> lines(Kind kind, String projectPath, Long seq, Long at) {
+        Path file = file(kind, projectPath);
+        synchronized (lock(file)) {
+            SnapshotSegment segment = openForRead(file);
+            if (segment == null || segment.last() == null) {
+                throw new IllegalArgumentException("No " + kind.directory() + " snapshots of " + projectPath);
+            }
+            int index;
+            if (seq != null) {
+                index = segment.indexOf(seq);
+            } else if (at != null) {
+                index = segment.indexAt(at);
+            } else {
+                index = segment.frames().size() - 1;
+            }
+            if (index < 0) {
+                throw new IllegalArgumentException(seq != null
+                        ? "No " + kind.directory() + " snapshot " + seq + " of " + projectPath
+                        : "No " + kind.directory() + " snapshot of " + projectPath + " at or before " + at);
+            }
+            try {
+                return segment.lines(index);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not read snapshot: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Rewrites every segment that holds snapshots outside the retention limits,
+     * keeping the newest maxPerProject snapshots younger than maxAgeDays and always
+     * the newest one
+     */
+    public Map<String, Object> compact() {
+        long start = System.nanoTime();
+        int rewritten = 0;
+        long removed = 0;
+        long reclaimed = 0;
+        for (Path file : segmentFiles()) {
+            synchronized (lock(file)) {
+                try {
+                    SnapshotSegment segment = segment(file);
+                    if (segment == null) {
+                        continue;
+                    }
+                    long before = segment.sizeOnDisk();
+                    int count = segment.frames().size();
+                    SnapshotSegment compacted = compact(segment);
+                    if (compacted != null) {
+                        put(file, compacted);
+                        rewritten++;
+                        removed += count - compacted.frames().size();
+                        reclaimed += before - compacted.sizeOnDisk();
+                    }
+                } catch (IOException | RuntimeException e) {
+                    // Reopened from whichever file is in place on next use
+                    remove(file);
+                    logger.warn("Could not compact snapshot segment {}: {}", file, e.getMessage());
+                }
+            }
+        }
+        compactions.incrementAndGet();
+        removedByCompaction.addAndGet(removed);
+        bytesReclaimed.addAndGet(reclaimed);
+        if (rewritten > 0) {
+            logger.info("Compacted {} snapshot segments, removed {} snapshots and {} bytes", rewritten, removed,
+                    reclaimed);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("segmentsRewritten", rewritten);
+        result.put("snapshotsRemoved", removed);
+        result.put("bytesReclaimed", reclaimed);
+        result.put("timeMs", (System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    // Re-bases the retained snapshots into a new file that replaces the segment; null if nothing expired
+    private SnapshotSegment compact(SnapshotSegment segment) throws IOException {
+        List<SnapshotSegment.Frame> frames = segment.frames();
+        int n = frames.size();
+        long cutoff = System.currentTimeMillis() - maxAgeMillis;
+        List<Integer> keep = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (i == n - 1 || (i >= n - maxPerProject && frames.get(i).timestamp >= cutoff)) {
+                keep.add(i);
+            }
+        }
+        if (keep.size() == n) {
+            return null;
+        }
+
+        Path file = segment.getFile();
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        List<String> previous = List.of();
+        try (SnapshotSegment target = SnapshotSegment.create(temporary, segment.getProjectPath())) {
+            for (int index : keep) {
+                List<String> lines = segment.lines(index);
+                target.copy(frames.get(index), previous, lines, keyframeInterval);
+                previous = lines;
+            }
+            target.force();
+        }
+        segment.close();
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return SnapshotSegment.open(file);
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (RuntimeException e) {
+            logger.warn("Snapshot compaction failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Counters and on-disk totals
+     */
+    public Map<String, Object> stats() {
+        int segmentCount = 0;
+        long snapshots = 0;
+        long bytes = 0;
+        for (Path file : segmentFiles()) {
+            synchronized (lock(file)) {
+                SnapshotSegment segment = openForRead(file);
+                if (segment != null) {
+                    segmentCount++;
+                    snapshots += segment.frames().size();
+                    bytes += segment.sizeOnDisk();
+                }
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("directory", directory.toString());
+        stats.put("segments", segmentCount);
+        stats.put("snapshots", snapshots);
+        stats.put("bytes", bytes);
+        stats.put("appended", appended.get());
+        stats.put("unchanged", unchanged.get());
+        stats.put("restored", restored.get());
+        stats.put("dropped", dropped.get());
+        stats.put("failed", failed.get());
+        stats.put("pendingWrites", writer.getQueue().size());
+        stats.put("compactions", compactions.get());
+        stats.put("removedByCompaction", removedByCompaction.get());
+        stats.put("bytesReclaimed", bytesReclaimed.get());
+        stats.put("keyframeInterval", keyframeInterval);
+        stats.put("maxPerProject", maxPerProject);
+        stats.put("maxAgeDays", TimeUnit.MILLISECONDS.toDays(maxAgeMillis));
+        return stats;
+    }
+
+    private SnapshotSegment openForRead(Path file) {
+        try {
+            return segment(file);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not open snapshot segment: " + e.getMessage(), e);
+        }
+    }
+
+    // Callers hold the file's lock
+    private SnapshotSegment segment(Path file) throws IOException {
+        SnapshotSegment segment;
+        synchronized (segments) {
+            segment = segments.get(file);
+        }
+        if (segment == null) {
+            segment = SnapshotSegment.open(file);
+            if (segment != null) {
+                put(file, segment);
+            }
+        }
+        return segment;
+    }
+
+    private void put(Path file, SnapshotSegment segment) {
+        synchronized (segments) {
+            segments.put(file, segment);
+        }
+    }
+
+    private void remove(Path file) {
+        SnapshotSegment segment;
+        synchronized (segments) {
+            segment = segments.remove(file);
+        }
+        if (segment != null) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                logger.debug("Could not close {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    private Object lock(Path file) {
+        return locks.computeIfAbsent(file, f -> new Object());
+    }
+
+    private List<Path> segmentFiles() {
+        List<Path> files = new ArrayList<>();
+        for (Kind kind : Kind.values()) {
+            Path kindDirectory = directory.resolve(kind.directory());
+            if (!Files.isDirectory(kindDirectory)) {
+                continue;
+            }
+            try (Stream<Path> stream = Files.list(kindDirectory)) {
+                stream.filter(p -> p.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().forEach(files::add);
+            } catch (IOException e) {
+                logger.warn("Could not list snapshot segments in {}: {}", kindDirectory, e.getMessage());
+            }
+        }
+        return files;
+    }
+
+    private Path file(Kind kind, String projectPath) {
+        String key = AnalysisCache.canonicalPath(projectPath);
+        return directory.resolve(kind.directory())
+                .resolve(DigestUtils.md5DigestAsHex(key.getBytes(StandardCharsets.UTF_8)) + SEGMENT_SUFFIX);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        compactor.shutdownNow();
+        // Let queued snapshots reach disk
+        writer.shutdown();
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (segments) {
+            for (SnapshotSegment segment : segments.values()) {
+                try {
+                    segment.close();
+                } catch (IOException e) {
+                    logger.debug("Could not close {}: {}", segment.getFile(), e.getMessage());
+                }
+            }
+            segments.clear();
+        }
+    }
+}
@@ -7,6 +7,7 @@ document.addEventListener('DOMContentLoaded', () => {
     const exportBtn = document.getElementById('exportBtn');
 
     let cy = null;
+    let presetPositions = null;
 
     form.addEventListener('submit', async (e) => {
         e.preventDefault();
@@ -20,7 +21,7 @@ document.addEventListener('DOMContentLoaded', () => {
             const response = await fetch('/api/scan', {
                 method: 'POST',
                 headers: { 'Content-Type': 'application/json' },
-                body: JSON.stringify({ path })
+                body: JSON.stringify({ path, format: 'compact' })
             });
 
             if (!response.ok) {
@@ -28,7 +29,7 @@ document.addEventListener('DOMContentLoaded', () => {
             }
 
             const data = await response.json();
-            renderGraph(data);
+            renderGraph(data.format === 'compact' ? decodeCompactGraph(data) : data);
 
         } catch (error) {
             console.error(error);
@@ -78,6 +79,8 @@ document.addEventListener('DOMContentLoaded', () => {
             return;
         }
 
+        presetPositions = computePresetPositions(elements.elements.nodes);
+
         cy = cytoscape({
             container: document.getElementById('cy'),
             elements: elements.elements,
@@ -136,7 +139,38 @@ document.addEventListener('DOMContentLoaded', () => {
         });
     }
 
+    function computePresetPositions(nodes) {
+        if (!nodes.length) return null;
+        // Prefer the server-side force layout, then fall back to layer/order placement
+        if (nodes[0].position) {
+            const positions = {};
+            nodes.forEach(n => { positions[n.data.id] = { x: n.position.x, y: n.position.y }; });
+            return positions;
+        }
+        if (nodes[0].data.layer === undefined) return null;
+        const widths = {};
+        nodes.forEach(n => {
+            widths[n.data.layer] = Math.max(widths[n.data.layer] || 0, n.data.order + 1);
+        });
+        const positions = {};
+        nodes.forEach(n => {
+            positions[n.data.id] = {
+                x: (n.data.order - (widths[n.data.layer] - 1) / 2) * 160,
+                y: n.data.layer * 140
+            };
+        });
+        return positions;
+    }
+
     function getLayoutConfig() {
+        if (presetPositions) {
+            return {
+                name: 'preset',
+                positions: node => presetPositions[node.id()],
+                fit: true,
+                padding: 30
+            };
+        }
         return {
             name: 'cose',
             animate: true,
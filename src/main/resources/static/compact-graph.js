@@ -0,0 +1,34 @@
+// Expands the compact wire format (node table, index pairs, dictionary) into Cytoscape elements
+function decodeCompactGraph(data) {
+    const table = data.nodes;
+    const dictionary = data.dictionary;
+    const nodes = table.id.map((id, i) => {
+        const node = { data: { id, label: table.label ? table.label[i] : id } };
+        if (table.type) node.data.type = dictionary[table.type[i]];
+        if (table.module) node.data.module = dictionary[table.module[i]];
+        if (table.layer) node.data.layer = table.layer[i];
+        if (table.order) node.data.order = table.order[i];
+        if (table.x) node.position = { x: table.x[i], y: table.y[i] };
+        return node;
+    });
+    const pairs = data.edges.pairs;
+    const edges = [];
+    for (let e = 0; e < pairs.length / 2; e++) {
+        const method = data.edges.method ? dictionary[data.edges.method[e]] : '';
+        const label = data.edges.label ? dictionary[data.edges.label[e]] : '';
+        const edge = {
+            data: {
+                id: 'e' + (e + 1),
+                source: table.id[pairs[2 * e]],
+                target: table.id[pairs[2 * e + 1]],
+                label: (method ? method + ' ' : '') + label,
+                method
+            }
+        };
+        // Entry 0 of the dictionary marks edges without a route or handler
+        if (data.edges.route && data.edges.route[e]) edge.data.route = dictionary[data.edges.route[e]];
+        if (data.edges.handler && data.edges.handler[e]) edge.data.handler = dictionary[data.edges.handler[e]];
+        edges.push(edge);
+    }
+    return { graphVersion: data.version, elements: { nodes, edges } };
+}
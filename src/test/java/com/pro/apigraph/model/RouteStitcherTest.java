@@ -0,0 +1,104 @@
+package com.pro.apigraph.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteStitcherTest {
+
+    @Test
+    void callsResolveToTheServiceHandlingThePath() {
+        Dependency get = endpoint("orders", "GET", "/orders/{id}", "OrderController.get");
+        Dependency create = endpoint("orders", "POST", "/orders", "OrderController.create");
+        Dependency byPlaceholder = call("billing", "${orders.url}", "/orders/42", "GET");
+        Dependency byHost = call("billing", "orders.default.svc", "/orders?dryRun=true", "POST");
+        List<Dependency> dependencies = List.of(get, create, byPlaceholder, byHost);
+
+        List<Dependency> stitched = RouteStitcher.stitch(dependencies);
+
+        assertEquals(4, stitched.size());
+        assertSame(get, stitched.get(0));
+        assertSame(create, stitched.get(1));
+        assertResolved(stitched.get(2), "billing", "orders", "/orders/{id}", "OrderController.get");
+        assertEquals("/orders/42", stitched.get(2).getLabel());
+        assertEquals("GET", stitched.get(2).getHttpMethod());
+        assertResolved(stitched.get(3), "billing", "orders", "/orders", "OrderController.create");
+        // The calls themselves are left as they were
+        assertEquals("${orders.url}", byPlaceholder.getTarget());
+        assertNull(byPlaceholder.getRoute());
+        assertNull(byHost.getHandler());
+    }
+
+    @Test
+    void knownHostsOnlyResolveToThemselves() {
+        List<Dependency> dependencies = List.of(
+                endpoint("orders", "GET", "/orders/{id}", "OrderController.get"),
+                endpoint("billing", "GET", "/invoices", "InvoiceController.list"),
+                call("gateway", "billing", "/orders/1", "GET"));
+
+        List<Dependency> stitched = RouteStitcher.stitch(dependencies);
+
+        assertSame(dependencies.get(2), stitched.get(2));
+    }
+
+    @Test
+    void pathsServedByManyServicesNeedAHost() {
+        List<Dependency> dependencies = List.of(
+                endpoint("orders", "GET", "/status", "OrderStatus.get"),
+                endpoint("billing", "GET", "/status", "BillingStatus.get"),
+                call("gateway", "${status.url}", "/status", "GET"),
+                call("gateway", "billing", "/status", "GET"));
+
+        List<Dependency> stitched = RouteStitcher.stitch(dependencies);
+
+        assertSame(dependencies.get(2), stitched.get(2));
+        assertResolved(stitched.get(3), "gateway", "billing", "/status", "BillingStatus.get");
+    }
+
+    @Test
+    void methodsMustMatchUnlessUnknown() {
+        List<Dependency> dependencies = List.of(
+                endpoint("orders", "GET", "/orders/{id}", "OrderController.get"),
+                call("billing", "orders", "/orders/1", "DELETE"),
+                call("billing", "orders", "/orders/1", null),
+                call("billing", "orders", "/", "GET"));
+
+        RouteStitcher stitcher = new RouteStitcher(dependencies);
+        List<Dependency> stitched = stitcher.resolve(dependencies);
+
+        assertEquals(1, stitcher.size());
+        assertSame(dependencies.get(1), stitched.get(1));
+        assertResolved(stitched.get(2), "billing", "orders", "/orders/{id}", "OrderController.get");
+        assertEquals("GET", stitched.get(2).getHttpMethod());
+        assertSame(dependencies.get(3), stitched.get(3));
+    }
+
+    @Test
+    void withoutEndpointsTheInputIsReturned() {
+        List<Dependency> dependencies = List.of(call("billing", "orders", "/orders/1", "GET"));
+        assertSame(dependencies, RouteStitcher.stitch(dependencies));
+    }
+
+    private static void assertResolved(Dependency d, String source, String target, String route, String handler) {
+        assertEquals(source, d.getSource());
+        assertEquals(target, d.getTarget());
+        assertEquals(route, d.getRoute());
+        assertEquals(handler, d.getHandler());
+    }
+
+    private static Dependency endpoint(String service, String method, String route, String handler) {
+        Dependency d = new Dependency("EXTERNAL", service, route, method + "-Endpoint");
+        d.setHttpMethod(method);
+        d.setRoute(route);
+        d.setHandler(handler);
+        return d;
+    }
+
+    private static Dependency call(String source, String host, String path, String method) {
+        Dependency d = new Dependency(source, host, path, "RestTemplate.exchange");
+        d.setHttpMethod(method);
+        return d;
+    }
+}
@@ -0,0 +1,113 @@
+package com.pro.apigraph.parser;
+
+import com.pro.apigraph.model.Dependency;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JavaFileParserTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void endpointsKeepPathVariablesAndSplitArrays() throws IOException {
+        List<Dependency> deps = parse("orders", """
+                @RestController
+                @RequestMapping("/orders")
+                class OrderController {
+                    @GetMapping("/{id}")
+                    Order get(@PathVariable long id) { return null; }
+
+                    @PostMapping
+                    Order create(@RequestBody Order order) { return null; }
+
+                    @GetMapping({"/recent", "archive"})
+                    List<Order> list() { return null; }
+
+                    @RequestMapping(value = "/legacy/{id}", method = RequestMethod.DELETE)
+                    void remove(@PathVariable long id) { }
+
+                    @RequestMapping(path = "/ping")
+                    String ping() { return "pong"; }
+                }
+                """);
+
+        assertEquals(List.of(
+                "EXTERNAL -> orders /orders/{id} GET-Endpoint GET /orders/{id} OrderController.get",
+                "EXTERNAL -> orders /orders POST-Endpoint POST /orders OrderController.create",
+                "EXTERNAL -> orders /orders/recent GET-Endpoint GET /orders/recent OrderController.list",
+                "EXTERNAL -> orders /orders/archive GET-Endpoint GET /orders/archive OrderController.list",
+                "EXTERNAL -> orders /orders/legacy/{id} DELETE-Endpoint DELETE /orders/legacy/{id} OrderController.remove",
+                // A bare RequestMapping serves every method
+                "EXTERNAL -> orders /orders/ping REQUEST-Endpoint null /orders/ping OrderController.ping"),
+                describe(deps));
+    }
+
+    @Test
+    void classArrayMappingsMultiplyMethodPaths() throws IOException {
+        List<Dependency> deps = parse("catalog", """
+                @RestController
+                @RequestMapping({"/v1", "/v2"})
+                class VersionController {
+                    @GetMapping("/items/{id}")
+                    Item item(@PathVariable long id) { return null; }
+                }
+                """);
+
+        List<String> routes = new ArrayList<>();
+        for (Dependency d : deps) {
+            routes.add(d.getRoute());
+        }
+        assertEquals(List.of("/v1/items/{id}", "/v2/items/{id}"), routes);
+    }
+
+    @Test
+    void outboundCallsKeepTheirPathAndMethod() throws IOException {
+        List<Dependency> deps = parse("payments", """
+                class BillingClient {
+                    void call(RestTemplate restTemplate, WebClient webClient, long id) {
+                        restTemplate.getForObject("${billing.url}/invoices/{id}", Invoice.class, id);
+                        restTemplate.exchange("http://billing:8080/invoices", HttpMethod.POST, null, Invoice.class);
+                        restTemplate.getForObject("http://%s/status", String.class);
+                        webClient.method(HttpMethod.PUT).uri("http://orders.default.svc/orders/1");
+                        webClient.get().uri("/orders/{id}", id);
+                    }
+                }
+                """);
+
+        assertEquals(List.of(
+                // A placeholder host makes the call config-dependent, but the path is kept
+                "payments -> config-dependent /invoices/{id} RestTemplate GET null null",
+                "payments -> billing /invoices RestTemplate POST null null",
+                "payments -> config-dependent /status RestTemplate GET null null",
+                "payments -> orders.default.svc /orders/1 WebClient PUT null null",
+                "payments -> unknown /orders/{id} WebClient GET null null"),
+                describe(deps));
+    }
+
+    @Test
+    void unparseableFilesYieldNothing() throws IOException {
+        assertEquals(List.of(), parse("broken", "class Broken { void x( }"));
+    }
+
+    private List<Dependency> parse(String service, String code) throws IOException {
+        Path file = Files.writeString(directory.resolve(service + ".java"), code);
+        return JavaFileParser.parse(file, service);
+    }
+
+    private static List<String> describe(List<Dependency> deps) {
+        List<String> out = new ArrayList<>();
+        for (Dependency d : deps) {
+            out.add(d.getSource() + " -> " + d.getTarget() + " " + d.getLabel() + " " + d.getMethod() + " "
+                    + d.getHttpMethod() + " " + d.getRoute() + " " + d.getHandler());
+        }
+        return out;
+    }
+}
@@ -0,0 +1,156 @@
+package com.pro.apigraph.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pro.apigraph.model.Dependency;
+import com.pro.apigraph.model.RepoScanner;
+import com.pro.job.AnalysisScheduler;
+import com.pro.job.ProgressListener;
+import com.pro.snapshot.SnapshotStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchScanServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private SnapshotStore snapshotStore;
+    private BatchScanService batchScanService;
+
+    @BeforeEach
+    void createServices() {
+        AnalysisScheduler scheduler = new AnalysisScheduler(2, 1, 8, 30);
+        snapshotStore = new SnapshotStore(new ObjectMapper(), false, directory.resolve("snapshots").toString(),
+                32, 500, 90, 0);
+        batchScanService = new BatchScanService(new ScanService(scheduler, snapshotStore, 1000), scheduler, 0, 500);
+    }
+
+    @AfterEach
+    void shutdown() {
+        batchScanService.shutdown();
+        snapshotStore.shutdown();
+    }
+
+    @Test
+    void repositoriesAreMergedAndCallsResolveAcrossThem() throws IOException {
+        Path orders = directory.resolve("orders-repo");
+        module(orders, "orders", "OrderController", """
+                @RestController
+                class OrderController {
+                    @GetMapping("/orders/{id}")
+                    Order get(@PathVariable long id) { return null; }
+
+                    void reserve(RestTemplate restTemplate) {
+                        restTemplate.getForObject("http://inventory/items", String.class);
+                    }
+                }
+                """);
+        shared(orders);
+        Path billing = directory.resolve("billing-repo");
+        module(billing, "billing", "InvoiceController", """
+                @RestController
+                class InvoiceController {
+                    @GetMapping("/invoices")
+                    List<Invoice> list() { return null; }
+
+                    void order(RestTemplate restTemplate, long id) {
+                        restTemplate.getForObject("${orders.url}/orders/{id}", Order.class, id);
+                    }
+                }
+                """);
+        shared(billing);
+        Path missing = directory.resolve("missing");
+
+        BatchScanService.BatchResult result = batchScanService.scan(
+                List.of(orders.toString(), billing.toString(), missing.toString()), ProgressListener.NONE);
+
+        List<Map<String, Object>> reports = result.getRepositories();
+        assertEquals(List.of("orders-repo", "billing-repo", "missing"),
+                reports.stream().map(r -> r.get("name")).toList());
+        assertEquals("failed", reports.get(2).get("status"));
+        assertEquals("Not a directory", reports.get(2).get("error"));
+        assertEquals(0, reports.get(2).get("dependencies"));
+        assertEquals("scanned", reports.get(0).get("status"));
+        assertFalse(reports.get(0).containsKey("error"));
+
+        // Repositories merge in request order, each as a single scan of it would list it
+        List<Dependency> merged = result.getDependencies();
+        List<Dependency> ordersScan = new RepoScanner(orders).scan();
+        assertEquals(ordersScan.size(), reports.get(0).get("dependencies"));
+        assertEquals(describe(ordersScan), describe(merged.subList(0, ordersScan.size())));
+
+        // Alone, the billing call has no host to go by; in the batch it resolves to orders
+        List<Dependency> billingScan = new RepoScanner(billing).scan();
+        assertEquals(billingScan.size(), reports.get(1).get("dependencies"));
+        assertTrue(billingScan.stream().noneMatch(d -> "/orders/{id}".equals(d.getLabel())));
+        List<Dependency> calls = merged.stream().filter(d -> "billing".equals(d.getSource())).toList();
+        assertEquals(1, calls.size());
+        assertEquals("orders", calls.get(0).getTarget());
+        assertEquals("/orders/{id}", calls.get(0).getRoute());
+        assertEquals("OrderController.get", calls.get(0).getHandler());
+
+        // The shared module's call is found in both repositories and listed once, which
+        // offsets the resolved call missing from billing's own count
+        assertEquals(1, merged.stream().filter(d -> "shared".equals(d.getSource())).count());
+        assertEquals(ordersScan.size() + billingScan.size(), merged.size());
+
+        Map<String, Object> summary = result.getSummary();
+        assertEquals(3, summary.get("repositories"));
+        assertEquals(1, summary.get("failed"));
+        assertEquals(merged.size(), summary.get("dependencies"));
+        assertEquals(1, summary.get("crossRepositoryDependencies"));
+        assertEquals(1, summary.get("resolvedCalls"));
+        assertEquals(result.getMerged().getGraph().nodeCount(), summary.get("services"));
+        assertEquals(0L, summary.get("fileCacheHits"));
+        assertEquals(4L, summary.get("fileCacheMisses"));
+
+        // Unchanged files are not parsed again
+        BatchScanService.BatchResult again = batchScanService.scan(
+                List.of(orders.toString(), billing.toString(), missing.toString()), ProgressListener.NONE);
+        assertEquals(4L, again.getSummary().get("fileCacheHits"));
+        assertEquals(0L, again.getSummary().get("fileCacheMisses"));
+        assertEquals(describe(merged), describe(again.getDependencies()));
+        assertEquals(result.getMerged().getVersion(), again.getMerged().getVersion());
+    }
+
+    @Test
+    void invalidBatchesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> batchScanService.scan(List.of(), ProgressListener.NONE));
+        assertThrows(IllegalArgumentException.class,
+                () -> batchScanService.scan(Arrays.asList("a", null), ProgressListener.NONE));
+    }
+
+    private static void module(Path repository, String service, String type, String code) throws IOException {
+        Path sources = Files.createDirectories(repository.resolve(service).resolve("src/main/java"));
+        Files.writeString(repository.resolve(service).resolve("pom.xml"), "<project/>");
+        Files.writeString(sources.resolve(type + ".java"), code);
+    }
+
+    private static void shared(Path repository) throws IOException {
+        module(repository, "shared", "AuditClient", """
+                class AuditClient {
+                    void publish(RestTemplate restTemplate) {
+                        restTemplate.postForObject("http://audit/events", null, Void.class);
+                    }
+                }
+                """);
+    }
+
+    private static List<String> describe(List<Dependency> deps) {
+        List<String> out = new ArrayList<>();
+        for (Dependency d : deps) {
+            out.add(d.getSource() + " -> " + d.getTarget() + " " + d.getLabel() + " " + d.getMethod() + " "
+                    + d.getHttpMethod() + " " + d.getRoute() + " " + d.getHandler());
+        }
+        return out;
+    }
+}
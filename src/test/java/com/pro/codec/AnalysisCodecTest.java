@@ -0,0 +1,273 @@
+package com.pro.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pro.model.ApiEndpoint;
+import com.pro.model.ComponentInfo;
+import com.pro.model.ModuleInfo;
+import com.pro.model.ProjectAnalysis;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisCodecTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    @Test
+    void roundTripKeepsNullAndEmptyCollectionsApart() throws IOException {
+        ProjectAnalysis analysis = analysis(3);
+        ComponentInfo bare = component("Bare", 0);
+        bare.setAnnotations(null);
+        bare.setMethods(new ArrayList<>());
+        bare.setPackageName(null);
+        analysis.getServices().add(bare);
+        ApiEndpoint endpoint = endpoint(0);
+        endpoint.setParameters(null);
+        endpoint.setRequestMappingDetails(new HashMap<>());
+        ApiEndpoint noDetails = endpoint(1);
+        noDetails.setRequestMappingDetails(null);
+        noDetails.setAnnotations(new ArrayList<>());
+        analysis.setApiEndpoints(List.of(endpoint, noDetails));
+        analysis.getDependencyGraph().put("Isolated", new ArrayList<>());
+        analysis.getDependencyGraph().put("Unknown", null);
+
+        ProjectAnalysis decoded = roundTrip(analysis);
+
+        assertSameAnalysis(analysis, decoded);
+        ComponentInfo decodedBare = decoded.getServices().get(decoded.getServices().size() - 1);
+        assertNull(decodedBare.getAnnotations());
+        assertEquals(List.of(), decodedBare.getMethods());
+        assertNull(decodedBare.getPackageName());
+        assertNull(decoded.getApiEndpoints().get(0).getParameters());
+        assertEquals(Map.of(), decoded.getApiEndpoints().get(0).getRequestMappingDetails());
+        assertNull(decoded.getApiEndpoints().get(1).getRequestMappingDetails());
+        assertEquals(List.of(), decoded.getDependencyGraph().get("Isolated"));
+        assertTrue(decoded.getDependencyGraph().containsKey("Unknown"));
+        assertNull(decoded.getDependencyGraph().get("Unknown"));
+    }
+
+    @Test
+    void missingSectionsDecodeAsEmpty() throws IOException {
+        ProjectAnalysis analysis = new ProjectAnalysis();
+        analysis.setProjectName("empty");
+
+        ProjectAnalysis decoded = roundTrip(analysis);
+
+        assertEquals("empty", decoded.getProjectName());
+        assertNull(decoded.getProjectPath());
+        for (AnalysisCodec.Category category : AnalysisCodec.Category.values()) {
+            assertEquals(List.of(), category.of(decoded), category.name());
+        }
+        assertEquals(List.of(), decoded.getApiEndpoints());
+        assertEquals(Map.of(), decoded.getDependencyGraph());
+        assertEquals(Map.of(), decoded.getPackageStructure());
+        assertEquals(List.of(), decoded.getModules());
+    }
+
+    @Test
+    void sectionsLargerThanOneChunkSplitAndRejoin() throws IOException {
+        int rows = AnalysisCodec.CHUNK_ROWS * 2 + 17;
+        ProjectAnalysis analysis = analysis(rows);
+
+        ProjectAnalysis decoded = roundTrip(analysis);
+
+        assertSameAnalysis(analysis, decoded);
+        assertEquals(rows, decoded.getControllers().size());
+        assertEquals(rows, decoded.getDependencyGraph().size());
+        // Entry order survives the chunking
+        assertEquals(new ArrayList<>(analysis.getDependencyGraph().keySet()),
+                new ArrayList<>(decoded.getDependencyGraph().keySet()));
+    }
+
+    @Test
+    void stringTableResetsBetweenChunks() throws IOException {
+        ProjectAnalysis analysis = analysis(AnalysisCodec.CHUNK_ROWS + 5);
+        ByteArrayOutputStream withResets = new ByteArrayOutputStream();
+        write(analysis, new AnalysisWriter(withResets, 16));
+        ByteArrayOutputStream withoutResets = new ByteArrayOutputStream();
+        write(analysis, new AnalysisWriter(withoutResets));
+
+        // Values repeated after a reset are written out again
+        assertTrue(withResets.size() > withoutResets.size());
+        ProjectAnalysis decoded = AnalysisCodec.read(new ByteArrayInputStream(withResets.toByteArray()));
+        assertSameAnalysis(analysis, decoded);
+    }
+
+    @Test
+    void everyTruncationIsReportedAsAnError() throws IOException {
+        byte[] bytes = encode(analysis(4));
+        for (int length = 0; length < bytes.length; length++) {
+            byte[] prefix = Arrays.copyOf(bytes, length);
+            assertThrows(IOException.class, () -> AnalysisCodec.read(new ByteArrayInputStream(prefix)),
+                    "prefix of " + length + " bytes");
+        }
+    }
+
+    @Test
+    void corruptInputIsRejected() throws IOException {
+        byte[] bytes = encode(analysis(2));
+
+        byte[] magic = bytes.clone();
+        magic[0] = 'X';
+        assertEquals("Not a binary analysis stream", decodeError(magic).getMessage());
+
+        byte[] version = bytes.clone();
+        version[AnalysisCodec.MAGIC.length] = 99;
+        assertEquals("Unsupported binary analysis version 99", decodeError(version).getMessage());
+
+        // The first record after magic and version is the header
+        byte[] tag = bytes.clone();
+        tag[AnalysisCodec.MAGIC.length + 1] = 42;
+        assertEquals("Unknown record tag 42", decodeError(tag).getMessage());
+
+        // Header whose first string refers to a table entry that was never defined
+        byte[] reference = Arrays.copyOf(bytes, AnalysisCodec.MAGIC.length + 3);
+        reference[AnalysisCodec.MAGIC.length + 2] = 7;
+        assertEquals("String reference 5 is not defined", decodeError(reference).getMessage());
+
+        byte[] rows = { 'P', 'R', 'O', 'A', AnalysisCodec.VERSION, AnalysisCodec.TAG_GRAPH,
+                (byte) 0xFF, (byte) 0xFF, 0x7F };
+        assertTrue(decodeError(rows).getMessage().contains("exceeds the limit"));
+
+        byte[] varint = { 'P', 'R', 'O', 'A', AnalysisCodec.VERSION, (byte) 0x80, (byte) 0x80, (byte) 0x80,
+                (byte) 0x80, (byte) 0x80, 0 };
+        assertEquals("Malformed varint", decodeError(varint).getMessage());
+    }
+
+    private static ProjectAnalysis analysis(int rows) {
+        ProjectAnalysis analysis = new ProjectAnalysis();
+        analysis.setProjectName("demo");
+        analysis.setProjectPath("/work/demo");
+        analysis.setMainClass("com.demo.DemoApplication");
+        analysis.setAnalysisTimestamp(1_700_000_000_000L);
+        List<ComponentInfo> controllers = new ArrayList<>();
+        List<ComponentInfo> services = new ArrayList<>();
+        List<ApiEndpoint> endpoints = new ArrayList<>();
+        Map<String, List<String>> graph = new LinkedHashMap<>();
+        Map<String, String> packages = new LinkedHashMap<>();
+        List<ModuleInfo> modules = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            controllers.add(component("Controller", i));
+            services.add(component("Service", i));
+            endpoints.add(endpoint(i));
+            graph.put("Controller" + i, List.of("Service" + i, "Service" + (i + 1) % rows));
+            packages.put("Controller" + i, "com.demo.web" + i % 7);
+            ModuleInfo module = new ModuleInfo("module" + i, "com.demo", "1." + i);
+            module.setPackaging(i % 2 == 0 ? "jar" : null);
+            module.setPath("/work/demo/module" + i);
+            module.setDependencies(i > 0 ? List.of("module" + (i - 1)) : null);
+            modules.add(module);
+        }
+        analysis.setControllers(controllers);
+        analysis.setServices(services);
+        analysis.setRepositories(new ArrayList<>());
+        analysis.setApiEndpoints(endpoints);
+        analysis.setDependencyGraph(graph);
+        analysis.setPackageStructure(packages);
+        analysis.setModules(modules);
+        return analysis;
+    }
+
+    private static ComponentInfo component(String kind, int i) {
+        ComponentInfo component = new ComponentInfo();
+        component.setClassName(kind + i);
+        component.setPackageName("com.demo." + kind.toLowerCase());
+        component.setComponentType(kind.toUpperCase());
+        component.setFullyQualifiedName("com.demo." + kind.toLowerCase() + "." + kind + i);
+        component.setFilePath("src/main/java/com/demo/" + kind + i + ".java");
+        component.setAnnotations(List.of(kind.equals("Controller") ? "RestController" : "Service"));
+        component.setImplementedInterfaces(new ArrayList<>());
+        component.setMethods(List.of("get" + i, "list", "ünïcødé"));
+        component.setDependencies(List.of("Service" + i));
+        component.setUsedBy(null);
+        return component;
+    }
+
+    private static ApiEndpoint endpoint(int i) {
+        ApiEndpoint endpoint = new ApiEndpoint();
+        endpoint.setPath("/api/items/" + i);
+        endpoint.setHttpMethod(i % 2 == 0 ? "GET" : "POST");
+        endpoint.setControllerClass("Controller" + i);
+        endpoint.setMethodName("handle" + i);
+        endpoint.setReturnType("ResponseEntity<Item>");
+        endpoint.setParameters(List.of("Long id"));
+        endpoint.setAnnotations(List.of("GetMapping"));
+        Map<String, String> details = new LinkedHashMap<>();
+        details.put("produces", "application/json");
+        details.put("consumes", null);
+        endpoint.setRequestMappingDetails(details);
+        return endpoint;
+    }
+
+    private static void write(ProjectAnalysis analysis, AnalysisWriter writer) throws IOException {
+        writer.header(analysis.getProjectName(), analysis.getProjectPath(), analysis.getMainClass(),
+                analysis.getAnalysisTimestamp());
+        for (AnalysisCodec.Category category : AnalysisCodec.Category.values()) {
+            List<ComponentInfo> components = category.of(analysis);
+            if (components != null) {
+                for (ComponentInfo component : components) {
+                    writer.component(category, component);
+                }
+            }
+        }
+        for (ApiEndpoint endpoint : analysis.getApiEndpoints()) {
+            writer.endpoint(endpoint);
+        }
+        for (Map.Entry<String, List<String>> entry : analysis.getDependencyGraph().entrySet()) {
+            writer.dependencies(entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<String, String> entry : analysis.getPackageStructure().entrySet()) {
+            writer.packageEntry(entry.getKey(), entry.getValue());
+        }
+        for (ModuleInfo module : analysis.getModules()) {
+            writer.module(module);
+        }
+        writer.finish();
+    }
+
+    private static byte[] encode(ProjectAnalysis analysis) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AnalysisCodec.write(analysis, out);
+        return out.toByteArray();
+    }
+
+    private static ProjectAnalysis roundTrip(ProjectAnalysis analysis) throws IOException {
+        return AnalysisCodec.read(new ByteArrayInputStream(encode(analysis)));
+    }
+
+    private static IOException decodeError(byte[] bytes) {
+        return assertThrows(IOException.class, () -> AnalysisCodec.read(new ByteArrayInputStream(bytes)));
+    }
+
+    // Sections the codec does not carry (null in the original) decode as empty
+    private static void assertSameAnalysis(ProjectAnalysis expected, ProjectAnalysis actual) {
+        assertEquals(expected.getProjectName(), actual.getProjectName());
+        assertEquals(expected.getProjectPath(), actual.getProjectPath());
+        assertEquals(expected.getMainClass(), actual.getMainClass());
+        assertEquals(expected.getAnalysisTimestamp(), actual.getAnalysisTimestamp());
+        for (AnalysisCodec.Category category : AnalysisCodec.Category.values()) {
+            assertEquals(json(orEmpty(category.of(expected))), json(category.of(actual)), category.name());
+        }
+        assertEquals(json(expected.getApiEndpoints()), json(actual.getApiEndpoints()));
+        assertEquals(expected.getDependencyGraph(), actual.getDependencyGraph());
+        assertEquals(expected.getPackageStructure(), actual.getPackageStructure());
+        assertEquals(json(expected.getModules()), json(actual.getModules()));
+    }
+
+    private static <T> List<T> orEmpty(List<T> list) {
+        return list != null ? list : List.of();
+    }
+
+    private static String json(Object value) {
+        try {
+            return JSON.writeValueAsString(value);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
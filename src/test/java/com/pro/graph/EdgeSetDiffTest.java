@@ -0,0 +1,110 @@
+package com.pro.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EdgeSetDiffTest {
+
+    @Test
+    void edgesAreAddedRemovedChangedOrUnchanged() {
+        EdgeSetDiff.Edges base = new EdgeSetDiff.Edges();
+        base.add("orders", "billing", "/invoices", "GET");
+        base.add("orders", "users", "/users", "GET");
+        base.add("billing", "users", null, null);
+        base.add("gateway", "orders", "/orders", "GET");
+
+        EdgeSetDiff.Edges head = new EdgeSetDiff.Edges();
+        head.add("orders", "users", "/users", "GET");
+        head.add("gateway", "orders", "/orders", "POST");
+        head.add("billing", "users", "", "");
+        head.add("billing", "audit", "/events", "POST");
+        head.add("audit", "users", "/users", "GET");
+
+        EdgeSetDiff.Result result = EdgeSetDiff.diff(base, head);
+
+        assertArrayEquals(new int[] { 0 }, result.removed());
+        // In lexicographic edge order, not insertion order
+        assertArrayEquals(new int[] { 4, 3 }, result.added());
+        assertEquals(1, result.changed().length);
+        assertArrayEquals(new int[] { 3, 1 }, result.changed()[0]);
+        // Null labels and methods equal empty ones
+        assertEquals(2, result.unchanged());
+    }
+
+    @Test
+    void emptySidesAreAllAddedOrAllRemoved() {
+        EdgeSetDiff.Edges empty = new EdgeSetDiff.Edges();
+        EdgeSetDiff.Edges edges = new EdgeSetDiff.Edges();
+        edges.add("b", "c", "/x", "GET");
+        edges.add("a", "b", "/x", "GET");
+
+        assertArrayEquals(new int[] { 1, 0 }, EdgeSetDiff.diff(empty, edges).added());
+        assertArrayEquals(new int[] { 1, 0 }, EdgeSetDiff.diff(edges, empty).removed());
+        EdgeSetDiff.Result none = EdgeSetDiff.diff(empty, empty);
+        assertEquals(0, none.added().length + none.removed().length + none.changed().length + none.unchanged());
+    }
+
+    @Test
+    void duplicateIdentitiesKeepTheSmallestMethod() {
+        EdgeSetDiff.Edges base = new EdgeSetDiff.Edges();
+        base.add("a", "b", "/x", "POST");
+        base.add("a", "b", "/x", "GET");
+        base.add("a", "c", "/y", "PUT");
+        base.add("a", "c", "/y", "PUT");
+
+        EdgeSetDiff.Edges head = new EdgeSetDiff.Edges();
+        head.add("a", "b", "/x", "GET");
+        head.add("a", "d", "/z", "GET");
+        head.add("a", "d", "/z", "GET");
+        head.add("a", "c", "/y", "DELETE");
+        head.add("a", "c", "/y", "PUT");
+
+        EdgeSetDiff.Result result = EdgeSetDiff.diff(base, head);
+
+        // GET is kept over POST on the base side, so a -> b is unchanged
+        assertEquals(1, result.unchanged());
+        // DELETE is kept over PUT on the head side, against the first of the two base PUTs
+        assertEquals(1, result.changed().length);
+        assertArrayEquals(new int[] { 2, 3 }, result.changed()[0]);
+        // A repeated added edge is reported once, by its first index
+        assertArrayEquals(new int[] { 1 }, result.added());
+        assertEquals(0, result.removed().length);
+    }
+
+    @Test
+    void tablesTooLargeToPackGiveTheSameResult() {
+        // 2 * 18 node bits + 16 label bits + 15 method bits no longer fit in a long
+        EdgeSetDiff.Edges base = new EdgeSetDiff.Edges();
+        EdgeSetDiff.Edges head = new EdgeSetDiff.Edges();
+        int n = 70_000;
+        for (int i = 0; i < n; i++) {
+            String source = "s" + i;
+            String target = "t" + i;
+            String label = "/l" + (i % 40_000);
+            String method = "m" + (i % 20_000);
+            if (i % 10 != 0) {
+                base.add(source, target, label, method);
+            }
+            if (i % 10 == 1) {
+                head.add(source, target, label, "changed");
+            } else if (i % 10 != 2) {
+                head.add(source, target, label, method);
+            }
+        }
+        head.add("s1", "t1", "/l1", "changed");
+
+        EdgeSetDiff.Result result = EdgeSetDiff.diff(base, head);
+
+        assertEquals(n / 10, result.added().length);
+        assertEquals(n / 10, result.removed().length);
+        assertEquals(n / 10, result.changed().length);
+        assertEquals(n - 3 * n / 10, result.unchanged());
+        for (int[] pair : result.changed()) {
+            assertEquals(base.source(pair[0]), head.source(pair[1]));
+            assertEquals("changed", head.method(pair[1]));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.pro.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReachabilityIndexTest {
+
+    @Test
+    void bothStrategiesAgreeWithBreadthFirstSearch() {
+        Random random = new Random(42);
+        CompactGraph.Builder builder = new CompactGraph.Builder();
+        int n = 300;
+        for (int i = 0; i < n; i++) {
+            builder.addNode("n" + i);
+        }
+        for (int e = 0; e < 600; e++) {
+            builder.addEdge(random.nextInt(n), random.nextInt(n));
+        }
+        CompactGraph graph = builder.build();
+
+        ReachabilityIndex closure = new ReachabilityIndex(graph);
+        ReachabilityIndex labels = new ReachabilityIndex(graph, 0);
+        assertEquals(ReachabilityIndex.Strategy.BITSET_CLOSURE, closure.getStrategy());
+        assertEquals(ReachabilityIndex.Strategy.INTERVAL_LABELING, labels.getStrategy());
+
+        for (int s = 0; s < n; s++) {
+            boolean[] expected = bfs(graph, s);
+            Set<Integer> expectedSet = new HashSet<>();
+            for (int t = 0; t < n; t++) {
+                assertEquals(expected[t], closure.reaches(s, t), "closure " + s + "->" + t);
+                assertEquals(expected[t], labels.reaches(s, t), "labels " + s + "->" + t);
+                if (expected[t] && t != s) {
+                    expectedSet.add(t);
+                }
+            }
+            assertEquals(expectedSet, toSet(closure.descendants(s)));
+            assertEquals(expectedSet, toSet(labels.descendants(s)));
+        }
+    }
+
+    @Test
+    void ancestorsAreTheReverseOfDescendants() {
+        CompactGraph graph = CompactGraph.fromDependencyGraph(Map.of(
+                "Controller", List.of("Service"),
+                "Service", List.of("Repository", "Helper"),
+                "Helper", List.of("Service")));
+        ReachabilityIndex index = new ReachabilityIndex(graph);
+
+        Set<String> dependents = new HashSet<>();
+        for (int node : index.ancestors(graph.id("Repository"))) {
+            dependents.add(graph.name(node));
+        }
+        assertEquals(Set.of("Controller", "Service", "Helper"), dependents);
+        assertTrue(index.reaches(graph.id("Service"), graph.id("Service")));
+        assertFalse(index.reaches(graph.id("Controller"), graph.id("Controller")));
+    }
+
+    private static boolean[] bfs(CompactGraph graph, int source) {
+        boolean[] seen = new boolean[graph.nodeCount()];
+        Deque<Integer> queue = new ArrayDeque<>();
+        queue.add(source);
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+            for (int i = 0; i < graph.outDegree(u); i++) {
+                int v = graph.outTarget(u, i);
+                if (!seen[v]) {
+                    seen[v] = true;
+                    queue.add(v);
+                }
+            }
+        }
+        return seen;
+    }
+
+    private static Set<Integer> toSet(int[] values) {
+        Set<Integer> set = new HashSet<>();
+        for (int v : values) {
+            set.add(v);
+        }
+        return set;
+    }
+}
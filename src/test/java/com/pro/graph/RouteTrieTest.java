@@ -0,0 +1,160 @@
+package com.pro.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteTrieTest {
+
+    @Test
+    void literalsBeatVariablesAndVariablesBeatCatchAlls() {
+        RouteTrie<String> trie = new RouteTrie<>();
+        trie.add("GET", "/users/me", "me");
+        trie.add("GET", "/users/{id}", "byId");
+        trie.add("GET", "/users/**", "rest");
+        trie.add("GET", "/users/{id}/orders", "orders");
+
+        assertMatch(trie, "GET", "/users/me", "me", 0);
+        assertMatch(trie, "GET", "/users/42", "byId", 1);
+        assertMatch(trie, "GET", "/users/42/orders", "orders", 1);
+        assertMatch(trie, "GET", "/users/42/orders/7", "rest", 1);
+        // A catch-all also matches the path it hangs off
+        assertMatch(trie, "GET", "/users", "rest", 1);
+        assertNull(trie.match("GET", "/accounts/1"));
+        assertEquals(4, trie.size());
+    }
+
+    @Test
+    void deadEndLiteralsBacktrackToVariables() {
+        RouteTrie<String> trie = new RouteTrie<>();
+        trie.add("GET", "/a/b/d", "literal");
+        trie.add("GET", "/a/{x}/c", "variable");
+
+        assertMatch(trie, "GET", "/a/b/d", "literal", 0);
+        assertMatch(trie, "GET", "/a/b/c", "variable", 1);
+    }
+
+    @Test
+    void placeholdersQueriesAndSlashesInPaths() {
+        RouteTrie<String> trie = new RouteTrie<>();
+        trie.add("GET", "/items/{id}", "byId");
+        trie.add("GET", "/items/new", "new");
+
+        // Unknown values only match variables, never a literal that happens to be there
+        assertMatch(trie, "GET", "/items/{itemId}", "byId", 1);
+        assertMatch(trie, "GET", "/items/%d", "byId", 1);
+        assertMatch(trie, "GET", "/items/new?draft=true#top", "new", 0);
+        assertMatch(trie, "GET", "//items//new/", "new", 0);
+    }
+
+    @Test
+    void methodRoutesBeatAnyMethodRoutesOfTheSameShape() {
+        RouteTrie<String> trie = new RouteTrie<>();
+        trie.add(null, "/items/{id}", "any");
+        trie.add("GET", "/items/{id}", "get");
+        trie.add("REQUEST", "/items/special", "anySpecial");
+
+        assertMatch(trie, "GET", "/items/1", "get", 1);
+        assertMatch(trie, "get", "/items/1", "get", 1);
+        assertMatch(trie, "POST", "/items/1", "any", 1);
+        // A more specific route of any method still beats the method's own route
+        assertMatch(trie, "GET", "/items/special", "anySpecial", 0);
+        // Without a method every root is tried; ties go to the first registered
+        assertMatch(trie, null, "/items/1", "any", 1);
+        assertNull(trie.match("DELETE", "/other"));
+    }
+
+    @Test
+    void methodsAreNormalized() {
+        assertEquals(RouteTrie.ANY_METHOD, RouteTrie.normalizeMethod(null));
+        assertEquals(RouteTrie.ANY_METHOD, RouteTrie.normalizeMethod(" "));
+        assertEquals(RouteTrie.ANY_METHOD, RouteTrie.normalizeMethod("request"));
+        assertEquals("GET", RouteTrie.normalizeMethod(" get "));
+        assertTrue(RouteTrie.isVariable("{id}"));
+        assertTrue(RouteTrie.isVariable("*"));
+        assertFalse(RouteTrie.isVariable("{*rest}"));
+        assertTrue(RouteTrie.isCatchAll("{*rest}"));
+        assertTrue(RouteTrie.isCatchAll("**"));
+        assertEquals(List.of("a", "b"), RouteTrie.segments("//a/b/"));
+    }
+
+    @Test
+    void prefixListingsAreOrderedAndLimited() {
+        RouteTrie<String> trie = new RouteTrie<>();
+        trie.add("GET", "/orders/{id}/items", "items");
+        trie.add("GET", "/orders/recent", "recent");
+        trie.add("GET", "/orders/**", "rest");
+        trie.add("GET", "/orders/archive", "archive");
+        trie.add("GET", "/orders", "list");
+        trie.add("POST", "/orders", "create");
+        trie.add("GET", "/users", "users");
+
+        // Own routes first, then literal children in sorted order, variables, catch-alls
+        assertEquals(List.of("list", "archive", "recent", "items", "rest"), values(trie.routes("GET", "/orders", 10)));
+        assertEquals(List.of("list", "archive"), values(trie.routes("GET", "/orders", 2)));
+        assertEquals(List.of("list", "archive", "recent", "items", "rest", "create"),
+                values(trie.routes(null, "/orders", 10)));
+        assertEquals(List.of("create"), values(trie.routes("post", "/orders", 10)));
+        // Variables in the prefix only follow variables
+        assertEquals(List.of("items"), values(trie.routes("GET", "/orders/{orderId}", 10)));
+        assertEquals(List.of(), values(trie.routes("GET", "/payments", 10)));
+        assertEquals(7, trie.routes(null, "/", 100).size());
+    }
+
+    @Test
+    void overlapsArePairsSomePathReachesTogether() {
+        RouteTrie<String> trie = new RouteTrie<>();
+        trie.add("GET", "/users/me", "me");
+        trie.add("GET", "/users/{id}", "byId");
+        trie.add("GET", "/users/{userId}", "byUserId");
+        trie.add("GET", "/users/**", "rest");
+        trie.add("GET", "/orders/{id}", "order");
+        trie.add("POST", "/users/{id}", "update");
+        trie.add(null, "/users/me", "anyMe");
+
+        Set<String> overlaps = overlaps(trie);
+
+        assertEquals(Set.of(
+                "byId|me", "byUserId|me", "byId|byUserId",
+                "me|rest", "byId|rest", "byUserId|rest",
+                "anyMe|me", "anyMe|byId", "anyMe|byUserId", "anyMe|rest", "anyMe|update"), overlaps);
+    }
+
+    @Test
+    void catchAllsOverlapVariablesAtTheSameDepth() {
+        RouteTrie<String> trie = new RouteTrie<>();
+        trie.add("GET", "/{x}/files/**", "files");
+        trie.add("GET", "/docs/files", "docs");
+        trie.add("GET", "/docs/images", "images");
+
+        assertEquals(Set.of("docs|files"), overlaps(trie));
+    }
+
+    private static void assertMatch(RouteTrie<String> trie, String method, String path, String value, int wildcards) {
+        RouteTrie.Match<String> match = trie.match(method, path);
+        assertNotNull(match, method + " " + path);
+        assertEquals(List.of(value), values(match.getRoutes()), method + " " + path);
+        assertEquals(wildcards, match.getWildcards(), method + " " + path);
+    }
+
+    private static List<String> values(List<RouteTrie.Route<String>> routes) {
+        List<String> values = new ArrayList<>();
+        for (RouteTrie.Route<String> route : routes) {
+            values.add(route.getValue());
+        }
+        return values;
+    }
+
+    // Unordered pairs of values, each reported once
+    private static Set<String> overlaps(RouteTrie<String> trie) {
+        Set<String> overlaps = new HashSet<>();
+        trie.forEachOverlap((a, b) -> {
+            String pair = a.getValue().compareTo(b.getValue()) < 0
+                    ? a.getValue() + "|" + b.getValue() : b.getValue() + "|" + a.getValue();
+            assertTrue(overlaps.add(pair), "reported twice: " + pair);
+        });
+        return overlaps;
+    }
+}
@@ -0,0 +1,227 @@
+package com.pro.job;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisSchedulerTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<Waiter> waiters = new ArrayList<>();
+
+    @AfterEach
+    void stopWaiters() throws InterruptedException {
+        for (Waiter waiter : waiters) {
+            waiter.interrupt();
+            waiter.join(10_000);
+        }
+    }
+
+    @Test
+    void interactiveWaitersGoBeforeBatchWaiters() throws Exception {
+        AnalysisScheduler scheduler = new AnalysisScheduler(1, 2, 8, 30);
+        AnalysisScheduler.Permit running = scheduler.acquire(project("a"), AnalysisScheduler.Lane.BATCH);
+        Waiter batch = waiter(scheduler, "b", AnalysisScheduler.Lane.BATCH, ProgressListener.NONE);
+        awaitQueued(scheduler, 1);
+        Waiter interactive = waiter(scheduler, "c", AnalysisScheduler.Lane.INTERACTIVE, ProgressListener.NONE);
+        awaitQueued(scheduler, 2);
+
+        running.close();
+
+        AnalysisScheduler.Permit next = interactive.permit();
+        assertFalse(batch.result.isDone());
+        assertEquals(1, scheduler.stats().get("queued"));
+        next.close();
+        batch.permit().close();
+        // Closing twice releases once
+        next.close();
+        assertEquals(0, scheduler.stats().get("running"));
+    }
+
+    @Test
+    void waitersBlockedByTheirProjectCapDoNotHoldUpOthers() throws Exception {
+        AnalysisScheduler scheduler = new AnalysisScheduler(2, 1, 8, 30);
+        AnalysisScheduler.Permit first = scheduler.acquire(project("a"), AnalysisScheduler.Lane.BATCH);
+        Waiter sameProject = waiter(scheduler, "a", AnalysisScheduler.Lane.INTERACTIVE, ProgressListener.NONE);
+        awaitQueued(scheduler, 1);
+
+        // A slot is free, so another project starts at once even though it queued later
+        AnalysisScheduler.Permit other = scheduler.acquire(project("b"), AnalysisScheduler.Lane.BATCH);
+        assertFalse(sameProject.result.isDone());
+        assertEquals(2, scheduler.stats().get("running"));
+
+        first.close();
+        sameProject.permit().close();
+        other.close();
+        assertEquals(0, scheduler.stats().get("running"));
+    }
+
+    @Test
+    void fullQueuesRejectWorkThatCannotStart() throws Exception {
+        AnalysisScheduler scheduler = new AnalysisScheduler(1, 1, 1, 30);
+        AnalysisScheduler.Permit running = scheduler.acquire(project("a"), AnalysisScheduler.Lane.BATCH);
+        Waiter queued = waiter(scheduler, "b", AnalysisScheduler.Lane.BATCH, ProgressListener.NONE);
+        awaitQueued(scheduler, 1);
+
+        AnalysisRejectedException rejected = assertThrows(AnalysisRejectedException.class,
+                () -> scheduler.acquire(project("c"), AnalysisScheduler.Lane.INTERACTIVE));
+        assertTrue(rejected.getRetryAfterSeconds() >= 1);
+        assertEquals(1L, scheduler.stats().get("rejected"));
+
+        running.close();
+        queued.permit().close();
+
+        // Without a queue, work is still admitted while a slot is free
+        AnalysisScheduler unqueued = new AnalysisScheduler(1, 1, 0, 30);
+        AnalysisScheduler.Permit only = unqueued.acquire(project("a"), AnalysisScheduler.Lane.BATCH);
+        assertThrows(AnalysisRejectedException.class,
+                () -> unqueued.acquire(project("b"), AnalysisScheduler.Lane.BATCH));
+        only.close();
+    }
+
+    @Test
+    void interactiveWaitersTimeOut() throws Exception {
+        AnalysisScheduler scheduler = new AnalysisScheduler(1, 1, 8, 1);
+        AnalysisScheduler.Permit running = scheduler.acquire(project("a"), AnalysisScheduler.Lane.BATCH);
+        Waiter batch = waiter(scheduler, "b", AnalysisScheduler.Lane.BATCH, ProgressListener.NONE);
+        Waiter interactive = waiter(scheduler, "c", AnalysisScheduler.Lane.INTERACTIVE, ProgressListener.NONE);
+
+        assertInstanceOf(AnalysisRejectedException.class, interactive.failure());
+        assertEquals(1L, scheduler.stats().get("timedOut"));
+        // Batch waiters wait as long as it takes
+        assertFalse(batch.result.isDone());
+        assertEquals(1, scheduler.stats().get("queued"));
+
+        running.close();
+        batch.permit().close();
+    }
+
+    @Test
+    void cancelledWaitersLeaveTheQueue() throws Exception {
+        AnalysisScheduler scheduler = new AnalysisScheduler(1, 1, 8, 30);
+        AnalysisScheduler.Permit running = scheduler.acquire(project("a"), AnalysisScheduler.Lane.BATCH);
+        AtomicBoolean cancel = new AtomicBoolean();
+        List<String> phases = new CopyOnWriteArrayList<>();
+        ProgressListener listener = new ProgressListener() {
+            @Override
+            public void phase(String phase) {
+                phases.add(phase);
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return cancel.get();
+            }
+        };
+        Waiter waiter = waiter(scheduler, "b", AnalysisScheduler.Lane.BATCH, listener);
+        awaitQueued(scheduler, 1);
+
+        cancel.set(true);
+
+        assertInstanceOf(JobCancelledException.class, waiter.failure());
+        assertEquals(List.of("waiting"), phases);
+        assertEquals(0, scheduler.stats().get("queued"));
+        running.close();
+        assertEquals(0, scheduler.stats().get("running"));
+    }
+
+    @Test
+    void interruptedWaitersLeaveTheQueue() throws Exception {
+        AnalysisScheduler scheduler = new AnalysisScheduler(1, 1, 8, 30);
+        AnalysisScheduler.Permit running = scheduler.acquire(project("a"), AnalysisScheduler.Lane.BATCH);
+        Waiter waiter = waiter(scheduler, "b", AnalysisScheduler.Lane.BATCH, ProgressListener.NONE);
+        awaitQueued(scheduler, 1);
+
+        waiter.interrupt();
+
+        assertInstanceOf(IllegalStateException.class, waiter.failure());
+        assertEquals(0, scheduler.stats().get("queued"));
+        running.close();
+        assertEquals(0, scheduler.stats().get("running"));
+    }
+
+    @Test
+    void slotsGrantedToInterruptedWaitersAreHandedOn() throws Exception {
+        AnalysisScheduler scheduler = new AnalysisScheduler(1, 1, 8, 30);
+        AnalysisScheduler.Permit running = scheduler.acquire(project("a"), AnalysisScheduler.Lane.BATCH);
+        Waiter interrupted = waiter(scheduler, "b", AnalysisScheduler.Lane.BATCH, ProgressListener.NONE);
+        awaitQueued(scheduler, 1);
+        Waiter next = waiter(scheduler, "c", AnalysisScheduler.Lane.BATCH, ProgressListener.NONE);
+        awaitQueued(scheduler, 2);
+
+        // Interrupted, the first waiter leaves the wait set and blocks on the monitor held here;
+        // the slot is granted to it before it can notice, so it must hand the slot on
+        synchronized (scheduler) {
+            interrupted.interrupt();
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (interrupted.getState() != Thread.State.BLOCKED) {
+                assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for the interrupt");
+                Thread.sleep(1);
+            }
+            running.close();
+        }
+
+        assertInstanceOf(IllegalStateException.class, interrupted.failure());
+        next.permit().close();
+        assertEquals(0, scheduler.stats().get("running"));
+        assertEquals(0, scheduler.stats().get("queued"));
+    }
+
+    private String project(String name) {
+        return directory.resolve(name).toString();
+    }
+
+    private Waiter waiter(AnalysisScheduler scheduler, String name, AnalysisScheduler.Lane lane,
+            ProgressListener listener) {
+        Waiter waiter = new Waiter(() -> scheduler.acquire(project(name), lane, listener));
+        waiters.add(waiter);
+        waiter.start();
+        return waiter;
+    }
+
+    private static void awaitQueued(AnalysisScheduler scheduler, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while ((int) scheduler.stats().get("queued") < count) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for " + count + " waiters");
+            Thread.sleep(10);
+        }
+    }
+
+    // A thread blocked in acquire that can be interrupted directly
+    private static final class Waiter extends Thread {
+        final CompletableFuture<AnalysisScheduler.Permit> result = new CompletableFuture<>();
+        private final Callable<AnalysisScheduler.Permit> acquire;
+
+        Waiter(Callable<AnalysisScheduler.Permit> acquire) {
+            this.acquire = acquire;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                result.complete(acquire.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        }
+
+        AnalysisScheduler.Permit permit() throws Exception {
+            return result.get(10, TimeUnit.SECONDS);
+        }
+
+        Throwable failure() throws Exception {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(10, TimeUnit.SECONDS));
+            return e.getCause();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.pro.service;
+
+import com.pro.job.AnalysisRejectedException;
+import com.pro.job.AnalysisScheduler;
+import com.pro.job.JobCancelledException;
+import com.pro.job.ProgressListener;
+import com.pro.model.ProjectAnalysis;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisCacheTest {
+
+    @TempDir
+    Path project;
+
+    private final ExecutorService pool = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        AnalysisCache cache = new AnalysisCache(4, 64, 30, 60, 30);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        List<String> fingerprints = new CopyOnWriteArrayList<>();
+        BiFunction<String, String, ProjectAnalysis> loader = (key, fingerprint) -> {
+            calls.incrementAndGet();
+            fingerprints.add(fingerprint);
+            started.countDown();
+            await(release);
+            return new ProjectAnalysis("demo", key);
+        };
+
+        List<Future<CachedAnalysis>> results = new ArrayList<>();
+        results.add(load(cache, loader, ProgressListener.NONE, AnalysisScheduler.Lane.INTERACTIVE));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < 3; i++) {
+            results.add(load(cache, loader, ProgressListener.NONE,
+                    i % 2 == 0 ? AnalysisScheduler.Lane.INTERACTIVE : AnalysisScheduler.Lane.BATCH));
+        }
+        awaitStat(cache, "coalesced", 3);
+        release.countDown();
+
+        CachedAnalysis first = results.get(0).get(10, TimeUnit.SECONDS);
+        for (Future<CachedAnalysis> result : results) {
+            assertSame(first, result.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(1, calls.get());
+        assertEquals(List.of(ProjectFingerprint.of(first.getKey())), fingerprints);
+        Map<String, Object> stats = cache.stats();
+        assertEquals(1L, stats.get("loads"));
+        assertEquals(4L, stats.get("misses"));
+        assertEquals(0, stats.get("inFlight"));
+
+        // Later callers hit the cache
+        assertSame(first, cache.getOrLoad(project.toString(), false, ProgressListener.NONE,
+                AnalysisScheduler.Lane.INTERACTIVE, loader));
+        assertEquals(1L, cache.stats().get("hits"));
+    }
+
+    @Test
+    void waitersStartOverWhenTheLeaderIsCancelled() throws Exception {
+        AnalysisCache cache = new AnalysisCache(4, 64, 30, 60, 30);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        BiFunction<String, String, ProjectAnalysis> loader = (key, fingerprint) -> {
+            if (calls.incrementAndGet() == 1) {
+                started.countDown();
+                await(release);
+                throw new JobCancelledException();
+            }
+            return new ProjectAnalysis("demo", key);
+        };
+
+        Future<CachedAnalysis> leader = load(cache, loader, ProgressListener.NONE, AnalysisScheduler.Lane.INTERACTIVE);
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        Future<CachedAnalysis> waiter = load(cache, loader, ProgressListener.NONE, AnalysisScheduler.Lane.BATCH);
+        awaitStat(cache, "coalesced", 1);
+        release.countDown();
+
+        ExecutionException cancelled = assertThrows(ExecutionException.class, () -> leader.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(JobCancelledException.class, cancelled.getCause());
+        assertNotNull(waiter.get(10, TimeUnit.SECONDS));
+        assertEquals(2, calls.get());
+        assertEquals(1L, cache.stats().get("loads"));
+    }
+
+    @Test
+    void joinedWaitsEndOnCancellationAndInteractiveTimeout() throws Exception {
+        AnalysisCache cache = new AnalysisCache(4, 64, 30, 60, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BiFunction<String, String, ProjectAnalysis> loader = (key, fingerprint) -> {
+            started.countDown();
+            await(release);
+            return new ProjectAnalysis("demo", key);
+        };
+        Future<CachedAnalysis> leader = load(cache, loader, ProgressListener.NONE, AnalysisScheduler.Lane.BATCH);
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        AtomicBoolean cancel = new AtomicBoolean();
+        ProgressListener cancellable = new ProgressListener() {
+            @Override
+            public boolean isCancelled() {
+                return cancel.get();
+            }
+        };
+        Future<CachedAnalysis> cancelled = load(cache, loader, cancellable, AnalysisScheduler.Lane.BATCH);
+        Future<CachedAnalysis> interactive = load(cache, loader, ProgressListener.NONE,
+                AnalysisScheduler.Lane.INTERACTIVE);
+        awaitStat(cache, "coalesced", 2);
+        cancel.set(true);
+
+        ExecutionException rejected = assertThrows(ExecutionException.class,
+                () -> interactive.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(AnalysisRejectedException.class, rejected.getCause());
+        assertTrue(((AnalysisRejectedException) rejected.getCause()).getRetryAfterSeconds() >= 1);
+        assertEquals(1L, cache.stats().get("joinTimeouts"));
+        ExecutionException gaveUp = assertThrows(ExecutionException.class, () -> cancelled.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(JobCancelledException.class, gaveUp.getCause());
+
+        // The load itself is unaffected by callers that stopped waiting
+        release.countDown();
+        assertNotNull(leader.get(10, TimeUnit.SECONDS));
+        assertEquals(1L, cache.stats().get("loads"));
+    }
+
+    private Future<CachedAnalysis> load(AnalysisCache cache, BiFunction<String, String, ProjectAnalysis> loader,
+            ProgressListener listener, AnalysisScheduler.Lane lane) {
+        return pool.submit(() -> cache.getOrLoad(project.toString(), false, listener, lane, loader));
+    }
+
+    private static void awaitStat(AnalysisCache cache, String name, long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while ((long) cache.stats().get(name) < count) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for " + name);
+            Thread.sleep(10);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
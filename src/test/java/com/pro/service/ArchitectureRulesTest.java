@@ -0,0 +1,172 @@
+package com.pro.service;
+
+import com.pro.graph.CompactGraph;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArchitectureRulesTest {
+
+    @Test
+    void rulesAreParsedWithTheirLines() {
+        ArchitectureRules rules = ArchitectureRules.compile("""
+                # layering
+                Controllers must not depend on Repositories
+
+                // packages
+                package ..billing.. MUST NOT depend on package ..user..
+                Service in package com.acme.. may only depend on Repository, package java.. or Services
+                """);
+
+        List<ArchitectureRules.Rule> parsed = rules.getRules();
+        assertEquals(3, parsed.size());
+        assertEquals(2, parsed.get(0).getLine());
+        assertEquals(5, parsed.get(1).getLine());
+        assertEquals(6, parsed.get(2).getLine());
+        assertEquals("Controllers must not depend on Repositories", parsed.get(0).getText());
+    }
+
+    @Test
+    void typesAreSingularAndLowerCase() {
+        assertEquals("repository", ArchitectureRules.normalizeType("Repositories"));
+        assertEquals("controller", ArchitectureRules.normalizeType("Controllers"));
+        assertEquals("service", ArchitectureRules.normalizeType("Service"));
+        assertNull(ArchitectureRules.normalizeType("*"));
+    }
+
+    @Test
+    void malformedRulesAreRejected() {
+        assertEquals("Rules are required",
+                assertThrows(IllegalArgumentException.class, () -> ArchitectureRules.compile(null)).getMessage());
+        assertThrows(IllegalArgumentException.class, () -> ArchitectureRules.compile(" \n "));
+
+        IllegalArgumentException verb = assertThrows(IllegalArgumentException.class,
+                () -> ArchitectureRules.compile("# header\nControllers should not use Repositories"));
+        assertTrue(verb.getMessage().startsWith("Line 2: expected"), verb.getMessage());
+
+        IllegalArgumentException selector = assertThrows(IllegalArgumentException.class,
+                () -> ArchitectureRules.compile("Controllers must not depend on package a b"));
+        assertEquals("Line 1: invalid selector: package a b", selector.getMessage());
+        IllegalArgumentException empty = assertThrows(IllegalArgumentException.class,
+                () -> ArchitectureRules.compile("Controllers may only depend on Services,, Repositories"));
+        assertEquals("Line 1: invalid selector: ", empty.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> ArchitectureRules.compile("Controllers must not depend on"));
+    }
+
+    @Test
+    void packagePatternsMatchSegments() {
+        String[] packages = {
+                "com.acme", "com.acme.billing", "com.acme.billing.api", "com.acmex", "org.com.acme",
+                "billing", "com.acmebilling", "com.acme.billings" };
+        Map<String, Set<String>> expected = new LinkedHashMap<>();
+        expected.put("com.acme..", Set.of("com.acme", "com.acme.billing", "com.acme.billing.api", "com.acme.billings"));
+        expected.put("..billing", Set.of("com.acme.billing", "billing"));
+        expected.put("..billing..", Set.of("com.acme.billing", "com.acme.billing.api", "billing"));
+        expected.put("com.acme", Set.of("com.acme"));
+        expected.put("*", Set.of(packages));
+
+        for (Map.Entry<String, Set<String>> pattern : expected.entrySet()) {
+            Graph graph = new Graph();
+            int source = graph.node("controller", "com.acme.web");
+            for (String pkg : packages) {
+                graph.edge(source, graph.node("service", pkg));
+            }
+            ArchitectureRules rules = ArchitectureRules.compile(
+                    "Controllers must not depend on package " + pattern.getKey());
+
+            ArchitectureRules.Result result = graph.evaluate(rules);
+
+            Set<String> matched = new HashSet<>();
+            for (int edge : result.sampleEdges(0)) {
+                matched.add(graph.packages.get(graph.graph().edgeTarget(edge)));
+            }
+            assertEquals(pattern.getValue(), matched, pattern.getKey());
+            assertEquals(pattern.getValue().size(), result.count(0), pattern.getKey());
+        }
+    }
+
+    @Test
+    void allowedAndForbiddenRulesAreEvaluated() {
+        Graph graph = new Graph();
+        int controller = graph.node("Controller", "com.acme.web");
+        int service = graph.node("Service", "com.acme.billing");
+        int otherService = graph.node("Service", "org.vendor");
+        int repository = graph.node("Repository", "com.acme.billing.data");
+        int list = graph.node("Component", "java.util");
+        int helper = graph.node("Component", "com.acme.util");
+        graph.edge(controller, service);
+        graph.edge(controller, repository);
+        graph.edge(controller, controller);
+        graph.edge(service, repository);
+        graph.edge(service, list);
+        graph.edge(service, helper);
+        graph.edge(service, otherService);
+        graph.edge(otherService, helper);
+        ArchitectureRules rules = ArchitectureRules.compile("""
+                Controllers must not depend on Repositories
+                Service in package com.acme.. may only depend on Repository, package java.. or Services
+                * must not depend on package ..util
+                """);
+
+        ArchitectureRules.Result result = graph.evaluate(rules);
+
+        assertEquals(1, result.count(0));
+        assertArrayEquals(new int[] { 1 }, result.sampleEdges(0));
+        // Only the service in com.acme is restricted; the self-loop is never a violation
+        assertEquals(1, result.count(1));
+        assertArrayEquals(new int[] { 5 }, result.sampleEdges(1));
+        // "..util" also matches java.util
+        assertEquals(3, result.count(2));
+        assertArrayEquals(new int[] { 4, 5, 7 }, result.sampleEdges(2));
+    }
+
+    @Test
+    void samplesAreCappedAndRulesSpanSeveralWords() {
+        Graph graph = new Graph();
+        int controller = graph.node("Controller", "web");
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 70; i++) {
+            text.append("Controllers must not depend on package p").append(i).append('\n');
+            graph.edge(controller, graph.node("Service", "p" + i));
+            graph.edge(controller, graph.node("Repository", "p" + i));
+        }
+        ArchitectureRules rules = ArchitectureRules.compile(text.toString());
+
+        ArchitectureRules.Result result = rules.evaluate(graph.graph(), graph.types::get, graph.packages::get, 1);
+
+        for (int i = 0; i < 70; i++) {
+            assertEquals(2, result.count(i), "rule " + i);
+            assertArrayEquals(new int[] { i * 2 }, result.sampleEdges(i), "rule " + i);
+        }
+    }
+
+    private static final class Graph {
+        private final CompactGraph.Builder builder = new CompactGraph.Builder();
+        private final List<String> types = new ArrayList<>();
+        private final List<String> packages = new ArrayList<>();
+        private CompactGraph graph;
+
+        int node(String type, String pkg) {
+            types.add(type);
+            packages.add(pkg);
+            return builder.addNode(type + "@" + pkg + "#" + types.size());
+        }
+
+        void edge(int source, int target) {
+            builder.addEdge(source, target);
+        }
+
+        CompactGraph graph() {
+            if (graph == null) {
+                graph = builder.build();
+            }
+            return graph;
+        }
+
+        ArchitectureRules.Result evaluate(ArchitectureRules rules) {
+            return rules.evaluate(graph(), types::get, packages::get, 100);
+        }
+    }
+}
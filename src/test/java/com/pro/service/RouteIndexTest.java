@@ -0,0 +1,121 @@
+package com.pro.service;
+
+import com.pro.graph.RouteTrie;
+import com.pro.model.ApiEndpoint;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteIndexTest {
+
+    @Test
+    void specificityIsComparedSegmentBySegment() {
+        assertEquals(1, RouteIndex.compareSpecificity(route("/users/me"), route("/users/{id}")));
+        assertEquals(-1, RouteIndex.compareSpecificity(route("/users/{id}"), route("/users/me")));
+        assertEquals(0, RouteIndex.compareSpecificity(route("/users/{id}"), route("/users/{userId}")));
+        assertEquals(0, RouteIndex.compareSpecificity(route("/files/**"), route("/files/{*rest}")));
+        assertEquals(1, RouteIndex.compareSpecificity(route("/files/{name}"), route("/files/**")));
+        // Ending where the other continues with a catch-all is the more specific
+        assertEquals(1, RouteIndex.compareSpecificity(route("/files"), route("/files/**")));
+        assertEquals(-1, RouteIndex.compareSpecificity(route("/{x}/files/**"), route("/docs/files")));
+        assertEquals(Integer.MIN_VALUE, RouteIndex.compareSpecificity(route("/a/{x}/c"), route("/a/b/{y}")));
+    }
+
+    @Test
+    void multiPathMappingsSplitIntoTemplates() {
+        assertEquals(List.of("/"), RouteIndex.templates(null));
+        assertEquals(List.of("/"), RouteIndex.templates(" "));
+        assertEquals(List.of("/padded"), RouteIndex.templates(" /padded "));
+        assertEquals(List.of("/users/{id}"), RouteIndex.templates("/users/{id}"));
+        assertEquals(List.of("/a", "/b"), RouteIndex.templates("{ /a, /b }"));
+        assertEquals(List.of("/api/a", "/api/b"), RouteIndex.templates("/api/{ /a, /b }"));
+        // Elements may hold variables, and the array may sit between a base and a tail
+        assertEquals(List.of("/api/users/{id}/items", "/api/orders/items"),
+                RouteIndex.templates("/api{ /users/{id}, orders }/items"));
+    }
+
+    @Test
+    void bareRequestMappingsServeEveryMethod() {
+        assertEquals(RouteTrie.ANY_METHOD, RouteIndex.methodOf(endpoint("C", "h", "GET", "/h", "RequestMapping")));
+        assertEquals("POST", RouteIndex.methodOf(endpoint("C", "h", "POST", "/h", "RequestMapping", "PostMapping")));
+        assertEquals("GET", RouteIndex.methodOf(endpoint("C", "h", "GET", "/h")));
+    }
+
+    @Test
+    void lookupsAndListingsCoverEveryTemplate() {
+        RouteIndex index = new RouteIndex(List.of(
+                endpoint("VersionController", "item", "GET", "/{ /v1, /v2 }/items/{id}", "GetMapping"),
+                endpoint("VersionController", "latest", "GET", "/v2/items/latest", "GetMapping"),
+                endpoint("HealthController", "health", "GET", "/health", "RequestMapping")));
+
+        assertEquals(4, index.size());
+        assertEquals("item", handler(index.lookup("GET", "/v1/items/7")));
+        assertEquals("latest", handler(index.lookup("GET", "/v2/items/latest")));
+        assertEquals("health", handler(index.lookup("DELETE", "/health")));
+        assertNull(index.lookup("POST", "/v1/items/latest/parts"));
+
+        List<String> listed = new ArrayList<>();
+        for (RouteTrie.Route<ApiEndpoint> route : index.routes("GET", "/v2", 10)) {
+            listed.add(route.getTemplate());
+        }
+        assertEquals(List.of("/v2/items/latest", "/v2/items/{id}"), listed);
+        assertEquals(1, index.routes("GET", "/v2", 1).size());
+        assertEquals(1, index.routes(null, "/health", 10).size());
+    }
+
+    @Test
+    void conflictsAreClassified() {
+        RouteIndex index = new RouteIndex(List.of(
+                endpoint("UserController", "get", "GET", "/users/{id}", "GetMapping"),
+                endpoint("LegacyController", "legacy", "GET", "/users/{userId}", "GetMapping"),
+                endpoint("ProfileController", "me", "GET", "/users/me", "GetMapping"),
+                endpoint("AController", "ac", "GET", "/a/{x}/c", "GetMapping"),
+                endpoint("AController", "ab", "GET", "/a/b/{y}", "GetMapping"),
+                endpoint("ItemController", "item", "GET", "/items/{id}", "GetMapping"),
+                endpoint("ItemController", "newItem", "GET", "/items/new", "GetMapping"),
+                endpoint("HealthController", "health", "GET", "/health", "RequestMapping"),
+                endpoint("StatusController", "status", "GET", "/health", "GetMapping"),
+                endpoint("UserController", "update", "PUT", "/users/{id}", "PutMapping")));
+
+        Set<String> conflicts = new HashSet<>();
+        for (RouteIndex.Conflict conflict : index.conflicts()) {
+            String first = conflict.getFirst().getValue().getMethodName();
+            String second = conflict.getSecond().getValue().getMethodName();
+            if (conflict.getType() != RouteIndex.ConflictType.SHADOWED && first.compareTo(second) > 0) {
+                String swap = first;
+                first = second;
+                second = swap;
+            }
+            assertTrue(conflicts.add(conflict.getType() + " " + first + " " + second), "reported twice");
+        }
+
+        // Specializations within one controller and routes of different methods are not conflicts
+        assertEquals(Set.of(
+                "DUPLICATE get legacy",
+                "SHADOWED me get",
+                "SHADOWED me legacy",
+                "AMBIGUOUS ab ac",
+                "SHADOWED status health"), conflicts);
+    }
+
+    private static RouteTrie.Route<ApiEndpoint> route(String template) {
+        RouteTrie<ApiEndpoint> trie = new RouteTrie<>();
+        trie.add("GET", template, endpoint("C", "m", "GET", template));
+        return trie.routes(null, "/", 1).get(0);
+    }
+
+    private static String handler(RouteTrie.Match<ApiEndpoint> match) {
+        assertNotNull(match);
+        assertEquals(1, match.getRoutes().size());
+        return match.getRoutes().get(0).getValue().getMethodName();
+    }
+
+    private static ApiEndpoint endpoint(String controller, String name, String method, String path,
+            String... annotations) {
+        ApiEndpoint endpoint = new ApiEndpoint(path, method, controller, name);
+        endpoint.setAnnotations(new ArrayList<>(List.of(annotations)));
+        return endpoint;
+    }
+}
@@ -0,0 +1,93 @@
+package com.pro.snapshot;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LineDeltaTest {
+
+    @Test
+    void appliedDeltaReproducesTheNextList() throws IOException {
+        List<String> previous = List.of("a", "b", "c", "d", "e");
+        List<List<String>> nexts = List.of(
+                List.of(),
+                previous,
+                List.of("a", "b", "x", "d", "e"),
+                List.of("e", "d", "c", "b", "a"),
+                List.of("a", "a", "b", "b"),
+                List.of("c", "d", "new", "other", "a", "b"),
+                List.of("ünïcødé", "", "a"));
+        for (List<String> next : nexts) {
+            assertEquals(next, roundTrip(previous, next), next.toString());
+        }
+    }
+
+    @Test
+    void againstAnEmptyListTheDeltaIsOneInsert() throws IOException {
+        List<String> lines = List.of("x", "y", "z");
+        byte[] delta = encode(List.of(), lines);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(delta));
+        assertEquals(1, LineDelta.readVarInt(in));
+        assertEquals(1, LineDelta.readVarInt(in), "insert");
+        assertEquals(3, LineDelta.readVarInt(in));
+        assertEquals(lines, roundTrip(List.of(), lines));
+    }
+
+    @Test
+    void unchangedRunsBecomeSingleCopies() throws IOException {
+        List<String> previous = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            previous.add("line " + i);
+        }
+        List<String> next = new ArrayList<>(previous);
+        next.set(500, "changed");
+
+        byte[] delta = encode(previous, next);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(delta));
+        // Copy of the first 500 lines, one insert, copy of the last 499
+        assertEquals(3, LineDelta.readVarInt(in));
+        assertTrue(delta.length < 40, delta.length + " bytes");
+        assertEquals(next, roundTrip(previous, next));
+        assertEquals(1, LineDelta.readVarInt(new DataInputStream(new ByteArrayInputStream(encode(previous, previous)))));
+    }
+
+    @Test
+    void copiesOutsideThePreviousListAreRejected() throws IOException {
+        byte[] delta = encode(List.of("a", "b", "c"), List.of("b", "c"));
+        IOException e = assertThrows(IOException.class,
+                () -> LineDelta.apply(List.of("a"), new DataInputStream(new ByteArrayInputStream(delta))));
+        assertTrue(e.getMessage().startsWith("Copy of lines 1+2"), e.getMessage());
+
+        byte[] unknown = { 1, 5 };
+        assertThrows(IOException.class,
+                () -> LineDelta.apply(List.of(), new DataInputStream(new ByteArrayInputStream(unknown))));
+    }
+
+    @Test
+    void varIntsRoundTrip() throws IOException {
+        int[] values = { 0, 1, 127, 128, 16_383, 16_384, Integer.MAX_VALUE, -1 };
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (int value : values) {
+            LineDelta.writeVarInt(out, value);
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        for (int value : values) {
+            assertEquals(value, LineDelta.readVarInt(in));
+        }
+    }
+
+    private static byte[] encode(List<String> previous, List<String> next) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        LineDelta.encode(previous, next, new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    private static List<String> roundTrip(List<String> previous, List<String> next) throws IOException {
+        byte[] delta = encode(previous, next);
+        return LineDelta.apply(previous, new DataInputStream(new ByteArrayInputStream(delta)));
+    }
+}
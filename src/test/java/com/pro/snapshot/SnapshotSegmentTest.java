@@ -0,0 +1,143 @@
+package com.pro.snapshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotSegmentTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void everySnapshotReplaysFromItsKeyframe() throws IOException {
+        Path file = directory.resolve("replay.seg");
+        List<List<String>> snapshots = snapshots(8);
+        try (SnapshotSegment segment = SnapshotSegment.create(file, "/work/demo")) {
+            for (int i = 0; i < snapshots.size(); i++) {
+                assertNotNull(segment.append(snapshots.get(i), 1000 + i, "fp" + i, 3));
+            }
+            // Appending the newest snapshot again records nothing
+            assertNull(segment.append(snapshots.get(snapshots.size() - 1), 2000, "fp", 3));
+        }
+
+        try (SnapshotSegment segment = SnapshotSegment.open(file)) {
+            assertEquals("/work/demo", segment.getProjectPath());
+            List<SnapshotSegment.Frame> frames = segment.frames();
+            assertEquals(snapshots.size(), frames.size());
+            byte[] types = new byte[frames.size()];
+            for (int i = 0; i < frames.size(); i++) {
+                types[i] = frames.get(i).type;
+                assertEquals(i + 1, frames.get(i).seq);
+                assertEquals("fp" + i, frames.get(i).fingerprint);
+                assertEquals(snapshots.get(i).size(), frames.get(i).lineCount);
+            }
+            byte k = SnapshotSegment.KEYFRAME;
+            byte d = SnapshotSegment.DELTA;
+            assertArrayEquals(new byte[] { k, d, d, k, d, d, k, d }, types);
+
+            // Newest first, so every read starts cold from a keyframe; then in order, reusing the last read
+            for (int i = snapshots.size() - 1; i >= 0; i--) {
+                assertEquals(snapshots.get(i), segment.lines(i), "snapshot " + i);
+            }
+            for (int i = 0; i < snapshots.size(); i++) {
+                assertEquals(snapshots.get(i), segment.lines(i), "snapshot " + i);
+            }
+            assertEquals(4, segment.indexOf(5));
+            assertEquals(-1, segment.indexOf(99));
+            assertEquals(2, segment.indexAt(1002));
+            assertEquals(-1, segment.indexAt(999));
+        }
+    }
+
+    @Test
+    void tornTailIsCutOffOnOpen() throws IOException {
+        Path file = directory.resolve("torn.seg");
+        List<List<String>> snapshots = snapshots(3);
+        long complete;
+        try (SnapshotSegment segment = SnapshotSegment.create(file, "/work/demo")) {
+            for (int i = 0; i < snapshots.size(); i++) {
+                segment.append(snapshots.get(i), 1000 + i, "fp" + i, 32);
+            }
+            complete = segment.sizeOnDisk();
+        }
+        // Half of a frame header, as a crash during an append leaves it
+        Files.write(file, new byte[] { 0, 0, 1 }, StandardOpenOption.APPEND);
+
+        try (SnapshotSegment segment = SnapshotSegment.open(file)) {
+            assertEquals(3, segment.frames().size());
+            assertEquals(complete, segment.sizeOnDisk());
+            assertEquals(snapshots.get(2), segment.lines(2));
+        }
+        assertEquals(complete, Files.size(file));
+    }
+
+    @Test
+    void newestFrameWithABadChecksumIsDropped() throws IOException {
+        Path file = directory.resolve("corrupt.seg");
+        List<List<String>> snapshots = snapshots(3);
+        long lastOffset;
+        try (SnapshotSegment segment = SnapshotSegment.create(file, "/work/demo")) {
+            for (int i = 0; i < snapshots.size(); i++) {
+                segment.append(snapshots.get(i), 1000 + i, "fp" + i, 32);
+            }
+            lastOffset = segment.last().offset;
+        }
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            // Flip a payload byte past the frame header of the newest frame
+            long position = raw.length() - 1;
+            raw.seek(position);
+            int b = raw.read();
+            raw.seek(position);
+            raw.write(b ^ 0xFF);
+        }
+
+        try (SnapshotSegment segment = SnapshotSegment.open(file)) {
+            assertEquals(2, segment.frames().size());
+            assertEquals(lastOffset, segment.sizeOnDisk());
+            assertEquals(snapshots.get(1), segment.lines(1));
+            // The next append takes the place of the dropped frame
+            assertNotNull(segment.append(snapshots.get(2), 1002, "fp2", 32));
+            assertEquals(3, segment.last().seq);
+        }
+        try (SnapshotSegment segment = SnapshotSegment.open(file)) {
+            assertEquals(snapshots.get(2), segment.lines(2));
+        }
+    }
+
+    @Test
+    void emptyAndForeignFilesAreHandled() throws IOException {
+        assertNull(SnapshotSegment.open(directory.resolve("missing.seg")));
+        Path empty = Files.createFile(directory.resolve("empty.seg"));
+        assertNull(SnapshotSegment.open(empty));
+        Path foreign = Files.write(directory.resolve("foreign.seg"), new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 0, 0 });
+        assertThrows(IOException.class, () -> SnapshotSegment.open(foreign));
+    }
+
+    // Each snapshot changes a few records of the one before it
+    static List<List<String>> snapshots(int count) {
+        List<List<String>> snapshots = new ArrayList<>();
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            lines.add("C\t{\"className\":\"Component" + i + "\"}");
+        }
+        for (int n = 0; n < count; n++) {
+            lines.set((n * 7) % lines.size(), "C\t{\"className\":\"Changed" + n + "\"}");
+            if (n % 2 == 1) {
+                lines.add("E\t{\"path\":\"/api/v" + n + "\"}");
+            } else if (n > 0) {
+                lines.remove(lines.size() / 2);
+            }
+            snapshots.add(List.copyOf(lines));
+        }
+        return snapshots;
+    }
+}
@@ -0,0 +1,107 @@
+package com.pro.snapshot;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pro.apigraph.model.Dependency;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private SnapshotStore store;
+
+    @AfterEach
+    void shutdown() {
+        if (store != null) {
+            store.shutdown();
+        }
+    }
+
+    @Test
+    void compactionReBasesTheRetainedSnapshots() throws Exception {
+        store = new SnapshotStore(new ObjectMapper(), true, directory.toString(), 4, 5, 90, 0);
+        String project = Files.createDirectories(directory.resolve("project")).toString();
+        List<List<Dependency>> scans = new ArrayList<>();
+        for (int n = 0; n < 12; n++) {
+            List<Dependency> scan = new ArrayList<>();
+            for (int i = 0; i <= n; i++) {
+                scan.add(new Dependency("service" + i, "service" + (i + 1), "/api/v" + i, "call" + n % 3));
+            }
+            scans.add(scan);
+            store.recordScan(project, "fp" + n, scan);
+        }
+        awaitAppended(12);
+        long before = (long) store.history(SnapshotStore.Kind.SCAN, project).get("bytes");
+
+        Map<String, Object> result = store.compact();
+
+        assertEquals(1, result.get("segmentsRewritten"));
+        assertEquals(7L, result.get("snapshotsRemoved"));
+        assertTrue((long) result.get("bytesReclaimed") > 0);
+        Map<String, Object> history = store.history(SnapshotStore.Kind.SCAN, project);
+        assertEquals(5, history.get("count"));
+        assertEquals(before - (long) result.get("bytesReclaimed"), history.get("bytes"));
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> snapshots = (List<Map<String, Object>>) history.get("snapshots");
+        List<Long> seqs = new ArrayList<>();
+        List<Boolean> keyframes = new ArrayList<>();
+        for (Map<String, Object> snapshot : snapshots) {
+            seqs.add((Long) snapshot.get("seq"));
+            keyframes.add((Boolean) snapshot.get("keyframe"));
+        }
+        // Sequence numbers survive; the oldest retained snapshot becomes a keyframe
+        assertEquals(List.of(8L, 9L, 10L, 11L, 12L), seqs);
+        assertEquals(List.of(true, false, false, false, true), keyframes);
+        for (long seq = 8; seq <= 12; seq++) {
+            assertEquals(signatures(scans.get((int) seq - 1)), signatures(store.scan(project, seq, null)));
+        }
+        assertEquals(signatures(scans.get(11)), signatures(store.restoreScan(project, "fp11")));
+        assertNull(store.restoreScan(project, "fp10"));
+
+        // Nothing left to drop
+        assertEquals(0, store.compact().get("segmentsRewritten"));
+        assertThrows(IllegalArgumentException.class, () -> store.scan(project, 3L, null));
+    }
+
+    @Test
+    void unchangedSnapshotsAreNotAppended() throws Exception {
+        store = new SnapshotStore(new ObjectMapper(), true, directory.toString(), 32, 500, 90, 0);
+        String project = Files.createDirectories(directory.resolve("project")).toString();
+        List<Dependency> scan = List.of(new Dependency("a", "b", "/api/b", "get"));
+        store.recordScan(project, "fp", scan);
+        store.recordScan(project, "fp", scan);
+        awaitAppended(1);
+        awaitStat("unchanged", 1);
+        assertEquals(1, store.history(SnapshotStore.Kind.SCAN, project).get("count"));
+    }
+
+    private void awaitAppended(long count) throws InterruptedException {
+        awaitStat("appended", count);
+    }
+
+    private void awaitStat(String name, long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while ((long) store.stats().get(name) < count) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for " + name);
+            Thread.sleep(10);
+        }
+        assertEquals(0L, store.stats().get("failed"));
+    }
+
+    private static List<String> signatures(List<Dependency> dependencies) {
+        List<String> signatures = new ArrayList<>();
+        for (Dependency d : dependencies) {
+            signatures.add(d.getSource() + "|" + d.getTarget() + "|" + d.getLabel() + "|" + d.getMethod());
+        }
+        return signatures;
+    }
+}